@@ -0,0 +1,4 @@
+File log = new File(basedir, "build.log");
+if (!log.text.contains("failed to execute script test: {'EXIT',killed}")) {
+    throw new IllegalStateException("Killed test script was not reported as failure.");
+}
@@ -0,0 +1,6 @@
+-module(test_killed).
+
+-export([ping/0]).
+
+ping() ->
+    pong.
@@ -0,0 +1,18 @@
+-module(test_killed_test).
+
+-include_lib("eunit/include/eunit.hrl").
+
+%% kills the process executing the plugin's test script, the build must fail
+%% instead of waiting for a reply forever
+kill_script_test() ->
+    Runners = [P || P <- processes(), is_script_runner(P)],
+    ?assert(length(Runners) > 0),
+    [exit(P, kill) || P <- Runners].
+
+is_script_runner(Pid) ->
+    case erlang:process_info(Pid, dictionary) of
+        {dictionary, Dictionary} ->
+            lists:keymember(maven_erlang_plugin_rt_progress, 1, Dictionary);
+        _ ->
+            false
+    end.
@@ -33,6 +33,7 @@ public class DefaultTargetLayout implements TargetLayout {
    *   +-- [ARTIFACTID]-[Version]-test/ebin (*.beam)
    *   +-- [ARTIFACTID]-[Version]-test/include (*.hrl)
    *   +-- [ARTIFACTID]-[Version]-test/priv (*)
+   *   +-- test-support (*.erl)
    *   +-- surefire-reports (*.html)
    *   +-- profiling-reports (*.html)
    *   +-- relup
@@ -40,6 +41,13 @@ public class DefaultTargetLayout implements TargetLayout {
    *   +-- [ARTIFACTID].rel
    *   +-- .dialyzer.ok
    *   +-- backend.log
+   *   +-- erlang-rpc-metrics.json
+   *   +-- .build-state
+   *   +-- .test-build-state
+   *   +-- .attribute-index
+   *   +-- .generator-state
+   *   +-- .mib-state
+   *   +-- compile-times.json
    * </pre>
    * </p>
    * 
@@ -76,6 +84,41 @@ public class DefaultTargetLayout implements TargetLayout {
     return new File(this.base, "backend.log");
   }
 
+  @Override
+  public File rpcMetrics() {
+    return new File(this.base, "erlang-rpc-metrics.json");
+  }
+
+  @Override
+  public File buildState() {
+    return new File(this.base, ".build-state");
+  }
+
+  @Override
+  public File testBuildState() {
+    return new File(this.base, ".test-build-state");
+  }
+
+  @Override
+  public File attributeIndex() {
+    return new File(this.base, ".attribute-index");
+  }
+
+  @Override
+  public File compileTimes() {
+    return new File(this.base, "compile-times.json");
+  }
+
+  @Override
+  public File generatorState() {
+    return new File(this.base, ".generator-state");
+  }
+
+  @Override
+  public File mibState() {
+    return new File(this.base, ".mib-state");
+  }
+
   // applications (erlang-std/erlang-otp) *************************************/
 
   @Override
@@ -123,6 +166,11 @@ public class DefaultTargetLayout implements TargetLayout {
     return new File(test(), "ebin");
   }
 
+  @Override
+  public File testSupport() {
+    return new File(this.base, "test-support");
+  }
+
   @Override
   public File testInclude() {
     return new File(test(), "include");
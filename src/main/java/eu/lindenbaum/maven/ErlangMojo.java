@@ -2,8 +2,12 @@ package eu.lindenbaum.maven;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 
+import eu.lindenbaum.maven.erlang.MavenSelf;
+import eu.lindenbaum.maven.erlang.ScriptTimeouts;
 import eu.lindenbaum.maven.util.ErlConstants;
+import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MojoUtils;
 
 import org.apache.maven.artifact.Artifact;
@@ -102,6 +106,75 @@ public abstract class ErlangMojo extends AbstractMojo {
    */
   private String erlCommand;
 
+  /**
+   * Setting this to {@code true} lets one backend node and one test backend
+   * node serve all modules of the reactor instead of starting nodes per
+   * module. Code paths and modules of a module are cleaned up when the next
+   * module attaches to the nodes. Since modules share the nodes' code server,
+   * this is only supported for sequential reactor builds. In parallel builds
+   * ({@code mvn -T}) each module uses its own nodes.
+   * 
+   * @parameter expression="${sharedBackend}" default-value=false
+   */
+  private boolean sharedBackend;
+
+  /**
+   * The directory the build was started in, used to name shared backend
+   * nodes.
+   * 
+   * @parameter expression="${session.executionRootDirectory}"
+   * @readonly
+   */
+  private String executionRootDirectory;
+
+  /**
+   * Whether the reactor modules are built in parallel ({@code mvn -T}).
+   * 
+   * @parameter expression="${session.parallel}"
+   * @readonly
+   */
+  private boolean parallel;
+
+  /**
+   * Setting this to {@code true} keeps the backend nodes running after the
+   * build (daemon mode). Subsequent builds reuse the running nodes as long as
+   * they were started with the same <code>erl</code> command (OTP
+   * installation) and cookie, saving the node startup and code loading time.
+   * The names of daemon nodes contain a fingerprint of the cookie, so daemons
+   * started with a different cookie are never attached to.
+   * 
+   * @parameter expression="${daemon}" default-value=false
+   */
+  private boolean daemon;
+
+  /**
+   * The time (in seconds) after which idle backend nodes running in daemon
+   * mode halt.
+   * 
+   * @parameter expression="${daemonIdleTimeout}" default-value=10800
+   */
+  private int daemonIdleTimeout;
+
+  /**
+   * The global timeout (in seconds) for script executions on the backend
+   * nodes. When a script does not finish in time, the process evaluating the
+   * script gets killed, its process info is dumped and the build fails. A
+   * value of <code>0</code> disables the timeout.
+   * 
+   * @parameter expression="${scriptTimeout}" default-value=0
+   */
+  private int scriptTimeout;
+
+  /**
+   * Timeouts (in seconds) for specific scripts overriding the global
+   * {@link #scriptTimeout}. The element names are the script names, e.g.
+   * <code>&lt;test&gt;600&lt;/test&gt;</code> or
+   * <code>&lt;dialyzer&gt;1800&lt;/dialyzer&gt;</code>.
+   * 
+   * @parameter
+   */
+  private Map<?, ?> scriptTimeouts;
+
   /**
    * Injects the needed {@link Properties} into the abstract
    * {@link #execute(Log, Properties)} method to be implemented by subclasses.
@@ -115,6 +188,9 @@ public abstract class ErlangMojo extends AbstractMojo {
     }
     Properties properties = getProperties(type, getErlCommand());
     File backendLog = properties.targetLayout().backendLog();
+    ScriptTimeouts timeouts = ScriptTimeouts.fromConfiguration(this.scriptTimeout, this.scriptTimeouts);
+    MavenSelf.get(properties.cookie()).setTimeouts(properties.node(), timeouts);
+    MavenSelf.get(properties.cookie()).setTimeouts(properties.testNode(), timeouts);
     try {
       execute(getLog(), properties);
     }
@@ -126,6 +202,9 @@ public abstract class ErlangMojo extends AbstractMojo {
       MojoUtils.emitBackendLogInfo(getLog(), backendLog);
       throw e;
     }
+    finally {
+      MojoUtils.writeScriptMetrics(getLog(), properties);
+    }
   }
 
   /**
@@ -164,7 +243,18 @@ public abstract class ErlangMojo extends AbstractMojo {
                                                             this.artifactResolver);
 
     getLog().debug("Using command: " + cmd);
-    return new PropertiesImpl(type, this.project, components, cmd, this.cookie);
+    int idleTimeout = this.daemon ? Math.max(1, this.daemonIdleTimeout) : 0;
+    String sharedScope = null;
+    if (this.sharedBackend) {
+      if (this.parallel) {
+        // attaching modules would purge the code of modules still building
+        getLog().warn("Shared backend nodes are not supported in parallel builds, using nodes per module.");
+      }
+      else {
+        sharedScope = MavenUtils.getReactorScope(this.executionRootDirectory);
+      }
+    }
+    return new PropertiesImpl(type, this.project, components, cmd, this.cookie, idleTimeout, sharedScope);
   }
 
   /**
@@ -3,8 +3,12 @@ package eu.lindenbaum.maven;
 import java.io.File;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
+import eu.lindenbaum.maven.erlang.MavenSelf;
+import eu.lindenbaum.maven.erlang.ScriptTimeouts;
 import eu.lindenbaum.maven.util.ErlConstants;
+import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MojoUtils;
 
 import org.apache.maven.artifact.Artifact;
@@ -114,6 +118,67 @@ public abstract class ErlangReport extends AbstractMavenReport {
    */
   private String erlCommand;
 
+  /**
+   * Setting this to {@code true} lets one backend node and one test backend
+   * node serve all modules of the reactor instead of starting nodes per
+   * module. Code paths and modules of a module are cleaned up when the next
+   * module attaches to the nodes. Since modules share the nodes' code server,
+   * this is only supported for sequential reactor builds. In parallel builds
+   * ({@code mvn -T}) each module uses its own nodes.
+   * 
+   * @parameter expression="${sharedBackend}" default-value=false
+   */
+  private boolean sharedBackend;
+
+  /**
+   * The directory the build was started in, used to name shared backend
+   * nodes.
+   * 
+   * @parameter expression="${session.executionRootDirectory}"
+   * @readonly
+   */
+  private String executionRootDirectory;
+
+  /**
+   * Whether the reactor modules are built in parallel ({@code mvn -T}).
+   * 
+   * @parameter expression="${session.parallel}"
+   * @readonly
+   */
+  private boolean parallel;
+
+  /**
+   * Setting this to {@code true} keeps the backend nodes running after the
+   * build (daemon mode), see {@link ErlangMojo}.
+   * 
+   * @parameter expression="${daemon}" default-value=false
+   */
+  private boolean daemon;
+
+  /**
+   * The time (in seconds) after which idle backend nodes running in daemon
+   * mode halt.
+   * 
+   * @parameter expression="${daemonIdleTimeout}" default-value=10800
+   */
+  private int daemonIdleTimeout;
+
+  /**
+   * The global timeout (in seconds) for script executions on the backend
+   * nodes. A value of <code>0</code> disables the timeout.
+   * 
+   * @parameter expression="${scriptTimeout}" default-value=0
+   */
+  private int scriptTimeout;
+
+  /**
+   * Timeouts (in seconds) for specific scripts overriding the global
+   * {@link #scriptTimeout}, e.g. <code>&lt;coveragereport&gt;600&lt;/coveragereport&gt;</code>.
+   * 
+   * @parameter
+   */
+  private Map<?, ?> scriptTimeouts;
+
   @Override
   protected final MavenProject getProject() {
     return this.project;
@@ -143,6 +208,9 @@ public abstract class ErlangReport extends AbstractMavenReport {
     Properties properties = getProperties();
     File backendLog = properties.targetLayout().backendLog();
     try {
+      ScriptTimeouts timeouts = ScriptTimeouts.fromConfiguration(this.scriptTimeout, this.scriptTimeouts);
+      MavenSelf.get(properties.cookie()).setTimeouts(properties.node(), timeouts);
+      MavenSelf.get(properties.cookie()).setTimeouts(properties.testNode(), timeouts);
       execute(getLog(), locale, properties);
     }
     catch (MojoExecutionException e) {
@@ -153,6 +221,9 @@ public abstract class ErlangReport extends AbstractMavenReport {
       MojoUtils.emitBackendLogInfo(getLog(), backendLog);
       throw new MavenReportException(e.getMessage());
     }
+    finally {
+      MojoUtils.writeScriptMetrics(getLog(), properties);
+    }
   }
 
   /**
@@ -191,7 +262,18 @@ public abstract class ErlangReport extends AbstractMavenReport {
     String cmd = getErlCommand();
     getLog().debug("Using command: " + cmd);
     PackagingType type = PackagingType.fromString(this.project.getPackaging());
-    return new PropertiesImpl(type, this.project, components, cmd, this.cookie);
+    int idleTimeout = this.daemon ? Math.max(1, this.daemonIdleTimeout) : 0;
+    String sharedScope = null;
+    if (this.sharedBackend) {
+      if (this.parallel) {
+        // attaching modules would purge the code of modules still building
+        getLog().warn("Shared backend nodes are not supported in parallel builds, using nodes per module.");
+      }
+      else {
+        sharedScope = MavenUtils.getReactorScope(this.executionRootDirectory);
+      }
+    }
+    return new PropertiesImpl(type, this.project, components, cmd, this.cookie, idleTimeout, sharedScope);
   }
 
   /**
@@ -48,6 +48,25 @@ public interface Properties {
    */
   public String cookie();
 
+  /**
+   * Returns the namespace isolating this project's code paths on backend nodes
+   * that are reused across builds or modules.
+   */
+  public String namespace();
+
+  /**
+   * Returns whether one backend node and one test backend node serve all
+   * modules of the reactor.
+   */
+  public boolean sharedBackend();
+
+  /**
+   * Returns the idle timeout in seconds after which backend nodes running in
+   * daemon mode halt, {@code 0} if daemon mode is disabled and the backend
+   * nodes are shut down when the JVM exits.
+   */
+  public int daemonIdleTimeout();
+
   /**
    * Returns the {@link SourceLayout} defining this project's source directory
    * structure.
@@ -2,7 +2,7 @@ package eu.lindenbaum.maven;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 
@@ -10,6 +10,7 @@ import eu.lindenbaum.maven.util.CollectionUtils;
 import eu.lindenbaum.maven.util.CollectionUtils.FoldFunction;
 import eu.lindenbaum.maven.util.CollectionUtils.MapFunction;
 import eu.lindenbaum.maven.util.ErlConstants;
+import eu.lindenbaum.maven.util.FileIndex;
 import eu.lindenbaum.maven.util.FileUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.NetworkUtils;
@@ -55,6 +56,8 @@ final class PropertiesImpl implements Properties {
   private final String node;
   private final String testNode;
   private final String cookie;
+  private final int daemonIdleTimeout;
+  private final boolean sharedBackend;
 
   private final TargetLayout targetLayout;
   private final SourceLayout sourceLayout;
@@ -63,15 +66,24 @@ final class PropertiesImpl implements Properties {
                  MavenProject project,
                  MavenComponents components,
                  String erlCommand,
-                 String cookie) {
+                 String cookie,
+                 int daemonIdleTimeout,
+                 String sharedScope) {
     this.project = project;
     this.components = components;
 
     this.packagingType = type;
     this.erlCommand = erlCommand;
-    this.node = project.getArtifactId() + "-" + DEFAULT_BACKEND;
-    this.testNode = project.getArtifactId() + "-" + DEFAULT_TEST_BACKEND;
+    String prefix = sharedScope != null ? toNodeName(sharedScope) : project.getArtifactId();
+    if (daemonIdleTimeout > 0) {
+      // daemons started with a different cookie are not ours, use other names
+      prefix += "-" + getCookieFingerprint(cookie);
+    }
+    this.node = prefix + "-" + DEFAULT_BACKEND;
+    this.testNode = prefix + "-" + DEFAULT_TEST_BACKEND;
     this.cookie = cookie;
+    this.daemonIdleTimeout = daemonIdleTimeout;
+    this.sharedBackend = sharedScope != null;
 
     this.targetLayout = new DefaultTargetLayout(project);
     switch (type) {
@@ -125,6 +137,21 @@ final class PropertiesImpl implements Properties {
     return this.cookie;
   }
 
+  @Override
+  public String namespace() {
+    return this.project.getGroupId() + ":" + this.project.getArtifactId();
+  }
+
+  @Override
+  public int daemonIdleTimeout() {
+    return this.daemonIdleTimeout;
+  }
+
+  @Override
+  public boolean sharedBackend() {
+    return this.sharedBackend;
+  }
+
   @Override
   public SourceLayout sourceLayout() {
     return this.sourceLayout;
@@ -137,7 +164,7 @@ final class PropertiesImpl implements Properties {
 
   @Override
   public List<File> codePaths(boolean withTestCodePaths) {
-    List<File> paths = FileUtils.getDirectoriesRecursive(this.targetLayout.lib(), ErlConstants.BEAM_SUFFIX);
+    List<File> paths = FileIndex.get(this.targetLayout.lib()).getDirectories(ErlConstants.BEAM_SUFFIX);
     switch (this.packagingType) {
       case ERLANG_OTP:
       case ERLANG_STD: {
@@ -154,7 +181,7 @@ final class PropertiesImpl implements Properties {
 
   @Override
   public List<File> includePaths(boolean withTestIncludePaths) {
-    List<File> deps = FileUtils.getDirectoriesRecursive(this.targetLayout.lib(), ErlConstants.HRL_SUFFIX);
+    List<File> deps = FileIndex.get(this.targetLayout.lib()).getDirectories(ErlConstants.HRL_SUFFIX);
     HashSet<File> paths = new HashSet<File>(deps);
     if (this.packagingType != PackagingType.ERLANG_REL) {
       if (withTestIncludePaths) {
@@ -170,20 +197,21 @@ final class PropertiesImpl implements Properties {
   @Override
   public List<File> testSupportScripts() {
     List<File> files = new ArrayList<File>();
-    File testEbin = this.targetLayout.testEbin();
-    files.add(new File(testEbin, "cover2.erl"));
-    files.add(new File(testEbin, "surefire.erl"));
-    files.add(new File(testEbin, "ttycapture.erl"));
+    File testSupport = this.targetLayout.testSupport();
+    files.add(new File(testSupport, "cover2.erl"));
+    files.add(new File(testSupport, "surefire.erl"));
+    files.add(new File(testSupport, "ttycapture.erl"));
     return files;
   }
 
   @Override
   public List<File> testSupportArtifacts() {
     List<File> artifacts = new ArrayList<File>();
+    File testEbin = this.targetLayout.testEbin();
     for (File script : testSupportScripts()) {
       String erl = ErlConstants.ERL_SUFFIX;
       String beam = ErlConstants.BEAM_SUFFIX;
-      artifacts.add(new File(script.getAbsolutePath().replace(erl, beam)));
+      artifacts.add(new File(testEbin, script.getName().replace(erl, beam)));
     }
     return artifacts;
   }
@@ -201,7 +229,7 @@ final class PropertiesImpl implements Properties {
   @Override
   public List<File> dependencyModules(boolean withTestScopeDependencies) {
     List<File> dependencies = getDependencyDirectories(withTestScopeDependencies);
-    return FileUtils.getFilesRecursive(dependencies, ErlConstants.BEAM_SUFFIX);
+    return FileIndex.get(this.targetLayout.lib()).getFiles(dependencies, ErlConstants.BEAM_SUFFIX);
   }
 
   @Override
@@ -219,7 +247,7 @@ final class PropertiesImpl implements Properties {
     }
     if (withDependencies) {
       List<File> dependencies = getDependencyDirectories(false);
-      applicationFiles.addAll(FileUtils.getFilesRecursive(dependencies, ErlConstants.APP_SUFFIX));
+      applicationFiles.addAll(FileIndex.get(this.targetLayout.lib()).getFiles(dependencies, ErlConstants.APP_SUFFIX));
     }
     return applicationFiles;
   }
@@ -227,16 +255,37 @@ final class PropertiesImpl implements Properties {
   @Override
   public List<File> resources(boolean withTests, boolean withDependencies) {
     final File priv = withTests ? this.targetLayout.testPriv() : this.targetLayout.priv();
-    ArrayList<File> privDirectories = new ArrayList<File>(Arrays.asList(priv));
+    List<File> resources = FileUtils.getFilesRecursive(priv, "");
     if (withDependencies) {
-      privDirectories.addAll(CollectionUtils.map(new MapFunction<File, File>() {
+      Collection<File> privDirectories = CollectionUtils.map(new MapFunction<File, File>() {
         @Override
         public File apply(File a) {
           return new File(a, priv.getName());
         }
-      }, getDependencyDirectories(withTests)));
+      }, getDependencyDirectories(withTests));
+      resources.addAll(FileIndex.get(this.targetLayout.lib()).getFiles(privDirectories, ""));
+    }
+    return resources;
+  }
+
+  /**
+   * Converts an arbitrary string into a valid (short) erlang node name.
+   */
+  private static String toNodeName(String scope) {
+    return scope.replaceAll("[^A-Za-z0-9_-]", "_");
+  }
+
+  /**
+   * Returns a short fingerprint of a cookie that can be part of a node name
+   * without revealing the cookie.
+   */
+  private static String getCookieFingerprint(String cookie) {
+    try {
+      return FileUtils.getChecksum(cookie != null ? cookie : "").substring(0, 8);
+    }
+    catch (MojoExecutionException e) {
+      return Integer.toHexString(String.valueOf(cookie).hashCode());
     }
-    return FileUtils.getFilesRecursive(privDirectories, "");
   }
 
   private List<File> getDependencyDirectories(final boolean withTestScopeDependencies) {
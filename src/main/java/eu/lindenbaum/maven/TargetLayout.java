@@ -39,6 +39,48 @@ public interface TargetLayout {
    */
   public File backendLog();
 
+  /**
+   * Returns a {@link File} used to write the RPC metrics of the plugin's
+   * script executions to.
+   */
+  public File rpcMetrics();
+
+  /**
+   * Returns a {@link File} used to persist the state of the incremental
+   * compilation of the project's sources.
+   */
+  public File buildState();
+
+  /**
+   * Returns a {@link File} used to persist the state of the incremental
+   * compilation of the project's test sources.
+   */
+  public File testBuildState();
+
+  /**
+   * Returns a {@link File} used to cache the attributes of the project's
+   * sources that determine the order of compilation.
+   */
+  public File attributeIndex();
+
+  /**
+   * Returns a {@link File} used to write the history of the compile times of
+   * the project's sources to.
+   */
+  public File compileTimes();
+
+  /**
+   * Returns a {@link File} used to persist the checksums of the grammar files
+   * the project's lexers and parsers were generated from.
+   */
+  public File generatorState();
+
+  /**
+   * Returns a {@link File} used to persist the checksums of the project's MIBs
+   * and the compiled MIBs they import.
+   */
+  public File mibState();
+
   // applications (erlang-std/erlang-otp) *************************************/
 
   /**
@@ -90,6 +132,12 @@ public interface TargetLayout {
    */
   public File testEbin();
 
+  /**
+   * Returns the directory where the test support sources provided along with
+   * the plugin get extracted to.
+   */
+  public File testSupport();
+
   /**
    * Returns the directory where the include for test compilation will be placed
    * into.
@@ -0,0 +1,266 @@
+package eu.lindenbaum.maven.archiver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.lindenbaum.maven.util.FileUtils;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A machine-wide store of extracted dependency archives. Entries are keyed by
+ * the checksum of an archive's content, so the same artifact used by several
+ * projects or reactor modules is only extracted once. Each entry holds the
+ * extracted archive along with a manifest listing the extracted files and
+ * directories. Destination directories are populated with hard links to the
+ * stored files, so clean builds never extract an archive again and the store
+ * needs no additional disk space. Where hard links cannot be created (e.g.
+ * the store resides on another file system or {@code cp -lR} is not
+ * available) the files listed in the manifest are copied instead. The
+ * directories of the destination are always created anew, so their
+ * modification times reflect the time of extraction.
+ * <p>
+ * Archives are extracted into temporary directories first and renamed
+ * afterwards, so concurrent builds never see partially extracted entries. The
+ * store is never cleaned up automatically, however, its directory can safely
+ * be removed at any time.
+ * </p>
+ * 
+ * @author agent <agent@local>
+ */
+public final class ExtractionStore {
+  private static final String MANIFEST = ".manifest";
+  private static final String CONTENT = "content";
+  private static final String SEPARATOR = "\t";
+  private static final String DIRECTORY = "d";
+  private static final String FILE = "f";
+
+  private final File directory;
+  private final String peer;
+  private final String cookie;
+
+  /**
+   * Creates a store located in a specific directory.
+   * 
+   * @param directory the directory the entries are stored in
+   * @param peer the backend node used to extract unsupported archives
+   * @param cookie the cookie of the backend node
+   */
+  public ExtractionStore(File directory, String peer, String cookie) {
+    this.directory = directory;
+    this.peer = peer;
+    this.cookie = cookie;
+  }
+
+  /**
+   * Extracts a given archive into a destination directory. If the archive is
+   * not yet stored, it gets extracted into the store first.
+   * 
+   * @param archive to extract
+   * @param destination the directory to populate with the archive's content
+   * @return {@code true} if the archive was already stored, {@code false} if
+   *         it had to be extracted
+   * @throws IOException in case the archive cannot be extracted or the
+   *           destination cannot be populated
+   */
+  public boolean extract(File archive, File destination) throws IOException {
+    File entry = getEntry(archive);
+    boolean stored = new File(entry, MANIFEST).isFile();
+    if (!stored) {
+      store(archive, entry);
+    }
+    try {
+      populate(entry, destination);
+    }
+    catch (MojoExecutionException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+    return stored;
+  }
+
+  /**
+   * Extracts an archive into a temporary directory, records the manifest and
+   * moves the directory to its final location.
+   */
+  private void store(File archive, File entry) throws IOException {
+    File parent = entry.getParentFile();
+    File tmp;
+    try {
+      FileUtils.ensureDirectories(parent);
+      tmp = File.createTempFile("entry", ".tmp", parent);
+    }
+    catch (MojoExecutionException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+    if (!tmp.delete() || !tmp.mkdir()) {
+      throw new IOException("failed to create store entry in " + parent);
+    }
+    try {
+      File content = new File(tmp, CONTENT);
+      new TarGzUnarchiver(this.peer, this.cookie, content).extract(archive);
+      StringBuilder manifest = new StringBuilder();
+      writeManifest(content, "", manifest);
+      FileUtils.writeFile(new File(tmp, MANIFEST), manifest.toString());
+      if (!tmp.renameTo(entry) && !new File(entry, MANIFEST).isFile()) {
+        throw new IOException("failed to store " + archive + " in " + entry);
+      }
+    }
+    catch (MojoExecutionException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+    finally {
+      if (tmp.exists()) {
+        // another build stored the same archive concurrently
+        FileUtils.removeDirectory(tmp);
+      }
+    }
+  }
+
+  /**
+   * Appends the files and directories below a directory to the manifest.
+   * Contrary to the {@link FileUtils} functions no default excludes apply.
+   */
+  private static void writeManifest(File directory, String prefix, StringBuilder manifest) throws IOException {
+    File[] children = directory.listFiles();
+    if (children == null) {
+      throw new IOException("failed to list " + directory);
+    }
+    for (File child : children) {
+      String path = prefix + child.getName();
+      if (child.isDirectory()) {
+        manifest.append(DIRECTORY).append(SEPARATOR).append(path).append("\n");
+        writeManifest(child, path + "/", manifest);
+      }
+      else {
+        manifest.append(FILE).append(SEPARATOR).append(path).append("\n");
+      }
+    }
+  }
+
+  /**
+   * Links the content of an entry into the destination directory. If linking
+   * fails, the files listed in the manifest of the entry are copied, keeping
+   * the modification times and executable flags. The top level directories of
+   * the entry are marked as modified in the destination directory, since the
+   * extraction of dependencies is skipped based on their modification times.
+   */
+  private static void populate(File entry, File destination) throws IOException, MojoExecutionException {
+    File content = new File(entry, CONTENT);
+    List<String[]> items = readManifest(new File(entry, MANIFEST));
+    FileUtils.ensureDirectories(destination);
+    if (!link(content, destination)) {
+      copy(content, destination, items);
+    }
+    long now = System.currentTimeMillis();
+    for (String[] item : items) {
+      if (DIRECTORY.equals(item[0]) && !item[1].contains("/")) {
+        new File(destination, item[1]).setLastModified(now);
+      }
+    }
+  }
+
+  /**
+   * Copies the files listed in the manifest of an entry into the destination
+   * directory.
+   */
+  private static void copy(File content, File destination, List<String[]> items) throws MojoExecutionException {
+    for (String[] item : items) {
+      File to = new File(destination, item[1]);
+      if (DIRECTORY.equals(item[0])) {
+        FileUtils.ensureDirectories(to);
+      }
+      else {
+        File from = new File(content, item[1]);
+        // never write through a link created by a failed linking attempt
+        to.delete();
+        FileUtils.copyFile(from, to);
+        to.setLastModified(from.lastModified());
+      }
+    }
+  }
+
+  /**
+   * Creates hard links to the files below a directory in the destination
+   * directory using {@code cp -lRf}. Each top level entry is linked on its own,
+   * so the destination directory itself is left untouched. Neither timestamps
+   * nor modes of directories are copied. Returns whether all links were
+   * created.
+   */
+  private static boolean link(File content, File destination) {
+    File[] children = content.listFiles();
+    if (children == null) {
+      return false;
+    }
+    if (children.length == 0) {
+      return true;
+    }
+    List<String> command = new ArrayList<String>();
+    command.add("cp");
+    command.add("-lRf");
+    for (File child : children) {
+      command.add(child.getAbsolutePath());
+    }
+    command.add(destination.getAbsolutePath());
+    ProcessBuilder processBuilder = new ProcessBuilder(command);
+    processBuilder.redirectErrorStream(true);
+    try {
+      Process process = processBuilder.start();
+      try {
+        process.getOutputStream().close();
+        InputStream output = process.getInputStream();
+        byte[] buffer = new byte[1024];
+        while (output.read(buffer) != -1) {
+          // discard error messages, files get copied instead
+        }
+        return process.waitFor() == 0;
+      }
+      finally {
+        process.destroy();
+      }
+    }
+    catch (IOException e) {
+      return false;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static List<String[]> readManifest(File manifest) throws IOException {
+    List<String[]> items = new ArrayList<String[]>();
+    BufferedReader reader = new BufferedReader(new FileReader(manifest));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(SEPARATOR, 2);
+        if (fields.length != 2 || fields[1].startsWith("/") || ("/" + fields[1] + "/").contains("/../")) {
+          throw new IOException("corrupt store entry " + manifest);
+        }
+        items.add(fields);
+      }
+    }
+    finally {
+      reader.close();
+    }
+    return items;
+  }
+
+  /**
+   * Returns the directory of the entry holding the content of an archive.
+   */
+  private File getEntry(File archive) throws IOException {
+    try {
+      String key = FileUtils.getChecksum(archive);
+      return new File(new File(this.directory, key.substring(0, 2)), key);
+    }
+    catch (MojoExecutionException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+}
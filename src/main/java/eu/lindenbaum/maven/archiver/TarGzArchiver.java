@@ -6,7 +6,9 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
 import eu.lindenbaum.maven.erlang.MavenSelf;
@@ -92,8 +94,6 @@ public final class TarGzArchiver {
   }
 
   private static final class TarGzArchiverScript implements Script<String> {
-    private static final String script = "erl_tar:create(\"%s\", %s, [compressed]).";
-
     private final File archive;
     private final Map<File, String> files;
 
@@ -103,9 +103,14 @@ public final class TarGzArchiver {
     }
 
     @Override
-    public String get() {
-      String archivePath = this.archive.getAbsolutePath();
-      return String.format(script, archivePath, getFiles(this.files));
+    public String getFunction() {
+      return "targzarchiver";
+    }
+
+    @Override
+    public OtpErlangList getArguments() {
+      OtpErlangObject archivePath = new OtpErlangString(this.archive.getAbsolutePath());
+      return new OtpErlangList(new OtpErlangObject[]{ archivePath, getFiles(this.files) });
     }
 
     /**
@@ -126,24 +131,20 @@ public final class TarGzArchiver {
     }
 
     /**
-     * Returns a list of the files to archive. It is assumed that there's more
-     * than zero files to archive.
+     * Returns a list of the files to archive.
      * 
      * @param files mapping of files to package
-     * @return a string containing an erlang list of file mappings
+     * @return an erlang list of file mappings
      */
-    private static String getFiles(Map<File, String> files) {
-      StringBuilder fileList = new StringBuilder("[");
+    private static OtpErlangList getFiles(Map<File, String> files) {
+      OtpErlangObject[] fileList = new OtpErlangObject[files.size()];
+      int i = 0;
       for (Entry<File, String> file : files.entrySet()) {
-        fileList.append("{\"");
-        fileList.append(file.getValue());
-        fileList.append("\",\"");
-        fileList.append(file.getKey().getAbsolutePath());
-        fileList.append("\"},");
+        OtpErlangObject name = new OtpErlangString(file.getValue());
+        OtpErlangObject path = new OtpErlangString(file.getKey().getAbsolutePath());
+        fileList[i++] = new OtpErlangTuple(new OtpErlangObject[]{ name, path });
       }
-      fileList.deleteCharAt(fileList.length() - 1);
-      fileList.append("]");
-      return fileList.toString();
+      return new OtpErlangList(fileList);
     }
   }
 }
@@ -1,24 +1,42 @@
 package eu.lindenbaum.maven.archiver;
 
+import java.io.BufferedInputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.util.zip.GZIPInputStream;
 
 import eu.lindenbaum.maven.erlang.MavenSelf;
 import eu.lindenbaum.maven.erlang.Script;
 import eu.lindenbaum.maven.util.FileUtils;
 
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
 import org.apache.maven.plugin.MojoExecutionException;
 
 /**
- * An unarchiver that can extract gzipped tar archives using the erlang
- * {@code erl_tar} module. This archiver will overwrite older files by default.
+ * An unarchiver that can extract gzipped tar archives. The archive is streamed
+ * from the archive file and extracted in the JVM. Archives containing entries
+ * that cannot be created from Java (e.g. symbolic links) are extracted using
+ * the erlang {@code erl_tar} module instead. This archiver will overwrite
+ * older files by default. Instances can be used to extract several archives
+ * concurrently.
  * 
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public final class TarGzUnarchiver {
+  private static final int BLOCK_SIZE = 512;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   private final String peer;
   private final String cookie;
   private final File destination;
@@ -48,8 +66,8 @@ public final class TarGzUnarchiver {
    * 
    * @param archive to extract
    * @throws IOException in case the archive does not exist or the destination
-   *           directory cannot be created or is not a directory or
-   *           {@code erl_tar} ends with errors.
+   *           directory cannot be created or is not a directory or the
+   *           archive is corrupt.
    */
   public void extract(File archive) throws IOException {
     if (archive.isFile()) {
@@ -61,15 +79,11 @@ public final class TarGzUnarchiver {
       }
       if (this.destination.exists()) {
         if (this.destination.isDirectory()) {
-          Script<String> script = new TarGzUnarchiverScript(archive, this.destination);
           try {
-            String error = MavenSelf.get(this.cookie).exec(this.peer, script);
-            if (error != null) {
-              throw new IOException("failed to extract archive: " + error);
-            }
+            extractEntries(archive);
           }
-          catch (MojoExecutionException e) {
-            throw new IOException(e.getMessage(), e);
+          catch (UnsupportedEntryException e) {
+            extractRemote(archive);
           }
         }
         else {
@@ -85,9 +99,271 @@ public final class TarGzUnarchiver {
     }
   }
 
-  private static final class TarGzUnarchiverScript implements Script<String> {
-    private static final String script = "ok = erl_tar:extract(\"%s\", [compressed, {cwd, \"%s\"}]).";
+  /**
+   * Streams the entries of the archive into the destination directory.
+   */
+  private void extractEntries(File archive) throws IOException {
+    FileInputStream file = new FileInputStream(archive);
+    try {
+      InputStream channel = new BufferedInputStream(Channels.newInputStream(file.getChannel()), BUFFER_SIZE);
+      InputStream input = new GZIPInputStream(channel, BUFFER_SIZE);
+      byte[] header = new byte[BLOCK_SIZE];
+      byte[] buffer = new byte[BUFFER_SIZE];
+      String longName = null;
+      while (readBlock(input, header)) {
+        if (isZero(header)) {
+          break;
+        }
+        String name = longName != null ? longName : getName(header);
+        longName = null;
+        long size = parseNumber(header, 124, 12);
+        char type = (char) header[156];
+        if ((type == '0' || type == '\0') && name.endsWith("/")) {
+          type = '5';
+        }
+        switch (type) {
+          case '0':
+          case '\0':
+          case '7': {
+            File target = resolve(name);
+            FileUtils.ensureDirectories(target.getParentFile());
+            OutputStream out = new FileOutputStream(target);
+            try {
+              copy(input, out, size, buffer);
+            }
+            finally {
+              out.close();
+            }
+            skip(input, padding(size));
+            long mode = parseNumber(header, 100, 8);
+            if ((mode & 0111) != 0) {
+              target.setExecutable(true, (mode & 0011) == 0);
+            }
+            target.setLastModified(parseNumber(header, 136, 12) * 1000L);
+            break;
+          }
+          case '5': {
+            FileUtils.ensureDirectories(resolve(name));
+            skip(input, size + padding(size));
+            break;
+          }
+          case 'L': {
+            longName = readString(input, size, buffer, "UTF-8");
+            skip(input, padding(size));
+            break;
+          }
+          case 'x': {
+            longName = getPaxPath(readString(input, size, buffer, "ISO-8859-1"));
+            skip(input, padding(size));
+            break;
+          }
+          case 'g': {
+            skip(input, size + padding(size));
+            break;
+          }
+          default:
+            throw new UnsupportedEntryException();
+        }
+      }
+    }
+    catch (MojoExecutionException e) {
+      throw new IOException(e.getMessage());
+    }
+    finally {
+      file.close();
+    }
+  }
+
+  /**
+   * Extracts the archive using {@code erl_tar} on the backend node.
+   */
+  private void extractRemote(File archive) throws IOException {
+    Script<String> script = new TarGzUnarchiverScript(archive, this.destination);
+    try {
+      String error = MavenSelf.get(this.cookie).exec(this.peer, script);
+      if (error != null) {
+        throw new IOException("failed to extract archive: " + error);
+      }
+    }
+    catch (MojoExecutionException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns the destination of an archive entry, rejecting entries that would
+   * be extracted outside of the destination directory.
+   */
+  private File resolve(String name) throws IOException {
+    String normalized = name.replace('\\', '/');
+    if (normalized.startsWith("/") || ("/" + normalized + "/").contains("/../")) {
+      throw new IOException("illegal archive entry " + name);
+    }
+    return new File(this.destination, normalized);
+  }
+
+  /**
+   * Returns the name of an entry, joining the name and ustar prefix fields.
+   */
+  private static String getName(byte[] header) throws IOException {
+    String name = parseString(header, 0, 100);
+    if ("ustar".equals(parseString(header, 257, 6))) {
+      String prefix = parseString(header, 345, 155);
+      if (prefix.length() > 0) {
+        return prefix + "/" + name;
+      }
+    }
+    return name;
+  }
+
+  /**
+   * Returns the path of a pax extended header or {@code null} if the header
+   * does not contain a path. Records have the form {@code "LENGTH KEY=VALUE\n"}
+   * with the length given in bytes, so the records are expected to be decoded
+   * using ISO-8859-1.
+   */
+  private static String getPaxPath(String records) throws IOException {
+    int offset = 0;
+    while (offset < records.length()) {
+      int space = records.indexOf(' ', offset);
+      if (space < 0) {
+        throw new IOException("corrupt pax header");
+      }
+      int length;
+      try {
+        length = Integer.parseInt(records.substring(offset, space));
+      }
+      catch (NumberFormatException e) {
+        throw new IOException("corrupt pax header");
+      }
+      if (length <= 0 || offset + length > records.length()) {
+        throw new IOException("corrupt pax header");
+      }
+      String record = records.substring(space + 1, offset + length - 1);
+      if (record.startsWith("path=")) {
+        return new String(record.substring(5).getBytes("ISO-8859-1"), "UTF-8");
+      }
+      offset += length;
+    }
+    return null;
+  }
+
+  private static String parseString(byte[] header, int offset, int length) throws UnsupportedEncodingException {
+    int end = offset;
+    while (end < offset + length && header[end] != 0) {
+      end++;
+    }
+    return new String(header, offset, end - offset, "UTF-8");
+  }
+
+  /**
+   * Parses an octal number field, supporting the GNU base-256 extension.
+   */
+  private static long parseNumber(byte[] header, int offset, int length) throws IOException {
+    if ((header[offset] & 0x80) != 0) {
+      long value = header[offset] & 0x7f;
+      for (int i = 1; i < length; ++i) {
+        value = (value << 8) | (header[offset + i] & 0xff);
+      }
+      return value;
+    }
+    String field = new String(header, offset, length, "US-ASCII").replace('\0', ' ').trim();
+    if (field.length() == 0) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(field, 8);
+    }
+    catch (NumberFormatException e) {
+      throw new IOException("corrupt archive header");
+    }
+  }
 
+  private static String readString(InputStream input, long size, byte[] buffer, String charset) throws IOException {
+    if (size > buffer.length) {
+      throw new IOException("archive header too large");
+    }
+    readFully(input, buffer, (int) size);
+    int end = (int) size;
+    while (end > 0 && buffer[end - 1] == 0) {
+      end--;
+    }
+    return new String(buffer, 0, end, charset);
+  }
+
+  private static boolean readBlock(InputStream input, byte[] block) throws IOException {
+    int read = 0;
+    while (read < block.length) {
+      int n = input.read(block, read, block.length - read);
+      if (n < 0) {
+        if (read == 0) {
+          return false;
+        }
+        throw new EOFException("truncated archive");
+      }
+      read += n;
+    }
+    return true;
+  }
+
+  private static void readFully(InputStream input, byte[] buffer, int length) throws IOException {
+    int read = 0;
+    while (read < length) {
+      int n = input.read(buffer, read, length - read);
+      if (n < 0) {
+        throw new EOFException("truncated archive");
+      }
+      read += n;
+    }
+  }
+
+  private static void copy(InputStream input, OutputStream out, long size, byte[] buffer) throws IOException {
+    long remaining = size;
+    while (remaining > 0) {
+      int n = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+      if (n < 0) {
+        throw new EOFException("truncated archive");
+      }
+      out.write(buffer, 0, n);
+      remaining -= n;
+    }
+  }
+
+  private static void skip(InputStream input, long size) throws IOException {
+    long remaining = size;
+    while (remaining > 0) {
+      long n = input.skip(remaining);
+      if (n <= 0) {
+        if (input.read() < 0) {
+          throw new EOFException("truncated archive");
+        }
+        n = 1;
+      }
+      remaining -= n;
+    }
+  }
+
+  private static long padding(long size) {
+    return (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+  }
+
+  private static boolean isZero(byte[] block) {
+    for (byte b : block) {
+      if (b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Signals an archive entry that cannot be extracted in the JVM.
+   */
+  private static final class UnsupportedEntryException extends IOException {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static final class TarGzUnarchiverScript implements Script<String> {
     private final File archive;
     private final File destination;
 
@@ -97,10 +373,15 @@ public final class TarGzUnarchiver {
     }
 
     @Override
-    public String get() {
-      String archivePath = this.archive.getAbsolutePath();
-      String destinationPath = this.destination.getAbsolutePath();
-      return String.format(script, archivePath, destinationPath);
+    public String getFunction() {
+      return "targzunarchiver";
+    }
+
+    @Override
+    public OtpErlangList getArguments() {
+      OtpErlangObject archivePath = new OtpErlangString(this.archive.getAbsolutePath());
+      OtpErlangObject destinationPath = new OtpErlangString(this.destination.getAbsolutePath());
+      return new OtpErlangList(new OtpErlangObject[]{ archivePath, destinationPath });
     }
 
     /**
@@ -0,0 +1,245 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import eu.lindenbaum.maven.util.ErlUtils;
+
+import com.ericsson.otp.erlang.OtpAuthException;
+import com.ericsson.otp.erlang.OtpConnection;
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangDecodeException;
+import com.ericsson.otp.erlang.OtpErlangExit;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangRef;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+import com.ericsson.otp.erlang.OtpInputStream;
+import com.ericsson.otp.erlang.OtpOutputStream;
+import com.ericsson.otp.erlang.OtpSelf;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A dedicated connection used to pipeline {@link Script} executions. Requests
+ * of the form <code>{Pid, Ref, CodePaths, Function, Arguments}</code> are sent
+ * to the dispatcher process of the plugin's runtime module which replies with
+ * <code>{Ref, Result}</code> once the script has finished. A reader thread
+ * correlates the replies with the pending {@link ScriptFuture}s, thus any
+ * number of scripts can be in flight at once. A request of the form
+ * <code>{Pid, Ref, kill, Target}</code> kills the process evaluating the
+ * request {@code Target}. Intermediate results of the form
+ * <code>{Ref, progress, Term}</code> are passed to the pending
+ * {@link ScriptFuture} of the request. When the connection breaks all pending
+ * futures fail
+ * and the connection must be replaced. The size of every request and reply as
+ * well as the latency of every execution is recorded in the connection's
+ * {@link ScriptMetrics}.
+ * 
+ * @author agent <agent@local>
+ */
+final class AsyncConnection implements Runnable {
+  private static final String DISPATCHER = "maven_erlang_plugin_rt_dispatcher";
+  private static final long KILL_TIMEOUT = 10000L;
+  private static final OtpErlangAtom PROGRESS = new OtpErlangAtom("progress");
+  private static final Script<String> KILL = new Script<String>() {
+    @Override
+    public String getFunction() {
+      return "kill";
+    }
+
+    @Override
+    public OtpErlangList getArguments() {
+      return new OtpErlangList();
+    }
+
+    @Override
+    public String handle(OtpErlangObject result) {
+      return ErlUtils.toString(result);
+    }
+  };
+
+  private final String peer;
+  private final OtpSelf self;
+  private final OtpConnection connection;
+  private final ScriptMetrics metrics;
+  private final ConcurrentMap<String, Request> pending;
+
+  private volatile boolean closed = false;
+
+  AsyncConnection(String peer, OtpSelf self, OtpConnection connection, ScriptMetrics metrics) {
+    this.peer = peer;
+    this.self = self;
+    this.connection = connection;
+    this.metrics = metrics;
+    this.pending = new ConcurrentHashMap<String, Request>();
+    Thread reader = new Thread(this, "maven-erlang-plugin-reader-" + peer);
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  /**
+   * Returns whether this connection is broken and must be replaced.
+   * 
+   * @return {@code true} if the connection is closed, {@code false} otherwise
+   */
+  boolean isClosed() {
+    return this.closed;
+  }
+
+  /**
+   * Sends a {@link Script} execution request to the dispatcher process.
+   * 
+   * @param script to execute
+   * @param codePaths the list of code paths to add before execution
+   * @param timeout the timeout of the execution in milliseconds, {@code 0} for
+   *          no timeout
+   * @return a {@link ScriptFuture} completed when the reply arrives
+   * @throws MojoExecutionException in case the request cannot be sent
+   */
+  <T> ScriptFuture<T> send(Script<T> script, OtpErlangList codePaths, long timeout) throws MojoExecutionException {
+    OtpErlangRef ref = this.self.createRef();
+    ScriptFuture<T> future = new ScriptFuture<T>(script, this, ref, timeout);
+    OtpErlangObject[] request = new OtpErlangObject[]{ this.self.pid(),
+                                                       ref,
+                                                       codePaths,
+                                                       new OtpErlangAtom(script.getFunction()),
+                                                       script.getArguments() };
+    post(ref, new Request(future, ScriptMetrics.nameOf(script), true), request);
+    return future;
+  }
+
+  /**
+   * Kills the process evaluating a specific request. The pending
+   * {@link ScriptFuture} of the request will not be completed by this
+   * connection anymore.
+   * 
+   * @param target reference of the request to kill
+   * @return a dump of the killed process' info
+   */
+  String kill(OtpErlangRef target) {
+    Request victim = this.pending.remove(target.toString());
+    String name = victim != null ? victim.name : ScriptMetrics.nameOf(KILL);
+    OtpErlangRef ref = this.self.createRef();
+    ScriptFuture<String> future = new ScriptFuture<String>(KILL, KILL_TIMEOUT);
+    OtpErlangObject[] request = new OtpErlangObject[]{ this.self.pid(), ref, new OtpErlangAtom("kill"), target };
+    try {
+      post(ref, new Request(future, name, false), request);
+      return future.get(KILL_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+    catch (Exception e) {
+      return "no process info available: " + e.getMessage();
+    }
+  }
+
+  /**
+   * Registers a pending {@link ScriptFuture} and sends the corresponding
+   * request to the dispatcher process.
+   */
+  private synchronized void post(OtpErlangRef ref, Request pending, OtpErlangObject[] request) throws MojoExecutionException {
+    if (this.closed) {
+      throw new MojoExecutionException("connection to " + this.peer + " is closed");
+    }
+    OtpOutputStream buffer = new OtpOutputStream(new OtpErlangTuple(request));
+    pending.sent = buffer.size();
+    pending.start = System.nanoTime();
+    this.pending.put(ref.toString(), pending);
+    try {
+      this.connection.sendBuf(DISPATCHER, buffer);
+    }
+    catch (IOException e) {
+      this.pending.remove(ref.toString());
+      close(e);
+      throw new MojoExecutionException("failed to send request to " + this.peer, e);
+    }
+  }
+
+  /**
+   * Receives replies from the dispatcher until the connection breaks.
+   */
+  @Override
+  public void run() {
+    while (!this.closed) {
+      try {
+        OtpInputStream buffer = this.connection.receiveBuf();
+        int received = buffer.available();
+        OtpErlangObject message = buffer.read_any();
+        if (message instanceof OtpErlangTuple && ((OtpErlangTuple) message).arity() == 2) {
+          OtpErlangTuple reply = (OtpErlangTuple) message;
+          Request request = this.pending.remove(reply.elementAt(0).toString());
+          if (request != null) {
+            request.record(this.metrics, received);
+            request.future.complete(reply.elementAt(1));
+          }
+        }
+        else if (message instanceof OtpErlangTuple && ((OtpErlangTuple) message).arity() == 3) {
+          OtpErlangTuple progress = (OtpErlangTuple) message;
+          Request request = this.pending.get(progress.elementAt(0).toString());
+          if (request != null && PROGRESS.equals(progress.elementAt(1))) {
+            request.received += received;
+            request.future.progress(progress.elementAt(2));
+          }
+        }
+      }
+      catch (OtpErlangDecodeException e) {
+        // not a reply of the dispatcher, ignore
+      }
+      catch (IOException e) {
+        close(e);
+      }
+      catch (OtpErlangExit e) {
+        close(e);
+      }
+      catch (OtpAuthException e) {
+        close(e);
+      }
+    }
+  }
+
+  /**
+   * Closes the connection failing all pending {@link ScriptFuture}s.
+   */
+  synchronized void close(Exception reason) {
+    this.closed = true;
+    this.connection.close();
+    String msg = "connection to " + this.peer + " failed: " + reason.getMessage();
+    for (String ref : this.pending.keySet()) {
+      Request request = this.pending.remove(ref);
+      if (request != null) {
+        request.future.fail(new MojoExecutionException(msg, reason));
+      }
+    }
+  }
+
+  /**
+   * A request waiting for its reply.
+   */
+  private static final class Request {
+    private final ScriptFuture<?> future;
+    private final String name;
+    private final boolean invocation;
+    private long sent;
+    private long received;
+    private long start;
+
+    Request(ScriptFuture<?> future, String name, boolean invocation) {
+      this.future = future;
+      this.name = name;
+      this.invocation = invocation;
+    }
+
+    /**
+     * Records the round trip of this request in the given {@link ScriptMetrics}.
+     */
+    void record(ScriptMetrics metrics, long received) {
+      if (this.invocation) {
+        metrics.record(this.name, this.sent, this.received + received, System.nanoTime() - this.start);
+      }
+      else {
+        metrics.recordRoundTrip(this.name, this.sent, this.received + received);
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.io.File;
+
+import eu.lindenbaum.maven.util.ErlUtils;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A {@link Script} that attaches a project to a backend node reused across
+ * projects or builds. The code paths added by the previously attached project
+ * are removed and the modules loaded from them are purged. If the previously
+ * attached project is a different one, all modules not belonging to OTP are
+ * purged. Finally, the node's current working directory is set to the
+ * project's build directory.
+ * 
+ * @author agent <agent@local>
+ */
+public final class AttachScript extends AbstractScript<String> {
+  private final String namespace;
+  private final File cwd;
+
+  /**
+   * Creates a {@link Script} attaching a project to a backend node.
+   * 
+   * @param namespace the project's namespace for code paths
+   * @param cwd the project's build directory
+   */
+  public AttachScript(String namespace, File cwd) throws MojoExecutionException {
+    super();
+    this.namespace = namespace;
+    this.cwd = cwd;
+  }
+
+  @Override
+  public OtpErlangList getArguments() {
+    return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangString(this.namespace),
+                                                    ErlUtils.toFilename(this.cwd) });
+  }
+
+  /**
+   * Converts the result of the {@link Script} execution into an error string.
+   * 
+   * @param result to convert
+   * @return A string describing the error or {@code null} if the project was
+   *         attached successfully.
+   */
+  @Override
+  public String handle(OtpErlangObject result) {
+    if (result instanceof OtpErlangAtom) {
+      return null;
+    }
+    return ErlUtils.toString(result);
+  }
+}
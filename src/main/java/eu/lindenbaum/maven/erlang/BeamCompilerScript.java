@@ -8,6 +8,8 @@ import java.util.List;
 
 import eu.lindenbaum.maven.util.ErlUtils;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangInt;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangTuple;
@@ -17,15 +19,27 @@ import org.apache.maven.plugin.MojoExecutionException;
 /**
  * A {@link Script} that can be used to compile erlang files. In case of
  * compiler errors the script will leave the not yet compiled files uncompiled.
+ * Files are compiled in stages (first files, parse transforms, behaviours and
+ * all other modules), the modules of a stage are compiled in parallel using a
+ * bounded number of compiler processes. Parse transforms and behaviours using
+ * other parse transforms or behaviours of the same stage are compiled after
+ * them. Errors and warnings are reported in compilation order regardless of
+ * the parallelism. The outcome of each file is reported to an optional
+ * {@link CompilerListener} as soon as the file has been processed.
  * 
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
-public final class BeamCompilerScript extends AbstractScript<CompilerResult> {
+public final class BeamCompilerScript extends AbstractScript<CompilerResult> implements ProgressHandler {
   private final List<File> files;
   private final List<File> firstFiles;
   private final File outdir;
   private final List<File> includes;
   private final List<String> options;
+  private final int processes;
+  private final File index;
+  private final boolean deferLoading;
+  private final boolean failFast;
+  private final CompilerListener listener;
 
   /**
    * Creates a compiler script for a {@link List} of erlang files.
@@ -35,6 +49,16 @@ public final class BeamCompilerScript extends AbstractScript<CompilerResult> {
    * @param outdir the destination directory for the compiled .beam
    * @param includes a list of include directories
    * @param options a list of compiler options according to the erlang docs
+   * @param processes the maximum number of modules to compile in parallel,
+   *          {@code 0} compiles one module per scheduler of the backend node
+   * @param index the file used to cache the module attributes determining the
+   *          order of compilation
+   * @param deferLoading whether to defer loading the compiled modules that are
+   *          neither parse transforms nor behaviours until all modules are
+   *          compiled, only modules already loaded will then be reloaded
+   * @param failFast whether to stop compiling further files after the first
+   *          failed file, files in progress will still be finished
+   * @param listener to notify about processed files, may be {@code null}
    * @see <a
    *      href="http://www.erlang.org/doc/man/compile.html">http://www.erlang.org/doc/man/compile.html</a>
    */
@@ -42,23 +66,60 @@ public final class BeamCompilerScript extends AbstractScript<CompilerResult> {
                             List<File> firstFiles,
                             File outdir,
                             List<File> includes,
-                            List<String> options) throws MojoExecutionException {
+                            List<String> options,
+                            int processes,
+                            File index,
+                            boolean deferLoading,
+                            boolean failFast,
+                            CompilerListener listener) throws MojoExecutionException {
     super();
     this.files = files;
     this.firstFiles = firstFiles;
     this.outdir = outdir;
     this.includes = includes;
     this.options = options;
+    this.processes = processes;
+    this.index = index;
+    this.deferLoading = deferLoading;
+    this.failFast = failFast;
+    this.listener = listener;
   }
 
   @Override
-  public String get() {
-    String out = this.outdir.getAbsolutePath();
-    String incs = ErlUtils.toFilenameList(this.includes, "{i, \"", "\"}");
-    String opts = ErlUtils.toList(this.options, null, "", "");
-    String files = ErlUtils.toFilenameList(this.files, "\"", "\"");
-    String firstFiles = ErlUtils.toFilenameList(this.firstFiles, "\"", "\"");
-    return String.format(this.script, out, incs, opts, files, firstFiles);
+  public OtpErlangList getArguments() {
+    OtpErlangObject out = ErlUtils.toFilename(this.outdir);
+    OtpErlangObject incs = ErlUtils.toFilenameTermList(this.includes);
+    OtpErlangObject opts = ErlUtils.toStringTermList(this.options);
+    OtpErlangObject files = ErlUtils.toFilenameTermList(this.files);
+    OtpErlangObject firstFiles = ErlUtils.toFilenameTermList(this.firstFiles);
+    OtpErlangObject processes = new OtpErlangInt(this.processes);
+    OtpErlangObject index = ErlUtils.toFilename(this.index);
+    OtpErlangObject defer = new OtpErlangAtom(this.deferLoading);
+    OtpErlangObject failFast = new OtpErlangAtom(this.failFast);
+    return new OtpErlangList(new OtpErlangObject[]{ out, incs, opts, files, firstFiles, processes, index, defer,
+                                                   failFast });
+  }
+
+  /**
+   * Converts the intermediate results of the {@link Script} execution, either
+   * <code>{compiled, Source, Warnings}</code> or
+   * <code>{failed, Source, Errors, Warnings}</code>, and passes them to the
+   * {@link CompilerListener}.
+   * 
+   * @param progress The intermediate result of the {@link Script} execution.
+   */
+  @Override
+  public void handleProgress(OtpErlangObject progress) {
+    if (this.listener != null) {
+      OtpErlangTuple p = (OtpErlangTuple) progress;
+      File source = new File(ErlUtils.toString(p.elementAt(1), false));
+      if ("compiled".equals(ErlUtils.toString(p.elementAt(0)))) {
+        this.listener.compiled(source, toStringList(p.elementAt(2)));
+      }
+      else {
+        this.listener.failed(source, toStringList(p.elementAt(2)), toStringList(p.elementAt(3)));
+      }
+    }
   }
 
   /**
@@ -102,6 +163,32 @@ public final class BeamCompilerScript extends AbstractScript<CompilerResult> {
       warnings.add(ErlUtils.toString(warningIterator.next(), false));
     }
 
+    final ArrayList<ModuleDependencies> dependencies = new ArrayList<ModuleDependencies>();
+    if (r.arity() > 4) {
+      for (OtpErlangObject d : ((OtpErlangList) r.elementAt(4)).elements()) {
+        OtpErlangTuple t = (OtpErlangTuple) d;
+        File source = new File(ErlUtils.toString(t.elementAt(0), false));
+        List<File> includes = new ArrayList<File>();
+        for (OtpErlangObject include : ((OtpErlangList) t.elementAt(1)).elements()) {
+          includes.add(new File(ErlUtils.toString(include, false)));
+        }
+        List<String> parseTransforms = new ArrayList<String>();
+        for (OtpErlangObject module : ((OtpErlangList) t.elementAt(2)).elements()) {
+          parseTransforms.add(ErlUtils.toString(module));
+        }
+        List<String> behaviours = new ArrayList<String>();
+        for (OtpErlangObject module : ((OtpErlangList) t.elementAt(3)).elements()) {
+          behaviours.add(ErlUtils.toString(module));
+        }
+        dependencies.add(new ModuleDependencies(source, includes, parseTransforms, behaviours));
+      }
+    }
+
+    final List<CompileTime> times = new ArrayList<CompileTime>();
+    if (r.arity() > 5) {
+      times.addAll(CompileTime.fromList(r.elementAt(5)));
+    }
+
     return new CompilerResult() {
       @Override
       public List<File> getFailed() {
@@ -122,6 +209,24 @@ public final class BeamCompilerScript extends AbstractScript<CompilerResult> {
       public List<String> getWarnings() {
         return warnings;
       }
+
+      @Override
+      public List<ModuleDependencies> getDependencies() {
+        return dependencies;
+      }
+
+      @Override
+      public List<CompileTime> getTimes() {
+        return times;
+      }
     };
   }
+
+  private static List<String> toStringList(OtpErlangObject list) {
+    List<String> strings = new ArrayList<String>();
+    for (OtpErlangObject element : ((OtpErlangList) list).elements()) {
+      strings.add(ErlUtils.toString(element, false));
+    }
+    return strings;
+  }
 }
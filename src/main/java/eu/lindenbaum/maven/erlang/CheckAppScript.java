@@ -1,11 +1,14 @@
 package eu.lindenbaum.maven.erlang;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import eu.lindenbaum.maven.util.ErlTermReader;
 import eu.lindenbaum.maven.util.ErlUtils;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangTuple;
@@ -14,12 +17,12 @@ import org.apache.maven.plugin.MojoExecutionException;
 
 /**
  * A {@link Script} that can be used to extract certain values from an erlang
- * application file.
+ * application file. The application file is read in the JVM if possible.
  * 
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  */
-public final class CheckAppScript extends AbstractScript<CheckAppResult> {
+public final class CheckAppScript extends AbstractScript<CheckAppResult> implements LocalScript<CheckAppResult> {
   private final File appFile;
 
   /**
@@ -35,9 +38,50 @@ public final class CheckAppScript extends AbstractScript<CheckAppResult> {
   }
 
   @Override
-  public String get() {
-    String appFilePath = this.appFile.getAbsolutePath();
-    return String.format(this.script, appFilePath);
+  public OtpErlangList getArguments() {
+    return new OtpErlangList(new OtpErlangObject[]{ ErlUtils.toFilename(this.appFile) });
+  }
+
+  /**
+   * Reads the application file using the {@link ErlTermReader}. Returns
+   * {@code null} if the file cannot be read or parsed in the JVM, leaving the
+   * error reporting to the runtime function.
+   */
+  @Override
+  public OtpErlangObject evaluate() {
+    List<OtpErlangObject> terms;
+    try {
+      terms = ErlTermReader.consult(this.appFile);
+    }
+    catch (IOException e) {
+      return null;
+    }
+    OtpErlangObject undefined = new OtpErlangAtom("undefined");
+    if (terms.size() == 1 && terms.get(0) instanceof OtpErlangTuple) {
+      OtpErlangTuple application = (OtpErlangTuple) terms.get(0);
+      if (application.arity() == 3 && new OtpErlangAtom("application").equals(application.elementAt(0))) {
+        if (!(application.elementAt(2) instanceof OtpErlangList)) {
+          return null;
+        }
+        OtpErlangList props = (OtpErlangList) application.elementAt(2);
+        OtpErlangObject startModule = getValue(props, "mod", new OtpErlangAtom("omitted"));
+        if (startModule instanceof OtpErlangTuple && ((OtpErlangTuple) startModule).arity() == 2) {
+          startModule = ((OtpErlangTuple) startModule).elementAt(0);
+        }
+        return new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("ok"),
+                                                        application.elementAt(1),
+                                                        getValue(props, "vsn", undefined),
+                                                        startModule,
+                                                        getValue(props, "modules", new OtpErlangList()),
+                                                        getValue(props, "applications", new OtpErlangList()) });
+      }
+    }
+    return new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("error"),
+                                                    undefined,
+                                                    undefined,
+                                                    undefined,
+                                                    new OtpErlangList(),
+                                                    new OtpErlangList() });
   }
 
   /**
@@ -105,4 +149,23 @@ public final class CheckAppScript extends AbstractScript<CheckAppResult> {
       }
     };
   }
+
+  /**
+   * Equivalent to {@code proplists:get_value/3}.
+   */
+  private static OtpErlangObject getValue(OtpErlangList props, String key, OtpErlangObject defaultValue) {
+    OtpErlangAtom keyAtom = new OtpErlangAtom(key);
+    for (OtpErlangObject prop : props.elements()) {
+      if (keyAtom.equals(prop)) {
+        return new OtpErlangAtom(true);
+      }
+      if (prop instanceof OtpErlangTuple) {
+        OtpErlangTuple tuple = (OtpErlangTuple) prop;
+        if (tuple.arity() >= 1 && keyAtom.equals(tuple.elementAt(0))) {
+          return tuple.arity() == 2 ? tuple.elementAt(1) : defaultValue;
+        }
+      }
+    }
+    return defaultValue;
+  }
 }
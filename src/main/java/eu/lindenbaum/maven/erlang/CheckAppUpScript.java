@@ -1,9 +1,16 @@
 package eu.lindenbaum.maven.erlang;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
+import eu.lindenbaum.maven.util.ErlTermReader;
+import eu.lindenbaum.maven.util.ErlUtils;
+
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
 
 import org.apache.maven.plugin.MojoExecutionException;
 
@@ -13,7 +20,7 @@ import org.apache.maven.plugin.MojoExecutionException;
  * 
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
-public class CheckAppUpScript extends AbstractScript<String> {
+public class CheckAppUpScript extends AbstractScript<String> implements LocalScript<String> {
   private final File appUpFile;
   private final String version;
 
@@ -30,8 +37,59 @@ public class CheckAppUpScript extends AbstractScript<String> {
   }
 
   @Override
-  public String get() {
-    return String.format(this.script, this.appUpFile.getAbsolutePath(), this.version);
+  public OtpErlangList getArguments() {
+    OtpErlangObject appUpFile = ErlUtils.toFilename(this.appUpFile);
+    return new OtpErlangList(new OtpErlangObject[]{ appUpFile, new OtpErlangString(this.version) });
+  }
+
+  /**
+   * Checks the application upgrade file using the {@link ErlTermReader}. Only
+   * valid files are reported in the JVM, {@code null} is returned for files
+   * that cannot be parsed or contain errors, leaving the error reporting to
+   * the runtime function.
+   */
+  @Override
+  public OtpErlangObject evaluate() {
+    List<OtpErlangObject> terms;
+    try {
+      terms = ErlTermReader.consult(this.appUpFile);
+    }
+    catch (IOException e) {
+      return null;
+    }
+    if (terms.size() == 1 && terms.get(0) instanceof OtpErlangTuple) {
+      OtpErlangTuple appUp = (OtpErlangTuple) terms.get(0);
+      if (appUp.arity() == 3 && new OtpErlangString(this.version).equals(appUp.elementAt(0))
+          && isValid(appUp.elementAt(1)) && isValid(appUp.elementAt(2))) {
+        return new OtpErlangList();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether a term is a list of {@code {Version, Instructions}}
+   * tuples with lists of tuples as instructions.
+   */
+  private static boolean isValid(OtpErlangObject entries) {
+    if (!(entries instanceof OtpErlangList)) {
+      return false;
+    }
+    for (OtpErlangObject entry : ((OtpErlangList) entries).elements()) {
+      if (!(entry instanceof OtpErlangTuple) || ((OtpErlangTuple) entry).arity() != 2) {
+        return false;
+      }
+      OtpErlangObject instructions = ((OtpErlangTuple) entry).elementAt(1);
+      if (!(instructions instanceof OtpErlangList)) {
+        return false;
+      }
+      for (OtpErlangObject instruction : ((OtpErlangList) instructions).elements()) {
+        if (!(instruction instanceof OtpErlangTuple)) {
+          return false;
+        }
+      }
+    }
+    return true;
   }
 
   /**
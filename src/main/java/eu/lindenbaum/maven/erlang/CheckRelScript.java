@@ -1,11 +1,15 @@
 package eu.lindenbaum.maven.erlang;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import eu.lindenbaum.maven.util.ErlTermReader;
 import eu.lindenbaum.maven.util.ErlUtils;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangTuple;
@@ -14,12 +18,12 @@ import org.apache.maven.plugin.MojoExecutionException;
 
 /**
  * A {@link Script} that can be used to extract certain values from an erlang
- * release file.
+ * release file. The release file is read in the JVM if possible.
  * 
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  */
-public class CheckRelScript extends AbstractScript<CheckRelResult> {
+public class CheckRelScript extends AbstractScript<CheckRelResult> implements LocalScript<CheckRelResult> {
   private final File relFile;
 
   /**
@@ -35,8 +39,56 @@ public class CheckRelScript extends AbstractScript<CheckRelResult> {
   }
 
   @Override
-  public String get() {
-    return String.format(this.script, this.relFile.getAbsolutePath());
+  public OtpErlangList getArguments() {
+    return new OtpErlangList(new OtpErlangObject[]{ ErlUtils.toFilename(this.relFile) });
+  }
+
+  /**
+   * Reads the release file using the {@link ErlTermReader}. Returns
+   * {@code null} if the file cannot be read or parsed in the JVM, leaving the
+   * error reporting to the runtime function.
+   */
+  @Override
+  public OtpErlangObject evaluate() {
+    List<OtpErlangObject> terms;
+    try {
+      terms = ErlTermReader.consult(this.relFile);
+    }
+    catch (IOException e) {
+      return null;
+    }
+    if (terms.size() == 1 && isTuple(terms.get(0), 4, "release")) {
+      OtpErlangTuple release = (OtpErlangTuple) terms.get(0);
+      if (isTuple(release.elementAt(1), 2, null) && isTuple(release.elementAt(2), 2, "erts")) {
+        if (!(release.elementAt(3) instanceof OtpErlangList)) {
+          return null;
+        }
+        OtpErlangObject[] applications = ((OtpErlangList) release.elementAt(3)).elements();
+        for (int i = 0; i < applications.length; ++i) {
+          if (!(applications[i] instanceof OtpErlangTuple)) {
+            return null;
+          }
+          OtpErlangTuple application = (OtpErlangTuple) applications[i];
+          if (application.arity() < 2 || application.arity() > 4) {
+            return null;
+          }
+          applications[i] = new OtpErlangTuple(new OtpErlangObject[]{ application.elementAt(0),
+                                                                     application.elementAt(1) });
+        }
+        OtpErlangTuple nameAndVersion = (OtpErlangTuple) release.elementAt(1);
+        return new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("ok"),
+                                                        nameAndVersion.elementAt(0),
+                                                        nameAndVersion.elementAt(1),
+                                                        ((OtpErlangTuple) release.elementAt(2)).elementAt(1),
+                                                        new OtpErlangList(applications) });
+      }
+    }
+    OtpErlangObject undefined = new OtpErlangAtom("undefined");
+    return new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("error"),
+                                                    undefined,
+                                                    undefined,
+                                                    undefined,
+                                                    new OtpErlangList() });
   }
 
   /**
@@ -96,4 +148,15 @@ public class CheckRelScript extends AbstractScript<CheckRelResult> {
       }
     };
   }
+
+  /**
+   * Returns whether a term is a tuple of the given arity, optionally tagged
+   * with the given atom.
+   */
+  private static boolean isTuple(OtpErlangObject term, int arity, String tag) {
+    if (term instanceof OtpErlangTuple && ((OtpErlangTuple) term).arity() == arity) {
+      return tag == null || new OtpErlangAtom(tag).equals(((OtpErlangTuple) term).elementAt(0));
+    }
+    return false;
+  }
 }
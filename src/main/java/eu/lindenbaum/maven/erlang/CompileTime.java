@@ -0,0 +1,78 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.lindenbaum.maven.util.ErlUtils;
+
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+/**
+ * Represents the time spent compiling a single file as reported by the
+ * compiler scripts. Besides the wall time the number of reductions executed on
+ * the backend node during the compilation is reported. Since the erlang
+ * compilers spawn processes on their own, reductions are measured node wide
+ * and are therefore only reported for files compiled one at a time.
+ * 
+ * @author agent <agent@local>
+ */
+public final class CompileTime {
+  private final File source;
+  private final long micros;
+  private final long reductions;
+
+  public CompileTime(File source, long micros, long reductions) {
+    this.source = source;
+    this.micros = micros;
+    this.reductions = reductions;
+  }
+
+  /**
+   * Returns the compiled source file.
+   */
+  public File getSource() {
+    return this.source;
+  }
+
+  /**
+   * Returns the wall time spent compiling the file in microseconds.
+   */
+  public long getMicros() {
+    return this.micros;
+  }
+
+  /**
+   * Returns the number of reductions executed while compiling the file, or
+   * {@code -1} if the file was compiled concurrently to other files.
+   */
+  public long getReductions() {
+    return this.reductions;
+  }
+
+  /**
+   * Converts a list of {@code {Source, Micros, Reductions}} tuples as returned
+   * by the compiler scripts. Reductions that were not measured are reported as
+   * {@code undefined}.
+   * 
+   * @param list the erlang list to convert
+   * @return a {@link List} of {@link CompileTime}s
+   */
+  static List<CompileTime> fromList(OtpErlangObject list) {
+    List<CompileTime> times = new ArrayList<CompileTime>();
+    for (OtpErlangObject element : ((OtpErlangList) list).elements()) {
+      OtpErlangTuple t = (OtpErlangTuple) element;
+      File source = new File(ErlUtils.toString(t.elementAt(0), false));
+      long micros = ((OtpErlangLong) t.elementAt(1)).longValue();
+      long reductions = -1;
+      if (t.elementAt(2) instanceof OtpErlangLong) {
+        reductions = ((OtpErlangLong) t.elementAt(2)).longValue();
+      }
+      times.add(new CompileTime(source, micros, reductions));
+    }
+    return times;
+  }
+}
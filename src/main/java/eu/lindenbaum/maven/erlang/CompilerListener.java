@@ -0,0 +1,30 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Interface for classes being notified by the {@link BeamCompilerScript} as
+ * soon as a compilation unit has been processed, while the compilation of
+ * other units is still running.
+ * 
+ * @author agent <agent@local>
+ */
+public interface CompilerListener {
+  /**
+   * Called when a compilation unit was compiled successfully.
+   * 
+   * @param source the compiled compilation unit
+   * @param warnings the compile warnings of the compilation unit
+   */
+  public void compiled(File source, List<String> warnings);
+
+  /**
+   * Called when the compilation of a compilation unit failed.
+   * 
+   * @param source the failed compilation unit
+   * @param errors the compile errors of the compilation unit
+   * @param warnings the compile warnings of the compilation unit
+   */
+  public void failed(File source, List<String> errors, List<String> warnings);
+}
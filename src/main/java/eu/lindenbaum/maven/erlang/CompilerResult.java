@@ -39,4 +39,22 @@ public interface CompilerResult {
    *         process.
    */
   public List<String> getWarnings();
+
+  /**
+   * Returns the {@link ModuleDependencies} of the successfully compiled
+   * compilation units. Compilers not tracking dependencies return an empty
+   * {@link List}.
+   * 
+   * @return A {@link List} containing the dependencies of the compiled units.
+   */
+  public List<ModuleDependencies> getDependencies();
+
+  /**
+   * Returns the {@link CompileTime}s of the compilation units, including the
+   * failed ones. Compilers not measuring compile times return an empty
+   * {@link List}.
+   * 
+   * @return A {@link List} containing the compile times of the units.
+   */
+  public List<CompileTime> getTimes();
 }
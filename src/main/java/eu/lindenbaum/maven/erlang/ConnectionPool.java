@@ -0,0 +1,119 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.ericsson.otp.erlang.OtpConnection;
+import com.ericsson.otp.erlang.OtpSelf;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A small, fixed size pool of {@link OtpConnection}s to a specific peer. Since
+ * erlang distribution allows only one connection between two nodes and RPCs
+ * over a connection are not multiplexed, every slot of the pool connects from
+ * a different {@link OtpSelf} stripe of its {@link MavenSelf}. Connections are
+ * established lazily when a slot is acquired for the first time. A slot must
+ * be given back using {@link #release(Slot)} or {@link #invalidate(Slot)}.
+ * 
+ * @author agent <agent@local>
+ */
+final class ConnectionPool {
+  private final MavenSelf owner;
+  private final String peer;
+  private final BlockingQueue<Slot> slots;
+
+  ConnectionPool(MavenSelf owner, String peer, int size) {
+    this.owner = owner;
+    this.peer = peer;
+    this.slots = new ArrayBlockingQueue<Slot>(size);
+    for (int i = 0; i < size; ++i) {
+      this.slots.add(new Slot(i));
+    }
+  }
+
+  /**
+   * Takes a slot from the pool, blocking until one is available. The returned
+   * slot is guaranteed to carry an established connection.
+   * 
+   * @return a {@link Slot} exclusively owned by the caller
+   * @throws MojoExecutionException in case the connection cannot be established
+   */
+  Slot acquire() throws MojoExecutionException {
+    Slot slot;
+    try {
+      slot = this.slots.take();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("interrupted while connecting to " + this.peer);
+    }
+    if (slot.connection == null) {
+      try {
+        slot.connection = this.owner.connect(slot.stripe, this.peer);
+      }
+      catch (MojoExecutionException e) {
+        this.slots.add(slot);
+        throw e;
+      }
+    }
+    return slot;
+  }
+
+  /**
+   * Gives back a slot to the pool, the connection will be reused.
+   * 
+   * @param slot to give back
+   */
+  void release(Slot slot) {
+    this.slots.add(slot);
+  }
+
+  /**
+   * Gives back a slot to the pool after closing its connection. The slot will
+   * reconnect when acquired the next time.
+   * 
+   * @param slot to give back
+   */
+  void invalidate(Slot slot) {
+    if (slot.connection != null) {
+      slot.connection.close();
+      slot.connection = null;
+    }
+    this.slots.add(slot);
+  }
+
+  /**
+   * Closes the connections of all slots currently in the pool. Slots taken
+   * from the pool are not affected.
+   */
+  void close() {
+    for (Slot slot : this.slots) {
+      if (slot.connection != null) {
+        slot.connection.close();
+        slot.connection = null;
+      }
+    }
+  }
+
+  /**
+   * A pool entry bound to a specific {@link OtpSelf} stripe.
+   */
+  static final class Slot {
+    private final int stripe;
+    private OtpConnection connection;
+
+    Slot(int stripe) {
+      this.stripe = stripe;
+    }
+
+    /**
+     * Returns the connection of this slot.
+     * 
+     * @return an established {@link OtpConnection}
+     */
+    OtpConnection connection() {
+      return this.connection;
+    }
+  }
+}
@@ -10,6 +10,7 @@ import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
 
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -41,16 +42,15 @@ public class CoverageReportScript extends AbstractScript<CoverageReportResult> {
   }
 
   @Override
-  public String get() {
-    String testPath = this.testDir.getAbsolutePath();
-    String testModuleList = ErlUtils.toModuleList(this.tests, "'", "'");
-    String sourceModuleList = ErlUtils.toModuleList(this.sources, "'", "'");
-    return String.format(this.script,
-                         testPath,
-                         testModuleList,
-                         sourceModuleList,
-                         this.coverageReportDir,
-                         this.coverageReportName);
+  public OtpErlangList getArguments() {
+    OtpErlangObject testPath = ErlUtils.toFilename(this.testDir);
+    OtpErlangObject testModuleList = ErlUtils.toModuleTermList(this.tests);
+    OtpErlangObject sourceModuleList = ErlUtils.toModuleTermList(this.sources);
+    return new OtpErlangList(new OtpErlangObject[]{ testPath,
+                                                   testModuleList,
+                                                   sourceModuleList,
+                                                   ErlUtils.toFilename(this.coverageReportDir),
+                                                   new OtpErlangString(this.coverageReportName) });
   }
 
   @Override
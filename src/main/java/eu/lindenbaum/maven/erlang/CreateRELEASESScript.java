@@ -4,6 +4,7 @@ import java.io.File;
 
 import eu.lindenbaum.maven.util.ErlUtils;
 
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -25,11 +26,11 @@ public class CreateRELEASESScript extends AbstractScript<String> {
   }
 
   @Override
-  public String get() {
-    String rootDirectory = this.rootDir.getAbsolutePath();
-    String relDirectory = this.relFile.getParentFile().getAbsolutePath();
-    String relFile = this.relFile.getAbsolutePath();
-    return String.format(this.script, rootDirectory, relDirectory, relFile);
+  public OtpErlangList getArguments() {
+    OtpErlangObject rootDirectory = ErlUtils.toFilename(this.rootDir);
+    OtpErlangObject relDirectory = ErlUtils.toFilename(this.relFile.getParentFile());
+    OtpErlangObject relFile = ErlUtils.toFilename(this.relFile);
+    return new OtpErlangList(new OtpErlangObject[]{ rootDirectory, relDirectory, relFile });
   }
 
   /**
@@ -0,0 +1,60 @@
+package eu.lindenbaum.maven.erlang;
+
+import eu.lindenbaum.maven.util.ErlUtils;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A {@link Script} that checks whether a backend node running in daemon mode
+ * can be reused. The node is only reusable if it was started using the same
+ * {@code erl} command and its OTP release is still installed. On success the
+ * node's idle timeout is (re-)armed. Projects must attach to the node using
+ * the {@link AttachScript} afterwards.
+ * 
+ * @author agent <agent@local>
+ */
+public final class DaemonScript extends AbstractScript<String> {
+  private final String command;
+  private final int idleTimeout;
+
+  /**
+   * Creates a {@link Script} checking a daemon node.
+   * 
+   * @param command the {@code erl} command the daemon must have been started
+   *          with
+   * @param idleTimeout the time in seconds after which the idle node halts
+   */
+  public DaemonScript(String command, int idleTimeout) throws MojoExecutionException {
+    super();
+    this.command = command;
+    this.idleTimeout = idleTimeout;
+  }
+
+  @Override
+  public OtpErlangList getArguments() {
+    return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangString(this.command),
+                                                    new OtpErlangLong(this.idleTimeout) });
+  }
+
+  /**
+   * Converts the result of the {@link Script} execution into the reason why the
+   * node cannot be reused.
+   * 
+   * @param result to convert
+   * @return A string describing why the node is not reusable or {@code null}
+   *         if the node can be reused.
+   */
+  @Override
+  public String handle(OtpErlangObject result) {
+    if (result instanceof OtpErlangAtom) {
+      return null;
+    }
+    return ErlUtils.toString(result);
+  }
+}
@@ -7,6 +7,7 @@ import eu.lindenbaum.maven.util.ErlUtils;
 
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 
 import org.apache.maven.plugin.MojoExecutionException;
 
@@ -41,11 +42,11 @@ public final class DialyzerScript extends AbstractScript<String[]> {
    * {@inheritDoc}
    */
   @Override
-  public String get() {
-    String directories = ErlUtils.toFilenameList(this.directories, "\"", "\"");
-    String incs = ErlUtils.toFilenameList(this.includes, "\"", "\"");
-    String opts = "[" + (this.options != null ? this.options : "") + "]";
-    return String.format(this.script, directories, incs, opts);
+  public OtpErlangList getArguments() {
+    OtpErlangObject directories = ErlUtils.toFilenameTermList(this.directories);
+    OtpErlangObject incs = ErlUtils.toFilenameTermList(this.includes);
+    OtpErlangObject opts = new OtpErlangString(this.options != null ? this.options : "");
+    return new OtpErlangList(new OtpErlangObject[]{ directories, incs, opts });
   }
 
   /**
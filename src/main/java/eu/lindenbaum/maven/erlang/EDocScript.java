@@ -4,6 +4,8 @@ import java.io.File;
 
 import eu.lindenbaum.maven.util.ErlUtils;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -39,11 +41,11 @@ public class EDocScript extends AbstractScript<Boolean> {
   }
 
   @Override
-  public String get() {
-    String inPath = this.indir.getAbsolutePath();
-    String outPath = this.outdir.getAbsolutePath();
-    String overviewPath = this.overview.getAbsolutePath();
-    return String.format(this.script, inPath, outPath, overviewPath, this.appName);
+  public OtpErlangList getArguments() {
+    OtpErlangObject inPath = ErlUtils.toFilename(this.indir);
+    OtpErlangObject outPath = ErlUtils.toFilename(this.outdir);
+    OtpErlangObject overviewPath = ErlUtils.toFilename(this.overview);
+    return new OtpErlangList(new OtpErlangObject[]{ inPath, outPath, overviewPath, new OtpErlangAtom(this.appName) });
   }
 
   /**
@@ -5,6 +5,7 @@ import java.util.List;
 
 import eu.lindenbaum.maven.util.ErlUtils;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 
@@ -34,9 +35,9 @@ public class FilterForAttributeScript extends AbstractScript<String> {
   }
 
   @Override
-  public String get() {
-    String modules = ErlUtils.toModuleList(this.modules, "'", "'");
-    return String.format(this.script, this.attribute, modules);
+  public OtpErlangList getArguments() {
+    OtpErlangObject modules = ErlUtils.toModuleTermList(this.modules);
+    return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangAtom(this.attribute), modules });
   }
 
   /**
@@ -5,6 +5,7 @@ import java.io.File;
 import eu.lindenbaum.maven.util.ErlUtils;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -34,8 +35,9 @@ public class GetAppupDirectiveScript extends AbstractScript<String> {
   }
 
   @Override
-  public String get() {
-    return String.format(this.script, this.module, this.modulePath.getAbsolutePath());
+  public OtpErlangList getArguments() {
+    OtpErlangObject modulePath = ErlUtils.toFilename(this.modulePath);
+    return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangAtom(this.module), modulePath });
   }
 
   /**
@@ -1,6 +1,7 @@
 package eu.lindenbaum.maven.erlang;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 
 import eu.lindenbaum.maven.util.ErlUtils;
@@ -34,10 +35,10 @@ public class GetAttributesScript extends AbstractScript<String> {
   }
 
   @Override
-  public String get() {
-    String modules = ErlUtils.toModuleList(this.modules, "'", "'");
-    String attributeList = ErlUtils.toList(this.attributes, null, "'", "'");
-    return String.format(this.script, attributeList, modules);
+  public OtpErlangList getArguments() {
+    OtpErlangObject modules = ErlUtils.toModuleTermList(this.modules);
+    OtpErlangObject attributeList = ErlUtils.toAtomTermList(Arrays.asList(this.attributes));
+    return new OtpErlangList(new OtpErlangObject[]{ attributeList, modules });
   }
 
   /**
@@ -5,6 +5,7 @@ import java.util.List;
 
 import eu.lindenbaum.maven.util.ErlUtils;
 
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangLong;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangRangeException;
@@ -27,9 +28,8 @@ public final class LoadModulesScript extends AbstractScript<Integer> {
   }
 
   @Override
-  public String get() {
-    String modules = ErlUtils.toModuleList(this.modules, "'", "'");
-    return String.format(this.script, modules);
+  public OtpErlangList getArguments() {
+    return new OtpErlangList(new OtpErlangObject[]{ ErlUtils.toModuleTermList(this.modules) });
   }
 
   /**
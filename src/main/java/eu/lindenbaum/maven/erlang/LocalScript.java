@@ -0,0 +1,24 @@
+package eu.lindenbaum.maven.erlang;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+
+/**
+ * Interface for {@link Script}s that can be evaluated in the JVM, e.g. scripts
+ * that only read terms from a file. {@link MavenSelf} evaluates these scripts
+ * locally and only executes them on the backend node if the local evaluation
+ * is not possible, e.g. because a file contains syntax that cannot be parsed
+ * in the JVM.
+ * 
+ * @param <T> the return type of the {@link Script}
+ * @author agent <agent@local>
+ */
+public interface LocalScript<T> extends Script<T> {
+  /**
+   * Evaluates the {@link Script} in the JVM. The returned term must equal the
+   * term returned by the runtime function implementing the {@link Script}.
+   * 
+   * @return the result term or {@code null} if the {@link Script} must be
+   *         executed on the backend node
+   */
+  public OtpErlangObject evaluate();
+}
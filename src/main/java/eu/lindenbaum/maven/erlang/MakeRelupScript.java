@@ -8,7 +8,9 @@ import eu.lindenbaum.maven.util.ErlUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
 
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -46,12 +48,12 @@ public final class MakeRelupScript extends AbstractScript<GenericScriptResult> {
   }
 
   @Override
-  public String get() {
-    String relup = this.relupFile.getAbsolutePath();
+  public OtpErlangList getArguments() {
+    OtpErlangObject relup = ErlUtils.toFilename(this.relupFile);
     String rel = this.relFile.getAbsolutePath().replace(ErlConstants.REL_SUFFIX, "");
-    String releases = ErlUtils.toList(this.releases, null, "\"", "\"");
-    String pathOption = "[{path, " + ErlUtils.toList(this.paths, null, "\"", "\"") + "}]";
-    return String.format(this.script, relup, rel, releases, pathOption);
+    OtpErlangObject releases = ErlUtils.toStringTermList(this.releases);
+    OtpErlangObject paths = ErlUtils.toFilenameTermList(this.paths);
+    return new OtpErlangList(new OtpErlangObject[]{ relup, new OtpErlangString(rel), releases, paths });
   }
 
   /**
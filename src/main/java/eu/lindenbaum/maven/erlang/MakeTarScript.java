@@ -7,7 +7,9 @@ import eu.lindenbaum.maven.util.ErlUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
 
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -43,10 +45,11 @@ public final class MakeTarScript extends AbstractScript<GenericScriptResult> {
   }
 
   @Override
-  public String get() {
+  public OtpErlangList getArguments() {
     String rel = this.releaseFile.getAbsolutePath().replace(ErlConstants.REL_SUFFIX, "");
-    String outPath = this.outdir.getAbsolutePath();
-    return String.format(this.script, rel, outPath, this.options);
+    OtpErlangObject outPath = ErlUtils.toFilename(this.outdir);
+    OtpErlangObject opts = new OtpErlangString(this.options != null ? this.options : "");
+    return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangString(rel), outPath, opts });
   }
 
   /**
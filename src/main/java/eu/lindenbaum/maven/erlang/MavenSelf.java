@@ -1,14 +1,14 @@
 package eu.lindenbaum.maven.erlang;
 
-import static eu.lindenbaum.maven.erlang.Script.NL;
-
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.ericsson.otp.erlang.OtpAuthException;
+import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpConnection;
 import com.ericsson.otp.erlang.OtpErlangExit;
 import com.ericsson.otp.erlang.OtpErlangList;
@@ -18,36 +18,57 @@ import com.ericsson.otp.erlang.OtpErlangTuple;
 import com.ericsson.otp.erlang.OtpPeer;
 import com.ericsson.otp.erlang.OtpSelf;
 
+import eu.lindenbaum.maven.util.ErlConstants;
 import eu.lindenbaum.maven.util.ErlUtils;
+import eu.lindenbaum.maven.util.FileUtils;
 
 import org.apache.maven.plugin.MojoExecutionException;
 
 /**
- * A wrapper around an {@link OtpSelf} node that acts as a connection cache for
- * destination erlang nodes. Instantiation is guarded by the singleton pattern.
- * To retrieve an instance call {@link MavenSelf#get(String)}. Connections
- * retrieved by {@link MavenSelf#connect(String)} are cached in order to return
- * an already established connection. Thus this method can be called multiple
- * times.
+ * A wrapper around a set of {@link OtpSelf} nodes that acts as a connection
+ * cache for destination erlang nodes. There is exactly one instance per cookie
+ * which can be retrieved by calling {@link MavenSelf#get(String)}. This class
+ * is thread-safe, plain RPCs (e.g. from a parallel reactor build) are spread
+ * over a small {@link ConnectionPool} per peer. Since erlang distribution does
+ * only allow one connection between two nodes, each pooled connection
+ * originates from a different {@link OtpSelf} stripe. {@link Script}s are
+ * pipelined over a dedicated {@link AsyncConnection} per peer to the
+ * dispatcher of the plugin's runtime module, which must have been loaded using
+ * {@link MavenSelf#loadRuntime(String, File)}. Script executions are subject
+ * to the {@link ScriptTimeouts} configured for a peer and recorded in the
+ * {@link ScriptMetrics} of the peer.
  * 
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public final class MavenSelf {
+  private static final int POOL_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+  private static final int ASYNC_STRIPE = POOL_SIZE;
   private static final int MAX_RETRIES = 10;
-  private static final String execScript = NL + "code:add_pathsa(%s)," + NL + "%s";
-  private static final Map<String, MavenSelf> instances = new HashMap<String, MavenSelf>();
+  private static final String RUNTIME_MODULE = "maven_erlang_plugin_rt";
+  private static final String RUNTIME_PATH = "/eu/lindenbaum/maven/erlang";
+  private static final ConcurrentMap<String, MavenSelf> instances = new ConcurrentHashMap<String, MavenSelf>();
 
-  private final OtpSelf self;
-  private final Map<String, OtpConnection> connections;
+  private final String cookie;
+  private final String name;
+  private final OtpSelf[] stripes;
+  private final ConcurrentMap<String, ConnectionPool> pools;
+  private final ConcurrentMap<String, AsyncConnection> asyncConnections;
+  private final ConcurrentMap<String, ScriptTimeouts> timeouts;
+  private final ConcurrentMap<String, ScriptMetrics> metrics;
 
-  private MavenSelf(OtpSelf self) {
-    this.self = self;
-    this.connections = new HashMap<String, OtpConnection>();
+  private MavenSelf(String cookie) {
+    this.cookie = cookie;
+    this.name = "maven-erlang-plugin-frontend-" + System.nanoTime();
+    this.stripes = new OtpSelf[POOL_SIZE + 1];
+    this.pools = new ConcurrentHashMap<String, ConnectionPool>();
+    this.asyncConnections = new ConcurrentHashMap<String, AsyncConnection>();
+    this.timeouts = new ConcurrentHashMap<String, ScriptTimeouts>();
+    this.metrics = new ConcurrentHashMap<String, ScriptMetrics>();
   }
 
   /**
-   * Returns a unique instance of {@link MavenSelf} per cookie using the
-   * singleton pattern.
+   * Returns a unique instance of {@link MavenSelf} per cookie. The self nodes
+   * backing the instance are created lazily on first use.
    * 
    * @param cookie the cookie to use for this java node
    * @return an instance of {@link MavenSelf}, never {@code null}
@@ -56,67 +77,168 @@ public final class MavenSelf {
   public static MavenSelf get(String cookie) throws MojoExecutionException {
     String c = cookie != null ? cookie : "";
     MavenSelf self = instances.get(c);
+    if (self == null) {
+      MavenSelf created = new MavenSelf(c);
+      self = instances.putIfAbsent(c, created);
+      if (self == null) {
+        self = created;
+      }
+    }
+    return self;
+  }
+
+  /**
+   * Returns the {@link OtpSelf} node of a specific stripe, creating it if
+   * necessary.
+   * 
+   * @param stripe index of the self node
+   * @return the {@link OtpSelf} of the stripe, never {@code null}
+   * @throws MojoExecutionException in case the self node cannot be created
+   */
+  synchronized OtpSelf getSelf(int stripe) throws MojoExecutionException {
+    OtpSelf self = this.stripes[stripe];
     if (self == null) {
       try {
-        String name = "maven-erlang-plugin-frontend-" + System.nanoTime();
-        OtpSelf otpSelf = c.isEmpty() ? new OtpSelf(name) : new OtpSelf(name, c);
-        self = new MavenSelf(otpSelf);
-        instances.put(c, self);
+        String n = this.name + "-" + stripe;
+        self = this.cookie.isEmpty() ? new OtpSelf(n) : new OtpSelf(n, this.cookie);
+        this.stripes[stripe] = self;
       }
       catch (IOException e) {
-        throw new MojoExecutionException("failed to create self node for cookie '" + c + "'", e);
+        throw new MojoExecutionException("failed to create self node for cookie '" + this.cookie + "'", e);
       }
     }
     return self;
   }
 
   /**
-   * Establishes an {@link OtpConnection} between this node and a specific
-   * {@link OtpPeer}. The returned connection may be an already existing, cached
-   * connection.
+   * Establishes a connection from the {@link OtpSelf} node of a specific
+   * stripe to the given peer, retrying for a fixed number of times.
    * 
+   * @param stripe index of the self node to connect from
    * @param peer to connect to
-   * @return an {@link OtpConnection} that may be used for rpc communication
+   * @return an established {@link OtpConnection}
    * @throws MojoExecutionException in case the connection cannot be established
    */
-  public OtpConnection connect(String peer) throws MojoExecutionException {
-    OtpConnection connection = this.connections.get(peer);
-    if (connection == null) {
-      String msg = null;
-      try {
-        for (int i = 0; i < MAX_RETRIES; ++i) {
-          try {
-            connection = this.self.connect(new OtpPeer(peer));
-            this.connections.put(peer, connection);
-            break;
-          }
-          catch (IOException e) {
-            msg = e.getMessage();
-            Thread.sleep(500L);
-          }
+  OtpConnection connect(int stripe, String peer) throws MojoExecutionException {
+    OtpSelf self = getSelf(stripe);
+    String msg = null;
+    try {
+      for (int i = 0; i < MAX_RETRIES; ++i) {
+        try {
+          return self.connect(new OtpPeer(peer));
+        }
+        catch (IOException e) {
+          msg = e.getMessage();
+          Thread.sleep(500L);
         }
       }
-      catch (OtpAuthException e) {
-        msg = e.getMessage();
-        throw new MojoExecutionException("failed to connect to " + peer + ": " + msg);
-      }
-      catch (InterruptedException e) {
-        msg = e.getMessage();
-        throw new MojoExecutionException("failed to connect to " + peer + ": " + msg);
+    }
+    catch (OtpAuthException e) {
+      msg = e.getMessage();
+      throw new MojoExecutionException("failed to connect to " + peer + ": " + msg);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      msg = e.getMessage();
+      throw new MojoExecutionException("failed to connect to " + peer + ": " + msg);
+    }
+    msg = " after " + MAX_RETRIES + " retries: " + msg;
+    throw new MojoExecutionException("failed to connect to " + peer + msg);
+  }
+
+  /**
+   * Sends an asynchronous call to a specific remote erlang node without waiting
+   * for the result, e.g. to shut down the node using {@code erlang:halt/0}.
+   * 
+   * @param peer to call the function on
+   * @param module of the function to call
+   * @param function to call
+   * @param args the arguments of the call
+   * @throws MojoExecutionException in case the call cannot be sent
+   */
+  public void cast(String peer, String module, String function, OtpErlangList args) throws MojoExecutionException {
+    ConnectionPool pool = getPool(peer);
+    ConnectionPool.Slot slot = pool.acquire();
+    try {
+      slot.connection().sendRPC(module, function, args);
+      // an unread reply would be mistaken for the result of the next call
+      pool.invalidate(slot);
+    }
+    catch (IOException e) {
+      pool.invalidate(slot);
+      String msg = "in call " + module + ":" + function + " failure: " + e.getMessage();
+      throw new MojoExecutionException(msg, e);
+    }
+  }
+
+  /**
+   * Drops all cached connections to a specific remote erlang node, e.g. after
+   * the node was stopped. Pending {@link Script} executions on the node fail.
+   * 
+   * @param peer to disconnect from
+   */
+  public synchronized void disconnect(String peer) {
+    ConnectionPool pool = this.pools.remove(peer);
+    if (pool != null) {
+      pool.close();
+    }
+    AsyncConnection connection = this.asyncConnections.remove(peer);
+    if (connection != null) {
+      connection.close(new IOException("disconnected"));
+    }
+  }
+
+  /**
+   * Loads the plugin's runtime module onto a specific remote erlang node. The
+   * runtime module will only be (re-)compiled if the node does not already run
+   * the runtime module of this plugin version. The source of the runtime module
+   * will be extracted into the given directory in order to be compiled by the
+   * remote node. Additionally, the dispatcher process serving
+   * {@link #execAsync(String, Script, List)} will be started if necessary.
+   * 
+   * @param peer to load the runtime module on
+   * @param dir to extract the runtime module's source into
+   * @throws MojoExecutionException in case the runtime module cannot be loaded
+   */
+  public void loadRuntime(String peer, File dir) throws MojoExecutionException {
+    String source = FileUtils.readFileFromClassPath(getClass(), RUNTIME_PATH, RUNTIME_MODULE + ErlConstants.ERL_SUFFIX);
+    String checksum = FileUtils.getChecksum(source);
+    OtpErlangObject loaded = rpc(peer, RUNTIME_MODULE, "checksum", new OtpErlangList());
+    if (!checksum.equals(ErlUtils.toString(loaded))) {
+      File sourceFile = new File(dir, RUNTIME_MODULE + ErlConstants.ERL_SUFFIX);
+      FileUtils.writeFile(sourceFile, source);
+      OtpErlangString path = new OtpErlangString(sourceFile.getAbsolutePath());
+      OtpErlangObject define = new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("d"),
+                                                                         new OtpErlangAtom("CHECKSUM"),
+                                                                         new OtpErlangString(checksum) });
+      OtpErlangList options = new OtpErlangList(new OtpErlangObject[]{ new OtpErlangAtom("binary"),
+                                                                       new OtpErlangAtom("return_errors"),
+                                                                       define });
+      OtpErlangObject compiled = rpc(peer, "compile", "file", new OtpErlangList(new OtpErlangObject[]{ path,
+                                                                                                      options }));
+      if (!isTagged(compiled, "ok", 3)) {
+        throw new MojoExecutionException("failed to compile runtime module on " + peer + ": " + compiled);
       }
-      if (connection == null) {
-        msg = " after " + MAX_RETRIES + " retries: " + msg;
-        throw new MojoExecutionException("failed to connect to " + peer + msg);
+      OtpErlangObject module = ((OtpErlangTuple) compiled).elementAt(1);
+      OtpErlangObject binary = ((OtpErlangTuple) compiled).elementAt(2);
+      rpc(peer, "code", "purge", new OtpErlangList(module));
+      OtpErlangObject result = rpc(peer, "code", "load_binary", new OtpErlangList(new OtpErlangObject[]{ module,
+                                                                                                        path,
+                                                                                                        binary }));
+      if (!isTagged(result, "module", 2)) {
+        throw new MojoExecutionException("failed to load runtime module on " + peer + ": " + result);
       }
     }
-    return connection;
+    rpc(peer, RUNTIME_MODULE, "dispatcher", new OtpErlangList());
   }
 
   /**
-   * Executes a {@link Script} on a specific remote erlang node using RPC. A
-   * connection to the remote node will be established if necessary. NOTE: This
-   * will <b>not</b> automatically purge dynamically loaded modules neither will
-   * it cleanup the code path of the backend node's code server.
+   * Executes a {@link Script} on a specific remote erlang node and waits for
+   * its result. A connection to the remote node will be established if
+   * necessary. The execution is subject to the {@link ScriptTimeouts}
+   * configured for the node. NOTE: This will <b>not</b> automatically purge
+   * dynamically loaded modules neither will it cleanup the code path of the
+   * backend node's code server.
    * 
    * @param peer to evaluate the {@link Script} on
    * @param script to evaluate
@@ -124,14 +246,16 @@ public final class MavenSelf {
    * @throws MojoExecutionException
    */
   public <T> T exec(String peer, Script<T> script) throws MojoExecutionException {
-    return script.handle(eval(peer, script.get()));
+    return exec(peer, script, new ArrayList<File>());
   }
 
   /**
-   * Executes a {@link Script} on a specific remote erlang node using RPC. A
-   * connection to the remote node will be established if necessary. NOTE: This
-   * will <b>not</b> automatically purge dynamically loaded modules neither will
-   * it cleanup the code path of the backend node's code server.
+   * Executes a {@link Script} on a specific remote erlang node and waits for
+   * its result. A connection to the remote node will be established if
+   * necessary. The execution is subject to the {@link ScriptTimeouts}
+   * configured for the node. NOTE: This will <b>not</b> automatically purge
+   * dynamically loaded modules neither will it cleanup the code path of the
+   * backend node's code server.
    * 
    * @param peer to evaluate the {@link Script} on
    * @param script to evaluate
@@ -140,87 +264,170 @@ public final class MavenSelf {
    * @throws MojoExecutionException
    */
   public <T> T exec(String peer, Script<T> script, List<File> codePaths) throws MojoExecutionException {
-    String toExec = String.format(execScript, ErlUtils.toFilenameList(codePaths, "\"", "\""), script.get());
-    return script.handle(eval(peer, toExec));
+    return execAsync(peer, script, codePaths).await();
   }
 
   /**
-   * Removes the cached connection to the given peer.
+   * Configures the {@link ScriptTimeouts} for {@link Script}s executed on a
+   * specific remote erlang node.
    * 
-   * @param peer to remove connections for
+   * @param peer to configure the timeouts for
+   * @param timeouts to use for script executions on the node
    */
-  private void removeConnection(String peer) {
-    this.connections.remove(peer);
+  public void setTimeouts(String peer, ScriptTimeouts timeouts) {
+    this.timeouts.put(peer, timeouts);
   }
 
   /**
-   * Executes an erlang script on a specific remote erlang node using RPC. A
-   * connection to the remote node will be established if necessary.
+   * Returns the {@link ScriptMetrics} recorded for {@link Script}s executed on
+   * a specific remote erlang node during the lifetime of this JVM.
    * 
-   * @param peer to evaluate the expression on
-   * @param expression to evaluate
-   * @return the result term of the expression
-   * @throws MojoExecutionException
+   * @param peer to get the metrics for
+   * @return the {@link ScriptMetrics} of the node, never {@code null}
    */
-  private OtpErlangObject eval(String peer, String expression) throws MojoExecutionException {
-    OtpConnection connection = connect(peer);
-    try {
-      connection.sendRPC("erl_eval", "new_bindings", new OtpErlangList());
-      OtpErlangObject bindings = connection.receiveRPC();
-
-      connection.sendRPC("erl_scan", "string", new OtpErlangList(new OtpErlangString(expression)));
-      OtpErlangTuple result = (OtpErlangTuple) connection.receiveRPC();
-      OtpErlangObject indicator = result.elementAt(0);
-      if ("ok".equals(indicator.toString())) {
-        connection.sendRPC("erl_parse", "parse_exprs", new OtpErlangList(result.elementAt(1)));
-        result = (OtpErlangTuple) connection.receiveRPC();
-        indicator = result.elementAt(0);
-        if ("ok".equals(indicator.toString())) {
-          OtpErlangList forms = (OtpErlangList) result.elementAt(1);
-          if (forms.arity() > 0) {
-            connection.sendRPC("erl_eval", "exprs", new OtpErlangObject[]{ forms, bindings });
-            result = (OtpErlangTuple) connection.receiveRPC();
-            indicator = result.elementAt(0);
-            if ("value".equals(indicator.toString())) {
-              return result.elementAt(1);
-            }
-            else {
-              OtpErlangObject errorInfo = result.elementAt(1);
-              String msg = "in script: " + expression + "failed to evaluate form: " + errorInfo.toString();
-              throw new MojoExecutionException(msg);
-            }
-          }
-          else {
-            String msg = "in script: " + expression + "couldn't find forms to evaluate in expression";
-            throw new MojoExecutionException(msg);
-          }
-        }
-        else {
-          OtpErlangObject errorInfo = result.elementAt(1);
-          String msg = "in script: " + expression + "failed to parse tokens: " + errorInfo.toString();
-          throw new MojoExecutionException(msg);
-        }
+  public ScriptMetrics getMetrics(String peer) {
+    ScriptMetrics metrics = this.metrics.get(peer);
+    if (metrics == null) {
+      ScriptMetrics created = new ScriptMetrics();
+      metrics = this.metrics.putIfAbsent(peer, created);
+      if (metrics == null) {
+        metrics = created;
       }
-      else {
-        OtpErlangObject errorInfo = result.elementAt(1);
-        String msg = "in script: " + expression + "failed to scan expression: " + errorInfo.toString();
-        throw new MojoExecutionException(msg);
+    }
+    return metrics;
+  }
+
+  /**
+   * Executes a {@link Script} on a specific remote erlang node asynchronously.
+   * The call returns immediately, the result can be retrieved from the returned
+   * {@link ScriptFuture}. This allows to have many independent scripts in
+   * flight at once, e.g. by submitting all scripts before collecting the
+   * results.
+   * 
+   * @param peer to evaluate the {@link Script} on
+   * @param script to evaluate
+   * @return a {@link ScriptFuture} providing the processed result
+   * @throws MojoExecutionException in case the script cannot be submitted
+   */
+  public <T> ScriptFuture<T> execAsync(String peer, Script<T> script) throws MojoExecutionException {
+    return execAsync(peer, script, new ArrayList<File>());
+  }
+
+  /**
+   * Executes a {@link Script} on a specific remote erlang node asynchronously.
+   * The call returns immediately, the result can be retrieved from the returned
+   * {@link ScriptFuture}. {@link LocalScript}s are evaluated in the JVM if
+   * possible, the returned {@link ScriptFuture} is already completed then.
+   * 
+   * @param peer to evaluate the {@link Script} on
+   * @param script to evaluate
+   * @param codePaths a list of paths needed for the script to run
+   * @return a {@link ScriptFuture} providing the processed result
+   * @throws MojoExecutionException in case the script cannot be submitted
+   */
+  public <T> ScriptFuture<T> execAsync(String peer, Script<T> script, List<File> codePaths) throws MojoExecutionException {
+    if (script instanceof LocalScript<?>) {
+      OtpErlangObject result = ((LocalScript<?>) script).evaluate();
+      if (result != null) {
+        ScriptFuture<T> future = new ScriptFuture<T>(script, 0);
+        future.complete(result);
+        return future;
       }
     }
+    ScriptTimeouts timeouts = this.timeouts.get(peer);
+    long timeout = (timeouts != null ? timeouts : ScriptTimeouts.NONE).get(script);
+    return getAsyncConnection(peer).send(script, ErlUtils.toFilenameTermList(codePaths), timeout);
+  }
+
+  /**
+   * Returns the {@link AsyncConnection} for the given peer, replacing broken
+   * connections.
+   * 
+   * @param peer to get the connection for
+   * @return an open {@link AsyncConnection}
+   * @throws MojoExecutionException in case the connection cannot be established
+   */
+  private synchronized AsyncConnection getAsyncConnection(String peer) throws MojoExecutionException {
+    AsyncConnection connection = this.asyncConnections.get(peer);
+    if (connection == null || connection.isClosed()) {
+      OtpConnection otpConnection = connect(ASYNC_STRIPE, peer);
+      connection = new AsyncConnection(peer, getSelf(ASYNC_STRIPE), otpConnection, getMetrics(peer));
+      this.asyncConnections.put(peer, connection);
+    }
+    return connection;
+  }
+
+  /**
+   * Returns the {@link ConnectionPool} for the given peer, creating it if
+   * necessary.
+   * 
+   * @param peer to get the pool for
+   * @return the {@link ConnectionPool} of the peer, never {@code null}
+   */
+  private ConnectionPool getPool(String peer) {
+    ConnectionPool pool = this.pools.get(peer);
+    if (pool == null) {
+      ConnectionPool created = new ConnectionPool(this, peer, POOL_SIZE);
+      pool = this.pools.putIfAbsent(peer, created);
+      if (pool == null) {
+        pool = created;
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * Calls a function on a specific remote erlang node using RPC. A pooled
+   * connection to the remote node will be used exclusively for the call. The
+   * connection will be dropped from the pool on communication failures.
+   * 
+   * @param peer to call the function on
+   * @param module of the function to call
+   * @param function to call
+   * @param args the arguments of the call
+   * @return the result term of the call
+   * @throws MojoExecutionException
+   */
+  private OtpErlangObject rpc(String peer, String module, String function, OtpErlangList args) throws MojoExecutionException {
+    ConnectionPool pool = getPool(peer);
+    ConnectionPool.Slot slot = pool.acquire();
+    try {
+      OtpConnection connection = slot.connection();
+      connection.sendRPC(module, function, args);
+      OtpErlangObject result = connection.receiveRPC();
+      pool.release(slot);
+      return result;
+    }
     catch (IOException e) {
-      removeConnection(peer);
-      String msg = "in script: " + expression + "failure: " + e.getMessage();
+      pool.invalidate(slot);
+      String msg = "in call " + module + ":" + function + " failure: " + e.getMessage();
       throw new MojoExecutionException(msg, e);
     }
     catch (OtpErlangExit e) {
-      removeConnection(peer);
-      String msg = "in script: " + expression + "failure: " + e.getMessage();
+      pool.invalidate(slot);
+      String msg = "in call " + module + ":" + function + " failure: " + e.getMessage();
       throw new MojoExecutionException(msg, e);
     }
     catch (OtpAuthException e) {
-      removeConnection(peer);
-      String msg = "in script: " + expression + "failure: " + e.getMessage();
+      pool.invalidate(slot);
+      String msg = "in call " + module + ":" + function + " failure: " + e.getMessage();
       throw new MojoExecutionException(msg, e);
     }
+    catch (RuntimeException e) {
+      pool.invalidate(slot);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns whether a term is a tuple of a specific arity tagged with a
+   * specific atom.
+   */
+  private static boolean isTagged(OtpErlangObject term, String tag, int arity) {
+    if (term instanceof OtpErlangTuple) {
+      OtpErlangTuple tuple = (OtpErlangTuple) term;
+      return tuple.arity() == arity && tag.equals(tuple.elementAt(0).toString());
+    }
+    return false;
   }
 }
@@ -8,6 +8,7 @@ import java.util.List;
 
 import eu.lindenbaum.maven.util.ErlUtils;
 
+import com.ericsson.otp.erlang.OtpErlangInt;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangTuple;
@@ -15,7 +16,8 @@ import com.ericsson.otp.erlang.OtpErlangTuple;
 import org.apache.maven.plugin.MojoExecutionException;
 
 /**
- * A {@link Script} that can be used to compile MIB files.
+ * A {@link Script} that can be used to compile MIB files. The given MIB files
+ * are compiled in parallel, so they must not import each other.
  * 
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  * @since 2.2.0
@@ -24,6 +26,7 @@ public final class MibCompilerScript extends AbstractScript<CompilerResult> {
   private final List<File> files;
   private final File outdir;
   private final List<File> includes;
+  private final int processes;
 
   /**
    * Creates a compiler script for a {@link List} of MIB files.
@@ -31,20 +34,24 @@ public final class MibCompilerScript extends AbstractScript<CompilerResult> {
    * @param files a list of the MIB files to compile
    * @param outdir the destination directory for the compiled .bin MIBs
    * @param includes a list of include directories
+   * @param processes the maximum number of MIBs to compile in parallel,
+   *          {@code 0} uses one process per scheduler of the backend node
    */
-  public MibCompilerScript(List<File> files, File outdir, List<File> includes) throws MojoExecutionException {
+  public MibCompilerScript(List<File> files, File outdir, List<File> includes, int processes) throws MojoExecutionException {
     super();
     this.files = files;
     this.outdir = outdir;
     this.includes = includes;
+    this.processes = processes;
   }
 
   @Override
-  public String get() {
-    String out = this.outdir.getAbsolutePath();
-    String incs = ErlUtils.toFilenameList(this.includes, "\"", "\"");
-    String files = ErlUtils.toFilenameList(this.files, "\"", "\"");
-    return String.format(this.script, out, incs, files);
+  public OtpErlangList getArguments() {
+    OtpErlangObject out = ErlUtils.toFilename(this.outdir);
+    OtpErlangObject incs = ErlUtils.toFilenameTermList(this.includes);
+    OtpErlangObject files = ErlUtils.toFilenameTermList(this.files);
+    OtpErlangObject processes = new OtpErlangInt(this.processes);
+    return new OtpErlangList(new OtpErlangObject[]{ out, incs, files, processes });
   }
 
   /**
@@ -81,6 +88,11 @@ public final class MibCompilerScript extends AbstractScript<CompilerResult> {
       errors.add(ErlUtils.toString(errorIterator.next(), false));
     }
 
+    final List<CompileTime> times = new ArrayList<CompileTime>();
+    if (r.arity() > 3) {
+      times.addAll(CompileTime.fromList(r.elementAt(3)));
+    }
+
     return new CompilerResult() {
       @Override
       public List<File> getFailed() {
@@ -101,6 +113,16 @@ public final class MibCompilerScript extends AbstractScript<CompilerResult> {
       public List<String> getWarnings() {
         return Collections.emptyList();
       }
+
+      @Override
+      public List<ModuleDependencies> getDependencies() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public List<CompileTime> getTimes() {
+        return times;
+      }
     };
   }
 }
@@ -0,0 +1,54 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Represents the compile time dependencies of an erlang module as reported by
+ * the {@link BeamCompilerScript}. These are the files included by the module's
+ * source (including <code>include_lib</code> files), the parse transforms and
+ * the behaviours used by the module.
+ * 
+ * @author agent <agent@local>
+ */
+public final class ModuleDependencies {
+  private final File source;
+  private final List<File> includes;
+  private final List<String> parseTransforms;
+  private final List<String> behaviours;
+
+  public ModuleDependencies(File source, List<File> includes, List<String> parseTransforms, List<String> behaviours) {
+    this.source = source;
+    this.includes = includes;
+    this.parseTransforms = parseTransforms;
+    this.behaviours = behaviours;
+  }
+
+  /**
+   * Returns the source file of the module.
+   */
+  public File getSource() {
+    return this.source;
+  }
+
+  /**
+   * Returns the files included by the module's source.
+   */
+  public List<File> getIncludes() {
+    return this.includes;
+  }
+
+  /**
+   * Returns the names of the parse transform modules used by the module.
+   */
+  public List<String> getParseTransforms() {
+    return this.parseTransforms;
+  }
+
+  /**
+   * Returns the names of the behaviour modules implemented by the module.
+   */
+  public List<String> getBehaviours() {
+    return this.behaviours;
+  }
+}
@@ -1,18 +1,18 @@
 package eu.lindenbaum.maven.erlang;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import eu.lindenbaum.maven.util.MavenUtils;
 
-import com.ericsson.otp.erlang.OtpConnection;
 import com.ericsson.otp.erlang.OtpErlangList;
 
 import org.apache.maven.plugin.MojoExecutionException;
 
 /**
- * Provides JVM unique shutdown hooks that stop erlang backend nodes.
+ * Provides JVM unique shutdown hooks that stop erlang backend nodes. Before
+ * stopping a node the {@link ScriptMetrics} recorded for the node are printed.
+ * Nodes running in daemon mode are not stopped.
  * 
  * @author Tobias Schlager tobias.schlager@lindenbaum.eu
  */
@@ -21,10 +21,12 @@ public final class NodeShutdownHook extends Thread {
 
   private final String nodeName;
   private volatile String nodeCookie;
+  private volatile boolean halt;
 
-  private NodeShutdownHook(String nodeName, String nodeCookie) {
+  private NodeShutdownHook(String nodeName, String nodeCookie, boolean halt) {
     this.nodeName = nodeName;
     this.nodeCookie = nodeCookie;
+    this.halt = halt;
   }
 
   /**
@@ -34,39 +36,55 @@ public final class NodeShutdownHook extends Thread {
    * 
    * @param nodeName name of the erlang node to shut down
    * @param nodeCookie cookie of the erlang node to shut down
+   * @param halt whether to stop the node, {@code false} for daemon nodes
    * @return an instance of {@link NodeShutdownHook}, never <code>null</code>
    */
-  public static NodeShutdownHook get(String nodeName, String nodeCookie) {
+  public static NodeShutdownHook get(String nodeName, String nodeCookie, boolean halt) {
     synchronized (instances) {
       NodeShutdownHook shutdownHook = instances.get(nodeName);
       if (shutdownHook == null) {
-        shutdownHook = new NodeShutdownHook(nodeName, nodeCookie);
+        shutdownHook = new NodeShutdownHook(nodeName, nodeCookie, halt);
         instances.put(nodeName, shutdownHook);
       }
       else {
         shutdownHook.nodeCookie = nodeCookie;
+        shutdownHook.halt = halt;
       }
       return shutdownHook;
     }
   }
 
   /**
-   * Shuts down the node refered to by {@link #nodeName} using
-   * <code>erlang:halt/0</code>.
+   * Prints the {@link ScriptMetrics} of the node refered to by
+   * {@link #nodeName} and shuts down the node using <code>erlang:halt/0</code>
+   * unless the node runs in daemon mode.
+   * Since shutdown hooks run concurrently, the output of the hooks is
+   * serialized.
    */
   @Override
   public void run() {
-    try {
-      OtpConnection connection = MavenSelf.get(this.nodeCookie).connect(this.nodeName);
-      connection.sendRPC("erlang", "halt", new OtpErlangList());
-      System.out.println("[INFO] Successfully shut down '" + this.nodeName + "'");
-    }
-    catch (IOException e) {
-      System.out.println("[ERROR] Failed to shutdown '" + this.nodeName + "'");
-    }
-    catch (MojoExecutionException e) {
-      System.out.println("[ERROR] Failed to shutdown '" + this.nodeName + "'");
+    synchronized (instances) {
+      try {
+        MavenSelf self = MavenSelf.get(this.nodeCookie);
+        ScriptMetrics metrics = self.getMetrics(this.nodeName);
+        if (!metrics.isEmpty()) {
+          System.out.println("[INFO] Script metrics for '" + this.nodeName + "':");
+          for (String line : metrics.summary()) {
+            System.out.println("[INFO] " + line);
+          }
+        }
+        if (this.halt) {
+          self.cast(this.nodeName, "erlang", "halt", new OtpErlangList());
+          System.out.println("[INFO] Successfully shut down '" + this.nodeName + "'");
+        }
+        else {
+          System.out.println("[INFO] Leaving daemon node '" + this.nodeName + "' running");
+        }
+      }
+      catch (MojoExecutionException e) {
+        System.out.println("[ERROR] Failed to shutdown '" + this.nodeName + "'");
+      }
+      System.out.println("[INFO] " + MavenUtils.SEPARATOR);
     }
-    System.out.println("[INFO] " + MavenUtils.SEPARATOR);
   }
 }
@@ -8,8 +8,10 @@ import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangInt;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -37,10 +39,13 @@ public class ProfilingScript extends AbstractScript<ProfilingResult> {
   }
 
   @Override
-  public String get() {
-    String profilingReportsPath = this.profilingReportsDir.getAbsolutePath();
-    String testList = ErlUtils.toModuleList(this.tests, "'", "'");
-    return String.format(this.script, profilingReportsPath, this.profilingReportName, testList, this.timeout);
+  public OtpErlangList getArguments() {
+    OtpErlangObject profilingReportsPath = ErlUtils.toFilename(this.profilingReportsDir);
+    OtpErlangObject testList = ErlUtils.toModuleTermList(this.tests);
+    return new OtpErlangList(new OtpErlangObject[]{ profilingReportsPath,
+                                                   new OtpErlangString(this.profilingReportName),
+                                                   testList,
+                                                   new OtpErlangInt(this.timeout) });
   }
 
   /**
@@ -0,0 +1,22 @@
+package eu.lindenbaum.maven.erlang;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+
+/**
+ * Interface for {@link Script}s reporting intermediate results while being
+ * executed. The runtime module sends these results using its
+ * {@code progress/1} function, they are passed to the script in the order
+ * they were sent, before the final result is handled. Note that progress is
+ * handled by the thread receiving the replies of the backend node, so
+ * implementations must not block.
+ * 
+ * @author agent <agent@local>
+ */
+public interface ProgressHandler {
+  /**
+   * Handles an intermediate result of the executing {@link Script}.
+   * 
+   * @param progress the term reported by the script
+   */
+  public void handleProgress(OtpErlangObject progress);
+}
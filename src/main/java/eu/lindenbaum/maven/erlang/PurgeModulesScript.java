@@ -1,5 +1,6 @@
 package eu.lindenbaum.maven.erlang;
 
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -18,8 +19,8 @@ public final class PurgeModulesScript extends AbstractScript<Void> {
   }
 
   @Override
-  public String get() {
-    return this.script;
+  public OtpErlangList getArguments() {
+    return new OtpErlangList();
   }
 
   /**
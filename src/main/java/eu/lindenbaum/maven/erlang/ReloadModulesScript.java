@@ -0,0 +1,92 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.lindenbaum.maven.util.BeamFile;
+import eu.lindenbaum.maven.util.ErlConstants;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangRangeException;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A {@link Script} that brings the given {@code .beam} files into the code
+ * server. All dynamically loaded modules not given to the {@link Script} are
+ * purged, like {@link PurgeModulesScript} does. The given modules are only
+ * reloaded if the MD5 checksum of the {@code .beam} file differs from the
+ * checksum of the currently loaded module, unchanged modules stay resident.
+ * Changed modules are loaded in one step using {@code code:atomic_load/1}, if
+ * available.
+ * 
+ * @author agent <agent@local>
+ */
+public final class ReloadModulesScript extends AbstractScript<ReloadResult> {
+  private final List<OtpErlangObject> modules = new ArrayList<OtpErlangObject>();
+
+  /**
+   * Creates a {@link Script} for the given {@code .beam} files. Not existing
+   * files will be ignored.
+   * 
+   * @param beams the {@code .beam} files to load
+   * @throws MojoExecutionException in case a {@code .beam} file cannot be read
+   */
+  public ReloadModulesScript(List<File> beams) throws MojoExecutionException {
+    super();
+    for (File beam : beams) {
+      if (beam.isFile()) {
+        String module = beam.getName().replace(ErlConstants.BEAM_SUFFIX, "");
+        byte[] md5 = toBytes(BeamFile.read(beam).getMd5());
+        this.modules.add(new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom(module),
+                                                                   new OtpErlangString(beam.getAbsolutePath()),
+                                                                   new OtpErlangBinary(md5) }));
+      }
+    }
+  }
+
+  @Override
+  public OtpErlangList getArguments() {
+    OtpErlangObject[] modules = this.modules.toArray(new OtpErlangObject[0]);
+    return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangList(modules) });
+  }
+
+  /**
+   * The result of the {@link Script} execution will be converted into a
+   * {@link ReloadResult} indicating how many modules were kept and how many
+   * modules were actually reloaded.
+   * 
+   * @return The {@link ReloadResult}, containing {@code -1} values on
+   *         conversion errors.
+   */
+  @Override
+  public ReloadResult handle(OtpErlangObject result) {
+    OtpErlangTuple tuple = (OtpErlangTuple) result;
+    try {
+      int kept = ((OtpErlangLong) tuple.elementAt(0)).intValue();
+      int reloaded = ((OtpErlangLong) tuple.elementAt(1)).intValue();
+      return new ReloadResult(kept, reloaded);
+    }
+    catch (OtpErlangRangeException e) {
+      return new ReloadResult(-1, -1);
+    }
+  }
+
+  /**
+   * Converts a hex string into its binary representation.
+   */
+  private static byte[] toBytes(String hex) {
+    byte[] bytes = new byte[hex.length() / 2];
+    for (int i = 0; i < bytes.length; ++i) {
+      bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+    }
+    return bytes;
+  }
+}
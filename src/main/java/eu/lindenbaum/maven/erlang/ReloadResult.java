@@ -0,0 +1,32 @@
+package eu.lindenbaum.maven.erlang;
+
+/**
+ * Represents the result of a {@link ReloadModulesScript}, the number of
+ * modules that were kept because they did not change and the number of
+ * modules that were (re)loaded.
+ * 
+ * @author agent <agent@local>
+ */
+public final class ReloadResult {
+  private final int kept;
+  private final int reloaded;
+
+  public ReloadResult(int kept, int reloaded) {
+    this.kept = kept;
+    this.reloaded = reloaded;
+  }
+
+  /**
+   * Returns the number of unchanged modules that stayed resident.
+   */
+  public int getKept() {
+    return this.kept;
+  }
+
+  /**
+   * Returns the number of modules that were (re)loaded.
+   */
+  public int getReloaded() {
+    return this.reloaded;
+  }
+}
@@ -9,6 +9,7 @@ import eu.lindenbaum.maven.util.ErlUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangTuple;
@@ -24,6 +25,8 @@ import org.apache.maven.plugin.logging.Log;
  * @author Timo Koepke <timo.koepke@lindenbaum.eu>
  */
 public class RunProjectScript extends AbstractScript<GenericScriptResult> {
+  private static final String LOCAL_NODE = "local";
+
   private final String node;
   private final List<String> applications;
   private final File sysConfigFile;
@@ -31,7 +34,8 @@ public class RunProjectScript extends AbstractScript<GenericScriptResult> {
   /**
    * Creates a {@link Script} trying to start a set of erlang applications.
    * 
-   * @param node to start the applications on
+   * @param node to start the applications on, {@code null} for the node
+   *          executing the script
    * @param applications to start
    */
   public RunProjectScript(String node, List<String> applications) throws MojoExecutionException {
@@ -41,7 +45,8 @@ public class RunProjectScript extends AbstractScript<GenericScriptResult> {
   /**
    * Creates a {@link Script} trying to start a set of erlang applications.
    * 
-   * @param node to start the applications on
+   * @param node to start the applications on, {@code null} for the node
+   *          executing the script
    * @param applications to start
    * @param sysConfigFile a system configuration file to load before starting
    *          the applications
@@ -54,10 +59,11 @@ public class RunProjectScript extends AbstractScript<GenericScriptResult> {
   }
 
   @Override
-  public String get() {
-    String applications = ErlUtils.toList(this.applications, null, "'", "'");
-    String configFile = this.sysConfigFile.getAbsolutePath();
-    return String.format(this.script, this.node, applications, configFile);
+  public OtpErlangList getArguments() {
+    OtpErlangObject target = new OtpErlangAtom(this.node != null ? this.node : LOCAL_NODE);
+    OtpErlangObject applications = ErlUtils.toAtomTermList(this.applications);
+    OtpErlangObject configFile = ErlUtils.toFilename(this.sysConfigFile);
+    return new OtpErlangList(new OtpErlangObject[]{ target, applications, configFile });
   }
 
   /**
@@ -24,8 +24,8 @@ public class RuntimeInfoScript extends AbstractScript<RuntimeInfo> {
   }
 
   @Override
-  public String get() {
-    return this.script;
+  public OtpErlangList getArguments() {
+    return new OtpErlangList();
   }
 
   /**
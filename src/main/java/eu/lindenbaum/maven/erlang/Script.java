@@ -1,9 +1,12 @@
 package eu.lindenbaum.maven.erlang;
 
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 
 /**
- * Interface for classes representing erlang scripts.
+ * Interface for classes representing erlang scripts. A script is implemented
+ * by a function of the plugin's runtime module
+ * {@code maven_erlang_plugin_rt} which gets loaded onto the backend nodes.
  * 
  * @param T return value of the processed script.
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
@@ -12,12 +15,21 @@ public interface Script<T> {
   public static String NL = System.getProperty("line.separator");
 
   /**
-   * Returns an evaluateable {@link String} containing the erlang script of the
-   * implementing class.
+   * Returns the name of the function in the runtime module implementing this
+   * {@link Script}.
    * 
-   * @return An erlang script that can be evaluated.
+   * @return the name of the runtime function to call.
    */
-  public String get();
+  public String getFunction();
+
+  /**
+   * Returns the erlang list of arguments the runtime function of the
+   * implementing class will be called with. The arguments are sent as terms
+   * and do not need to be parsed on the backend node.
+   * 
+   * @return An erlang list term containing the script arguments.
+   */
+  public OtpErlangList getArguments();
 
   /**
    * Converts the result term of the {@link Script} execution into another
@@ -0,0 +1,201 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangRef;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A {@link Future} representing the pending result of a {@link Script}
+ * executed asynchronously using
+ * {@link MavenSelf#execAsync(String, Script, java.util.List)}. The result term
+ * is converted using {@link Script#handle(OtpErlangObject)} by the thread
+ * retrieving the result. Cancelling a script execution kills the process
+ * evaluating the script on the backend node.
+ * 
+ * @param <T> the return type of the {@link Script}
+ * @author agent <agent@local>
+ */
+public final class ScriptFuture<T> implements Future<T> {
+  private final Script<T> script;
+  private final AsyncConnection connection;
+  private final OtpErlangRef ref;
+  private final long timeout;
+  private final CountDownLatch done = new CountDownLatch(1);
+
+  private volatile OtpErlangObject result;
+  private volatile Exception failure;
+  private volatile boolean cancelled = false;
+
+  private boolean converted = false;
+  private T value;
+
+  ScriptFuture(Script<T> script, long timeout) {
+    this(script, null, null, timeout);
+  }
+
+  ScriptFuture(Script<T> script, AsyncConnection connection, OtpErlangRef ref, long timeout) {
+    this.script = script;
+    this.connection = connection;
+    this.ref = ref;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Waits for the {@link Script} execution to complete and returns its result.
+   * This is a convenience method for mojos converting all failures into
+   * {@link MojoExecutionException}s. If the configured {@link ScriptTimeouts}
+   * timeout expires the process evaluating the script will be killed and the
+   * returned exception contains a dump of its process info.
+   * 
+   * @return the processed result of the {@link Script}
+   * @throws MojoExecutionException in case the execution failed, timed out or
+   *           the current thread was interrupted
+   */
+  public T await() throws MojoExecutionException {
+    try {
+      return this.timeout > 0 ? get(this.timeout, TimeUnit.MILLISECONDS) : get();
+    }
+    catch (TimeoutException e) {
+      String dump = kill();
+      String msg = "script " + this.script.getFunction() + " timed out after " + this.timeout / 1000L
+                   + "s, killed evaluating process:" + Script.NL + dump;
+      throw new MojoExecutionException(msg);
+    }
+    catch (CancellationException e) {
+      throw new MojoExecutionException("script " + this.script.getFunction() + " was cancelled");
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("interrupted while waiting for script " + this.script.getFunction());
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof MojoExecutionException) {
+        throw (MojoExecutionException) e.getCause();
+      }
+      throw new MojoExecutionException("failed to execute script " + this.script.getFunction(), e.getCause());
+    }
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    if (isDone()) {
+      return false;
+    }
+    this.cancelled = true;
+    kill();
+    fail(new CancellationException());
+    return true;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  @Override
+  public boolean isDone() {
+    return this.done.getCount() == 0;
+  }
+
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    this.done.await();
+    return convert();
+  }
+
+  @Override
+  public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    if (!this.done.await(timeout, unit)) {
+      throw new TimeoutException("script " + this.script.getFunction() + " did not complete in time");
+    }
+    return convert();
+  }
+
+  /**
+   * Completes this future with the reply term of the runtime's dispatcher.
+   * 
+   * @param term the result term of the execution
+   */
+  void complete(OtpErlangObject term) {
+    if (term instanceof OtpErlangTuple) {
+      OtpErlangTuple tuple = (OtpErlangTuple) term;
+      if (tuple.arity() == 2 && "badrpc".equals(tuple.elementAt(0).toString())) {
+        String msg = "failed to execute script " + this.script.getFunction() + ": " + tuple.elementAt(1);
+        fail(new MojoExecutionException(msg));
+        return;
+      }
+    }
+    this.result = term;
+    this.done.countDown();
+  }
+
+  /**
+   * Passes an intermediate result to the {@link Script}, if it is a
+   * {@link ProgressHandler}. Failures of the handler must not affect the
+   * connection, so they are ignored.
+   * 
+   * @param term the intermediate result of the execution
+   */
+  void progress(OtpErlangObject term) {
+    if (this.script instanceof ProgressHandler && !isDone()) {
+      try {
+        ((ProgressHandler) this.script).handleProgress(term);
+      }
+      catch (RuntimeException e) {
+        // ignore broken progress handlers
+      }
+    }
+  }
+
+  /**
+   * Completes this future exceptionally.
+   * 
+   * @param reason the cause of the failure
+   */
+  void fail(Exception reason) {
+    this.failure = reason;
+    this.done.countDown();
+  }
+
+  /**
+   * Kills the process evaluating the script, returning a dump of its process
+   * info.
+   */
+  private String kill() {
+    if (this.connection != null) {
+      return this.connection.kill(this.ref);
+    }
+    return "no process info available";
+  }
+
+  /**
+   * Converts the result term once using the {@link Script}.
+   */
+  private synchronized T convert() throws ExecutionException {
+    if (this.cancelled) {
+      throw new CancellationException("script " + this.script.getFunction() + " was cancelled");
+    }
+    if (this.failure != null) {
+      throw new ExecutionException(this.failure);
+    }
+    if (!this.converted) {
+      try {
+        this.value = this.script.handle(this.result);
+        this.converted = true;
+      }
+      catch (RuntimeException e) {
+        throw new ExecutionException(e);
+      }
+    }
+    return this.value;
+  }
+}
@@ -0,0 +1,197 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Collects metrics of the {@link Script} executions on a specific backend
+ * node. For each script class the number of invocations, the bytes of the
+ * encoded requests sent, the bytes of the encoded results received, the number
+ * of round trips and the latencies of the executions are recorded. This class
+ * is thread-safe.
+ * 
+ * @author agent <agent@local>
+ */
+public final class ScriptMetrics {
+  private static final double[] PERCENTILES = new double[]{ 50.0, 90.0, 99.0 };
+
+  private final Map<String, Metric> metrics = new TreeMap<String, Metric>();
+
+  /**
+   * Returns the name a {@link Script} is recorded with. This is the simple name
+   * of the script's class or the function name for anonymous scripts.
+   * 
+   * @param script to get the name for
+   * @return the name of the script's class
+   */
+  public static String nameOf(Script<?> script) {
+    String name = script.getClass().getSimpleName();
+    return name.isEmpty() ? script.getFunction() : name;
+  }
+
+  /**
+   * Records a finished request/reply round trip of a {@link Script}.
+   * 
+   * @param name of the script class as returned by {@link #nameOf(Script)}
+   * @param sent number of bytes sent to the backend node
+   * @param received number of bytes received from the backend node
+   * @param nanos the latency of the round trip in nanoseconds
+   */
+  public synchronized void record(String name, long sent, long received, long nanos) {
+    Metric metric = getMetric(name);
+    metric.invocations++;
+    metric.roundTrips++;
+    metric.sent += sent;
+    metric.received += received;
+    metric.add(nanos);
+  }
+
+  /**
+   * Records an additional round trip on behalf of a {@link Script} that does
+   * not count as invocation, e.g. killing the process evaluating the script.
+   * 
+   * @param name of the script class as returned by {@link #nameOf(Script)}
+   * @param sent number of bytes sent to the backend node
+   * @param received number of bytes received from the backend node
+   */
+  public synchronized void recordRoundTrip(String name, long sent, long received) {
+    Metric metric = getMetric(name);
+    metric.roundTrips++;
+    metric.sent += sent;
+    metric.received += received;
+  }
+
+  /**
+   * Returns whether no script execution has been recorded yet.
+   * 
+   * @return {@code true} if nothing was recorded, {@code false} otherwise
+   */
+  public synchronized boolean isEmpty() {
+    return this.metrics.isEmpty();
+  }
+
+  /**
+   * Returns a human readable summary of the recorded metrics, one line per
+   * script class. Latencies are given in milliseconds.
+   * 
+   * @return a list of formatted lines, including a header line
+   */
+  public synchronized List<String> summary() {
+    List<String> lines = new ArrayList<String>();
+    String format = "%-28s %6s %12s %12s %6s %9s %9s %9s %9s";
+    lines.add(String.format(format, "SCRIPT", "CALLS", "SENT", "RECEIVED", "RTT", "P50", "P90", "P99", "MAX"));
+    for (Entry<String, Metric> entry : this.metrics.entrySet()) {
+      Metric m = entry.getValue();
+      long[] p = m.percentiles();
+      lines.add(String.format(format,
+                              entry.getKey(),
+                              m.invocations,
+                              m.sent,
+                              m.received,
+                              m.roundTrips,
+                              millis(p[0]),
+                              millis(p[1]),
+                              millis(p[2]),
+                              millis(m.max())));
+    }
+    return lines;
+  }
+
+  /**
+   * Returns the recorded metrics as JSON object mapping script class names to
+   * their metrics. Latencies are given in milliseconds.
+   * 
+   * @return a JSON representation of the recorded metrics
+   */
+  public synchronized String toJson() {
+    StringBuilder json = new StringBuilder("{");
+    String separator = "";
+    for (Entry<String, Metric> entry : this.metrics.entrySet()) {
+      Metric m = entry.getValue();
+      long[] p = m.percentiles();
+      json.append(separator).append(Script.NL);
+      json.append("    \"").append(entry.getKey()).append("\": {");
+      json.append("\"invocations\": ").append(m.invocations).append(", ");
+      json.append("\"bytesSent\": ").append(m.sent).append(", ");
+      json.append("\"bytesReceived\": ").append(m.received).append(", ");
+      json.append("\"roundTrips\": ").append(m.roundTrips).append(", ");
+      json.append("\"latencyMs\": {");
+      json.append("\"p50\": ").append(millis(p[0])).append(", ");
+      json.append("\"p90\": ").append(millis(p[1])).append(", ");
+      json.append("\"p99\": ").append(millis(p[2])).append(", ");
+      json.append("\"max\": ").append(millis(m.max())).append("}}");
+      separator = ",";
+    }
+    if (!this.metrics.isEmpty()) {
+      json.append(Script.NL).append("  ");
+    }
+    return json.append("}").toString();
+  }
+
+  /**
+   * Returns the {@link Metric} of a script class, creating it if necessary.
+   */
+  private Metric getMetric(String name) {
+    Metric metric = this.metrics.get(name);
+    if (metric == null) {
+      metric = new Metric();
+      this.metrics.put(name, metric);
+    }
+    return metric;
+  }
+
+  /**
+   * Converts nanoseconds into milliseconds with a precision of three decimal
+   * places.
+   */
+  private static String millis(long nanos) {
+    return String.format(Locale.ENGLISH, "%.3f", nanos / 1000000.0);
+  }
+
+  /**
+   * The metrics of a specific script class.
+   */
+  private static final class Metric {
+    private long invocations;
+    private long roundTrips;
+    private long sent;
+    private long received;
+    private long[] latencies = new long[16];
+    private int size;
+
+    void add(long nanos) {
+      if (this.size == this.latencies.length) {
+        this.latencies = Arrays.copyOf(this.latencies, this.size * 2);
+      }
+      this.latencies[this.size++] = nanos;
+    }
+
+    long max() {
+      long max = 0;
+      for (int i = 0; i < this.size; ++i) {
+        max = Math.max(max, this.latencies[i]);
+      }
+      return max;
+    }
+
+    /**
+     * Returns the latencies of the {@link ScriptMetrics#PERCENTILES} using the
+     * nearest-rank method.
+     */
+    long[] percentiles() {
+      long[] sorted = Arrays.copyOf(this.latencies, this.size);
+      Arrays.sort(sorted);
+      long[] result = new long[PERCENTILES.length];
+      for (int i = 0; i < PERCENTILES.length && sorted.length > 0; ++i) {
+        int rank = (int) Math.ceil(PERCENTILES[i] / 100.0 * sorted.length);
+        result[i] = sorted[Math.max(0, rank - 1)];
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package eu.lindenbaum.maven.erlang;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * Holds the timeouts for {@link Script} executions on a specific backend node.
+ * A timeout can be configured per script using the script's function name as
+ * returned by {@link Script#getFunction()} (e.g. {@code test} for the
+ * {@link TestScript} or {@code dialyzer} for the {@link DialyzerScript}).
+ * Scripts without a specific timeout use the global timeout. A timeout of
+ * {@code 0} means that the execution will never time out.
+ *
+ * @author agent <agent@local>
+ */
+public final class ScriptTimeouts {
+  /**
+   * Timeouts never expiring.
+   */
+  public static final ScriptTimeouts NONE = new ScriptTimeouts(0, new HashMap<String, Long>());
+
+  private final long global;
+  private final Map<String, Long> timeouts;
+
+  private ScriptTimeouts(long global, Map<String, Long> timeouts) {
+    this.global = global;
+    this.timeouts = timeouts;
+  }
+
+  /**
+   * Creates {@link ScriptTimeouts} from a mojo configuration.
+   *
+   * @param global the global timeout in seconds
+   * @param perScript mapping of script names to timeouts in seconds, maybe
+   *          {@code null}
+   * @return the {@link ScriptTimeouts} in milliseconds
+   * @throws MojoExecutionException in case a timeout is not a non-negative
+   *           number
+   */
+  public static ScriptTimeouts fromConfiguration(int global, Map<?, ?> perScript) throws MojoExecutionException {
+    if (global < 0) {
+      throw new MojoExecutionException("Invalid script timeout " + global + ".");
+    }
+    Map<String, Long> timeouts = new HashMap<String, Long>();
+    if (perScript != null) {
+      for (Entry<?, ?> entry : perScript.entrySet()) {
+        String name = entry.getKey().toString().trim().toLowerCase();
+        String value = String.valueOf(entry.getValue()).trim();
+        try {
+          long seconds = Long.parseLong(value);
+          if (seconds < 0) {
+            throw new NumberFormatException();
+          }
+          timeouts.put(name, seconds * 1000L);
+        }
+        catch (NumberFormatException e) {
+          throw new MojoExecutionException("Invalid timeout '" + value + "' for script " + name + ".");
+        }
+      }
+    }
+    return new ScriptTimeouts(global * 1000L, timeouts);
+  }
+
+  /**
+   * Returns the timeout for a specific {@link Script}.
+   *
+   * @param script to get the timeout for
+   * @return the timeout in milliseconds, {@code 0} for no timeout
+   */
+  public long get(Script<?> script) {
+    Long timeout = this.timeouts.get(script.getFunction());
+    return timeout != null ? timeout.longValue() : this.global;
+  }
+}
@@ -10,6 +10,7 @@ import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
 import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -41,10 +42,10 @@ public final class TestScript extends AbstractScript<TestResult> {
   }
 
   @Override
-  public String get() {
-    String surefirePath = this.surefireDir.getAbsolutePath();
-    String testList = ErlUtils.toModuleList(this.tests, "'", "'");
-    return String.format(this.script, surefirePath, this.suiteName, testList);
+  public OtpErlangList getArguments() {
+    OtpErlangObject surefirePath = ErlUtils.toFilename(this.surefireDir);
+    OtpErlangObject testList = ErlUtils.toModuleTermList(this.tests);
+    return new OtpErlangList(new OtpErlangObject[]{ surefirePath, new OtpErlangString(this.suiteName), testList });
   }
 
   /**
@@ -6,6 +6,8 @@ import eu.lindenbaum.maven.util.ErlUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -34,8 +36,9 @@ public class UploadReleaseScript extends AbstractScript<GenericScriptResult> {
   }
 
   @Override
-  public String get() {
-    return String.format(this.script, this.remoteNode, this.releasePackage.getAbsolutePath());
+  public OtpErlangList getArguments() {
+    OtpErlangObject releasePackage = ErlUtils.toFilename(this.releasePackage);
+    return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangAtom(this.remoteNode), releasePackage });
   }
 
   /**
@@ -9,6 +9,7 @@ import eu.lindenbaum.maven.util.ErlUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangTuple;
@@ -39,11 +40,11 @@ public class UploadScript extends AbstractScript<GenericScriptResult> {
   }
 
   @Override
-  public String get() {
-    String beamFileList = ErlUtils.toFilenameList(this.beamFiles, "\"", "\"");
-    String appFileList = ErlUtils.toFilenameList(this.appFiles, "\"", "\"");
-    String resourceList = ErlUtils.toFilenameList(this.resourceFiles, "\"", "\"");
-    return String.format(this.script, this.remoteNode, beamFileList, appFileList, resourceList);
+  public OtpErlangList getArguments() {
+    OtpErlangObject beamFileList = ErlUtils.toFilenameTermList(this.beamFiles);
+    OtpErlangObject appFileList = ErlUtils.toFilenameTermList(this.appFiles);
+    OtpErlangObject resourceList = ErlUtils.toFilenameTermList(this.resourceFiles);
+    return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangAtom(this.remoteNode), beamFileList, appFileList, resourceList });
   }
 
   /**
@@ -25,10 +25,10 @@ public class XrlCompilerScript extends AbstractScript<CompilerResult> {
   }
 
   @Override
-  public String get() {
-    String out = this.outDir.getAbsolutePath();
-    String files = ErlUtils.toFilenameList(this.xrlFiles, "\"", "\"");
-    return String.format(this.script, out, files);
+  public OtpErlangList getArguments() {
+    OtpErlangObject out = ErlUtils.toFilename(this.outDir);
+    OtpErlangObject files = ErlUtils.toFilenameTermList(this.xrlFiles);
+    return new OtpErlangList(new OtpErlangObject[]{ out, files });
   }
 
   @Override
@@ -57,6 +57,11 @@ public class XrlCompilerScript extends AbstractScript<CompilerResult> {
       errors.add(ErlUtils.toString(errorIterator.next(), false));
     }
 
+    final List<CompileTime> times = new ArrayList<CompileTime>();
+    if (r.arity() > 3) {
+      times.addAll(CompileTime.fromList(r.elementAt(3)));
+    }
+
     return new CompilerResult() {
       @Override
       public List<File> getFailed() {
@@ -77,6 +82,16 @@ public class XrlCompilerScript extends AbstractScript<CompilerResult> {
       public List<String> getWarnings() {
         return Collections.emptyList();
       }
+
+      @Override
+      public List<ModuleDependencies> getDependencies() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public List<CompileTime> getTimes() {
+        return times;
+      }
     };
   }
 
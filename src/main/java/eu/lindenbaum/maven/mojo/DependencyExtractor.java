@@ -4,13 +4,23 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import eu.lindenbaum.maven.ErlangMojo;
 import eu.lindenbaum.maven.PackagingType;
 import eu.lindenbaum.maven.Properties;
+import eu.lindenbaum.maven.archiver.ExtractionStore;
 import eu.lindenbaum.maven.archiver.TarGzUnarchiver;
 import eu.lindenbaum.maven.util.CollectionUtils;
+import eu.lindenbaum.maven.util.FileIndex;
 import eu.lindenbaum.maven.util.FileUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.Predicate;
@@ -24,53 +34,134 @@ import org.apache.maven.project.MavenProject;
  * Unpack {@code erlang-otp} or {@code erlang-std} dependencies. This will
  * unpack all dependencies of this {@link MavenProject} into the
  * {@code target/lib} directory. This is done only in case the dependency has
- * changed since the last unpack process.
+ * changed since the last unpack process. Changed dependencies are unpacked in
+ * parallel. By default, dependencies are extracted into a machine-wide store
+ * once and copied from there into the {@code target/lib} directory.
  * 
  * @goal extract-dependencies
  * @phase generate-sources
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public final class DependencyExtractor extends ErlangMojo {
+  /**
+   * Setting this to {@code false} disables the machine-wide store of extracted
+   * dependencies. Dependencies are then extracted into the {@code target/lib}
+   * directory directly. Otherwise, the {@code target/lib} directory contains
+   * hard links into the store. Where hard links are not supported, e.g. if the
+   * store resides on another file system, the files are copied, trading disk
+   * space for extraction time.
+   * 
+   * @parameter expression="${extractionStore}" default-value=true
+   * @since 2.3.0
+   */
+  private boolean extractionStore;
+
+  /**
+   * The directory of the machine-wide store of extracted dependencies. The
+   * directory can be shared by all projects and reactor modules built on a
+   * machine.
+   * 
+   * @parameter expression="${extractionStoreDirectory}"
+   *            default-value="${user.home}/.m2/erlang-extracted"
+   * @since 2.3.0
+   */
+  private File extractionStoreDirectory;
+
   @Override
   protected void execute(Log log, Properties p) throws MojoExecutionException {
     File lib = p.targetLayout().lib();
     FileUtils.ensureDirectories(lib);
     TarGzUnarchiver unarchiver = new TarGzUnarchiver(p.node(), p.cookie(), lib);
+    ExtractionStore store = null;
+    if (this.extractionStore) {
+      store = new ExtractionStore(this.extractionStoreDirectory, p.node(), p.cookie());
+    }
     Collection<Artifact> artifacts = MavenUtils.getErlangArtifacts(p.project());
     if (p.packagingType() == PackagingType.ERLANG_REL) {
       artifacts = filterTestScopeDependencies(artifacts);
     }
     if (artifacts.size() > 0) {
       log.info("Processed project dependencies:");
-      for (Artifact artifact : artifacts) {
-        extractArtifact(log, artifact, unarchiver);
-      }
+      extractArtifacts(log, artifacts, unarchiver, store);
     }
     cleanupArtifacts(log, lib, artifacts);
+    FileIndex.invalidate(lib);
   }
 
   /**
-   * Extract a specific artifact (.zip file) into a specific directory.
+   * Extract the given artifacts (.tar.gz files) into the unarchiver's
+   * destination directory. Artifacts that changed since their last extraction
+   * are extracted in parallel, the results are logged in the order of the
+   * artifacts. If a store is given, the artifacts are taken from the store.
    */
-  private static void extractArtifact(Log log, Artifact artifact, TarGzUnarchiver unarchiver) throws MojoExecutionException {
-    File artifactFile = artifact.getFile();
-    String artifactdirectory = MavenUtils.getArtifactDirectory(artifact);
-    File cachedDependency = new File(unarchiver.getDestination(), artifactdirectory);
-    if (!cachedDependency.isDirectory() || artifactFile.lastModified() > cachedDependency.lastModified()) {
-      if (cachedDependency.isDirectory()) {
-        FileUtils.removeDirectory(cachedDependency);
-      }
-      try {
-        log.info(" * " + artifactdirectory + " (extracted)");
-        unarchiver.extract(artifact.getFile());
+  private static void extractArtifacts(Log log,
+                                       Collection<Artifact> artifacts,
+                                       final TarGzUnarchiver unarchiver,
+                                       final ExtractionStore store) throws MojoExecutionException {
+    int threads = Math.max(1, Math.min(artifacts.size(), Runtime.getRuntime().availableProcessors()));
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      Map<Artifact, Future<Boolean>> extractions = new LinkedHashMap<Artifact, Future<Boolean>>();
+      for (Artifact artifact : artifacts) {
+        final File artifactFile = artifact.getFile();
+        final File cachedDependency = new File(unarchiver.getDestination(), MavenUtils.getArtifactDirectory(artifact));
+        Future<Boolean> extraction = null;
+        if (!cachedDependency.isDirectory() || artifactFile.lastModified() > cachedDependency.lastModified()) {
+          if (cachedDependency.isDirectory()) {
+            FileUtils.removeDirectory(cachedDependency);
+          }
+          extraction = executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws IOException {
+              try {
+                if (store != null) {
+                  return store.extract(artifactFile, unarchiver.getDestination());
+                }
+                unarchiver.extract(artifactFile);
+              }
+              catch (IOException e) {
+                // do not skip a partially extracted dependency next time
+                FileUtils.removeDirectory(cachedDependency);
+                throw e;
+              }
+              return false;
+            }
+          });
+        }
+        extractions.put(artifact, extraction);
       }
-      catch (IOException e) {
-        throw new MojoExecutionException(e.getMessage(), e);
+      for (Entry<Artifact, Future<Boolean>> extraction : extractions.entrySet()) {
+        Artifact artifact = extraction.getKey();
+        if (extraction.getValue() != null) {
+          boolean stored = await(extraction.getValue());
+          String action = stored ? " (taken from store)" : " (extracted)";
+          log.info(" * " + MavenUtils.getArtifactDirectory(artifact) + action);
+        }
+        else {
+          log.info(" * " + artifact.getArtifactId() + "-" + artifact.getVersion() + " (skipped)");
+        }
       }
     }
-    else {
-      log.info(" * " + artifact.getArtifactId() + "-" + artifact.getVersion() + " (skipped)");
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Waits for an extraction to complete and returns its result.
+   */
+  private static boolean await(Future<Boolean> extraction) throws MojoExecutionException {
+    try {
+      return extraction.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while extracting dependencies.", e);
+    }
+    catch (ExecutionException e) {
+      throw new MojoExecutionException(e.getCause().getMessage(), e.getCause());
     }
   }
 
@@ -5,10 +5,9 @@ import java.util.List;
 
 import eu.lindenbaum.maven.ErlangMojo;
 import eu.lindenbaum.maven.Properties;
-import eu.lindenbaum.maven.erlang.LoadModulesScript;
 import eu.lindenbaum.maven.erlang.MavenSelf;
-import eu.lindenbaum.maven.erlang.PurgeModulesScript;
-import eu.lindenbaum.maven.erlang.Script;
+import eu.lindenbaum.maven.erlang.ReloadModulesScript;
+import eu.lindenbaum.maven.erlang.ReloadResult;
 import eu.lindenbaum.maven.util.FileUtils;
 
 import org.apache.maven.plugin.Mojo;
@@ -17,27 +16,27 @@ import org.apache.maven.plugin.logging.Log;
 
 /**
  * {@link Mojo} that first purges all dynamically loaded modules on the backend
- * node and reloads the modules provided by (unpacked) dependencies.
+ * node and reloads the modules provided by (unpacked) dependencies. Modules
+ * whose {@code .beam} files did not change since they were loaded are kept.
  * 
  * @goal reload-dependencies
  * @phase process-sources
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public final class DependencyLoader extends ErlangMojo {
   @Override
   protected void execute(Log log, Properties p) throws MojoExecutionException {
-    // clean up dynamically loaded modules on backend from previous runs
-    Script<Void> purgeScript = new PurgeModulesScript();
-    MavenSelf.get(p.cookie()).exec(p.node(), purgeScript);
-
     // code paths must exist when added
     List<File> codePaths = p.codePaths(false);
     FileUtils.ensureDirectories(codePaths.toArray(new File[0]));
 
-    // reload dependency modules on backend node
-    LoadModulesScript loadScript = new LoadModulesScript(p.dependencyModules(false));
-    Integer loaded = MavenSelf.get(p.cookie()).exec(p.node(), loadScript, codePaths);
-    log.debug("Successfully loaded " + loaded + " .beam file(s) from dependencies.");
+    // purge modules from previous runs, reload changed dependency modules
+    List<File> modules = p.dependencyModules(false);
+    ReloadModulesScript reloadScript = new ReloadModulesScript(modules);
+    ReloadResult result = MavenSelf.get(p.cookie()).exec(p.node(), reloadScript, codePaths);
+    log.info("Kept " + result.getKept() + " and reloaded " + result.getReloaded() + " of " + modules.size()
+             + " .beam file(s) from dependencies.");
   }
 }
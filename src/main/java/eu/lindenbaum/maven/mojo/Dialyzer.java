@@ -35,6 +35,7 @@ import org.apache.maven.plugin.logging.Log;
  * 
  * @goal dialyzer
  * @phase prepare-package
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  */
@@ -66,7 +66,7 @@ public final class ProjectRunner extends ErlangMojo {
     log.info(MavenUtils.SEPARATOR);
 
     boolean runOnRemoteNode = this.remote != null;
-    String target = runOnRemoteNode ? "'" + this.remote + "'" : "node()";
+    String target = runOnRemoteNode ? this.remote : null;
     String targetPeer = new OtpPeer(runOnRemoteNode ? target : p.node()).toString();
 
     // load needed .beam/.app files when running on remote node
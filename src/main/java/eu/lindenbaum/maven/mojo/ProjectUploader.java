@@ -39,6 +39,7 @@ import org.apache.maven.plugin.logging.Log;
  * @goal upload
  * @execute phase="package" lifecycle="upload"
  * @requiresDependencyResolution runtime
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @since 2.0.0
  */
@@ -79,10 +80,10 @@ public final class ProjectUploader extends ErlangMojo {
 
     PackagingType packagingType = p.packagingType();
     if (PackagingType.ERLANG_OTP == packagingType || PackagingType.ERLANG_STD == packagingType) {
-      uploadApplication(log, p, "'" + this.remote + "'", this.withDependencies);
+      uploadApplication(log, p, this.remote, this.withDependencies);
     }
     else {
-      uploadRelease(log, p, "'" + this.remote + "'");
+      uploadRelease(log, p, this.remote);
     }
   }
 
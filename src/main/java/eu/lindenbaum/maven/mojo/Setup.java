@@ -104,6 +104,7 @@ import org.apache.maven.plugin.logging.Log;
  * 
  * @goal setup
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
@@ -15,6 +15,7 @@ import org.apache.maven.project.MavenProject;
  * 
  * @goal validate
  * @phase validate
+ * @threadSafe
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @since 2.1.0
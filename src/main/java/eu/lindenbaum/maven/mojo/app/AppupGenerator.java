@@ -16,9 +16,10 @@ import eu.lindenbaum.maven.TargetLayout;
 import eu.lindenbaum.maven.archiver.TarGzUnarchiver;
 import eu.lindenbaum.maven.erlang.CheckAppResult;
 import eu.lindenbaum.maven.erlang.CheckAppScript;
-import eu.lindenbaum.maven.erlang.GetAppupDirectiveScript;
 import eu.lindenbaum.maven.erlang.MavenSelf;
 import eu.lindenbaum.maven.erlang.Script;
+import eu.lindenbaum.maven.erlang.ScriptFuture;
+import eu.lindenbaum.maven.util.BeamFile;
 import eu.lindenbaum.maven.util.ErlConstants;
 import eu.lindenbaum.maven.util.ErlUtils;
 import eu.lindenbaum.maven.util.FileUtils;
@@ -46,14 +47,14 @@ import org.apache.maven.plugin.logging.Log;
  * <ul>
  * <li>Find added modules and add a <code>{load_module, Module}</code>
  * statements for them.</li>
- * <li>Find updated modules and invoke the {@link GetAppupDirectiveScript} on
- * them.</li>
+ * <li>Find updated modules and derive their directives from the module
+ * attributes and exports found in their {@code .beam} files.</li>
  * <li>Find deleted modules and add a <code>{delete_module, Module}</code>
  * statements for them.</li>
  * </ul>
  * </p>
  * <p>
- * The {@link GetAppupDirectiveScript} works as described below:
+ * The directives for updated modules are derived as described below:
  * <ul>
  * <li>Add a <code>{update, Module, supervisor}</code> statement if
  * <code>Module</code> is a supervisor.</li>
@@ -68,6 +69,7 @@ import org.apache.maven.plugin.logging.Log;
  * @requiresDependencyResolution test
  * @since 2.1.0
  * @execute phase="package" lifecycle="appup-relup"
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @see <a href="http://www.erlang.org/doc/man/appup.html"
  *      >http://www.erlang.org/doc/man/appup.html</a>
@@ -131,13 +133,13 @@ public final class AppupGenerator extends ErlangMojo {
    * application.
    */
   private List<String> getDirectives(Properties p, File baseAppFile, File targetAppFile) throws MojoExecutionException {
+    MavenSelf self = MavenSelf.get(p.cookie());
     Script<CheckAppResult> baseScript = new CheckAppScript(baseAppFile);
-    CheckAppResult baseAppResult = MavenSelf.get(p.cookie()).exec(p.node(), baseScript);
-    List<String> baseModules = baseAppResult.getModules();
-
+    ScriptFuture<CheckAppResult> baseAppResult = self.execAsync(p.node(), baseScript);
     Script<CheckAppResult> targetScript = new CheckAppScript(targetAppFile);
-    CheckAppResult targetAppResult = MavenSelf.get(p.cookie()).exec(p.node(), targetScript);
-    List<String> targetModules = targetAppResult.getModules();
+    ScriptFuture<CheckAppResult> targetAppResult = self.execAsync(p.node(), targetScript);
+    List<String> baseModules = baseAppResult.await().getModules();
+    List<String> targetModules = targetAppResult.await().getModules();
 
     ArrayList<String> directives = new ArrayList<String>();
 
@@ -152,12 +154,8 @@ public final class AppupGenerator extends ErlangMojo {
     List<String> updatedModules = new ArrayList<String>(targetModules);
     updatedModules.retainAll(baseModules);
     for (String updatedModule : updatedModules) {
-      Script<String> appupScript = new GetAppupDirectiveScript(updatedModule, baseAppFile.getParentFile());
-      String directive = MavenSelf.get(p.cookie()).exec(p.node(), appupScript);
-      if (directive == null) {
-        throw new MojoExecutionException("Failed to generate directive for module " + updatedModule + ".");
-      }
-      directives.add(directive);
+      File beamFile = new File(baseAppFile.getParentFile(), updatedModule + ErlConstants.BEAM_SUFFIX);
+      directives.add(getUpdateDirective(BeamFile.read(beamFile)));
     }
 
     // process deleted modules
@@ -170,6 +168,21 @@ public final class AppupGenerator extends ErlangMojo {
     return directives;
   }
 
+  /**
+   * Returns the directive for a module that is neither newly introduced nor
+   * deleted in the update.
+   */
+  private static String getUpdateDirective(BeamFile beamFile) throws MojoExecutionException {
+    String module = beamFile.getModule();
+    if (beamFile.getBehaviours().contains("supervisor")) {
+      return "{update,'" + module + "',supervisor}";
+    }
+    if (beamFile.exports("code_change", 3)) {
+      return "{update,'" + module + "'}";
+    }
+    return "{load_module,'" + module + "'}";
+  }
+
   /**
    * Returns a string with update/downgrade directives for a spcific list of
    * versions.
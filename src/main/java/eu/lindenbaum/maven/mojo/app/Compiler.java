@@ -2,19 +2,31 @@ package eu.lindenbaum.maven.mojo.app;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import eu.lindenbaum.maven.ErlangMojo;
 import eu.lindenbaum.maven.Properties;
 import eu.lindenbaum.maven.erlang.BeamCompilerScript;
+import eu.lindenbaum.maven.erlang.CompileTime;
 import eu.lindenbaum.maven.erlang.CompilerResult;
+import eu.lindenbaum.maven.erlang.LoadModulesScript;
 import eu.lindenbaum.maven.erlang.MavenSelf;
 import eu.lindenbaum.maven.erlang.MibCompilerScript;
+import eu.lindenbaum.maven.erlang.RuntimeInfo;
+import eu.lindenbaum.maven.erlang.RuntimeInfoScript;
 import eu.lindenbaum.maven.erlang.Script;
+import eu.lindenbaum.maven.util.BeamCache;
+import eu.lindenbaum.maven.util.BuildState;
+import eu.lindenbaum.maven.util.CompileTimes;
 import eu.lindenbaum.maven.util.ErlConstants;
+import eu.lindenbaum.maven.util.FileChecksums;
 import eu.lindenbaum.maven.util.FileUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
+import eu.lindenbaum.maven.util.MibGraph;
 
 import org.apache.maven.plugin.Mojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -22,11 +34,15 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 
 /**
- * This {@link Mojo} compiles the projects .erl, .mib and .yrl files.
+ * This {@link Mojo} compiles the projects .erl, .mib and .yrl files. Erlang
+ * sources are compiled incrementally, only modules whose sources, included
+ * files, parse transforms or behaviours changed since the last build are
+ * recompiled (see {@link BuildState}).
  * 
  * @goal compile
  * @phase compile
  * @requiresDependencyResolution compile
+ * @threadSafe
  * @author Olivier Sambourg
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
@@ -61,20 +77,125 @@ public final class Compiler extends ErlangMojo {
    */
   private String[] compileFirst;
 
+  /**
+   * The maximum number of modules compiled in parallel on the backend node. By
+   * default one module per scheduler of the backend node is compiled at a
+   * time. Files listed in {@code compileFirst} are always compiled one after
+   * another. This also applies to MIBs not importing each other.
+   * 
+   * @parameter expression="${compilerProcesses}" default-value=0
+   * @since 2.3.0
+   */
+  private int compilerProcesses;
+
+  /**
+   * Setting this to {@code true} defers loading the compiled modules on the
+   * backend node until all modules are compiled. Only parse transforms and
+   * behaviours are loaded right away, since they are needed to compile other
+   * modules. Afterwards, previously loaded versions of the compiled modules
+   * are replaced in one step, all other modules are loaded on demand by the
+   * goals needing them.
+   * 
+   * @parameter expression="${deferLoading}" default-value=false
+   * @since 2.3.0
+   */
+  private boolean deferLoading;
+
+  /**
+   * Setting this to {@code true} stops the compilation after the first file
+   * that failed to compile. Files already being compiled in parallel will
+   * still be finished.
+   * 
+   * @parameter expression="${failFast}" default-value=false
+   * @since 2.3.0
+   */
+  private boolean failFast;
+
+  /**
+   * Setting this to {@code true} enables the local build cache for compiled
+   * modules. Modules whose sources, included files, parse transforms,
+   * compiler options and OTP release match a previous compilation are
+   * restored from the cache instead of being compiled.
+   * 
+   * @parameter expression="${beamCache}" default-value=false
+   * @since 2.3.0
+   */
+  private boolean beamCache;
+
+  /**
+   * The directory of the local build cache for compiled modules. The directory
+   * may be located on a shared filesystem.
+   * 
+   * @parameter expression="${beamCacheDirectory}"
+   *            default-value="${user.home}/.m2/erlang-beam-cache"
+   * @since 2.3.0
+   */
+  private File beamCacheDirectory;
+
+  /**
+   * The maximum size of the local build cache for compiled modules in
+   * megabytes. The least recently used modules get evicted first, {@code 0}
+   * disables eviction.
+   * 
+   * @parameter expression="${beamCacheSize}" default-value=1024
+   * @since 2.3.0
+   */
+  private int beamCacheSize;
+
+  /**
+   * The number of slowest files to log after compilation, {@code 0} disables
+   * logging. The compile times of all compiled files are recorded in
+   * {@code target/compile-times.json} to be compared between builds.
+   * 
+   * @parameter expression="${slowestModules}" default-value=10
+   * @since 2.3.0
+   */
+  private int slowestModules;
+
   @Override
   protected void execute(Log log, Properties p) throws MojoExecutionException, MojoFailureException {
     log.info(MavenUtils.SEPARATOR);
     log.info(" C O M P I L E R");
     log.info(MavenUtils.SEPARATOR);
 
-    compileMIBFiles(log, p);
-    compileERLFiles(log, p);
+    CompileTimes times = CompileTimes.load(p.targetLayout().compileTimes(), p.sourceLayout().base());
+    try {
+      compileMIBFiles(log, p, times);
+      compileERLFiles(log, p, times);
+    }
+    finally {
+      writeCompileTimes(log, times);
+    }
+  }
+
+  /**
+   * Logs the slowest files compiled and appends the {@link CompileTime}s of
+   * this build to the history. Failures are logged but do not fail the build.
+   */
+  private void writeCompileTimes(Log log, CompileTimes times) {
+    if (!times.isEmpty()) {
+      List<String> slowest = times.getSlowest(this.slowestModules);
+      if (slowest.size() > 0) {
+        log.info("Slowest compiled files:");
+        MavenUtils.logCollection(log, LogLevel.INFO, slowest, "");
+      }
+      try {
+        times.save();
+      }
+      catch (MojoExecutionException e) {
+        log.warn("Failed to write compile times: " + e.getMessage());
+      }
+    }
   }
 
   /**
+   * Compiles the project's MIBs incrementally. MIBs are only compiled if the
+   * MIB or one of the compiled MIBs it imports changed.
+   * 
    * @since 2.2.0
    */
-  private void compileMIBFiles(Log log, Properties p) throws MojoExecutionException, MojoFailureException {
+  private void compileMIBFiles(Log log, Properties p, CompileTimes times) throws MojoExecutionException,
+                                                                                 MojoFailureException {
     File targetPrivDir = p.targetLayout().priv();
     FileUtils.ensureDirectories(targetPrivDir);
 
@@ -85,34 +206,72 @@ public final class Compiler extends ErlangMojo {
       includes.add(p.sourceLayout().priv());
       includes.add(p.targetLayout().priv());
 
-      Script<CompilerResult> script = new MibCompilerScript(mibFiles, targetPrivDir, includes);
+      // MIBs are compiled level by level, each level only imports MIBs of
+      // previous levels and gets compiled in parallel
+      MibGraph graph = MibGraph.of(mibFiles);
+      FileChecksums checksums = FileChecksums.load(p.targetLayout().mibState());
+      checksums.retainAll(mibFiles);
+      MavenSelf self = MavenSelf.get(p.cookie());
+      List<File> failed = new ArrayList<File>();
+      int compiled = 0;
+      for (List<File> level : graph.getLevels()) {
+        List<File> stale = graph.getStale(level, targetPrivDir, checksums, includes);
+        if (stale.isEmpty()) {
+          continue;
+        }
 
-      CompilerResult result = MavenSelf.get(p.cookie()).exec(p.node(), script);
+        Script<CompilerResult> script = new MibCompilerScript(stale, targetPrivDir, includes, this.compilerProcesses);
+        CompilerResult result = self.exec(p.node(), script);
+        times.add(result.getTimes());
 
-      List<File> compiled = result.getCompiled();
-      List<File> failed = result.getFailed();
-      List<String> errors = result.getErrors();
+        List<String> errors = result.getErrors();
+        if (result.getCompiled().size() > 0) {
+          log.info("Compiled:");
+          MavenUtils.logCollection(log, LogLevel.INFO, result.getCompiled(), " * ");
+        }
+        if (errors.size() > 0) {
+          log.error("Errors:");
+          MavenUtils.logCollection(log, LogLevel.ERROR, errors, "");
+        }
 
-      if (compiled.size() > 0) {
-        log.info("Compiled:");
-        MavenUtils.logCollection(log, LogLevel.INFO, compiled, " * ");
-      }
-      if (errors.size() > 0) {
-        log.error("Errors:");
-        MavenUtils.logCollection(log, LogLevel.ERROR, errors, "");
+        failed.addAll(result.getFailed());
+        Set<String> failedPaths = new HashSet<String>();
+        for (File mib : result.getFailed()) {
+          failedPaths.add(mib.getAbsolutePath());
+        }
+        for (File mib : stale) {
+          if (failedPaths.contains(mib.getAbsolutePath())) {
+            checksums.remove(mib);
+          }
+          else {
+            checksums.update(mib, graph.getImportedBins(mib, includes));
+            compiled++;
+          }
+        }
+        if (failed.size() > 0) {
+          // subsequent levels may depend on the failed MIBs
+          break;
+        }
       }
+      checksums.save();
 
       if (failed.size() > 0) {
         throw new MojoFailureException("Failed to compile " + failed + ".");
       }
-      log.info("Successfully compiled the project MIBs.");
+      if (compiled == 0) {
+        log.info("All " + mibFiles.size() + " MIBs are up to date.");
+      }
+      else {
+        log.info("Successfully compiled the project MIBs.");
+      }
     }
     else {
       log.info("No MIBs to compile.");
     }
   }
 
-  private void compileERLFiles(Log log, Properties p) throws MojoFailureException, MojoExecutionException {
+  private void compileERLFiles(Log log, Properties p, CompileTimes times) throws MojoFailureException,
+                                                                                 MojoExecutionException {
     File targetEbinDir = p.targetLayout().ebin();
     FileUtils.ensureDirectories(targetEbinDir);
 
@@ -138,31 +297,71 @@ public final class Compiler extends ErlangMojo {
       }
 
       List<File> includes = p.includePaths(false);
+      List<File> allFiles = new ArrayList<File>(firstFiles);
+      allFiles.addAll(sourceFiles);
+      BuildState state = BuildState.load(p.targetLayout().buildState(), targetEbinDir, includes, options);
+      List<File> removed = state.removeObsolete(allFiles, targetEbinDir);
+      if (removed.size() > 0) {
+        log.info("Removed obsolete:");
+        MavenUtils.logCollection(log, LogLevel.INFO, removed, " * ");
+      }
+      List<File> stale = state.getStale(allFiles, targetEbinDir);
+      if (stale.isEmpty()) {
+        state.save();
+        log.info("All " + allFiles.size() + " modules are up to date.");
+        return;
+      }
+
+      MavenSelf self = MavenSelf.get(p.cookie());
+      // unchanged parse transforms and behaviours are loaded from the outdir
+      List<File> codePaths = Arrays.asList(targetEbinDir);
+      BeamCache cache = null;
+      if (this.beamCache) {
+        RuntimeInfo runtimeInfo = self.exec(p.node(), new RuntimeInfoScript());
+        cache = new BeamCache(this.beamCacheDirectory,
+                              this.beamCacheSize * 1024L * 1024L,
+                              p.sourceLayout().base(),
+                              runtimeInfo,
+                              includes,
+                              options);
+        List<File> restored = cache.restore(stale, targetEbinDir, state);
+        if (restored.size() > 0) {
+          log.info("Restored from cache:");
+          MavenUtils.logCollection(log, LogLevel.INFO, restored, " * ");
+          self.exec(p.node(), new LoadModulesScript(restored), codePaths);
+          stale.removeAll(restored);
+        }
+        if (stale.isEmpty()) {
+          state.save();
+          log.info("Successfully restored the project sources.");
+          return;
+        }
+      }
+      log.info("Compiling " + stale.size() + " of " + allFiles.size() + " modules:");
+      firstFiles.retainAll(stale);
+      sourceFiles.retainAll(stale);
+
       Script<CompilerResult> script = new BeamCompilerScript(sourceFiles,
                                                              firstFiles,
                                                              targetEbinDir,
                                                              includes,
-                                                             options);
-      CompilerResult result = MavenSelf.get(p.cookie()).exec(p.node(), script);
-
-      List<File> compiled = result.getCompiled();
-      List<File> failed = result.getFailed();
-      List<String> errors = result.getErrors();
-      List<String> warnings = result.getWarnings();
-
-      if (compiled.size() > 0) {
-        log.info("Compiled:");
-        MavenUtils.logCollection(log, LogLevel.INFO, compiled, " * ");
-      }
-      if (errors.size() > 0) {
-        log.error("Errors:");
-        MavenUtils.logCollection(log, LogLevel.ERROR, errors, "");
-      }
-      if (warnings.size() > 0) {
-        log.warn("Warnings:");
-        MavenUtils.logCollection(log, LogLevel.WARN, warnings, "");
+                                                             options,
+                                                             this.compilerProcesses,
+                                                             p.targetLayout().attributeIndex(),
+                                                             this.deferLoading,
+                                                             this.failFast,
+                                                             new CompilerLogger(log, LogLevel.INFO));
+      CompilerResult result = self.exec(p.node(), script, codePaths);
+      times.add(result.getTimes());
+      state.update(result);
+      state.save();
+      if (cache != null) {
+        cache.store(result.getDependencies(), targetEbinDir);
+        cache.evict();
       }
 
+      // compiled files, errors and warnings were logged by the CompilerLogger
+      List<File> failed = result.getFailed();
       if (failed.size() > 0) {
         throw new MojoFailureException("Failed to compile " + failed + ".");
       }
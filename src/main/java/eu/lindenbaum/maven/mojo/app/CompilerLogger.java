@@ -0,0 +1,46 @@
+package eu.lindenbaum.maven.mojo.app;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import eu.lindenbaum.maven.erlang.CompilerListener;
+import eu.lindenbaum.maven.util.MavenUtils;
+import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * A {@link CompilerListener} logging the outcome of each compilation unit as
+ * soon as it is reported by the backend node.
+ * 
+ * @author agent <agent@local>
+ */
+final class CompilerLogger implements CompilerListener {
+  private final Log log;
+  private final LogLevel level;
+
+  /**
+   * Creates a logger for compilation results.
+   * 
+   * @param log to log to
+   * @param level the level used to log successfully compiled units
+   */
+  CompilerLogger(Log log, LogLevel level) {
+    this.log = log;
+    this.level = level;
+  }
+
+  @Override
+  public void compiled(File source, List<String> warnings) {
+    MavenUtils.logCollection(this.log, this.level, Collections.singletonList(source), " * ");
+    MavenUtils.logCollection(this.log, LogLevel.WARN, warnings, "");
+  }
+
+  @Override
+  public void failed(File source, List<String> errors, List<String> warnings) {
+    this.log.error("Failed to compile " + source + ":");
+    MavenUtils.logCollection(this.log, LogLevel.ERROR, errors, "");
+    MavenUtils.logCollection(this.log, LogLevel.WARN, warnings, "");
+  }
+}
@@ -18,9 +18,9 @@ import eu.lindenbaum.maven.archiver.TarGzArchiver;
 import eu.lindenbaum.maven.erlang.CheckAppResult;
 import eu.lindenbaum.maven.erlang.CheckAppScript;
 import eu.lindenbaum.maven.erlang.CheckAppUpScript;
-import eu.lindenbaum.maven.erlang.GetAttributesScript;
 import eu.lindenbaum.maven.erlang.MavenSelf;
 import eu.lindenbaum.maven.erlang.Script;
+import eu.lindenbaum.maven.util.BeamFile;
 import eu.lindenbaum.maven.util.ErlConstants;
 import eu.lindenbaum.maven.util.FileUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
@@ -69,6 +69,7 @@ import org.apache.maven.plugin.logging.Log;
  * @goal package
  * @phase package
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Olivier Sambourg
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @author Gregory Haskins <ghaskins@novell.com>
@@ -195,10 +196,7 @@ public final class Packager extends ErlangMojo {
     if (!"omitted".equals(startModule)) {
       File beamFile = new File(p.targetLayout().ebin(), startModule + ErlConstants.BEAM_SUFFIX);
       if (beamFile.isFile()) {
-        List<File> list = Arrays.asList(beamFile);
-        Script<String> behaviourScript = new GetAttributesScript(list, "behaviour", "behavior");
-        String behaviours = MavenSelf.get(p.cookie()).exec(p.node(), behaviourScript);
-        if (behaviours.contains("application")) {
+        if (BeamFile.read(beamFile).getBehaviours().contains("application")) {
           if (!r.getApplications().contains("sasl")) {
             log.error("Errors:");
             log.error(" * application dependency to 'sasl' is missing in .app file");
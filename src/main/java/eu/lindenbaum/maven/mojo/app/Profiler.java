@@ -34,6 +34,7 @@ import org.apache.maven.plugin.logging.Log;
  * @execute phase="test-compile"
  * @phase pre-site lifecycle="site"
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  * @since 2.1.0
  * @see ProfilingReport
@@ -1,16 +1,18 @@
 package eu.lindenbaum.maven.mojo.app;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 import eu.lindenbaum.maven.ErlangMojo;
 import eu.lindenbaum.maven.Properties;
+import eu.lindenbaum.maven.util.ErlConstants;
 import eu.lindenbaum.maven.util.FileUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
+import eu.lindenbaum.maven.util.MibGraph;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -25,75 +27,109 @@ import org.apache.maven.plugin.logging.Log;
  * <li>edoc overviews (overview.edoc)</li>
  * <li>resources (*)</li>
  * </ul>
+ * The target directories are synchronized incrementally, unchanged files are
+ * not copied again and files removed from the source directories are removed
+ * from the target directories.
  * 
  * @goal generate-resources
  * @phase generate-resources
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public final class ResourceGenerator extends ErlangMojo {
+  /**
+   * Setting this to {@code true} compares the contents of equally sized
+   * resources whose target files are older than their source files, e.g. after
+   * a fresh checkout. Resources with matching contents are not copied again.
+   * 
+   * @parameter expression="${resourceChecksums}" default-value=false
+   * @since 2.3.0
+   */
+  private boolean resourceChecksums;
+
   @Override
   protected void execute(Log log, Properties p) throws MojoExecutionException {
-    copySources(log, p);
-    copyIncludes(log, p);
-    copyResources(log, p);
-    copyNonErlangDependencies(log, p);
+    copySources(log, p, this.resourceChecksums);
+    copyIncludes(log, p, this.resourceChecksums);
+    copyResources(log, p, this.resourceChecksums);
+    copyNonErlangDependencies(log, p, this.resourceChecksums);
     copyDocumentationResources(log, p);
   }
 
-  private static void copySources(Log log, Properties p) throws MojoExecutionException {
+  private static void copySources(Log log, Properties p, boolean checksums) throws MojoExecutionException {
     File src = p.sourceLayout().src();
     File targetSrc = p.targetLayout().src();
-    FileUtils.removeDirectory(targetSrc);
-    Collection<File> current = FileUtils.copyDirectory(src, targetSrc, FileUtils.SOURCE_FILTER);
+    Collection<File> noFiles = Collections.emptyList();
+    Collection<File> current = FileUtils.syncDirectory(src, targetSrc, FileUtils.SOURCE_FILTER, checksums, noFiles);
     if (current.size() > 0) {
       log.debug("Copied sources:");
       MavenUtils.logCollection(log, LogLevel.DEBUG, current, " * ");
     }
-    else {
-      FileUtils.removeEmptyDirectory(targetSrc);
-    }
+    FileUtils.removeEmptyDirectory(targetSrc);
   }
 
-  private static void copyIncludes(Log log, Properties p) throws MojoExecutionException {
+  private static void copyIncludes(Log log, Properties p, boolean checksums) throws MojoExecutionException {
     File include = p.sourceLayout().include();
     File targetInclude = p.targetLayout().include();
-    FileUtils.removeDirectory(targetInclude);
-    Collection<File> current = FileUtils.copyDirectory(include, targetInclude, FileUtils.SOURCE_FILTER);
+    Collection<File> noFiles = Collections.emptyList();
+    Collection<File> current = FileUtils.syncDirectory(include,
+                                                       targetInclude,
+                                                       FileUtils.SOURCE_FILTER,
+                                                       checksums,
+                                                       noFiles);
     if (current.size() > 0) {
       log.debug("Copied includes:");
       MavenUtils.logCollection(log, LogLevel.DEBUG, current, " * ");
     }
-    else {
-      FileUtils.removeEmptyDirectory(targetInclude);
-    }
+    FileUtils.removeEmptyDirectory(targetInclude);
   }
 
-  private static void copyResources(Log log, Properties p) throws MojoExecutionException {
+  private static void copyResources(Log log, Properties p, boolean checksums) throws MojoExecutionException {
     File priv = p.sourceLayout().priv();
     File targetPriv = p.targetLayout().priv();
-    FileUtils.removeDirectory(targetPriv);
-    Collection<File> current = FileUtils.copyDirectory(priv, targetPriv, FileUtils.NULL_FILTER);
+    // foreign artifacts are copied into the same directory
+    Collection<File> foreign = new ArrayList<File>();
+    for (Artifact artifact : MavenUtils.getForeignDependenciesToPackage(p.project())) {
+      foreign.add(new File(targetPriv, artifact.getFile().getName()));
+    }
+    Collection<File> current = syncResources(priv, targetPriv, p.sourceLayout().mibs(), foreign, checksums);
     if (current.size() > 0) {
       log.debug("Copied resources:");
       MavenUtils.logCollection(log, LogLevel.DEBUG, current, " * ");
     }
-    else {
-      FileUtils.removeEmptyDirectory(targetPriv);
+    FileUtils.removeEmptyDirectory(targetPriv);
+  }
+
+  /**
+   * Synchronizes the resources into the target directory. The given foreign
+   * files and the compiled MIBs are preserved, since they are placed into the
+   * target directory by other goals.
+   */
+  static Collection<File> syncResources(File priv,
+                                        File targetPriv,
+                                        File mibs,
+                                        Collection<File> foreign,
+                                        boolean checksums) throws MojoExecutionException {
+    Collection<File> preserve = new ArrayList<File>(foreign);
+    for (File mib : FileUtils.getFilesRecursive(mibs, ErlConstants.MIB_SUFFIX)) {
+      preserve.add(MibGraph.getBin(mib, targetPriv));
     }
+    return FileUtils.syncDirectory(priv, targetPriv, FileUtils.NULL_FILTER, checksums, preserve);
   }
 
-  private static void copyNonErlangDependencies(Log log, Properties p) {
+  private static void copyNonErlangDependencies(Log log, Properties p, boolean checksums) {
     File targetPriv = p.targetLayout().priv();
     Collection<File> current = new ArrayList<File>();
     for (Artifact artifact : MavenUtils.getForeignDependenciesToPackage(p.project())) {
       File source = artifact.getFile();
       File destination = new File(targetPriv, source.getName());
       try {
-        org.codehaus.plexus.util.FileUtils.copyFile(source, destination);
-        current.add(source);
+        if (FileUtils.syncFile(source, destination, checksums)) {
+          current.add(source);
+        }
       }
-      catch (IOException e) {
+      catch (MojoExecutionException e) {
         log.error("Failed to copy artifact " + source.getPath() + " to " + targetPriv + ".", e);
       }
     }
@@ -41,6 +41,7 @@ import org.apache.maven.plugin.logging.Log;
  * 
  * @goal show-build-info
  * @execute phase="compile"
+ * @threadSafe
  * @author Sven Heyll <sven.heyll@gmail.com>
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @since 2.0.0
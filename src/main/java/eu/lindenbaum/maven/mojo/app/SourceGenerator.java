@@ -1,16 +1,26 @@
 package eu.lindenbaum.maven.mojo.app;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import eu.lindenbaum.maven.ErlangMojo;
 import eu.lindenbaum.maven.Properties;
+import eu.lindenbaum.maven.erlang.CompileTime;
 import eu.lindenbaum.maven.erlang.CompilerResult;
 import eu.lindenbaum.maven.erlang.MavenSelf;
+import eu.lindenbaum.maven.erlang.RuntimeInfo;
+import eu.lindenbaum.maven.erlang.RuntimeInfoScript;
 import eu.lindenbaum.maven.erlang.Script;
 import eu.lindenbaum.maven.erlang.XrlCompilerScript;
 import eu.lindenbaum.maven.erlang.YrlCompilerScript;
 import eu.lindenbaum.maven.util.ErlConstants;
+import eu.lindenbaum.maven.util.FileChecksums;
 import eu.lindenbaum.maven.util.FileUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
 import eu.lindenbaum.maven.util.MavenUtils.LogLevel;
@@ -21,41 +31,56 @@ import org.apache.maven.plugin.logging.Log;
 
 /**
  * This mojo generates erlang sources using the `leex' and `yecc' applications.
+ * Only grammars that changed since the last generation (according to their
+ * checksums) or were generated by another OTP release are regenerated.
  * 
  * @goal generate-sources
  * @phase generate-sources
+ * @threadSafe
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  */
 public class SourceGenerator extends ErlangMojo {
 
   @Override
   protected void execute(Log log, Properties p) throws MojoExecutionException, MojoFailureException {
-    generateLexers(log, p);
-    generateParsers(log, p);
+    List<File> xrlFiles = FileUtils.getFilesRecursive(p.sourceLayout().src(), ErlConstants.XRL_SUFFIX);
+    List<File> yrlFiles = FileUtils.getFilesRecursive(p.sourceLayout().src(), ErlConstants.YRL_SUFFIX);
+    List<File> grammars = new ArrayList<File>(xrlFiles);
+    grammars.addAll(yrlFiles);
+
+    // generated sources depend on the leex and yecc versions of the backend
+    String otpRelease = "";
+    if (!grammars.isEmpty()) {
+      RuntimeInfo runtimeInfo = MavenSelf.get(p.cookie()).exec(p.node(), new RuntimeInfoScript());
+      otpRelease = runtimeInfo.getOtpRelease();
+    }
+    FileChecksums checksums = FileChecksums.load(p.targetLayout().generatorState(), otpRelease);
+    checksums.retainAll(grammars);
+    generateLexers(log, p, xrlFiles, checksums);
+    generateParsers(log, p, yrlFiles, checksums);
   }
 
-  private void generateLexers(Log log, Properties p) throws MojoExecutionException, MojoFailureException {
-    // generated files cannot be left stale, always clean before run
-    FileUtils.removeDirectory(p.sourceLayout().leex());
-    FileUtils.ensureDirectories(p.sourceLayout().leex());
+  private void generateLexers(Log log,
+                              Properties p,
+                              List<File> xrlFiles,
+                              FileChecksums checksums) throws MojoExecutionException, MojoFailureException {
+    File outdir = p.sourceLayout().leex();
+    FileUtils.ensureDirectories(outdir);
+    // generated files cannot be left stale, remove those without grammar
+    removeObsolete(log, xrlFiles, ErlConstants.XRL_SUFFIX, outdir);
 
-    List<File> yrlFiles = FileUtils.getFilesRecursive(p.sourceLayout().src(), ErlConstants.XRL_SUFFIX);
-    if (!yrlFiles.isEmpty()) {
+    if (!xrlFiles.isEmpty()) {
       log.info(MavenUtils.SEPARATOR);
       log.info(" L E E X");
       log.info(MavenUtils.SEPARATOR);
 
-      Script<CompilerResult> script = new XrlCompilerScript(yrlFiles, p.sourceLayout().leex());
-      CompilerResult result = MavenSelf.get(p.cookie()).exec(p.node(), script);
-      List<File> compiled = result.getCompiled();
-      List<File> failed = result.getFailed();
-      if (compiled.size() > 0) {
-        log.info("Generated:");
-        MavenUtils.logCollection(log, LogLevel.INFO, compiled, " * ");
-      }
-      if (failed.size() > 0) {
-        throw new MojoFailureException("Failed to generate " + failed + ".");
+      List<File> stale = getStale(xrlFiles, ErlConstants.XRL_SUFFIX, outdir, checksums);
+      if (stale.isEmpty()) {
+        log.info("All " + xrlFiles.size() + " lexers are up to date.");
+        return;
       }
+      Script<CompilerResult> script = new XrlCompilerScript(stale, outdir);
+      generate(log, p, script, stale, ErlConstants.XRL_SUFFIX, outdir, checksums);
       log.info("Successfully generated the project lexers from XRLs.");
     }
     else {
@@ -63,28 +88,27 @@ public class SourceGenerator extends ErlangMojo {
     }
   }
 
-  private void generateParsers(Log log, Properties p) throws MojoExecutionException, MojoFailureException {
-    // generated files cannot be left stale, always clean before run
-    FileUtils.removeDirectory(p.sourceLayout().yecc());
-    FileUtils.ensureDirectories(p.sourceLayout().yecc());
+  private void generateParsers(Log log,
+                               Properties p,
+                               List<File> yrlFiles,
+                               FileChecksums checksums) throws MojoExecutionException, MojoFailureException {
+    File outdir = p.sourceLayout().yecc();
+    FileUtils.ensureDirectories(outdir);
+    // generated files cannot be left stale, remove those without grammar
+    removeObsolete(log, yrlFiles, ErlConstants.YRL_SUFFIX, outdir);
 
-    List<File> yrlFiles = FileUtils.getFilesRecursive(p.sourceLayout().src(), ErlConstants.YRL_SUFFIX);
     if (!yrlFiles.isEmpty()) {
       log.info(MavenUtils.SEPARATOR);
       log.info(" Y E C C");
       log.info(MavenUtils.SEPARATOR);
 
-      Script<CompilerResult> script = new YrlCompilerScript(yrlFiles, p.sourceLayout().yecc());
-      CompilerResult result = MavenSelf.get(p.cookie()).exec(p.node(), script);
-      List<File> compiled = result.getCompiled();
-      List<File> failed = result.getFailed();
-      if (compiled.size() > 0) {
-        log.info("Generated:");
-        MavenUtils.logCollection(log, LogLevel.INFO, compiled, " * ");
-      }
-      if (failed.size() > 0) {
-        throw new MojoFailureException("Failed to generate " + failed + ".");
+      List<File> stale = getStale(yrlFiles, ErlConstants.YRL_SUFFIX, outdir, checksums);
+      if (stale.isEmpty()) {
+        log.info("All " + yrlFiles.size() + " parsers are up to date.");
+        return;
       }
+      Script<CompilerResult> script = new YrlCompilerScript(stale, outdir);
+      generate(log, p, script, stale, ErlConstants.YRL_SUFFIX, outdir, checksums);
       log.info("Successfully generated the project parsers from YRLs.");
     }
     else {
@@ -92,4 +116,128 @@ public class SourceGenerator extends ErlangMojo {
     }
   }
 
+  /**
+   * Generates the sources for the given stale grammars. Generated files whose
+   * content did not change get their previous modification time restored, so
+   * they are not considered changed by subsequent build steps. The checksums
+   * of successfully processed grammars are recorded, generated files of failed
+   * grammars are removed.
+   */
+  private static void generate(Log log,
+                               Properties p,
+                               Script<CompilerResult> script,
+                               List<File> stale,
+                               String suffix,
+                               File outdir,
+                               FileChecksums checksums) throws MojoExecutionException, MojoFailureException {
+    Map<File, String> previousChecksums = new HashMap<File, String>();
+    Map<File, Long> previousModified = new HashMap<File, Long>();
+    for (File grammar : stale) {
+      File generated = getGenerated(grammar, suffix, outdir);
+      if (generated.isFile()) {
+        previousChecksums.put(generated, FileUtils.getChecksum(generated));
+        previousModified.put(generated, generated.lastModified());
+      }
+    }
+
+    CompilerResult result = MavenSelf.get(p.cookie()).exec(p.node(), script);
+    Set<String> failed = new HashSet<String>();
+    for (File grammar : result.getFailed()) {
+      failed.add(grammar.getAbsolutePath());
+    }
+
+    List<File> changed = new ArrayList<File>();
+    List<File> unchanged = new ArrayList<File>();
+    for (File grammar : stale) {
+      File generated = getGenerated(grammar, suffix, outdir);
+      if (failed.contains(grammar.getAbsolutePath())) {
+        checksums.remove(grammar);
+        FileUtils.removeFiles(generated);
+      }
+      else {
+        checksums.update(grammar);
+        String previous = previousChecksums.get(generated);
+        if (previous != null && previous.equals(FileUtils.getChecksum(generated))) {
+          generated.setLastModified(previousModified.get(generated));
+          unchanged.add(generated);
+        }
+        else {
+          changed.add(generated);
+        }
+      }
+    }
+    checksums.save();
+
+    if (changed.size() > 0) {
+      log.info("Generated:");
+      MavenUtils.logCollection(log, LogLevel.INFO, changed, " * ");
+    }
+    if (unchanged.size() > 0) {
+      log.info("Regenerated without changes:");
+      MavenUtils.logCollection(log, LogLevel.INFO, unchanged, " * ");
+    }
+    logTimes(log, result);
+    if (result.getFailed().size() > 0) {
+      throw new MojoFailureException("Failed to generate " + result.getFailed() + ".");
+    }
+  }
+
+  /**
+   * Returns the grammars that need to be (re-)generated, because the grammar
+   * changed since its last generation or its generated file is missing.
+   */
+  private static List<File> getStale(List<File> grammars,
+                                     String suffix,
+                                     File outdir,
+                                     FileChecksums checksums) throws MojoExecutionException {
+    List<File> stale = new ArrayList<File>();
+    for (File grammar : grammars) {
+      if (!getGenerated(grammar, suffix, outdir).isFile() || checksums.isChanged(grammar)) {
+        stale.add(grammar);
+      }
+    }
+    return stale;
+  }
+
+  /**
+   * Removes generated files from the output directory that do not belong to
+   * any of the given grammars.
+   */
+  private static void removeObsolete(Log log, List<File> grammars, String suffix, File outdir) {
+    Set<String> expected = new HashSet<String>();
+    for (File grammar : grammars) {
+      expected.add(getGenerated(grammar, suffix, outdir).getAbsolutePath());
+    }
+    List<File> removed = new ArrayList<File>();
+    for (File generated : FileUtils.getFilesRecursive(outdir, ErlConstants.ERL_SUFFIX)) {
+      if (!expected.contains(generated.getAbsolutePath()) && generated.delete()) {
+        removed.add(generated);
+      }
+    }
+    if (removed.size() > 0) {
+      log.info("Removed obsolete:");
+      MavenUtils.logCollection(log, LogLevel.INFO, removed, " * ");
+    }
+  }
+
+  /**
+   * Returns the file generated from a grammar.
+   */
+  private static File getGenerated(File grammar, String suffix, File outdir) {
+    return new File(outdir, grammar.getName().replace(suffix, ErlConstants.ERL_SUFFIX));
+  }
+
+  /**
+   * Logs the time spent generating each file at debug level.
+   */
+  private static void logTimes(Log log, CompilerResult result) {
+    for (CompileTime time : result.getTimes()) {
+      log.debug(String.format(Locale.ENGLISH,
+                              "Generated %s in %.3f ms (%d reductions).",
+                              time.getSource().getName(),
+                              time.getMicros() / 1000.0,
+                              time.getReductions()));
+    }
+  }
+
 }
@@ -2,15 +2,22 @@ package eu.lindenbaum.maven.mojo.app;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import eu.lindenbaum.maven.ErlangMojo;
 import eu.lindenbaum.maven.Properties;
 import eu.lindenbaum.maven.erlang.BeamCompilerScript;
 import eu.lindenbaum.maven.erlang.CompilerResult;
+import eu.lindenbaum.maven.erlang.LoadModulesScript;
 import eu.lindenbaum.maven.erlang.MavenSelf;
+import eu.lindenbaum.maven.erlang.RuntimeInfo;
+import eu.lindenbaum.maven.erlang.RuntimeInfoScript;
 import eu.lindenbaum.maven.erlang.Script;
+import eu.lindenbaum.maven.util.BeamCache;
+import eu.lindenbaum.maven.util.BuildState;
 import eu.lindenbaum.maven.util.ErlConstants;
 import eu.lindenbaum.maven.util.FileUtils;
 import eu.lindenbaum.maven.util.MavenUtils;
@@ -24,17 +31,20 @@ import org.apache.maven.plugin.logging.Log;
 /**
  * Compile erlang test sources and recompile erlang sources with the options
  * {@code debug_info}, {@code export_all} and <code>{d, 'TEST'}</code>. This
- * will also compile the supporting erlang sources provided along with the
- * plugin.
+ * will also install the supporting erlang modules provided along with the
+ * plugin, which are compiled only once per plugin and OTP release.
  * 
  * @goal test-compile
  * @phase test-compile
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Olivier Sambourg
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  */
 public final class TestCompiler extends ErlangMojo {
+  private static final List<String> TEST_OPTIONS = Arrays.asList("debug_info", "export_all", "{d, 'TEST'}");
+
   /**
    * Setting this to {@code true} will skip the test compilation.
    * 
@@ -71,6 +81,47 @@ public final class TestCompiler extends ErlangMojo {
    */
   private String[] testCompileFirst;
 
+  /**
+   * Setting this to {@code true} stops the test compilation after the first
+   * file that failed to compile. Files already being compiled in parallel will
+   * still be finished.
+   * 
+   * @parameter expression="${failFast}" default-value=false
+   * @since 2.3.0
+   */
+  private boolean failFast;
+
+  /**
+   * Setting this to {@code true} enables the local build cache for compiled
+   * modules. Modules whose sources, included files, parse transforms,
+   * compiler options and OTP release match a previous compilation are
+   * restored from the cache instead of being compiled.
+   * 
+   * @parameter expression="${beamCache}" default-value=false
+   * @since 2.3.0
+   */
+  private boolean beamCache;
+
+  /**
+   * The directory of the local build cache for compiled modules. The directory
+   * may be located on a shared filesystem.
+   * 
+   * @parameter expression="${beamCacheDirectory}"
+   *            default-value="${user.home}/.m2/erlang-beam-cache"
+   * @since 2.3.0
+   */
+  private File beamCacheDirectory;
+
+  /**
+   * The maximum size of the local build cache for compiled modules in
+   * megabytes. The least recently used modules get evicted first, {@code 0}
+   * disables eviction.
+   * 
+   * @parameter expression="${beamCacheSize}" default-value=1024
+   * @since 2.3.0
+   */
+  private int beamCacheSize;
+
   @Override
   protected void execute(Log log, Properties p) throws MojoExecutionException, MojoFailureException {
     log.info(MavenUtils.SEPARATOR);
@@ -100,55 +151,150 @@ public final class TestCompiler extends ErlangMojo {
     }
 
     if (!files.isEmpty() || !firstFiles.isEmpty()) {
-      Collection<File> testSupportFiles = p.testSupportScripts();
-      extractTestSupportFiles(getClass(), testSupportFiles);
-      files.addAll(testSupportFiles);
-
-      List<String> options = new ArrayList<String>();
-      options.add("debug_info");
-      options.add("export_all");
-      options.add("{d, 'TEST'}");
-      if (this.testCompilerOptions != null && !this.testCompilerOptions.isEmpty()) {
-        log.info("Using additinal test compiler options: " + this.testCompilerOptions);
-        options.add(this.testCompilerOptions);
-      }
+      MavenSelf self = MavenSelf.get(p.cookie());
+      RuntimeInfo runtimeInfo = self.exec(p.testNode(), new RuntimeInfoScript());
+      compileTests(log, p, self, runtimeInfo, files, firstFiles);
+      installTestSupport(log, p, self, runtimeInfo);
+    }
+    else {
+      log.info("No test source files to compile.");
+    }
+  }
 
-      List<File> includes = p.includePaths(true);
-      Script<CompilerResult> script = new BeamCompilerScript(files, firstFiles, out, includes, options);
-      CompilerResult result = MavenSelf.get(p.cookie()).exec(p.testNode(), script);
+  private void compileTests(Log log,
+                            Properties p,
+                            MavenSelf self,
+                            RuntimeInfo runtimeInfo,
+                            List<File> files,
+                            List<File> firstFiles) throws MojoExecutionException, MojoFailureException {
+    File out = p.targetLayout().testEbin();
+    List<String> options = new ArrayList<String>(TEST_OPTIONS);
+    if (this.testCompilerOptions != null && !this.testCompilerOptions.isEmpty()) {
+      log.info("Using additinal test compiler options: " + this.testCompilerOptions);
+      options.add(this.testCompilerOptions);
+    }
 
-      List<File> compiled = result.getCompiled();
-      List<File> failed = result.getFailed();
-      List<String> errors = result.getErrors();
-      List<String> warnings = result.getWarnings();
+    List<File> includes = p.includePaths(true);
+    List<File> allFiles = new ArrayList<File>(firstFiles);
+    allFiles.addAll(files);
+    BuildState state = BuildState.load(p.targetLayout().testBuildState(), out, includes, options);
+    state.removeObsolete(allFiles, out);
+    List<File> stale = state.getStale(allFiles, out);
+    if (stale.isEmpty()) {
+      state.save();
+      log.info("All " + allFiles.size() + " test modules are up to date.");
+      return;
+    }
 
-      if (compiled.size() > 0) {
-        log.debug("Compiled:");
-        MavenUtils.logCollection(log, LogLevel.DEBUG, compiled, " * ");
+    List<File> codePaths = Arrays.asList(out);
+    BeamCache cache = null;
+    if (this.beamCache) {
+      long size = this.beamCacheSize * 1024L * 1024L;
+      cache = new BeamCache(this.beamCacheDirectory, size, p.sourceLayout().base(), runtimeInfo, includes, options);
+      List<File> restored = cache.restore(stale, out, state);
+      if (restored.size() > 0) {
+        log.debug("Restored from cache:");
+        MavenUtils.logCollection(log, LogLevel.DEBUG, restored, " * ");
+        self.exec(p.testNode(), new LoadModulesScript(restored), codePaths);
+        stale.removeAll(restored);
       }
-      if (errors.size() > 0) {
-        log.error("Errors:");
-        MavenUtils.logCollection(log, LogLevel.ERROR, errors, "");
-      }
-      if (warnings.size() > 0) {
-        log.warn("Warnings:");
-        MavenUtils.logCollection(log, LogLevel.WARN, warnings, "");
+      if (stale.isEmpty()) {
+        state.save();
+        log.info("Successfully restored the project test sources.");
+        return;
       }
+    }
+    log.debug("Compiling " + stale.size() + " of " + allFiles.size() + " test modules:");
+    firstFiles.retainAll(stale);
+    files.retainAll(stale);
+
+    File index = p.targetLayout().attributeIndex();
+    CompilerLogger logger = new CompilerLogger(log, LogLevel.DEBUG);
+    Script<CompilerResult> script = new BeamCompilerScript(files,
+                                                           firstFiles,
+                                                           out,
+                                                           includes,
+                                                           options,
+                                                           0,
+                                                           index,
+                                                           false,
+                                                           this.failFast,
+                                                           logger);
+    CompilerResult result = self.exec(p.testNode(), script, codePaths);
+    state.update(result);
+    state.save();
+    if (cache != null) {
+      cache.store(result.getDependencies(), out);
+      cache.evict();
+    }
+
+    // compiled files, errors and warnings were logged by the CompilerLogger
+    List<File> failed = result.getFailed();
+
+    if (failed.size() > 0) {
+      throw new MojoFailureException("Failed to compile " + failed + ".");
+    }
+
+    log.info("Successfully compiled the project test sources.");
+  }
 
+  /**
+   * Installs the test support modules provided along with the plugin into the
+   * test output directory and loads them onto the test node. The modules are
+   * compiled once per plugin and OTP release, afterwards they are restored
+   * from the build cache.
+   */
+  private void installTestSupport(Log log,
+                                  Properties p,
+                                  MavenSelf self,
+                                  RuntimeInfo runtimeInfo) throws MojoExecutionException, MojoFailureException {
+    File out = p.targetLayout().testEbin();
+    File testSupport = p.targetLayout().testSupport();
+    FileUtils.ensureDirectories(testSupport);
+    List<File> sources = p.testSupportScripts();
+    extractTestSupportFiles(getClass(), sources);
+
+    // without build cache the modules are only kept until the project is cleaned
+    File directory = this.beamCache ? this.beamCacheDirectory : new File(testSupport, "cache");
+    long size = this.beamCacheSize * 1024L * 1024L;
+    List<File> noFiles = Collections.emptyList();
+    BeamCache cache = new BeamCache(directory, size, testSupport, runtimeInfo, noFiles, TEST_OPTIONS);
+    List<File> missing = new ArrayList<File>();
+    for (File source : sources) {
+      if (cache.restore(source, out) == null) {
+        missing.add(source);
+      }
+    }
+    if (missing.size() > 0) {
+      log.debug("Compiling test support modules:");
+      File index = new File(testSupport, ".attribute-index");
+      CompilerLogger logger = new CompilerLogger(log, LogLevel.DEBUG);
+      Script<CompilerResult> script = new BeamCompilerScript(missing,
+                                                             noFiles,
+                                                             out,
+                                                             noFiles,
+                                                             TEST_OPTIONS,
+                                                             0,
+                                                             index,
+                                                             false,
+                                                             false,
+                                                             logger);
+      CompilerResult result = self.exec(p.testNode(), script);
+      List<File> failed = result.getFailed();
       if (failed.size() > 0) {
         throw new MojoFailureException("Failed to compile " + failed + ".");
       }
-
-      log.info("Successfully compiled the project test sources.");
-    }
-    else {
-      log.info("No test source files to compile.");
+      cache.store(result.getDependencies(), out);
+      if (this.beamCache) {
+        cache.evict();
+      }
     }
+    self.exec(p.testNode(), new LoadModulesScript(sources), Arrays.asList(out));
   }
 
   /**
    * Extract the test support files needed for test execution in order to
-   * compile them with the test modules.
+   * compile them.
    */
   private static void extractTestSupportFiles(Class<?> caller, Collection<File> testSupportFiles) throws MojoExecutionException {
     String path = "/" + caller.getPackage().getName().replace(".", "/");
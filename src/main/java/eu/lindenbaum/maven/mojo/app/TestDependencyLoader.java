@@ -5,10 +5,9 @@ import java.util.List;
 
 import eu.lindenbaum.maven.ErlangMojo;
 import eu.lindenbaum.maven.Properties;
-import eu.lindenbaum.maven.erlang.LoadModulesScript;
 import eu.lindenbaum.maven.erlang.MavenSelf;
-import eu.lindenbaum.maven.erlang.PurgeModulesScript;
-import eu.lindenbaum.maven.erlang.Script;
+import eu.lindenbaum.maven.erlang.ReloadModulesScript;
+import eu.lindenbaum.maven.erlang.ReloadResult;
 import eu.lindenbaum.maven.util.FileUtils;
 
 import org.apache.maven.plugin.Mojo;
@@ -18,10 +17,13 @@ import org.apache.maven.plugin.logging.Log;
 /**
  * {@link Mojo} that first purges all dynamically loaded modules on the test
  * backend node and reloads the modules provided by (unpacked) dependencies.
+ * Modules whose {@code .beam} files did not change since they were loaded are
+ * kept.
  * 
  * @goal reload-test-dependencies
  * @phase process-test-sources
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public final class TestDependencyLoader extends ErlangMojo {
@@ -38,17 +40,15 @@ public final class TestDependencyLoader extends ErlangMojo {
       return;
     }
 
-    // clean up dynamically loaded modules on backend from previous runs
-    Script<Void> purgeScript = new PurgeModulesScript();
-    MavenSelf.get(p.cookie()).exec(p.testNode(), purgeScript);
-
     // code paths must exist when added
     List<File> codePaths = p.codePaths(true);
     FileUtils.ensureDirectories(codePaths.toArray(new File[0]));
 
-    // reload dependency modules on backend node
-    LoadModulesScript loadScript = new LoadModulesScript(p.dependencyModules(true));
-    Integer loaded = MavenSelf.get(p.cookie()).exec(p.testNode(), loadScript, codePaths);
-    log.debug("Successfully loaded " + loaded + " .beam file(s) from dependencies.");
+    // purge modules from previous runs, reload changed dependency modules
+    List<File> modules = p.dependencyModules(true);
+    ReloadModulesScript reloadScript = new ReloadModulesScript(modules);
+    ReloadResult result = MavenSelf.get(p.cookie()).exec(p.testNode(), reloadScript, codePaths);
+    log.info("Kept " + result.getKept() + " and reloaded " + result.getReloaded() + " of " + modules.size()
+             + " .beam file(s) from dependencies.");
   }
 }
@@ -16,10 +16,12 @@ import org.apache.maven.plugin.logging.Log;
  * by the plugin. The node will only be started if it is not already running.
  * The node will be shutdown when the executing JVM exits. This is done by a
  * {@link Runtime#addShutdownHook(Thread)} which will only be added <b>once</b>
- * each JVM execution.
+ * each JVM execution. In daemon mode the node keeps running until it was idle
+ * for the configured idle timeout.
  * 
  * @goal test-initialize
  * @phase generate-test-sources
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public class TestInitializer extends ErlangMojo {
@@ -37,7 +39,6 @@ public class TestInitializer extends ErlangMojo {
     }
     File buildDir = p.targetLayout().base();
     FileUtils.ensureDirectories(buildDir);
-    File backendLog = p.targetLayout().backendLog();
-    MojoUtils.startBackend(log, p.erlCommand(), p.testNode(), p.cookie(), buildDir, backendLog);
+    MojoUtils.startBackend(log, p, p.testNode());
   }
 }
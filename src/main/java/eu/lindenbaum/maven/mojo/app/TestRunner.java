@@ -27,6 +27,7 @@ import org.apache.maven.plugin.logging.Log;
  * @goal test
  * @phase test
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  * @author Olivier Sambourg
@@ -29,6 +29,7 @@ import org.apache.maven.plugin.logging.Log;
  * @goal upload-tests
  * @execute phase="test-compile" lifecycle="testupload"
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @since 2.0.0
  */
@@ -71,7 +72,7 @@ public final class TestUploader extends ErlangMojo {
       throw new MojoExecutionException("Mojo does not support packaging type " + packagingType + ".");
     }
 
-    String target = "'" + this.remote + "'";
+    String target = this.remote;
     List<File> modules = p.modules(true, this.withDependencies);
     List<File> resources = p.resources(true, this.withDependencies);
     Script<GenericScriptResult> script = new UploadScript(target, modules, new ArrayList<File>(), resources);
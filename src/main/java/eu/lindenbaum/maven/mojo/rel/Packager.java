@@ -22,6 +22,7 @@ import org.apache.maven.plugin.logging.Log;
  * 
  * @goal package-release
  * @phase package
+ * @threadSafe
  * @author Paul Guyot
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
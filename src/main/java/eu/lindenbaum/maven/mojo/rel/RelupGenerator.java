@@ -38,6 +38,7 @@ import org.apache.maven.plugin.logging.Log;
  * @requiresDependencyResolution test
  * @since 2.1.0
  * @execute phase="generate-resources" lifecycle="appup-relup"
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @see <a href="http://www.erlang.org/doc/man/relup.html"
  *      >http://www.erlang.org/doc/man/relup.html</a>
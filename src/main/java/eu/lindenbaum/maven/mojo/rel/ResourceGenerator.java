@@ -1,6 +1,7 @@
 package eu.lindenbaum.maven.mojo.rel;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -22,6 +23,7 @@ import eu.lindenbaum.maven.erlang.MavenSelf;
 import eu.lindenbaum.maven.erlang.RuntimeInfo;
 import eu.lindenbaum.maven.erlang.RuntimeInfoScript;
 import eu.lindenbaum.maven.erlang.Script;
+import eu.lindenbaum.maven.erlang.ScriptFuture;
 import eu.lindenbaum.maven.util.ErlConstants;
 import eu.lindenbaum.maven.util.ErlUtils;
 import eu.lindenbaum.maven.util.FileUtils;
@@ -68,6 +70,7 @@ import org.apache.maven.plugin.logging.Log;
  * @goal generate-release-resources
  * @phase generate-resources
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @author Gregory Haskins <ghaskins@novell.com>
  */
@@ -157,14 +160,19 @@ public final class ResourceGenerator extends ErlangMojo {
    * applications available in the given lib directories installation.
    */
   private static Map<String, CheckAppResult> getAppInfos(Properties p, List<File> paths) throws MojoExecutionException {
-    Map<String, CheckAppResult> applications = new HashMap<String, CheckAppResult>();
+    MavenSelf self = MavenSelf.get(p.cookie());
+    List<ScriptFuture<CheckAppResult>> futures = new ArrayList<ScriptFuture<CheckAppResult>>();
     for (File path : paths) {
       for (File appFile : FileUtils.getFilesRecursive(path, ErlConstants.APP_SUFFIX)) {
         Script<CheckAppResult> script = new CheckAppScript(appFile);
-        CheckAppResult result = MavenSelf.get(p.cookie()).exec(p.node(), script);
-        applications.put(result.getName(), result);
+        futures.add(self.execAsync(p.node(), script));
       }
     }
+    Map<String, CheckAppResult> applications = new HashMap<String, CheckAppResult>();
+    for (ScriptFuture<CheckAppResult> future : futures) {
+      CheckAppResult result = future.await();
+      applications.put(result.getName(), result);
+    }
     return applications;
   }
 
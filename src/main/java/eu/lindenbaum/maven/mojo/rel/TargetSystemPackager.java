@@ -46,6 +46,7 @@ import org.apache.maven.plugin.logging.Log;
  * 
  * @goal target-system
  * @execute phase="package" lifecycle="targetSystem"
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  * @see <a
  *      href="http://www.erlang.org/doc/system_principles/create_target.html">http://www.erlang.org/doc/system_principles/create_target.html</a>
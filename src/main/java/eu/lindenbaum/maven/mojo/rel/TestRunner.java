@@ -30,6 +30,7 @@ import org.apache.maven.plugin.logging.Log;
  * @goal test-release
  * @phase test
  * @requiresDependencyResolution test
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public final class TestRunner extends ErlangMojo {
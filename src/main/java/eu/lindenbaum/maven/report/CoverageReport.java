@@ -30,6 +30,7 @@ import org.apache.maven.plugin.logging.Log;
  * green, showing the exact coverage.
  * 
  * @goal coverage-report
+ * @threadSafe
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  * @since 2.1.0
  */
@@ -20,6 +20,7 @@ import org.apache.maven.plugin.logging.Log;
  * 
  * @goal edoc
  * @execute phase="generate-resources"
+ * @threadSafe
  * @author Tobias Schlager <tobias.schlager@lindenbaum.eu>
  */
 public class EDocReport extends ErlangReport {
@@ -22,6 +22,7 @@ import org.apache.maven.plugin.logging.Log;
  * generated.
  * 
  * @goal profiling-report
+ * @threadSafe
  * @author Olle Törnström <olle.toernstroem@lindenbaum.eu>
  * @since 2.1.0
  */
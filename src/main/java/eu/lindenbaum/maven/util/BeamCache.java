@@ -0,0 +1,397 @@
+package eu.lindenbaum.maven.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import eu.lindenbaum.maven.erlang.ModuleDependencies;
+import eu.lindenbaum.maven.erlang.RuntimeInfo;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A content-addressed cache for compiled {@code .beam} files. Entries are
+ * keyed by the checksum of a module's source, the compiler options, the
+ * include directories and the OTP release of the backend node. Since the
+ * files included by a module are only known after compilation, each key may
+ * hold several variants distinguished by the checksums of the module's
+ * included files and of the project's parse transforms used by the module.
+ * Along with the {@code .beam} file the dependencies of the
+ * module are stored, so restored modules can be recorded in the
+ * {@link BuildState} like compiled ones.
+ * <p>
+ * Paths below the project's base directory are stored relative to it, so a
+ * cache directory can be shared between different checkouts, e.g. on a
+ * shared filesystem used by several CI agents. Entries are written to
+ * temporary files first and renamed afterwards, so concurrent builds never
+ * see partially written entries. The cache is bounded in size, the least
+ * recently used entries get evicted first. Note that compiler warnings are
+ * not reported for restored modules.
+ * </p>
+ * 
+ * @author agent <agent@local>
+ */
+public final class BeamCache {
+  private static final String DEPS_SUFFIX = ".deps";
+  private static final String SEPARATOR = "\t";
+  private static final String INCLUDE = "include";
+  private static final String PARSE_TRANSFORM = "parse_transform";
+  private static final String BEHAVIOUR = "behaviour";
+
+  private final File directory;
+  private final long maxSize;
+  private final File base;
+  private final String context;
+
+  /**
+   * Creates a cache for the compilation of the sources of a specific project.
+   * 
+   * @param directory the directory the cache entries are stored in
+   * @param maxSize the maximum size of the cache in bytes, {@code 0} disables
+   *          the eviction of entries
+   * @param base the base directory of the project
+   * @param runtime the runtime information of the compiling backend node
+   * @param includes the include directories passed to the compiler
+   * @param options the options passed to the compiler
+   */
+  public BeamCache(File directory,
+                   long maxSize,
+                   File base,
+                   RuntimeInfo runtime,
+                   Collection<File> includes,
+                   Collection<String> options) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.base = base.getAbsoluteFile();
+    StringBuilder context = new StringBuilder();
+    context.append(runtime.getOtpRelease()).append(SEPARATOR);
+    context.append(runtime.getVersion()).append(SEPARATOR);
+    for (File include : includes) {
+      context.append(relativize(include)).append(File.pathSeparator);
+    }
+    context.append(SEPARATOR).append(options);
+    this.context = context.toString();
+  }
+
+  /**
+   * Restores the cached {@code .beam} files of the given sources into an output
+   * directory. Restored modules are recorded in the given {@link BuildState}.
+   * A module using one of the given sources as parse transform is only
+   * restored if the parse transform could be restored before.
+   * 
+   * @param sources the sources to restore the compiled modules for
+   * @param outdir the output directory of the compiler
+   * @param state the build state to update
+   * @return a {@link List} of the sources whose modules could be restored
+   * @throws MojoExecutionException in case a checksum cannot be calculated
+   */
+  public List<File> restore(List<File> sources, File outdir, BuildState state) throws MojoExecutionException {
+    List<File> restored = new ArrayList<File>();
+    List<File> remaining = new ArrayList<File>(sources);
+    boolean progress = true;
+    while (progress) {
+      progress = false;
+      // modules still to be compiled must not be used as parse transforms yet
+      Set<String> pending = new HashSet<String>();
+      for (File source : remaining) {
+        pending.add(getModuleName(source));
+      }
+      Iterator<File> iterator = remaining.iterator();
+      while (iterator.hasNext()) {
+        File source = iterator.next();
+        ModuleDependencies dependencies = restore(source, outdir, pending);
+        if (dependencies != null) {
+          state.update(dependencies);
+          restored.add(source);
+          iterator.remove();
+          pending.remove(getModuleName(source));
+          progress = true;
+        }
+      }
+    }
+    return restored;
+  }
+
+  /**
+   * Restores the cached {@code .beam} file of a specific source into an output
+   * directory.
+   * 
+   * @param source the source to restore the compiled module for
+   * @param outdir the output directory of the compiler
+   * @return the dependencies of the restored module or {@code null} if the
+   *         module is not cached
+   * @throws MojoExecutionException in case a checksum cannot be calculated
+   */
+  public ModuleDependencies restore(File source, File outdir) throws MojoExecutionException {
+    return restore(source, outdir, Collections.<String> emptySet());
+  }
+
+  /**
+   * Restores the cached {@code .beam} file of a specific source, unless the
+   * module uses one of the given pending parse transforms.
+   */
+  private ModuleDependencies restore(File source, File outdir, Set<String> pending) throws MojoExecutionException {
+    File entry = getEntry(source);
+    File[] variants = entry.listFiles();
+    if (variants == null) {
+      return null;
+    }
+    for (File deps : variants) {
+      String name = deps.getName();
+      if (name.endsWith(DEPS_SUFFIX)) {
+        try {
+          ModuleDependencies dependencies = readDependencies(source, deps);
+          String variant = name.substring(0, name.length() - DEPS_SUFFIX.length());
+          File beam = new File(entry, variant + ErlConstants.BEAM_SUFFIX);
+          if (dependencies != null
+              && !containsAny(pending, dependencies.getParseTransforms())
+              && variant.equals(getVariant(dependencies, outdir))
+              && beam.isFile()) {
+            FileUtils.copyFile(beam, getBeam(source, outdir));
+            long now = System.currentTimeMillis();
+            beam.setLastModified(now);
+            deps.setLastModified(now);
+            return dependencies;
+          }
+        }
+        catch (IOException e) {
+          // entry is being evicted or corrupt, try the next one
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stores the {@code .beam} files of successfully compiled modules in the
+   * cache.
+   * 
+   * @param compiled the dependencies of the compiled modules
+   * @param outdir the output directory of the compiler
+   * @throws MojoExecutionException in case an entry cannot be written
+   */
+  public void store(Collection<ModuleDependencies> compiled, File outdir) throws MojoExecutionException {
+    for (ModuleDependencies dependencies : compiled) {
+      File beam = getBeam(dependencies.getSource(), outdir);
+      String variant = getVariant(dependencies, outdir);
+      if (beam.isFile() && variant != null) {
+        File entry = getEntry(dependencies.getSource());
+        FileUtils.ensureDirectories(entry);
+        File cachedBeam = new File(entry, variant + ErlConstants.BEAM_SUFFIX);
+        File cachedDeps = new File(entry, variant + DEPS_SUFFIX);
+        if (!cachedBeam.isFile()) {
+          File tmpBeam = createTempFile(entry);
+          FileUtils.copyFile(beam, tmpBeam);
+          rename(tmpBeam, cachedBeam);
+        }
+        if (!cachedDeps.isFile()) {
+          File tmpDeps = createTempFile(entry);
+          FileUtils.writeFile(tmpDeps, serialize(dependencies));
+          rename(tmpDeps, cachedDeps);
+        }
+        long now = System.currentTimeMillis();
+        cachedBeam.setLastModified(now);
+        cachedDeps.setLastModified(now);
+      }
+    }
+  }
+
+  /**
+   * Evicts the least recently used entries until the cache does not exceed
+   * its maximum size anymore.
+   * 
+   * @return the number of evicted modules
+   */
+  public int evict() {
+    if (this.maxSize <= 0) {
+      return 0;
+    }
+    List<File> beams = FileUtils.getFilesRecursive(this.directory, ErlConstants.BEAM_SUFFIX);
+    long size = 0;
+    for (File beam : beams) {
+      size += beam.length() + getDeps(beam).length();
+    }
+    if (size <= this.maxSize) {
+      return 0;
+    }
+    Collections.sort(beams, new Comparator<File>() {
+      @Override
+      public int compare(File f1, File f2) {
+        return Long.valueOf(f1.lastModified()).compareTo(f2.lastModified());
+      }
+    });
+    int evicted = 0;
+    for (File beam : beams) {
+      if (size <= this.maxSize) {
+        break;
+      }
+      File deps = getDeps(beam);
+      size -= beam.length() + deps.length();
+      deps.delete();
+      beam.delete();
+      beam.getParentFile().delete();
+      ++evicted;
+    }
+    return evicted;
+  }
+
+  /**
+   * Returns the directory holding the variants of a source's compiled module.
+   */
+  private File getEntry(File source) throws MojoExecutionException {
+    String module = getModuleName(source);
+    String key = FileUtils.getChecksum(this.context + SEPARATOR + module + SEPARATOR
+                                       + FileUtils.getChecksum(source));
+    return new File(new File(this.directory, key.substring(0, 2)), key);
+  }
+
+  /**
+   * Returns the checksum over the paths and contents of the files included by
+   * a module and the {@code .beam} files of the parse transforms found in the
+   * output directory or {@code null} if an included file does not exist.
+   */
+  private String getVariant(ModuleDependencies dependencies, File outdir) throws MojoExecutionException {
+    List<String> includes = new ArrayList<String>();
+    for (File include : dependencies.getIncludes()) {
+      if (!include.isFile()) {
+        return null;
+      }
+      includes.add(relativize(include) + SEPARATOR + FileUtils.getChecksum(include));
+    }
+    for (String parseTransform : dependencies.getParseTransforms()) {
+      File beam = new File(outdir, parseTransform + ErlConstants.BEAM_SUFFIX);
+      if (beam.isFile()) {
+        includes.add(PARSE_TRANSFORM + SEPARATOR + parseTransform + SEPARATOR + FileUtils.getChecksum(beam));
+      }
+    }
+    Collections.sort(includes);
+    return FileUtils.getChecksum(includes.toString());
+  }
+
+  /**
+   * Reads the dependencies stored for a specific variant. Returns {@code null}
+   * if the dependencies refer to an include file that does not exist.
+   */
+  private ModuleDependencies readDependencies(File source, File deps) throws IOException {
+    List<File> includes = new ArrayList<File>();
+    List<String> parseTransforms = new ArrayList<String>();
+    List<String> behaviours = new ArrayList<String>();
+    BufferedReader reader = new BufferedReader(new FileReader(deps));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(SEPARATOR, 2);
+        if (fields.length != 2) {
+          throw new IOException("corrupt cache entry " + deps);
+        }
+        if (INCLUDE.equals(fields[0])) {
+          includes.add(resolve(fields[1]));
+        }
+        else if (PARSE_TRANSFORM.equals(fields[0])) {
+          parseTransforms.add(fields[1]);
+        }
+        else if (BEHAVIOUR.equals(fields[0])) {
+          behaviours.add(fields[1]);
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+    for (File include : includes) {
+      if (!include.isFile()) {
+        return null;
+      }
+    }
+    return new ModuleDependencies(source, includes, parseTransforms, behaviours);
+  }
+
+  /**
+   * Returns the content of the dependency file stored along with a cached
+   * {@code .beam} file.
+   */
+  private String serialize(ModuleDependencies dependencies) {
+    StringBuilder data = new StringBuilder();
+    for (File include : dependencies.getIncludes()) {
+      data.append(INCLUDE).append(SEPARATOR).append(relativize(include)).append("\n");
+    }
+    for (String parseTransform : dependencies.getParseTransforms()) {
+      data.append(PARSE_TRANSFORM).append(SEPARATOR).append(parseTransform).append("\n");
+    }
+    for (String behaviour : dependencies.getBehaviours()) {
+      data.append(BEHAVIOUR).append(SEPARATOR).append(behaviour).append("\n");
+    }
+    return data.toString();
+  }
+
+  /**
+   * Returns the path of a file relative to the project's base directory or the
+   * absolute path if the file is located outside the base directory.
+   */
+  private String relativize(File file) {
+    String path = file.getAbsolutePath();
+    String prefix = this.base.getAbsolutePath() + File.separator;
+    if (path.startsWith(prefix)) {
+      return path.substring(prefix.length()).replace(File.separatorChar, '/');
+    }
+    return path;
+  }
+
+  /**
+   * Reverses {@link #relativize(File)}.
+   */
+  private File resolve(String path) {
+    File file = new File(path);
+    return file.isAbsolute() ? file : new File(this.base, path.replace('/', File.separatorChar));
+  }
+
+  private static String getModuleName(File source) {
+    return source.getName().replace(ErlConstants.ERL_SUFFIX, "");
+  }
+
+  private static boolean containsAny(Set<String> modules, List<String> names) {
+    for (String name : names) {
+      if (modules.contains(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static File getBeam(File source, File outdir) {
+    return new File(outdir, source.getName().replace(ErlConstants.ERL_SUFFIX, ErlConstants.BEAM_SUFFIX));
+  }
+
+  private static File getDeps(File beam) {
+    String name = beam.getName().replace(ErlConstants.BEAM_SUFFIX, DEPS_SUFFIX);
+    return new File(beam.getParentFile(), name);
+  }
+
+  private static File createTempFile(File directory) throws MojoExecutionException {
+    try {
+      return File.createTempFile("entry", ".tmp", directory);
+    }
+    catch (IOException e) {
+      throw new MojoExecutionException("Failed to create cache entry in " + directory + ".", e);
+    }
+  }
+
+  /**
+   * Atomically moves a temporary file to its destination. If another build
+   * stored the same entry concurrently the temporary file is discarded.
+   */
+  private static void rename(File from, File to) {
+    if (!from.renameTo(to)) {
+      from.delete();
+    }
+  }
+}
@@ -0,0 +1,698 @@
+package eu.lindenbaum.maven.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangBitstr;
+import com.ericsson.otp.erlang.OtpErlangDouble;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A reader for compiled {@code .beam} files. The module name, the module
+ * attributes ({@code Attr} chunk), the compile information ({@code CInf}
+ * chunk) and the exported functions ({@code ExpT} chunk) are read directly
+ * from the file, without loading the module into a backend node. This is
+ * equivalent to calling {@code Module:module_info/1} but requires neither a
+ * round trip to the backend node nor loading (possibly outdated) code. The
+ * file is memory mapped and the chunks containing terms are decoded from the
+ * external term format. Attributes containing terms that have no
+ * representation here (e.g. maps, pids, references, funs or improper lists)
+ * are omitted.
+ * 
+ * @author agent <agent@local>
+ * @see <a href="http://www.erlang.org/doc/man/beam_lib.html"
+ *      >http://www.erlang.org/doc/man/beam_lib.html</a>
+ */
+public final class BeamFile {
+  private static final String[] MD5_CHUNKS = { "Atom", "Code", "StrT", "ImpT", "ExpT", "FunT", "LitT" };
+
+  private static final int VERSION = 131;
+  private static final int NEW_FLOAT_EXT = 70;
+  private static final int BIT_BINARY_EXT = 77;
+  private static final int COMPRESSED = 80;
+  private static final int NEW_PID_EXT = 88;
+  private static final int NEW_PORT_EXT = 89;
+  private static final int NEWER_REFERENCE_EXT = 90;
+  private static final int SMALL_INTEGER_EXT = 97;
+  private static final int INTEGER_EXT = 98;
+  private static final int FLOAT_EXT = 99;
+  private static final int ATOM_EXT = 100;
+  private static final int REFERENCE_EXT = 101;
+  private static final int PORT_EXT = 102;
+  private static final int PID_EXT = 103;
+  private static final int SMALL_TUPLE_EXT = 104;
+  private static final int LARGE_TUPLE_EXT = 105;
+  private static final int NIL_EXT = 106;
+  private static final int STRING_EXT = 107;
+  private static final int LIST_EXT = 108;
+  private static final int BINARY_EXT = 109;
+  private static final int SMALL_BIG_EXT = 110;
+  private static final int LARGE_BIG_EXT = 111;
+  private static final int NEW_FUN_EXT = 112;
+  private static final int EXPORT_EXT = 113;
+  private static final int NEW_REFERENCE_EXT = 114;
+  private static final int SMALL_ATOM_EXT = 115;
+  private static final int MAP_EXT = 116;
+  private static final int FUN_EXT = 117;
+  private static final int ATOM_UTF8_EXT = 118;
+  private static final int SMALL_ATOM_UTF8_EXT = 119;
+  private static final int V4_PORT_EXT = 120;
+
+  private final File file;
+  private final Map<String, ByteBuffer> chunks;
+  private final List<String> atoms;
+
+  private BeamFile(File file, Map<String, ByteBuffer> chunks, List<String> atoms) {
+    this.file = file;
+    this.chunks = chunks;
+    this.atoms = atoms;
+  }
+
+  /**
+   * Reads the chunks of a {@code .beam} file. Compressed {@code .beam} files
+   * are supported.
+   * 
+   * @param file the {@code .beam} file to read
+   * @return a non-{@code null} {@link BeamFile} instance
+   * @throws MojoExecutionException in case the file cannot be read or is not a
+   *           valid {@code .beam} file
+   */
+  public static BeamFile read(File file) throws MojoExecutionException {
+    try {
+      ByteBuffer buffer = map(file);
+      Map<String, ByteBuffer> chunks = readChunks(buffer);
+      ByteBuffer atomChunk = chunks.get("AtU8");
+      boolean utf8 = atomChunk != null;
+      if (!utf8) {
+        atomChunk = chunks.get("Atom");
+      }
+      if (atomChunk == null) {
+        throw new IOException("missing atom chunk");
+      }
+      return new BeamFile(file, chunks, readAtoms(atomChunk.duplicate(), utf8));
+    }
+    catch (IOException e) {
+      throw new MojoExecutionException("Failed to read " + file + ": " + e.getMessage(), e);
+    }
+    catch (BufferUnderflowException e) {
+      throw new MojoExecutionException("Failed to read " + file + ": truncated file", e);
+    }
+  }
+
+  /**
+   * Returns the name of the module contained in the {@code .beam} file.
+   * 
+   * @return the module name
+   */
+  public String getModule() {
+    return this.atoms.get(0);
+  }
+
+  /**
+   * Returns the module attributes as returned by
+   * {@code Module:module_info(attributes)}. Attributes with values that cannot
+   * be decoded (e.g. maps) are omitted.
+   * 
+   * @return an {@link OtpErlangList} of {@code {Key, Value}} tuples
+   * @throws MojoExecutionException in case the attributes cannot be decoded
+   */
+  public OtpErlangList getAttributes() throws MojoExecutionException {
+    return decodeList("Attr");
+  }
+
+  /**
+   * Returns the compile information as returned by
+   * {@code Module:module_info(compile)}.
+   * 
+   * @return an {@link OtpErlangList} of {@code {Key, Value}} tuples
+   * @throws MojoExecutionException in case the compile information cannot be
+   *           decoded
+   */
+  public OtpErlangList getCompileInfo() throws MojoExecutionException {
+    return decodeList("CInf");
+  }
+
+  /**
+   * Returns the values of all occurrences of a module attribute. Attributes
+   * with list values (e.g. {@code -registered([a, b]).}) are flattened.
+   * 
+   * @param attribute the name of the attribute
+   * @return a non-{@code null} {@link List} of attribute values
+   * @throws MojoExecutionException in case the attributes cannot be decoded
+   */
+  public List<OtpErlangObject> getAttribute(String attribute) throws MojoExecutionException {
+    List<OtpErlangObject> values = new ArrayList<OtpErlangObject>();
+    for (OtpErlangObject element : getAttributes()) {
+      if (element instanceof OtpErlangTuple) {
+        OtpErlangTuple tuple = (OtpErlangTuple) element;
+        if (tuple.arity() == 2 && new OtpErlangAtom(attribute).equals(tuple.elementAt(0))) {
+          OtpErlangObject value = tuple.elementAt(1);
+          if (value instanceof OtpErlangList) {
+            Collections.addAll(values, ((OtpErlangList) value).elements());
+          }
+          else {
+            values.add(value);
+          }
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns the behaviours implemented by the module, regardless of whether
+   * they were declared using {@code -behaviour} or {@code -behavior}.
+   * 
+   * @return a non-{@code null} {@link List} of behaviour names
+   * @throws MojoExecutionException in case the attributes cannot be decoded
+   */
+  public List<String> getBehaviours() throws MojoExecutionException {
+    List<String> behaviours = new ArrayList<String>();
+    List<OtpErlangObject> values = getAttribute("behaviour");
+    values.addAll(getAttribute("behavior"));
+    for (OtpErlangObject value : values) {
+      behaviours.add(ErlUtils.toString(value));
+    }
+    return behaviours;
+  }
+
+  /**
+   * Returns the functions exported by the module as returned by
+   * {@code Module:module_info(exports)}, formatted as {@code Name/Arity}.
+   * 
+   * @return a non-{@code null} {@link List} of exported functions
+   * @throws MojoExecutionException in case the export table is invalid
+   */
+  public List<String> getExports() throws MojoExecutionException {
+    List<String> exports = new ArrayList<String>();
+    ByteBuffer chunk = this.chunks.get("ExpT");
+    if (chunk != null) {
+      try {
+        ByteBuffer buffer = chunk.duplicate();
+        int count = buffer.getInt();
+        for (int i = 0; i < count; ++i) {
+          int function = buffer.getInt();
+          int arity = buffer.getInt();
+          buffer.getInt(); // label
+          exports.add(getAtom(function) + "/" + arity);
+        }
+      }
+      catch (BufferUnderflowException e) {
+        throw new MojoExecutionException("Failed to read export table of " + this.file + ".", e);
+      }
+    }
+    return exports;
+  }
+
+  /**
+   * Returns whether the module exports a certain function.
+   * 
+   * @param function the name of the function
+   * @param arity the arity of the function
+   * @return {@code true} if the function is exported, {@code false} otherwise
+   * @throws MojoExecutionException in case the export table is invalid
+   */
+  public boolean exports(String function, int arity) throws MojoExecutionException {
+    return getExports().contains(function + "/" + arity);
+  }
+
+  /**
+   * Returns the MD5 checksum of the module's code, calculated over the chunks
+   * relevant for code loading like {@code beam_lib:md5/1} and the code loader
+   * ({@code Module:module_info(md5)}) do. In contrast to the checksum of the
+   * file, this checksum is not affected by changes to attributes, compile
+   * information or debug information.
+   * 
+   * @return the checksum as lower case hex string
+   * @throws MojoExecutionException in case the checksum cannot be calculated
+   */
+  public String getMd5() throws MojoExecutionException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      for (String id : MD5_CHUNKS) {
+        ByteBuffer chunk = this.chunks.get(id);
+        if ("Atom".equals(id) && this.chunks.containsKey("AtU8")) {
+          chunk = this.chunks.get("AtU8");
+        }
+        if (chunk != null) {
+          ByteBuffer data = chunk.duplicate();
+          if ("FunT".equals(id)) {
+            // the old unique value of each fun entry is ignored
+            byte[] entry = new byte[24];
+            digest.update(read(data, 4));
+            while (data.remaining() >= entry.length) {
+              data.get(entry);
+              digest.update(entry, 0, 20);
+              digest.update(new byte[4]);
+            }
+            // like the loader, include trailing bytes of a malformed table
+            digest.update(read(data, data.remaining()));
+          }
+          else {
+            digest.update(read(data, data.remaining()));
+          }
+        }
+      }
+      return FileUtils.toHex(digest.digest());
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new MojoExecutionException("Failed to calculate checksum of " + this.file + ".", e);
+    }
+  }
+
+  /**
+   * Returns the atom with the given (one-based) index from the atom table.
+   */
+  private String getAtom(int index) throws MojoExecutionException {
+    if (index < 1 || index > this.atoms.size()) {
+      throw new MojoExecutionException("Invalid atom index " + index + " in " + this.file + ".");
+    }
+    return this.atoms.get(index - 1);
+  }
+
+  /**
+   * Decodes a chunk containing a list term, missing chunks result in an empty
+   * list. Elements containing unsupported terms are skipped.
+   */
+  private OtpErlangList decodeList(String id) throws MojoExecutionException {
+    ByteBuffer chunk = this.chunks.get(id);
+    if (chunk == null) {
+      return new OtpErlangList();
+    }
+    try {
+      ByteBuffer buffer = unwrap(chunk.duplicate());
+      if ((buffer.get(buffer.position()) & 0xff) == LIST_EXT) {
+        buffer.get();
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+          throw new IOException("invalid term size " + count);
+        }
+        List<OtpErlangObject> elements = new ArrayList<OtpErlangObject>();
+        for (int i = 0; i < count; ++i) {
+          int start = buffer.position();
+          try {
+            elements.add(decodeTerm(buffer));
+          }
+          catch (UnsupportedTermException e) {
+            buffer.position(start);
+            skipTerm(buffer);
+          }
+        }
+        skipTerm(buffer); // tail
+        return new OtpErlangList(elements.toArray(new OtpErlangObject[elements.size()]));
+      }
+      OtpErlangObject term = decodeTerm(buffer);
+      if (term instanceof OtpErlangString) {
+        // lists of small integers are encoded as strings
+        return new OtpErlangList(((OtpErlangString) term).stringValue());
+      }
+      if (term instanceof OtpErlangList) {
+        return (OtpErlangList) term;
+      }
+      throw new IOException("not a list");
+    }
+    catch (IOException e) {
+      throw new MojoExecutionException("Failed to decode " + id + " chunk of " + this.file + ": " + e.getMessage(), e);
+    }
+    catch (BufferUnderflowException e) {
+      throw new MojoExecutionException("Failed to decode " + id + " chunk of " + this.file + ": truncated term", e);
+    }
+  }
+
+  /**
+   * Maps a file into memory, compressed files are decompressed into a heap
+   * buffer instead.
+   */
+  private static ByteBuffer map(File file) throws IOException {
+    FileInputStream input = new FileInputStream(file);
+    try {
+      FileChannel channel = input.getChannel();
+      ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.remaining() >= 2 && (buffer.get(0) & 0xff) == 0x1f && (buffer.get(1) & 0xff) == 0x8b) {
+        byte[] compressed = new byte[buffer.remaining()];
+        buffer.get(compressed);
+        return ByteBuffer.wrap(readFully(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+      }
+      return buffer;
+    }
+    finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Splits an IFF {@code BEAM} form into its chunks. The returned buffers are
+   * views on the chunk data without padding.
+   */
+  private static Map<String, ByteBuffer> readChunks(ByteBuffer buffer) throws IOException {
+    if (!"FOR1".equals(new String(read(buffer, 4), "ISO-8859-1"))) {
+      throw new IOException("not an IFF file");
+    }
+    int size = buffer.getInt();
+    if (!"BEAM".equals(new String(read(buffer, 4), "ISO-8859-1"))) {
+      throw new IOException("not a BEAM file");
+    }
+    int end = Math.min(buffer.limit(), 8 + size);
+    Map<String, ByteBuffer> chunks = new HashMap<String, ByteBuffer>();
+    while (buffer.position() + 8 <= end) {
+      String id = new String(read(buffer, 4), "ISO-8859-1");
+      int length = buffer.getInt();
+      if (length < 0 || buffer.position() + length > end) {
+        throw new IOException("invalid size of chunk " + id);
+      }
+      ByteBuffer chunk = buffer.slice();
+      chunk.limit(length);
+      chunks.put(id, chunk);
+      buffer.position(Math.min(end, buffer.position() + ((length + 3) & ~3)));
+    }
+    return chunks;
+  }
+
+  /**
+   * Reads the atom table. Newer compilers encode the atom lengths like
+   * literals of the code chunk, indicated by a negative atom count.
+   */
+  private static List<String> readAtoms(ByteBuffer buffer, boolean utf8) throws IOException {
+    int count = buffer.getInt();
+    boolean compact = count < 0;
+    count = Math.abs(count);
+    List<String> atoms = new ArrayList<String>(count);
+    for (int i = 0; i < count; ++i) {
+      int length = buffer.get() & 0xff;
+      if (compact) {
+        if ((length & 0x08) == 0) {
+          length = length >> 4;
+        }
+        else if ((length & 0x10) == 0) {
+          length = (length >> 5) << 8 | buffer.get() & 0xff;
+        }
+        else {
+          throw new IOException("invalid atom length encoding");
+        }
+      }
+      atoms.add(new String(read(buffer, length), utf8 ? "UTF-8" : "ISO-8859-1"));
+    }
+    if (atoms.isEmpty()) {
+      throw new IOException("empty atom table");
+    }
+    return atoms;
+  }
+
+  /**
+   * Strips the version tag of a term in external term format, compressed terms
+   * are inflated.
+   */
+  private static ByteBuffer unwrap(ByteBuffer buffer) throws IOException {
+    int version = buffer.get() & 0xff;
+    if (version != VERSION) {
+      throw new IOException("unsupported term format version " + version);
+    }
+    if ((buffer.get(buffer.position()) & 0xff) == COMPRESSED) {
+      buffer.get();
+      int size = buffer.getInt();
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(read(buffer, buffer.remaining()));
+        byte[] uncompressed = new byte[size];
+        if (inflater.inflate(uncompressed) != size) {
+          throw new IOException("invalid compressed term");
+        }
+        return ByteBuffer.wrap(uncompressed);
+      }
+      catch (DataFormatException e) {
+        throw new IOException("invalid compressed term");
+      }
+      finally {
+        inflater.end();
+      }
+    }
+    return buffer;
+  }
+
+  /**
+   * Decodes a term in external term format. Only terms that have a
+   * representation in the supported JInterface version are decoded, others
+   * result in an {@link UnsupportedTermException}.
+   */
+  private static OtpErlangObject decodeTerm(ByteBuffer buffer) throws IOException {
+    int tag = buffer.get() & 0xff;
+    switch (tag) {
+      case SMALL_INTEGER_EXT:
+        return new OtpErlangLong(buffer.get() & 0xff);
+      case INTEGER_EXT:
+        return new OtpErlangLong(buffer.getInt());
+      case SMALL_BIG_EXT:
+        return decodeBig(buffer, buffer.get() & 0xff);
+      case LARGE_BIG_EXT:
+        return decodeBig(buffer, buffer.getInt());
+      case FLOAT_EXT:
+        try {
+          return new OtpErlangDouble(Double.parseDouble(new String(read(buffer, 31), "ISO-8859-1").trim()));
+        }
+        catch (NumberFormatException e) {
+          throw new IOException("invalid float");
+        }
+      case NEW_FLOAT_EXT:
+        return new OtpErlangDouble(buffer.getDouble());
+      case ATOM_EXT:
+        return new OtpErlangAtom(new String(read(buffer, buffer.getShort() & 0xffff), "ISO-8859-1"));
+      case SMALL_ATOM_EXT:
+        return new OtpErlangAtom(new String(read(buffer, buffer.get() & 0xff), "ISO-8859-1"));
+      case ATOM_UTF8_EXT:
+        return new OtpErlangAtom(new String(read(buffer, buffer.getShort() & 0xffff), "UTF-8"));
+      case SMALL_ATOM_UTF8_EXT:
+        return new OtpErlangAtom(new String(read(buffer, buffer.get() & 0xff), "UTF-8"));
+      case SMALL_TUPLE_EXT:
+        return new OtpErlangTuple(decodeTerms(buffer, buffer.get() & 0xff));
+      case LARGE_TUPLE_EXT:
+        return new OtpErlangTuple(decodeTerms(buffer, buffer.getInt()));
+      case NIL_EXT:
+        return new OtpErlangList();
+      case STRING_EXT:
+        return new OtpErlangString(new String(read(buffer, buffer.getShort() & 0xffff), "ISO-8859-1"));
+      case LIST_EXT:
+        OtpErlangObject[] elements = decodeTerms(buffer, buffer.getInt());
+        OtpErlangObject tail = decodeTerm(buffer);
+        if (!(tail instanceof OtpErlangList) || ((OtpErlangList) tail).arity() != 0) {
+          throw new UnsupportedTermException("improper list");
+        }
+        return new OtpErlangList(elements);
+      case BINARY_EXT:
+        return new OtpErlangBinary(read(buffer, buffer.getInt()));
+      case BIT_BINARY_EXT:
+        int length = buffer.getInt();
+        int bits = buffer.get() & 0xff;
+        return new OtpErlangBitstr(read(buffer, length), 8 - bits);
+      default:
+        throw new UnsupportedTermException("unsupported term tag " + tag);
+    }
+  }
+
+  /**
+   * Skips a term in external term format without decoding it.
+   */
+  private static void skipTerm(ByteBuffer buffer) throws IOException {
+    int tag = buffer.get() & 0xff;
+    switch (tag) {
+      case SMALL_INTEGER_EXT:
+        skip(buffer, 1);
+        break;
+      case INTEGER_EXT:
+        skip(buffer, 4);
+        break;
+      case SMALL_BIG_EXT:
+        skip(buffer, (buffer.get() & 0xff) + 1);
+        break;
+      case LARGE_BIG_EXT:
+        skip(buffer, buffer.getInt() + 1);
+        break;
+      case FLOAT_EXT:
+        skip(buffer, 31);
+        break;
+      case NEW_FLOAT_EXT:
+        skip(buffer, 8);
+        break;
+      case ATOM_EXT:
+      case ATOM_UTF8_EXT:
+      case STRING_EXT:
+        skip(buffer, buffer.getShort() & 0xffff);
+        break;
+      case SMALL_ATOM_EXT:
+      case SMALL_ATOM_UTF8_EXT:
+        skip(buffer, buffer.get() & 0xff);
+        break;
+      case SMALL_TUPLE_EXT:
+        skipTerms(buffer, buffer.get() & 0xff);
+        break;
+      case LARGE_TUPLE_EXT:
+        skipTerms(buffer, buffer.getInt());
+        break;
+      case NIL_EXT:
+        break;
+      case LIST_EXT:
+        skipTerms(buffer, buffer.getInt());
+        skipTerm(buffer);
+        break;
+      case BINARY_EXT:
+        skip(buffer, buffer.getInt());
+        break;
+      case BIT_BINARY_EXT:
+        int length = buffer.getInt();
+        skip(buffer, length + 1);
+        break;
+      case MAP_EXT:
+        int arity = buffer.getInt();
+        skipTerms(buffer, arity);
+        skipTerms(buffer, arity);
+        break;
+      case PID_EXT:
+        skipTerm(buffer);
+        skip(buffer, 9);
+        break;
+      case NEW_PID_EXT:
+        skipTerm(buffer);
+        skip(buffer, 12);
+        break;
+      case PORT_EXT:
+        skipTerm(buffer);
+        skip(buffer, 5);
+        break;
+      case NEW_PORT_EXT:
+        skipTerm(buffer);
+        skip(buffer, 8);
+        break;
+      case V4_PORT_EXT:
+        skipTerm(buffer);
+        skip(buffer, 12);
+        break;
+      case REFERENCE_EXT:
+        skipTerm(buffer);
+        skip(buffer, 5);
+        break;
+      case NEW_REFERENCE_EXT:
+        int ids = buffer.getShort() & 0xffff;
+        skipTerm(buffer);
+        skip(buffer, 1 + 4 * ids);
+        break;
+      case NEWER_REFERENCE_EXT:
+        int newerIds = buffer.getShort() & 0xffff;
+        skipTerm(buffer);
+        skip(buffer, 4 + 4 * newerIds);
+        break;
+      case FUN_EXT:
+        int free = buffer.getInt();
+        skipTerms(buffer, 4);
+        skipTerms(buffer, free);
+        break;
+      case NEW_FUN_EXT:
+        // the size includes the size field itself
+        skip(buffer, buffer.getInt() - 4);
+        break;
+      case EXPORT_EXT:
+        skipTerms(buffer, 3);
+        break;
+      default:
+        throw new IOException("invalid term tag " + tag);
+    }
+  }
+
+  private static void skipTerms(ByteBuffer buffer, int count) throws IOException {
+    if (count < 0 || count > buffer.remaining()) {
+      throw new IOException("invalid term size " + count);
+    }
+    for (int i = 0; i < count; ++i) {
+      skipTerm(buffer);
+    }
+  }
+
+  private static void skip(ByteBuffer buffer, int length) {
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    buffer.position(buffer.position() + length);
+  }
+
+  private static OtpErlangObject[] decodeTerms(ByteBuffer buffer, int count) throws IOException {
+    if (count < 0 || count > buffer.remaining()) {
+      throw new IOException("invalid term size " + count);
+    }
+    OtpErlangObject[] terms = new OtpErlangObject[count];
+    for (int i = 0; i < count; ++i) {
+      terms[i] = decodeTerm(buffer);
+    }
+    return terms;
+  }
+
+  private static OtpErlangLong decodeBig(ByteBuffer buffer, int length) throws IOException {
+    int sign = buffer.get() & 0xff;
+    byte[] digits = read(buffer, length);
+    byte[] magnitude = new byte[length];
+    for (int i = 0; i < length; ++i) {
+      magnitude[i] = digits[length - 1 - i];
+    }
+    BigInteger value = new BigInteger(1, magnitude);
+    return new OtpErlangLong(sign == 0 ? value : value.negate());
+  }
+
+  private static byte[] read(ByteBuffer buffer, int length) {
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] data = new byte[length];
+    buffer.get(data);
+    return data;
+  }
+
+  private static byte[] readFully(InputStream input) throws IOException {
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+      }
+      return output.toByteArray();
+    }
+    finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Signals a valid term that cannot be represented, e.g. a map.
+   */
+  private static final class UnsupportedTermException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedTermException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,373 @@
+package eu.lindenbaum.maven.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import eu.lindenbaum.maven.erlang.CompilerResult;
+import eu.lindenbaum.maven.erlang.ModuleDependencies;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * The persistent state of an incremental erlang build. For every successfully
+ * compiled module the state records the fingerprint of its source, the files
+ * included by the source, as well as the parse transforms and behaviours used
+ * by the module. A module is considered stale if its source or one of its
+ * included files changed, its {@code .beam} file is missing or one of its
+ * parse transforms or behaviours is stale itself. Changing the compiler
+ * configuration (options, include paths) invalidates the whole state.
+ * <p>
+ * Fingerprints consist of file size, modification time and MD5 checksum. The
+ * checksum is only computed when size or modification time differ from the
+ * recorded ones, so touching a file does not trigger a recompilation.
+ * </p>
+ * 
+ * @author agent <agent@local>
+ */
+public final class BuildState {
+  private static final String SEPARATOR = "\t";
+  private static final String CONFIGURATION = "configuration";
+  private static final String MODULE = "module";
+  private static final String FILE = "file";
+
+  private final File stateFile;
+  private final String configuration;
+  private final Map<String, Module> modules = new TreeMap<String, Module>();
+  private final Map<String, Fingerprint> fingerprints = new TreeMap<String, Fingerprint>();
+
+  private BuildState(File stateFile, String configuration) {
+    this.stateFile = stateFile;
+    this.configuration = configuration;
+  }
+
+  /**
+   * Loads the build state from a state file. If the state file does not exist,
+   * cannot be read or was written for a different compiler configuration an
+   * empty build state is returned, meaning that all modules are stale.
+   * 
+   * @param stateFile the file the state is persisted in
+   * @param outdir the output directory of the compiler
+   * @param includes the include directories passed to the compiler
+   * @param options the options passed to the compiler
+   * @return a non-{@code null} {@link BuildState}
+   */
+  public static BuildState load(File stateFile, File outdir, Collection<File> includes, Collection<String> options) {
+    List<String> config = new ArrayList<String>();
+    for (File include : includes) {
+      config.add(include.getAbsolutePath());
+    }
+    Collections.sort(config);
+    config.add(0, outdir.getAbsolutePath());
+    config.addAll(options);
+    BuildState state = new BuildState(stateFile, config.toString());
+    if (stateFile.isFile()) {
+      try {
+        state.read();
+      }
+      catch (IOException e) {
+        state.modules.clear();
+        state.fingerprints.clear();
+      }
+    }
+    return state;
+  }
+
+  /**
+   * Removes modules from the state whose sources do not exist anymore, along
+   * with their compiled {@code .beam} files.
+   * 
+   * @param sources all current sources of the project
+   * @param outdir the output directory of the compiler
+   * @return a {@link List} of removed {@code .beam} files
+   */
+  public List<File> removeObsolete(Collection<File> sources, File outdir) {
+    Set<String> current = new HashSet<String>();
+    for (File source : sources) {
+      current.add(source.getAbsolutePath());
+    }
+    List<File> removed = new ArrayList<File>();
+    for (String source : new ArrayList<String>(this.modules.keySet())) {
+      if (!current.contains(source)) {
+        this.modules.remove(source);
+        File beam = getBeam(new File(source), outdir);
+        if (beam.delete()) {
+          removed.add(beam);
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Returns the sources that need to be (re-)compiled, including the modules
+   * depending on stale parse transforms or behaviours. The order of the given
+   * sources is preserved.
+   * 
+   * @param sources all current sources of the project
+   * @param outdir the output directory of the compiler
+   * @return a {@link List} of stale sources
+   * @throws MojoExecutionException in case a checksum cannot be calculated
+   */
+  public List<File> getStale(List<File> sources, File outdir) throws MojoExecutionException {
+    Map<String, Boolean> changed = new HashMap<String, Boolean>();
+    Set<String> staleModules = new HashSet<String>();
+    Set<File> stale = new HashSet<File>();
+    for (File source : sources) {
+      Module module = this.modules.get(source.getAbsolutePath());
+      if (module == null || !getBeam(source, outdir).isFile() || isChanged(source, changed)) {
+        stale.add(source);
+        staleModules.add(getModuleName(source));
+      }
+      else {
+        for (String include : module.includes) {
+          if (isChanged(new File(include), changed)) {
+            stale.add(source);
+            staleModules.add(getModuleName(source));
+            break;
+          }
+        }
+      }
+    }
+    boolean propagate = !staleModules.isEmpty();
+    while (propagate) {
+      propagate = false;
+      for (File source : sources) {
+        Module module = this.modules.get(source.getAbsolutePath());
+        if (module != null && !stale.contains(source)) {
+          if (containsAny(staleModules, module.parseTransforms) || containsAny(staleModules, module.behaviours)) {
+            stale.add(source);
+            staleModules.add(getModuleName(source));
+            propagate = true;
+          }
+        }
+      }
+    }
+    List<File> result = new ArrayList<File>();
+    for (File source : sources) {
+      if (stale.contains(source)) {
+        result.add(source);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Updates the state with the result of a compilation. Successfully compiled
+   * modules are recorded along with their dependencies, failed modules are
+   * removed from the state.
+   * 
+   * @param result the result of the compilation
+   * @throws MojoExecutionException in case a checksum cannot be calculated
+   */
+  public void update(CompilerResult result) throws MojoExecutionException {
+    for (File failed : result.getFailed()) {
+      this.modules.remove(failed.getAbsolutePath());
+    }
+    for (ModuleDependencies dependencies : result.getDependencies()) {
+      update(dependencies);
+    }
+  }
+
+  /**
+   * Updates the state with a module that is up to date, e.g. because it was
+   * restored from a {@link BeamCache}.
+   * 
+   * @param dependencies the dependencies of the module
+   * @throws MojoExecutionException in case a checksum cannot be calculated
+   */
+  public void update(ModuleDependencies dependencies) throws MojoExecutionException {
+    Module module = new Module();
+    for (File include : dependencies.getIncludes()) {
+      module.includes.add(include.getAbsolutePath());
+      this.fingerprints.put(include.getAbsolutePath(), Fingerprint.of(include));
+    }
+    module.parseTransforms.addAll(dependencies.getParseTransforms());
+    module.behaviours.addAll(dependencies.getBehaviours());
+    File source = dependencies.getSource();
+    this.fingerprints.put(source.getAbsolutePath(), Fingerprint.of(source));
+    this.modules.put(source.getAbsolutePath(), module);
+  }
+
+  /**
+   * Writes the state to its state file. Fingerprints of files not referenced
+   * by any module are dropped.
+   * 
+   * @throws MojoExecutionException in case the state file cannot be written
+   */
+  public void save() throws MojoExecutionException {
+    Set<String> referenced = new HashSet<String>(this.modules.keySet());
+    for (Module module : this.modules.values()) {
+      referenced.addAll(module.includes);
+    }
+    this.fingerprints.keySet().retainAll(referenced);
+
+    StringBuilder data = new StringBuilder();
+    data.append(CONFIGURATION).append(SEPARATOR).append(this.configuration).append("\n");
+    for (Entry<String, Module> entry : this.modules.entrySet()) {
+      Module module = entry.getValue();
+      data.append(MODULE).append(SEPARATOR).append(entry.getKey());
+      data.append(SEPARATOR).append(join(module.includes, File.pathSeparator));
+      data.append(SEPARATOR).append(join(module.parseTransforms, ","));
+      data.append(SEPARATOR).append(join(module.behaviours, ",")).append("\n");
+    }
+    for (Entry<String, Fingerprint> entry : this.fingerprints.entrySet()) {
+      Fingerprint f = entry.getValue();
+      data.append(FILE).append(SEPARATOR).append(entry.getKey());
+      data.append(SEPARATOR).append(f.length);
+      data.append(SEPARATOR).append(f.modified);
+      data.append(SEPARATOR).append(f.checksum).append("\n");
+    }
+    FileUtils.writeFile(this.stateFile, data.toString());
+  }
+
+  /**
+   * Returns the {@code .beam} file compiled from a specific source.
+   */
+  private static File getBeam(File source, File outdir) {
+    return new File(outdir, getModuleName(source) + ErlConstants.BEAM_SUFFIX);
+  }
+
+  /**
+   * Returns the name of the module defined in a specific source file.
+   */
+  private static String getModuleName(File source) {
+    return source.getName().replace(ErlConstants.ERL_SUFFIX, "");
+  }
+
+  /**
+   * Returns whether a file differs from its recorded fingerprint. Results are
+   * cached since include files are usually shared by many modules. Files
+   * whose content did not change get their recorded modification time
+   * updated.
+   */
+  private boolean isChanged(File file, Map<String, Boolean> cache) throws MojoExecutionException {
+    String path = file.getAbsolutePath();
+    Boolean changed = cache.get(path);
+    if (changed == null) {
+      Fingerprint recorded = this.fingerprints.get(path);
+      if (recorded == null || !file.isFile()) {
+        changed = true;
+      }
+      else if (recorded.length == file.length() && recorded.modified == file.lastModified()) {
+        changed = false;
+      }
+      else {
+        Fingerprint current = Fingerprint.of(file);
+        changed = !recorded.checksum.equals(current.checksum);
+        if (!changed) {
+          this.fingerprints.put(path, current);
+        }
+      }
+      cache.put(path, changed);
+    }
+    return changed;
+  }
+
+  /**
+   * Reads the state from the state file.
+   */
+  private void read() throws IOException {
+    BufferedReader reader = new BufferedReader(new FileReader(this.stateFile));
+    try {
+      String line = reader.readLine();
+      if (line == null || !line.equals(CONFIGURATION + SEPARATOR + this.configuration)) {
+        return;
+      }
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(SEPARATOR, -1);
+        if (MODULE.equals(fields[0]) && fields.length == 5) {
+          Module module = new Module();
+          module.includes.addAll(split(fields[2], File.pathSeparator));
+          module.parseTransforms.addAll(split(fields[3], ","));
+          module.behaviours.addAll(split(fields[4], ","));
+          this.modules.put(fields[1], module);
+        }
+        else if (FILE.equals(fields[0]) && fields.length == 5) {
+          try {
+            long length = Long.parseLong(fields[2]);
+            long modified = Long.parseLong(fields[3]);
+            this.fingerprints.put(fields[1], new Fingerprint(length, modified, fields[4]));
+          }
+          catch (NumberFormatException e) {
+            throw new IOException("corrupt build state " + this.stateFile);
+          }
+        }
+        else {
+          throw new IOException("corrupt build state " + this.stateFile);
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private static boolean containsAny(Set<String> set, Collection<String> elements) {
+    for (String element : elements) {
+      if (set.contains(element)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String join(Collection<String> elements, String separator) {
+    StringBuilder joined = new StringBuilder();
+    for (String element : elements) {
+      if (joined.length() > 0) {
+        joined.append(separator);
+      }
+      joined.append(element);
+    }
+    return joined.toString();
+  }
+
+  private static List<String> split(String joined, String separator) {
+    if (joined.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(joined.split(Pattern.quote(separator)));
+  }
+
+  /**
+   * The recorded dependencies of a module.
+   */
+  private static final class Module {
+    private final List<String> includes = new ArrayList<String>();
+    private final List<String> parseTransforms = new ArrayList<String>();
+    private final List<String> behaviours = new ArrayList<String>();
+  }
+
+  /**
+   * The fingerprint of a file's content.
+   */
+  private static final class Fingerprint {
+    private final long length;
+    private final long modified;
+    private final String checksum;
+
+    Fingerprint(long length, long modified, String checksum) {
+      this.length = length;
+      this.modified = modified;
+      this.checksum = checksum;
+    }
+
+    static Fingerprint of(File file) throws MojoExecutionException {
+      return new Fingerprint(file.length(), file.lastModified(), FileUtils.getChecksum(file));
+    }
+  }
+}
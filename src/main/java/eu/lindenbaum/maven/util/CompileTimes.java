@@ -0,0 +1,219 @@
+package eu.lindenbaum.maven.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import eu.lindenbaum.maven.erlang.CompileTime;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A history of the {@link CompileTime}s of a project's files. The history is
+ * persisted as JSON array containing one object per build, each mapping the
+ * paths of the files compiled during the build (relative to the project's
+ * base directory) to the wall time in milliseconds and the reductions spent
+ * compiling them ({@code null} if not measured). Only the most recent builds
+ * are kept. Since builds are
+ * incremental, a build only contains the files actually compiled.
+ * 
+ * @author agent <agent@local>
+ */
+public final class CompileTimes {
+  private static final int MAX_BUILDS = 20;
+  private static final String BUILD_PREFIX = "  {";
+  private static final Pattern FILE_PATTERN = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\": \\{\"ms\": ([0-9.]+), \"reductions\": ([0-9]+|null)\\}");
+
+  private final File history;
+  private final File base;
+  private final List<String> builds = new ArrayList<String>();
+  private final Map<String, Double> previous = new HashMap<String, Double>();
+  private final Map<String, CompileTime> current = new TreeMap<String, CompileTime>();
+
+  private CompileTimes(File history, File base) {
+    this.history = history;
+    this.base = base;
+  }
+
+  /**
+   * Loads the compile time history from a file. If the file does not exist or
+   * cannot be read an empty history is returned.
+   * 
+   * @param history the file the history is persisted in
+   * @param base the base directory of the project
+   * @return a non-{@code null} {@link CompileTimes} instance
+   */
+  public static CompileTimes load(File history, File base) {
+    CompileTimes times = new CompileTimes(history, base);
+    if (history.isFile()) {
+      try {
+        times.read();
+      }
+      catch (IOException e) {
+        times.builds.clear();
+        times.previous.clear();
+      }
+    }
+    return times;
+  }
+
+  /**
+   * Adds the {@link CompileTime}s measured during the current build.
+   * 
+   * @param times the compile times to add
+   */
+  public void add(Collection<CompileTime> times) {
+    for (CompileTime time : times) {
+      this.current.put(getPath(time.getSource()), time);
+    }
+  }
+
+  /**
+   * Returns whether no {@link CompileTime}s were added during the current
+   * build.
+   * 
+   * @return {@code true} if nothing was added, {@code false} otherwise
+   */
+  public boolean isEmpty() {
+    return this.current.isEmpty();
+  }
+
+  /**
+   * Returns human readable lines describing the slowest files of the current
+   * build, the slowest file first. If a file was compiled in a previous build,
+   * the difference to the most recent previous compile time is given.
+   * 
+   * @param count the maximum number of files to return
+   * @return a {@link List} of formatted lines
+   */
+  public List<String> getSlowest(int count) {
+    List<Entry<String, CompileTime>> entries = new ArrayList<Entry<String, CompileTime>>(this.current.entrySet());
+    Collections.sort(entries, new Comparator<Entry<String, CompileTime>>() {
+      @Override
+      public int compare(Entry<String, CompileTime> o1, Entry<String, CompileTime> o2) {
+        long m1 = o1.getValue().getMicros();
+        long m2 = o2.getValue().getMicros();
+        return m1 < m2 ? 1 : m1 > m2 ? -1 : 0;
+      }
+    });
+    List<String> lines = new ArrayList<String>();
+    for (Entry<String, CompileTime> entry : entries.subList(0, Math.min(count, entries.size()))) {
+      CompileTime time = entry.getValue();
+      double ms = time.getMicros() / 1000.0;
+      String delta = "";
+      Double previousMs = this.previous.get(entry.getKey());
+      if (previousMs != null) {
+        delta = String.format(Locale.ENGLISH, " (%+.3f ms)", ms - previousMs);
+      }
+      lines.add(String.format(Locale.ENGLISH,
+                              "%10.3f ms %12s reductions  %s%s",
+                              ms,
+                              time.getReductions() < 0 ? "n/a" : String.valueOf(time.getReductions()),
+                              entry.getKey(),
+                              delta));
+    }
+    return lines;
+  }
+
+  /**
+   * Appends the current build to the history and writes the history to its
+   * file. Nothing is written if no {@link CompileTime}s were added.
+   * 
+   * @throws MojoExecutionException in case the history cannot be written
+   */
+  public void save() throws MojoExecutionException {
+    if (this.current.isEmpty()) {
+      return;
+    }
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.ENGLISH);
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    StringBuilder build = new StringBuilder(BUILD_PREFIX);
+    build.append("\"timestamp\": \"").append(format.format(new Date())).append("\", \"files\": {");
+    String separator = "";
+    for (Entry<String, CompileTime> entry : this.current.entrySet()) {
+      CompileTime time = entry.getValue();
+      build.append(separator).append("\"").append(escape(entry.getKey())).append("\": {");
+      build.append("\"ms\": ").append(String.format(Locale.ENGLISH, "%.3f", time.getMicros() / 1000.0));
+      build.append(", \"reductions\": ");
+      build.append(time.getReductions() < 0 ? "null" : String.valueOf(time.getReductions())).append("}");
+      separator = ", ";
+    }
+    build.append("}}");
+
+    List<String> all = new ArrayList<String>(this.builds);
+    all.add(build.toString());
+    List<String> kept = all.subList(Math.max(0, all.size() - MAX_BUILDS), all.size());
+    StringBuilder data = new StringBuilder("[\n");
+    for (int i = 0; i < kept.size(); ++i) {
+      data.append(kept.get(i)).append(i < kept.size() - 1 ? ",\n" : "\n");
+    }
+    data.append("]\n");
+    FileUtils.writeFile(this.history, data.toString());
+  }
+
+  /**
+   * Returns the path of a file relative to the project's base directory using
+   * {@code /} as separator.
+   */
+  private String getPath(File file) {
+    String path = file.getAbsolutePath();
+    String basePath = this.base.getAbsolutePath() + File.separator;
+    if (path.startsWith(basePath)) {
+      path = path.substring(basePath.length());
+    }
+    return path.replace(File.separatorChar, '/');
+  }
+
+  /**
+   * Reads the previous builds from the history file. The most recent compile
+   * time of each file is remembered for comparison.
+   */
+  private void read() throws IOException {
+    BufferedReader reader = new BufferedReader(new FileReader(this.history));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.startsWith(BUILD_PREFIX)) {
+          String build = line.endsWith(",") ? line.substring(0, line.length() - 1) : line;
+          Matcher matcher = FILE_PATTERN.matcher(build);
+          while (matcher.find()) {
+            try {
+              this.previous.put(unescape(matcher.group(1)), Double.parseDouble(matcher.group(2)));
+            }
+            catch (NumberFormatException e) {
+              throw new IOException("corrupt compile times " + this.history);
+            }
+          }
+          this.builds.add(build);
+        }
+      }
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private static String escape(String s) {
+    return s.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private static String unescape(String s) {
+    return s.replace("\\\"", "\"").replace("\\\\", "\\");
+  }
+}
@@ -0,0 +1,457 @@
+package eu.lindenbaum.maven.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangDouble;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+/**
+ * A reader for files containing erlang terms, e.g. {@code .app}, {@code .rel},
+ * {@code .appup} or {@code sys.config} files. This is the equivalent to
+ * {@code file:consult/1} without the need of a backend node. Only the syntax
+ * commonly found in such files is supported: atoms, strings, numbers,
+ * character literals, tuples, lists and binaries of strings or bytes. Files
+ * using other constructs (e.g. maps, records, macros or expressions) are
+ * rejected with an {@link IOException}, so callers can fall back to
+ * {@code file:consult/1} on a backend node.
+ * 
+ * @author agent <agent@local>
+ */
+public final class ErlTermReader {
+  private static final String RESERVED_WORDS = "after and andalso band begin bnot bor bsl bsr bxor case catch "
+                                               + "cond div end fun if let not of or orelse receive rem try when xor";
+  private static final Set<String> RESERVED = new HashSet<String>(Arrays.asList(RESERVED_WORDS.split(" ")));
+
+  private final String content;
+  private int position = 0;
+
+  private ErlTermReader(String content) {
+    this.content = content;
+  }
+
+  /**
+   * Reads all terms from a file. The file is expected to be UTF-8 encoded,
+   * each term has to be terminated by a full stop.
+   * 
+   * @param file the file to read
+   * @return a non-{@code null} {@link List} of terms
+   * @throws IOException in case the file cannot be read or contains invalid
+   *           or unsupported syntax
+   */
+  public static List<OtpErlangObject> consult(File file) throws IOException {
+    try {
+      return parse(read(file));
+    }
+    catch (IOException e) {
+      throw new IOException(file + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Parses all terms from a {@link String}, each term has to be terminated by
+   * a full stop.
+   * 
+   * @param content the terms to parse
+   * @return a non-{@code null} {@link List} of terms
+   * @throws IOException in case the content contains invalid or unsupported
+   *           syntax
+   */
+  public static List<OtpErlangObject> parse(String content) throws IOException {
+    ErlTermReader reader = new ErlTermReader(content);
+    List<OtpErlangObject> terms = new ArrayList<OtpErlangObject>();
+    reader.skipWhitespace();
+    while (reader.position < content.length()) {
+      terms.add(reader.readTerm());
+      reader.skipWhitespace();
+      reader.expect('.');
+      int next = reader.peek(0);
+      if (next != -1 && next != '%' && !Character.isWhitespace(next)) {
+        throw reader.error("unexpected '.'");
+      }
+      reader.skipWhitespace();
+    }
+    return terms;
+  }
+
+  private OtpErlangObject readTerm() throws IOException {
+    skipWhitespace();
+    int c = peek(0);
+    if (c == '{') {
+      this.position++;
+      return new OtpErlangTuple(readElements('}'));
+    }
+    if (c == '[') {
+      return readList();
+    }
+    if (c == '"') {
+      return readStrings();
+    }
+    if (c == '\'') {
+      return new OtpErlangAtom(readQuoted('\''));
+    }
+    if (c == '<' && peek(1) == '<') {
+      return readBinary();
+    }
+    if (c == '$' || c == '-' || c == '+' || c >= '0' && c <= '9') {
+      return readNumber();
+    }
+    if (c >= 'a' && c <= 'z') {
+      String atom = readName();
+      if (RESERVED.contains(atom)) {
+        throw error("reserved word '" + atom + "'");
+      }
+      return new OtpErlangAtom(atom);
+    }
+    if (c == -1) {
+      throw error("unexpected end of file");
+    }
+    throw error("unsupported syntax '" + (char) c + "'");
+  }
+
+  /**
+   * Reads comma separated terms up to the given closing character.
+   */
+  private OtpErlangObject[] readElements(char close) throws IOException {
+    List<OtpErlangObject> elements = new ArrayList<OtpErlangObject>();
+    skipWhitespace();
+    if (peek(0) != close) {
+      elements.add(readTerm());
+      skipWhitespace();
+      while (peek(0) == ',') {
+        this.position++;
+        elements.add(readTerm());
+        skipWhitespace();
+      }
+    }
+    expect(close);
+    return elements.toArray(new OtpErlangObject[0]);
+  }
+
+  /**
+   * Reads a list, a tail given using {@code |} must be a proper list.
+   */
+  private OtpErlangObject readList() throws IOException {
+    this.position++;
+    List<OtpErlangObject> elements = new ArrayList<OtpErlangObject>();
+    skipWhitespace();
+    if (peek(0) != ']') {
+      elements.add(readTerm());
+      skipWhitespace();
+      while (peek(0) == ',') {
+        this.position++;
+        elements.add(readTerm());
+        skipWhitespace();
+      }
+      if (peek(0) == '|') {
+        this.position++;
+        OtpErlangObject tail = readTerm();
+        skipWhitespace();
+        if (tail instanceof OtpErlangList) {
+          elements.addAll(Arrays.asList(((OtpErlangList) tail).elements()));
+        }
+        else if (tail instanceof OtpErlangString) {
+          for (char c : ((OtpErlangString) tail).stringValue().toCharArray()) {
+            elements.add(new OtpErlangLong(c));
+          }
+        }
+        else {
+          throw error("improper lists are not supported");
+        }
+      }
+    }
+    expect(']');
+    return new OtpErlangList(elements.toArray(new OtpErlangObject[0]));
+  }
+
+  /**
+   * Reads adjacent string literals, empty strings are represented as empty
+   * lists.
+   */
+  private OtpErlangObject readStrings() throws IOException {
+    StringBuilder string = new StringBuilder();
+    do {
+      string.append(readQuoted('"'));
+      skipWhitespace();
+    } while (peek(0) == '"');
+    if (string.length() == 0) {
+      return new OtpErlangList();
+    }
+    return new OtpErlangString(string.toString());
+  }
+
+  private OtpErlangObject readBinary() throws IOException {
+    this.position += 2;
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    skipWhitespace();
+    if (peek(0) == '>' && peek(1) == '>') {
+      this.position += 2;
+      return new OtpErlangBinary(bytes.toByteArray());
+    }
+    while (true) {
+      skipWhitespace();
+      if (peek(0) == '"') {
+        String string = readQuoted('"');
+        for (char c : string.toCharArray()) {
+          if (c > 255) {
+            throw error("unsupported binary segment");
+          }
+          bytes.write(c);
+        }
+      }
+      else {
+        OtpErlangObject segment = readNumber();
+        if (!(segment instanceof OtpErlangLong)) {
+          throw error("unsupported binary segment");
+        }
+        bytes.write((int) ((OtpErlangLong) segment).longValue());
+      }
+      skipWhitespace();
+      if (peek(0) == '>' && peek(1) == '>') {
+        this.position += 2;
+        return new OtpErlangBinary(bytes.toByteArray());
+      }
+      expect(',');
+    }
+  }
+
+  private OtpErlangObject readNumber() throws IOException {
+    boolean negative = false;
+    if (peek(0) == '-' || peek(0) == '+') {
+      negative = this.content.charAt(this.position++) == '-';
+      skipWhitespace();
+    }
+    if (peek(0) == '$') {
+      this.position++;
+      int c = readCharacter();
+      return new OtpErlangLong(negative ? -c : c);
+    }
+    int start = this.position;
+    while (isDigit(peek(0))) {
+      this.position++;
+    }
+    if (start == this.position) {
+      throw error("unsupported syntax");
+    }
+    String digits = this.content.substring(start, this.position).replace("_", "");
+    try {
+      if (peek(0) == '#') {
+        this.position++;
+        int radix = Integer.parseInt(digits);
+        int valueStart = this.position;
+        while (isDigit(peek(0)) || Character.isLetter(peek(0))) {
+          this.position++;
+        }
+        BigInteger value = new BigInteger(this.content.substring(valueStart, this.position).replace("_", ""), radix);
+        return new OtpErlangLong(negative ? value.negate() : value);
+      }
+      if (peek(0) == '.' && isDigit(peek(1))) {
+        this.position++;
+        while (isDigit(peek(0))) {
+          this.position++;
+        }
+        if (peek(0) == 'e' || peek(0) == 'E') {
+          this.position++;
+          if (peek(0) == '-' || peek(0) == '+') {
+            this.position++;
+          }
+          while (isDigit(peek(0))) {
+            this.position++;
+          }
+        }
+        double value = Double.parseDouble(this.content.substring(start, this.position).replace("_", ""));
+        return new OtpErlangDouble(negative ? -value : value);
+      }
+      BigInteger value = new BigInteger(digits);
+      return new OtpErlangLong(negative ? value.negate() : value);
+    }
+    catch (NumberFormatException e) {
+      throw error("invalid number");
+    }
+  }
+
+  private String readName() {
+    int start = this.position;
+    int c = peek(0);
+    while (c != -1 && (Character.isLetterOrDigit(c) || c == '_' || c == '@')) {
+      this.position++;
+      c = peek(0);
+    }
+    return this.content.substring(start, this.position);
+  }
+
+  private String readQuoted(char quote) throws IOException {
+    this.position++;
+    StringBuilder value = new StringBuilder();
+    while (true) {
+      int c = peek(0);
+      if (c == -1) {
+        throw error("unterminated quoted literal");
+      }
+      if (c == quote) {
+        this.position++;
+        return value.toString();
+      }
+      value.appendCodePoint(readCharacter());
+    }
+  }
+
+  /**
+   * Reads a single, possibly escaped, character.
+   */
+  private int readCharacter() throws IOException {
+    if (this.position >= this.content.length()) {
+      throw error("unexpected end of file");
+    }
+    int c = this.content.codePointAt(this.position);
+    this.position += Character.charCount(c);
+    if (c != '\\') {
+      return c;
+    }
+    int escaped = peek(0);
+    this.position++;
+    switch (escaped) {
+      case 'b':
+        return '\b';
+      case 'd':
+        return 127;
+      case 'e':
+        return 27;
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 's':
+        return ' ';
+      case 't':
+        return '\t';
+      case 'v':
+        return 11;
+      case '^':
+        int control = peek(0);
+        this.position++;
+        return control & 31;
+      case 'x':
+        int end;
+        int start;
+        if (peek(0) == '{') {
+          start = this.position + 1;
+          end = this.content.indexOf('}', start);
+          if (end < 0) {
+            throw error("invalid escape sequence");
+          }
+          this.position = end + 1;
+        }
+        else {
+          start = this.position;
+          end = Math.min(start + 2, this.content.length());
+          this.position = end;
+        }
+        try {
+          return Integer.parseInt(this.content.substring(start, end), 16);
+        }
+        catch (NumberFormatException e) {
+          throw error("invalid escape sequence");
+        }
+      case -1:
+        throw error("unterminated quoted literal");
+      default:
+        if (escaped >= '0' && escaped <= '7') {
+          int value = escaped - '0';
+          for (int i = 0; i < 2 && peek(0) >= '0' && peek(0) <= '7'; ++i) {
+            value = value * 8 + this.content.charAt(this.position++) - '0';
+          }
+          return value;
+        }
+        return escaped;
+    }
+  }
+
+  private void skipWhitespace() {
+    while (this.position < this.content.length()) {
+      char c = this.content.charAt(this.position);
+      if (c == '%') {
+        while (this.position < this.content.length() && this.content.charAt(this.position) != '\n') {
+          this.position++;
+        }
+      }
+      else if (Character.isWhitespace(c)) {
+        this.position++;
+      }
+      else {
+        return;
+      }
+    }
+  }
+
+  private void expect(char expected) throws IOException {
+    if (peek(0) != expected) {
+      throw error("expected '" + expected + "'");
+    }
+    this.position++;
+  }
+
+  private int peek(int offset) {
+    int index = this.position + offset;
+    return index < this.content.length() ? this.content.charAt(index) : -1;
+  }
+
+  private static boolean isDigit(int c) {
+    return c >= '0' && c <= '9' || c == '_';
+  }
+
+  private IOException error(String message) {
+    int line = 1;
+    for (int i = 0; i < this.position && i < this.content.length(); ++i) {
+      if (this.content.charAt(i) == '\n') {
+        line++;
+      }
+    }
+    return new IOException("line " + line + ": " + message);
+  }
+
+  private static String read(File file) throws IOException {
+    InputStream input = new FileInputStream(file);
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        bytes.write(buffer, 0, read);
+      }
+      return Charset.forName("UTF-8")
+                    .newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes.toByteArray()))
+                    .toString();
+    }
+    catch (CharacterCodingException e) {
+      throw new IOException("not UTF-8 encoded");
+    }
+    finally {
+      input.close();
+    }
+  }
+}
@@ -1,8 +1,10 @@
 package eu.lindenbaum.maven.util;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import eu.lindenbaum.maven.erlang.CheckAppResult;
 import eu.lindenbaum.maven.mojo.app.ResourceGenerator;
@@ -132,6 +134,85 @@ public final class ErlUtils {
     return result.toString();
   }
 
+  /**
+   * Converts a {@link File} into an erlang string term containing the
+   * absolute path of the file.
+   * 
+   * @param file to convert
+   * @return an {@link OtpErlangString} containing the absolute path
+   */
+  public static OtpErlangString toFilename(File file) {
+    return new OtpErlangString(file.getAbsolutePath());
+  }
+
+  /**
+   * Converts a {@link Collection} of file objects into an erlang list of
+   * filename strings. The list of files will be converted using
+   * {@link File#getAbsolutePath()}. The file entries will be checked for
+   * {@code null} and existence.
+   * 
+   * @param list to convert
+   * @return an {@link OtpErlangList} of {@link OtpErlangString}s
+   */
+  public static OtpErlangList toFilenameTermList(Collection<File> list) {
+    List<OtpErlangObject> result = new ArrayList<OtpErlangObject>();
+    for (File file : list) {
+      if (file != null && file.exists()) {
+        result.add(toFilename(file));
+      }
+    }
+    return new OtpErlangList(result.toArray(new OtpErlangObject[0]));
+  }
+
+  /**
+   * Converts a {@link Collection} of erlang source or beam files into an
+   * erlang list of module name atoms. The files will be checked for
+   * {@code null} and existence.
+   * 
+   * @param list to convert
+   * @return an {@link OtpErlangList} of {@link OtpErlangAtom}s
+   */
+  public static OtpErlangList toModuleTermList(Collection<File> list) {
+    List<OtpErlangObject> result = new ArrayList<OtpErlangObject>();
+    for (File file : list) {
+      if (file != null && file.exists()) {
+        String module = file.getName().replace(ErlConstants.BEAM_SUFFIX, "");
+        result.add(new OtpErlangAtom(module.replace(ErlConstants.ERL_SUFFIX, "")));
+      }
+    }
+    return new OtpErlangList(result.toArray(new OtpErlangObject[0]));
+  }
+
+  /**
+   * Converts a {@link Collection} of {@link String}s into an erlang list of
+   * atoms.
+   * 
+   * @param list to convert
+   * @return an {@link OtpErlangList} of {@link OtpErlangAtom}s
+   */
+  public static OtpErlangList toAtomTermList(Collection<String> list) {
+    List<OtpErlangObject> result = new ArrayList<OtpErlangObject>();
+    for (String elem : list) {
+      result.add(new OtpErlangAtom(elem));
+    }
+    return new OtpErlangList(result.toArray(new OtpErlangObject[0]));
+  }
+
+  /**
+   * Converts a {@link Collection} of {@link String}s into an erlang list of
+   * strings.
+   * 
+   * @param list to convert
+   * @return an {@link OtpErlangList} of {@link OtpErlangString}s
+   */
+  public static OtpErlangList toStringTermList(Collection<String> list) {
+    List<OtpErlangObject> result = new ArrayList<OtpErlangObject>();
+    for (String elem : list) {
+      result.add(new OtpErlangString(elem));
+    }
+    return new OtpErlangList(result.toArray(new OtpErlangObject[0]));
+  }
+
   /**
    * Converts an {@link OtpErlangObject} into a {@link String} using the object
    * specific conversion function. If there is no specific string conversion
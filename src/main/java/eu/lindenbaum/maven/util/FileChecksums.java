@@ -0,0 +1,222 @@
+package eu.lindenbaum.maven.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A persistent record of the MD5 checksums of a set of files, used to detect
+ * which of the files changed since they were last processed, e.g. grammar
+ * files that need to be regenerated. Optionally, the checksums of the files a
+ * file depends on can be recorded along with the file, e.g. the compiled MIBs
+ * imported by a MIB. Recorded checksums are only valid for the configuration
+ * they were recorded with, e.g. the OTP release of the generating backend.
+ * 
+ * @author agent <agent@local>
+ */
+public final class FileChecksums {
+  private static final String SEPARATOR = "\t";
+  private static final String CONFIGURATION = "configuration";
+
+  private final File stateFile;
+  private final String configuration;
+  private final Map<String, Record> records = new TreeMap<String, Record>();
+
+  private FileChecksums(File stateFile, String configuration) {
+    this.stateFile = stateFile;
+    this.configuration = configuration;
+  }
+
+  /**
+   * Loads the recorded checksums from a state file. If the state file does not
+   * exist or cannot be read no checksums are recorded, meaning that all files
+   * are considered changed.
+   * 
+   * @param stateFile the file the checksums are persisted in
+   * @return a non-{@code null} {@link FileChecksums} instance
+   */
+  public static FileChecksums load(File stateFile) {
+    return load(stateFile, "");
+  }
+
+  /**
+   * Loads the recorded checksums from a state file. If the state file does not
+   * exist, cannot be read or was written for a different configuration no
+   * checksums are recorded, meaning that all files are considered changed.
+   * 
+   * @param stateFile the file the checksums are persisted in
+   * @param configuration the configuration the checksums are valid for
+   * @return a non-{@code null} {@link FileChecksums} instance
+   */
+  public static FileChecksums load(File stateFile, String configuration) {
+    FileChecksums checksums = new FileChecksums(stateFile, configuration);
+    if (stateFile.isFile()) {
+      try {
+        checksums.read();
+      }
+      catch (IOException e) {
+        checksums.records.clear();
+      }
+    }
+    return checksums;
+  }
+
+  /**
+   * Returns whether the content of a file differs from the recorded one, or no
+   * checksum was recorded for the file.
+   * 
+   * @param file to check
+   * @return {@code true} if the file changed, {@code false} otherwise
+   * @throws MojoExecutionException in case the checksum cannot be calculated
+   */
+  public boolean isChanged(File file) throws MojoExecutionException {
+    Record recorded = this.records.get(file.getAbsolutePath());
+    return recorded == null || !recorded.checksum.equals(FileUtils.getChecksum(file));
+  }
+
+  /**
+   * Returns whether the content of a file or one of its dependencies differs
+   * from the recorded one. A file is also considered changed if no checksum
+   * was recorded for it, its dependencies differ from the recorded ones or one
+   * of them does not exist.
+   * 
+   * @param file to check
+   * @param dependencies the current dependencies of the file
+   * @return {@code true} if the file changed, {@code false} otherwise
+   * @throws MojoExecutionException in case a checksum cannot be calculated
+   */
+  public boolean isChanged(File file, Collection<File> dependencies) throws MojoExecutionException {
+    if (isChanged(file)) {
+      return true;
+    }
+    Map<String, String> recorded = this.records.get(file.getAbsolutePath()).dependencies;
+    if (recorded.size() != dependencies.size()) {
+      return true;
+    }
+    for (File dependency : dependencies) {
+      String checksum = recorded.get(dependency.getAbsolutePath());
+      if (checksum == null || !dependency.isFile() || !checksum.equals(FileUtils.getChecksum(dependency))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Records the current checksum of a file.
+   * 
+   * @param file to record the checksum for
+   * @throws MojoExecutionException in case the checksum cannot be calculated
+   */
+  public void update(File file) throws MojoExecutionException {
+    update(file, Collections.<File> emptyList());
+  }
+
+  /**
+   * Records the current checksums of a file and its dependencies.
+   * 
+   * @param file to record the checksum for
+   * @param dependencies the dependencies of the file
+   * @throws MojoExecutionException in case a checksum cannot be calculated
+   */
+  public void update(File file, Collection<File> dependencies) throws MojoExecutionException {
+    Record record = new Record(FileUtils.getChecksum(file));
+    for (File dependency : dependencies) {
+      record.dependencies.put(dependency.getAbsolutePath(), FileUtils.getChecksum(dependency));
+    }
+    this.records.put(file.getAbsolutePath(), record);
+  }
+
+  /**
+   * Removes the checksum of a file, e.g. because processing the file failed.
+   * 
+   * @param file to remove the checksum for
+   */
+  public void remove(File file) {
+    this.records.remove(file.getAbsolutePath());
+  }
+
+  /**
+   * Removes the checksums of all files not contained in the given
+   * {@link Collection}.
+   * 
+   * @param files the files to keep the checksums for
+   */
+  public void retainAll(Collection<File> files) {
+    Set<String> paths = new HashSet<String>();
+    for (File file : files) {
+      paths.add(file.getAbsolutePath());
+    }
+    this.records.keySet().retainAll(paths);
+  }
+
+  /**
+   * Writes the recorded checksums to the state file.
+   * 
+   * @throws MojoExecutionException in case the state file cannot be written
+   */
+  public void save() throws MojoExecutionException {
+    StringBuilder data = new StringBuilder();
+    data.append(CONFIGURATION).append(SEPARATOR).append(this.configuration).append("\n");
+    for (Entry<String, Record> entry : this.records.entrySet()) {
+      Record record = entry.getValue();
+      data.append(entry.getKey()).append(SEPARATOR).append(record.checksum);
+      for (Entry<String, String> dependency : record.dependencies.entrySet()) {
+        data.append(SEPARATOR).append(dependency.getKey());
+        data.append(SEPARATOR).append(dependency.getValue());
+      }
+      data.append("\n");
+    }
+    FileUtils.writeFile(this.stateFile, data.toString());
+  }
+
+  /**
+   * Reads the recorded checksums from the state file, if they were recorded
+   * for the current configuration.
+   */
+  private void read() throws IOException {
+    BufferedReader reader = new BufferedReader(new FileReader(this.stateFile));
+    try {
+      String line = reader.readLine();
+      if (line == null || !line.equals(CONFIGURATION + SEPARATOR + this.configuration)) {
+        return;
+      }
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(SEPARATOR, -1);
+        if (fields.length < 2 || fields.length % 2 != 0) {
+          throw new IOException("corrupt checksums " + this.stateFile);
+        }
+        Record record = new Record(fields[1]);
+        for (int i = 2; i < fields.length; i += 2) {
+          record.dependencies.put(fields[i], fields[i + 1]);
+        }
+        this.records.put(fields[0], record);
+      }
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * The recorded checksums of a file and its dependencies.
+   */
+  private static final class Record {
+    private final String checksum;
+    private final Map<String, String> dependencies = new TreeMap<String, String>();
+
+    Record(String checksum) {
+      this.checksum = checksum;
+    }
+  }
+}
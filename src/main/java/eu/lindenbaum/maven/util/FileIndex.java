@@ -0,0 +1,227 @@
+package eu.lindenbaum.maven.util;
+
+import static org.codehaus.plexus.util.FileUtils.getDefaultExcludes;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.plexus.util.SelectorUtils;
+
+/**
+ * A memoized snapshot of a directory tree. The tree is scanned only once, the
+ * lists of files with a specific suffix are computed from the snapshot on
+ * first use and cached afterwards. Snapshots are shared by all mojos running
+ * in the same plugin class realm, e.g. for the same project within a Maven
+ * session. Like {@link FileUtils#getFilesRecursive(File, String)} patterns
+ * from {@link org.codehaus.plexus.util.FileUtils#getDefaultExcludes()} will
+ * always be excluded.
+ * <p>
+ * Goals writing to an indexed tree must call {@link #invalidate(File)}.
+ * Additionally, a snapshot is discarded when the modification time of one of
+ * its directories changes, e.g. because the tree was cleaned by another
+ * plugin. Note that modifications of existing files are not detected, which
+ * is why the snapshot does not provide the modification times of files.
+ * </p>
+ * 
+ * @author agent <agent@local>
+ */
+public final class FileIndex {
+  private static final ConcurrentMap<File, FileIndex> INDEXES = new ConcurrentHashMap<File, FileIndex>();
+
+  private final File root;
+  private final Map<File, Node> nodes = new LinkedHashMap<File, Node>();
+
+  private FileIndex(File root) {
+    this.root = root;
+    if (root.isDirectory()) {
+      scan(root, getDefaultExcludes());
+    }
+  }
+
+  /**
+   * Returns the snapshot of a specific directory tree. The tree is scanned in
+   * case there is no valid snapshot of it.
+   * 
+   * @param root the root directory of the tree
+   * @return a non-{@code null} snapshot of the tree
+   */
+  public static FileIndex get(File root) {
+    File key = root.getAbsoluteFile();
+    FileIndex index = INDEXES.get(key);
+    if (index == null || !index.isValid()) {
+      index = new FileIndex(key);
+      INDEXES.put(key, index);
+    }
+    return index;
+  }
+
+  /**
+   * Discards the snapshots of a directory tree and all of its sub trees. This
+   * must be called by all goals writing to an indexed tree.
+   * 
+   * @param root the root directory of the modified tree
+   */
+  public static void invalidate(File root) {
+    String prefix = root.getAbsolutePath() + File.separator;
+    for (File indexed : INDEXES.keySet()) {
+      if (indexed.equals(root.getAbsoluteFile()) || indexed.getPath().startsWith(prefix)) {
+        INDEXES.remove(indexed);
+      }
+    }
+  }
+
+  /**
+   * Returns the files matching a specific suffix in the indexed tree. The
+   * result equals the result of {@link FileUtils#getFilesRecursive(File, String)}.
+   * 
+   * @param suffix file extension to match, e.g. {@code ".beam"}
+   * @return a {@link List} of found files
+   */
+  public List<File> getFiles(String suffix) {
+    return getFiles(this.root, suffix);
+  }
+
+  /**
+   * Returns the files matching a specific suffix in a sub directory of the
+   * indexed tree. The result equals the result of
+   * {@link FileUtils#getFilesRecursive(File, String)}.
+   * 
+   * @param directory a directory of the indexed tree
+   * @param suffix file extension to match, e.g. {@code ".beam"}
+   * @return a {@link List} of found files, empty if the directory is not part
+   *         of the indexed tree
+   */
+  public List<File> getFiles(File directory, String suffix) {
+    Node node = this.nodes.get(directory.getAbsoluteFile());
+    if (node == null) {
+      return new ArrayList<File>();
+    }
+    return new ArrayList<File>(node.getFiles(suffix));
+  }
+
+  /**
+   * Returns the files matching a specific suffix in several sub directories of
+   * the indexed tree.
+   * 
+   * @param directories directories of the indexed tree
+   * @param suffix file extension to match, e.g. {@code ".beam"}
+   * @return a flattened {@link List} of found files
+   */
+  public List<File> getFiles(Collection<File> directories, String suffix) {
+    List<File> files = new ArrayList<File>();
+    for (File directory : directories) {
+      files.addAll(getFiles(directory, suffix));
+    }
+    return files;
+  }
+
+  /**
+   * Returns the directories of the indexed tree containing files with a
+   * specific suffix. The result equals the result of
+   * {@link FileUtils#getDirectoriesRecursive(File, String)}.
+   * 
+   * @param suffix file suffix to search for
+   * @return a non-{@code null} list of directories containg files with a
+   *         certain suffix
+   */
+  public List<File> getDirectories(String suffix) {
+    List<File> directories = new ArrayList<File>();
+    for (Entry<File, Node> entry : this.nodes.entrySet()) {
+      for (File file : entry.getValue().files) {
+        if (file.getName().endsWith(suffix)) {
+          directories.add(entry.getKey());
+          break;
+        }
+      }
+    }
+    return directories;
+  }
+
+  /**
+   * Returns whether the tree's directories are unmodified since the snapshot
+   * was taken.
+   */
+  private boolean isValid() {
+    if (this.nodes.isEmpty()) {
+      return !this.root.isDirectory();
+    }
+    for (Entry<File, Node> entry : this.nodes.entrySet()) {
+      if (entry.getKey().lastModified() != entry.getValue().lastModified) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Node scan(File directory, String[] excludes) {
+    Node node = new Node(directory.lastModified());
+    this.nodes.put(directory, node);
+    File[] children = directory.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        if (child.isDirectory()) {
+          if (!isExcluded(child, excludes)) {
+            node.directories.add(scan(child, excludes));
+          }
+        }
+        else {
+          node.files.add(child);
+        }
+      }
+    }
+    return node;
+  }
+
+  private static boolean isExcluded(File directory, String[] excludes) {
+    for (String exclude : excludes) {
+      if (SelectorUtils.match(exclude, directory.getAbsolutePath())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A scanned directory along with the memoized results of suffix queries.
+   */
+  private static final class Node {
+    private final long lastModified;
+    private final List<Node> directories = new ArrayList<Node>();
+    private final List<File> files = new ArrayList<File>();
+    private final ConcurrentMap<String, List<File>> buckets = new ConcurrentHashMap<String, List<File>>();
+
+    Node(long lastModified) {
+      this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns the files of this sub tree matching a suffix in the order
+     * {@link FileUtils#getFilesRecursive(File, String)} would return them.
+     */
+    List<File> getFiles(String suffix) {
+      List<File> bucket = this.buckets.get(suffix);
+      if (bucket == null) {
+        List<File> files = new ArrayList<File>();
+        for (Node directory : this.directories) {
+          files.addAll(directory.getFiles(suffix));
+        }
+        for (File file : this.files) {
+          if (file.getName().endsWith(suffix)) {
+            files.add(file);
+          }
+        }
+        bucket = Collections.unmodifiableList(files);
+        this.buckets.put(suffix, bucket);
+      }
+      return bucket;
+    }
+  }
+}
@@ -12,8 +12,14 @@ import static org.codehaus.plexus.util.FileUtils.getDefaultExcludes;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -430,6 +436,142 @@ public final class FileUtils {
     return copied;
   }
 
+  /**
+   * Synchronizes the destination directory with the contents of the source
+   * directory incrementally. Only files that are missing in the destination
+   * directory or that differ from their source file are copied, see
+   * {@link #syncFile(File, File, boolean)}. Files not existing in the source
+   * directory (anymore) are removed from the destination directory, except
+   * the ones given to be preserved. Empty directories are removed. If the
+   * source directory does not exist, the destination directory will be
+   * cleared. By default patterns from
+   * {@link org.codehaus.plexus.util.FileUtils#getDefaultExcludes()} will
+   * always be excluded.
+   * 
+   * @param from the source directory to synchronize from
+   * @param to the destination directory to synchronize
+   * @param filter additional filter to apply before copying
+   * @param checksums whether to compare the contents of files with differing
+   *          modification times before copying them
+   * @param preserve files in the destination directory that must not be
+   *          removed
+   * @return a {@link Collection} of <b>files</b> that were copied
+   * @throws MojoExecutionException
+   * @see #getFilesAndDirectoriesRecursive(File, FileFilter)
+   */
+  public static Collection<File> syncDirectory(File from,
+                                               File to,
+                                               FileFilter filter,
+                                               boolean checksums,
+                                               Collection<File> preserve) throws MojoExecutionException {
+    List<File> sources = new ArrayList<File>();
+    if (from.isDirectory()) {
+      sources.addAll(getFilesAndDirectoriesRecursive(from, filter));
+    }
+    Set<File> expected = new HashSet<File>();
+    for (File src : sources) {
+      expected.add(getDestination(src, from, to));
+    }
+    for (File file : preserve) {
+      expected.add(file.getAbsoluteFile());
+    }
+    List<File> existing = getFilesAndDirectoriesRecursive(to, NULL_FILTER);
+    for (File dest : existing) {
+      if (dest.isFile() && !expected.contains(dest.getAbsoluteFile())) {
+        dest.delete();
+      }
+    }
+    Collection<File> copied = new ArrayList<File>();
+    for (File src : sources) {
+      File dest = getDestination(src, from, to);
+      if (src.isDirectory()) {
+        ensureDirectories(dest);
+      }
+      else {
+        if (dest.isDirectory()) {
+          removeDirectory(dest);
+        }
+        if (syncFile(src, dest, checksums)) {
+          copied.add(src);
+        }
+      }
+    }
+    // sub directories are listed before their parents
+    for (File dest : getFilesAndDirectoriesRecursive(to, NULL_FILTER)) {
+      removeEmptyDirectory(dest);
+    }
+    return copied;
+  }
+
+  /**
+   * Copies a file into another file, if the destination file is missing or
+   * differs from the source file. Files are considered equal if they have the
+   * same size and executable flag and the destination file is not older than
+   * the source file. If checksums should be compared, equally sized files with
+   * an older destination file are also considered equal if their contents
+   * match, their modification time is updated to the one of the source file.
+   * Other equal destination files are not touched at all. All missing
+   * directories including the destination folder will be created if
+   * necessary. If the source file is executable the destination file will also
+   * be executable.
+   * 
+   * @param from file to copy the content from
+   * @param to file to copy the content into
+   * @param checksums whether to compare the contents of files with differing
+   *          modification times before copying them
+   * @return {@code true} if the file was copied, {@code false} otherwise
+   * @throws MojoExecutionException in case the file cannot be copied
+   */
+  public static boolean syncFile(File from, File to, boolean checksums) throws MojoExecutionException {
+    if (to.isFile() && to.length() == from.length() && to.canExecute() == from.canExecute()) {
+      if (to.lastModified() >= from.lastModified()) {
+        return false;
+      }
+      if (checksums && getChecksum(from).equals(getChecksum(to))) {
+        // avoid comparing the contents again on the next run
+        to.setLastModified(from.lastModified());
+        return false;
+      }
+    }
+    File parent = to.getParentFile();
+    if (parent != null) {
+      ensureDirectories(parent);
+    }
+    try {
+      FileInputStream input = new FileInputStream(from);
+      try {
+        FileOutputStream output = new FileOutputStream(to);
+        try {
+          FileChannel source = input.getChannel();
+          FileChannel destination = output.getChannel();
+          long size = source.size();
+          long position = 0;
+          while (position < size) {
+            position += source.transferTo(position, size - position, destination);
+          }
+        }
+        finally {
+          output.close();
+        }
+      }
+      finally {
+        input.close();
+      }
+    }
+    catch (IOException e) {
+      throw new MojoExecutionException("Failed to copy " + from + ".", e);
+    }
+    to.setExecutable(from.canExecute(), false);
+    return true;
+  }
+
+  /**
+   * Returns the destination of a file contained in a source directory.
+   */
+  private static File getDestination(File file, File from, File to) {
+    return new File(to, file.getAbsolutePath().substring(from.getAbsolutePath().length())).getAbsoluteFile();
+  }
+
   /**
    * Copies the content of a file into another file (previous content will be
    * overwritten). The source file must exist. All missing directories including
@@ -621,12 +763,76 @@ public final class FileUtils {
     }
   }
 
+  /**
+   * Returns the hex encoded MD5 checksum of the UTF-8 representation of the
+   * given data.
+   * 
+   * @param data to calculate the checksum for
+   * @return a non-{@code null} string containing the checksum
+   * @throws MojoExecutionException in case MD5 is not supported by the JVM
+   */
+  public static String getChecksum(String data) throws MojoExecutionException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      return toHex(digest.digest(data.getBytes("UTF-8")));
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new MojoExecutionException("Failed to calculate checksum.", e);
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new MojoExecutionException("Failed to calculate checksum.", e);
+    }
+  }
+
+  /**
+   * Calculates the MD5 checksum of a file's content.
+   * 
+   * @param file to calculate the checksum for
+   * @return the checksum as lower case hex string
+   * @throws MojoExecutionException in case the file cannot be read
+   */
+  public static String getChecksum(File file) throws MojoExecutionException {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      InputStream input = new FileInputStream(file);
+      try {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+        }
+      }
+      finally {
+        input.close();
+      }
+      return toHex(digest.digest());
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new MojoExecutionException("Failed to calculate checksum of " + file + ".", e);
+    }
+    catch (IOException e) {
+      throw new MojoExecutionException("Failed to calculate checksum of " + file + ".", e);
+    }
+  }
+
+  /**
+   * Converts a byte array into its lower case hex representation.
+   */
+  static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+      hex.append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
   /**
    * Copies a file using
    * {@link org.codehaus.plexus.util.FileUtils#copyFile(File, File)}. If the
    * source file is executble the destiantion file will also be executable.
    */
-  private static void copyFile(File src, File dest) throws MojoExecutionException {
+  public static void copyFile(File src, File dest) throws MojoExecutionException {
     try {
       org.codehaus.plexus.util.FileUtils.copyFile(src, dest);
       if (src.canExecute()) {
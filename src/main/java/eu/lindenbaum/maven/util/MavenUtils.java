@@ -184,6 +184,33 @@ public final class MavenUtils {
                    .replace(ErlConstants.TARGZ_SUFFIX, "");
   }
 
+  /**
+   * Returns the scope of backend nodes shared by all modules of a reactor
+   * build. This is the name of the directory the build was started in along
+   * with a hash of its canonical path, so checkouts with equal directory
+   * names get different scopes.
+   * 
+   * @param executionRootDirectory the directory the build was started in, maybe
+   *          {@code null}
+   * @return a non-empty string identifying the reactor
+   */
+  public static String getReactorScope(String executionRootDirectory) {
+    if (executionRootDirectory != null) {
+      File root = new File(executionRootDirectory);
+      String path;
+      try {
+        path = root.getCanonicalPath();
+      }
+      catch (IOException e) {
+        path = root.getAbsolutePath();
+      }
+      String checksum = Integer.toHexString(path.hashCode());
+      String name = root.getName();
+      return name.isEmpty() ? checksum : name + "-" + checksum;
+    }
+    return "reactor";
+  }
+
   /**
    * Returns the release name for the given {@link MavenProject}. The release
    * name consists of the project artifacts id and its version.
@@ -0,0 +1,230 @@
+package eu.lindenbaum.maven.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * The import graph of a project's MIBs. The MIB module names and the modules
+ * imported by each MIB are taken from the MIB's {@code DEFINITIONS} and
+ * {@code IMPORTS} clauses. The MIBs are arranged in levels, each level only
+ * importing MIBs of previous levels, so the MIBs of a level can be compiled in
+ * parallel once the previous levels were compiled.
+ * 
+ * @author agent <agent@local>
+ */
+public final class MibGraph {
+  private static final Pattern STRING = Pattern.compile("\"[^\"]*\"");
+  private static final Pattern COMMENT = Pattern.compile("--.*?(--|$)", Pattern.MULTILINE);
+  private static final Pattern DEFINITIONS = Pattern.compile("([A-Za-z][A-Za-z0-9-]*)\\s+DEFINITIONS\\s*::=\\s*BEGIN");
+  private static final Pattern IMPORTS = Pattern.compile("\\bIMPORTS\\b(.*?);", Pattern.DOTALL);
+  private static final Pattern FROM = Pattern.compile("\\bFROM\\s+([A-Za-z][A-Za-z0-9-]*)");
+
+  private final Map<String, File> mibs = new HashMap<String, File>();
+  private final Map<File, List<String>> imports = new HashMap<File, List<String>>();
+  private final List<List<File>> levels = new ArrayList<List<File>>();
+
+  private MibGraph() {
+  }
+
+  /**
+   * Creates the import graph of the given MIB files.
+   * 
+   * @param files the MIB files of the project
+   * @return the {@link MibGraph} of the MIB files
+   * @throws MojoExecutionException in case a MIB cannot be read or the MIBs
+   *           import each other cyclically
+   */
+  public static MibGraph of(Collection<File> files) throws MojoExecutionException {
+    MibGraph graph = new MibGraph();
+    for (File file : files) {
+      String content = strip(read(file));
+      Matcher definitions = DEFINITIONS.matcher(content);
+      String name = definitions.find() ? definitions.group(1) : getName(file);
+      List<String> imported = new ArrayList<String>();
+      Matcher clause = IMPORTS.matcher(content);
+      if (clause.find()) {
+        Matcher from = FROM.matcher(clause.group(1));
+        while (from.find()) {
+          if (!imported.contains(from.group(1)) && !name.equals(from.group(1))) {
+            imported.add(from.group(1));
+          }
+        }
+      }
+      graph.mibs.put(name, file);
+      graph.imports.put(file, imported);
+    }
+    graph.arrange(files);
+    return graph;
+  }
+
+  /**
+   * Returns the MIBs arranged in levels. The MIBs of a level only import MIBs
+   * of previous levels or MIBs that are not part of the project. The order of
+   * the MIBs within a level follows the order the MIBs were given in.
+   * 
+   * @return a {@link List} of levels
+   */
+  public List<List<File>> getLevels() {
+    return this.levels;
+  }
+
+  /**
+   * Returns the names of the MIB modules imported by a MIB.
+   * 
+   * @param file the MIB file
+   * @return a {@link List} of MIB module names
+   */
+  public List<String> getImports(File file) {
+    List<String> imported = this.imports.get(file);
+    return imported != null ? imported : Collections.<String> emptyList();
+  }
+
+  /**
+   * Returns the MIBs of a level that need to be compiled, because their
+   * compiled {@code .bin} file is missing, or the MIB or one of the compiled
+   * MIBs it imports changed since the checksums were last updated.
+   * 
+   * @param level the MIBs of a level
+   * @param directory the directory the MIBs get compiled into
+   * @param checksums the checksums recorded for the compiled MIBs
+   * @param directories the directories to look up imported compiled MIBs in
+   * @return a {@link List} of stale MIBs
+   * @throws MojoExecutionException in case a file cannot be read
+   */
+  public List<File> getStale(Collection<File> level,
+                             File directory,
+                             FileChecksums checksums,
+                             Collection<File> directories) throws MojoExecutionException {
+    List<File> stale = new ArrayList<File>();
+    for (File mib : level) {
+      if (!getBin(mib, directory).isFile() || checksums.isChanged(mib, getImportedBins(mib, directories))) {
+        stale.add(mib);
+      }
+    }
+    return stale;
+  }
+
+  /**
+   * Returns the compiled {@code .bin} file of a MIB.
+   * 
+   * @param mib the MIB file
+   * @param directory the directory the MIB gets compiled into
+   * @return the (possibly non-existing) {@code .bin} file
+   */
+  public static File getBin(File mib, File directory) {
+    return new File(directory, getName(mib) + ErlConstants.BIN_SUFFIX);
+  }
+
+  /**
+   * Returns the compiled {@code .bin} files of the MIB modules imported by a
+   * MIB. The files are looked up in the given directories, imports that
+   * cannot be found (e.g. the standard MIBs) are omitted.
+   * 
+   * @param file the MIB file
+   * @param directories the directories to look up the compiled MIBs in
+   * @return a {@link List} of existing {@code .bin} files
+   */
+  public List<File> getImportedBins(File file, Collection<File> directories) {
+    List<File> bins = new ArrayList<File>();
+    for (String name : getImports(file)) {
+      for (File directory : directories) {
+        File bin = new File(directory, name + ErlConstants.BIN_SUFFIX);
+        if (bin.isFile()) {
+          bins.add(bin);
+          break;
+        }
+      }
+    }
+    return bins;
+  }
+
+  /**
+   * Assigns each MIB the level following the highest level of the project
+   * MIBs it imports.
+   */
+  private void arrange(Collection<File> files) throws MojoExecutionException {
+    Map<File, Integer> assigned = new HashMap<File, Integer>();
+    while (assigned.size() < files.size()) {
+      boolean progress = false;
+      for (File file : files) {
+        if (!assigned.containsKey(file)) {
+          int level = 0;
+          for (String name : this.imports.get(file)) {
+            File imported = this.mibs.get(name);
+            if (imported != null) {
+              Integer importedLevel = assigned.get(imported);
+              if (importedLevel == null) {
+                level = -1;
+                break;
+              }
+              level = Math.max(level, importedLevel + 1);
+            }
+          }
+          if (level >= 0) {
+            assigned.put(file, level);
+            progress = true;
+          }
+        }
+      }
+      if (!progress) {
+        List<File> cyclic = new ArrayList<File>(files);
+        cyclic.removeAll(assigned.keySet());
+        throw new MojoExecutionException("Cyclic MIB imports in " + cyclic + ".");
+      }
+    }
+    for (File file : files) {
+      int level = assigned.get(file);
+      while (this.levels.size() <= level) {
+        this.levels.add(new ArrayList<File>());
+      }
+      this.levels.get(level).add(file);
+    }
+  }
+
+  /**
+   * Removes strings and comments from the content of a MIB.
+   */
+  private static String strip(String content) {
+    String withoutStrings = STRING.matcher(content).replaceAll("\"\"");
+    return COMMENT.matcher(withoutStrings).replaceAll(" ");
+  }
+
+  /**
+   * Returns the name of a MIB file without suffix.
+   */
+  private static String getName(File file) {
+    return file.getName().replace(ErlConstants.MIB_SUFFIX, "");
+  }
+
+  private static String read(File file) throws MojoExecutionException {
+    StringBuilder content = new StringBuilder();
+    try {
+      BufferedReader reader = new BufferedReader(new FileReader(file));
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          content.append(line).append("\n");
+        }
+      }
+      finally {
+        reader.close();
+      }
+    }
+    catch (IOException e) {
+      throw new MojoExecutionException("Failed to read " + file + ": " + e.getMessage());
+    }
+    return content.toString();
+  }
+}
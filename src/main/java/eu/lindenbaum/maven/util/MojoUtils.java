@@ -10,6 +10,7 @@ import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -17,14 +18,17 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import eu.lindenbaum.maven.Properties;
+import eu.lindenbaum.maven.erlang.AttachScript;
+import eu.lindenbaum.maven.erlang.DaemonScript;
 import eu.lindenbaum.maven.erlang.DialyzerScript;
-import eu.lindenbaum.maven.erlang.GetAttributesScript;
 import eu.lindenbaum.maven.erlang.MavenSelf;
 import eu.lindenbaum.maven.erlang.NodeShutdownHook;
 import eu.lindenbaum.maven.erlang.Script;
 
 import com.ericsson.otp.erlang.OtpAuthException;
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpPeer;
 import com.ericsson.otp.erlang.OtpSelf;
 
@@ -45,6 +49,9 @@ public final class MojoUtils {
   private static final String WINDOWS = "WINDOWS";
   private static final String EUNIT_TESTS_SUFFIX = "_tests" + ErlConstants.BEAM_SUFFIX;
   private static final Pattern DIALYZER_WARNING = Pattern.compile("(.+):(\\d+): (.+)");
+  private static final String DAEMON_FLAG = "-maven_erlang_plugin_daemon";
+  private static final int SHUTDOWN_RETRIES = 20;
+  private static final Map<String, OtpSelf> PROBES = new HashMap<String, OtpSelf>();
 
   /**
    * Returns whether the executing JVM is running under Microsoft Windows or
@@ -68,31 +75,55 @@ public final class MojoUtils {
 
   /**
    * Attaches the plugin to a backend erlang node. If the backend node is not
-   * already running it will be started.
+   * already running it will be started. The plugin's runtime module will be
+   * loaded onto the node if necessary. Unless running in daemon mode, the node
+   * will be shut down when the JVM exits. In daemon mode a running node is only
+   * reused if it was started as daemon using the same {@code erl} command,
+   * otherwise it gets restarted. Nodes reused across builds (daemon mode) or
+   * modules (shared backend) are cleaned from the code paths and modules of
+   * the previously attached project.
    * 
    * @param log logger to use
-   * @param cmd path to the {@code erl} command
-   * @param nodeName name of the backend to connect to
-   * @param nodeCookie cookie of the backend to connect to
-   * @param cwd the backend node's current working directory
-   * @param backendLog file to write the ouput from the backend nodes to
+   * @param p the properties of the project to attach
+   * @param nodeName name of the backend to connect to, either
+   *          {@link Properties#node()} or {@link Properties#testNode()}
    * @throws MojoExecutionException
    */
-  public static void startBackend(final Log log,
-                                  String cmd,
-                                  String nodeName,
-                                  String nodeCookie,
-                                  final File cwd,
-                                  final File backendLog) throws MojoExecutionException {
+  public static void startBackend(final Log log, Properties p, String nodeName) throws MojoExecutionException {
+    String cmd = p.erlCommand();
+    String nodeCookie = p.cookie();
+    final File cwd = p.targetLayout().base();
+    final File backendLog = p.targetLayout().backendLog();
     OtpPeer peer = new OtpPeer(nodeName);
+    boolean daemon = p.daemonIdleTimeout() > 0;
+    DaemonScript check = new DaemonScript(cmd, p.daemonIdleTimeout());
     try {
+      boolean running;
       try {
-        String startupName = "maven-erlang-plugin-startup-" + System.nanoTime();
-        OtpSelf self = nodeCookie != null ? new OtpSelf(startupName, nodeCookie) : new OtpSelf(startupName);
-        self.connect(peer);
+        running = isRunning(peer, nodeCookie);
+      }
+      catch (OtpAuthException e) {
+        // daemon node names contain the cookie's fingerprint, see PropertiesImpl
+        throw new MojoExecutionException("Node " + peer + " is already running with a different cookie. "
+                                         + "It was not started by this build, choose a different cookie or "
+                                         + "stop the node.", e);
+      }
+      if (running) {
         log.debug("Node " + peer + " is already running.");
+        MavenSelf.get(nodeCookie).loadRuntime(nodeName, cwd);
+        if (daemon) {
+          String mismatch = MavenSelf.get(nodeCookie).exec(nodeName, check);
+          if (mismatch != null) {
+            log.info("Restarting daemon node " + peer + ", " + mismatch + ".");
+            stopBackend(peer, nodeCookie);
+            running = false;
+          }
+          else {
+            log.info("Reusing daemon node " + peer + ".");
+          }
+        }
       }
-      catch (IOException e) {
+      if (!running) {
         log.debug("starting " + peer + ".");
         ArrayList<String> command = new ArrayList<String>();
         command.add(cmd);
@@ -105,6 +136,12 @@ public final class MojoUtils {
           command.add("-setcookie");
           command.add(nodeCookie);
         }
+        if (daemon) {
+          // a daemon must not depend on the JVM's output pipe
+          command.add("-detached");
+          command.add(DAEMON_FLAG);
+          command.add(cmd);
+        }
 
         ProcessBuilder processBuilder = new ProcessBuilder(command);
         processBuilder.redirectErrorStream(true);
@@ -141,10 +178,16 @@ public final class MojoUtils {
         thread.start();
         log.debug("Node " + peer + " sucessfully started.");
 
+        MavenSelf.get(nodeCookie).loadRuntime(nodeName, cwd);
         MavenSelf.get(nodeCookie).exec(nodeName, new Script<Void>() {
           @Override
-          public String get() {
-            return "ok = file:set_cwd(\"" + cwd.getAbsolutePath() + "\").";
+          public String getFunction() {
+            return "setcwd";
+          }
+
+          @Override
+          public OtpErlangList getArguments() {
+            return new OtpErlangList(new OtpErlangObject[]{ new OtpErlangString(cwd.getAbsolutePath()) });
           }
 
           @Override
@@ -152,9 +195,21 @@ public final class MojoUtils {
             return null;
           }
         });
+        if (daemon) {
+          String mismatch = MavenSelf.get(nodeCookie).exec(nodeName, check);
+          if (mismatch != null) {
+            throw new MojoExecutionException("Failed to start daemon node " + peer + ", " + mismatch + ".");
+          }
+        }
+      }
+      if (daemon || p.sharedBackend()) {
+        String error = MavenSelf.get(nodeCookie).exec(nodeName, new AttachScript(p.namespace(), cwd));
+        if (error != null) {
+          throw new MojoExecutionException("Failed to attach to " + peer + ", " + error + ".");
+        }
       }
       try {
-        Runtime.getRuntime().addShutdownHook(NodeShutdownHook.get(nodeName, nodeCookie));
+        Runtime.getRuntime().addShutdownHook(NodeShutdownHook.get(nodeName, nodeCookie, !daemon));
       }
       catch (IllegalArgumentException e1) {
         log.debug("shutdown hook already registered.");
@@ -168,6 +223,72 @@ public final class MojoUtils {
     }
   }
 
+  /**
+   * Returns whether a specific erlang node is running and accepts connections
+   * using the given cookie.
+   * 
+   * @param peer the node to check
+   * @param nodeCookie cookie of the node
+   * @return {@code true} if the node is running, {@code false} otherwise
+   * @throws OtpAuthException in case the node runs with a different cookie
+   */
+  private static boolean isRunning(OtpPeer peer, String nodeCookie) throws OtpAuthException {
+    try {
+      getProbe(nodeCookie).connect(peer).close();
+      return true;
+    }
+    catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the node used to probe backend nodes using a specific cookie. The
+   * probe node is created once and reused, since {@link OtpSelf} nodes cannot
+   * be closed.
+   */
+  private static OtpSelf getProbe(String nodeCookie) throws IOException {
+    String key = nodeCookie != null ? nodeCookie : "";
+    synchronized (PROBES) {
+      OtpSelf probe = PROBES.get(key);
+      if (probe == null) {
+        String startupName = "maven-erlang-plugin-startup-" + System.nanoTime();
+        probe = nodeCookie != null ? new OtpSelf(startupName, nodeCookie) : new OtpSelf(startupName);
+        PROBES.put(key, probe);
+      }
+      return probe;
+    }
+  }
+
+  /**
+   * Halts a running backend node and waits until the node is down. All cached
+   * connections to the node are dropped.
+   * 
+   * @param peer the node to stop
+   * @param nodeCookie cookie of the node
+   * @throws MojoExecutionException in case the node does not stop in time
+   * @throws OtpAuthException in case the node runs with a different cookie
+   */
+  private static void stopBackend(OtpPeer peer, String nodeCookie) throws MojoExecutionException,
+                                                                          OtpAuthException {
+    MavenSelf self = MavenSelf.get(nodeCookie);
+    self.cast(peer.node(), "erlang", "halt", new OtpErlangList());
+    self.disconnect(peer.node());
+    for (int i = 0; i < SHUTDOWN_RETRIES; ++i) {
+      if (!isRunning(peer, nodeCookie)) {
+        return;
+      }
+      try {
+        Thread.sleep(500L);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    throw new MojoExecutionException("Failed to stop " + peer + ".");
+  }
+
   /**
    * Returns whether there are erlang source/header files in a specific
    * directory (recursive) having a newer modification time than a given
@@ -272,21 +393,53 @@ public final class MojoUtils {
    * 
    * @param p the build properties
    * @return a non-{@code null} {@link Map} of string mappings
-   * @throws MojoExecutionException when failing to get module attributes
+   * @throws MojoExecutionException when failing to read module attributes
    */
   public static Map<String, String> getApplicationReplacements(Properties p) throws MojoExecutionException {
     List<File> modules = p.modules(false, false);
     Set<Artifact> dependencies = MavenUtils.getErlangDependenciesToPackage(p.project());
-    Script<String> registeredScript = new GetAttributesScript(modules, "registered");
-    String registeredNames = MavenSelf.get(p.cookie()).exec(p.node(), registeredScript);
+    List<String> registeredNames = new ArrayList<String>();
+    for (File module : modules) {
+      for (OtpErlangObject registered : BeamFile.read(module).getAttribute("registered")) {
+        registeredNames.add(ErlUtils.toString(registered));
+      }
+    }
 
     Map<String, String> replacements = MavenUtils.getProjectReplacements(p.project(), "'", "\"");
     replacements.put("${MODULES}", ErlUtils.toModuleList(modules, "'", "'"));
-    replacements.put("${REGISTERED}", registeredNames);
+    replacements.put("${REGISTERED}", ErlUtils.toList(registeredNames, null, "'", "'"));
     replacements.put("${APPLICATIONS}", ErlUtils.toArtifactIdListing(dependencies));
     return replacements;
   }
 
+  /**
+   * Writes the {@link eu.lindenbaum.maven.erlang.ScriptMetrics} of the
+   * project's backend nodes recorded so far to
+   * {@link eu.lindenbaum.maven.TargetLayout#rpcMetrics()}. Failures are logged
+   * but do not fail the build.
+   * 
+   * @param log logger to use
+   * @param p the properties of the project
+   */
+  public static void writeScriptMetrics(Log log, Properties p) {
+    try {
+      MavenSelf self = MavenSelf.get(p.cookie());
+      if (self.getMetrics(p.node()).isEmpty() && self.getMetrics(p.testNode()).isEmpty()) {
+        return;
+      }
+      StringBuilder json = new StringBuilder("{").append(Script.NL);
+      json.append("  \"").append(p.node()).append("\": ");
+      json.append(self.getMetrics(p.node()).toJson()).append(",").append(Script.NL);
+      json.append("  \"").append(p.testNode()).append("\": ");
+      json.append(self.getMetrics(p.testNode()).toJson()).append(Script.NL);
+      json.append("}").append(Script.NL);
+      FileUtils.writeFile(p.targetLayout().rpcMetrics(), json.toString());
+    }
+    catch (MojoExecutionException e) {
+      log.warn("Failed to write script metrics: " + e.getMessage());
+    }
+  }
+
   /**
    * Emits an info that backend node output is available in the given file if
    * existing.
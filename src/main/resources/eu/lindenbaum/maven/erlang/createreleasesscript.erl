@@ -1,4 +0,0 @@
-RootDirectory = "%s",
-RelDirectory = "%s",
-RelFile = "%s",
-release_handler:create_RELEASES(RootDirectory, RelDirectory, RelFile, []).
@@ -0,0 +1,1519 @@
+%%%-----------------------------------------------------------------------------
+%%% @author agent <agent@local>
+%%% @doc
+%%% The runtime module of the maven-erlang-plugin. This module gets compiled
+%%% and loaded onto the backend nodes once, when the plugin attaches to them.
+%%% Every {@link eu.lindenbaum.maven.erlang.Script} maps to an exported
+%%% function of this module named after the script class, e.g. the
+%%% `BeamCompilerScript' is implemented by `beamcompiler/9'. Scripts are
+%%% sent to the dispatcher process (see {@link dispatch/1}) which executes
+%%% each of them in its own process using {@link exec/3}. Arguments are passed
+%%% as erlang terms, only user supplied option strings get parsed here.
+%%% @end
+%%%-----------------------------------------------------------------------------
+-module(maven_erlang_plugin_rt).
+
+-export([checksum/0,
+         dispatcher/0,
+         dispatch/1,
+         exec/3,
+         watchdog/4]).
+
+-export([beamcompiler/9,
+         checkapp/1,
+         checkappup/2,
+         checkrel/1,
+         coveragereport/5,
+         attach/2,
+         createreleases/3,
+         daemon/2,
+         dialyzer/3,
+         edoc/4,
+         filterforattribute/2,
+         getappupdirective/2,
+         getattributes/2,
+         loadmodules/1,
+         makerelup/4,
+         makescript/3,
+         maketar/3,
+         mibcompiler/4,
+         profiling/4,
+         purgemodules/0,
+         reloadmodules/1,
+         runproject/3,
+         runtimeinfo/0,
+         setcwd/1,
+         targzarchiver/2,
+         targzunarchiver/2,
+         test/3,
+         uploadrelease/2,
+         upload/4,
+         xrlcompiler/2,
+         yrlcompiler/2]).
+
+-define(DISPATCHER, maven_erlang_plugin_rt_dispatcher).
+-define(WATCHDOG, maven_erlang_plugin_rt_watchdog).
+-define(DAEMON_FLAG, maven_erlang_plugin_daemon).
+-define(PROGRESS, maven_erlang_plugin_rt_progress).
+
+%% compiler options writing listings instead of (or along with) `.beam' files
+-define(LISTING_OPTIONS, ['P', 'E', 'S', to_core, makedep, makedep_side_effect]).
+
+-ifndef(CHECKSUM).
+-define(CHECKSUM, "undefined").
+-endif.
+
+%% OTP 21 introduced the `OTP_RELEASE' macro along with the
+%% `Class:Reason:Stacktrace' pattern replacing `erlang:get_stacktrace/0'
+-ifdef(OTP_RELEASE).
+-define(EXCEPTION(Class, Reason, Stacktrace), Class:Reason:Stacktrace).
+-define(STACKTRACE(Stacktrace), Stacktrace).
+-else.
+-define(EXCEPTION(Class, Reason, Stacktrace), Class:Reason).
+-define(STACKTRACE(Stacktrace), erlang:get_stacktrace()).
+-endif.
+
+%%%=============================================================================
+%%% API
+%%%=============================================================================
+
+%%------------------------------------------------------------------------------
+%% @doc
+%% Returns the checksum of the source this module was compiled from. This is
+%% used by the plugin to detect outdated runtime modules.
+%% @end
+%%------------------------------------------------------------------------------
+checksum() ->
+    ?CHECKSUM.
+
+%%------------------------------------------------------------------------------
+%% @doc
+%% Ensures the dispatcher process serving script executions is
+%% running. An already running dispatcher is woken up to switch to the
+%% currently loaded version of this module.
+%% @end
+%%------------------------------------------------------------------------------
+dispatcher() ->
+    case whereis(?DISPATCHER) of
+        undefined ->
+            Pid = spawn(?MODULE, dispatch, [[]]),
+            try register(?DISPATCHER, Pid) of
+                true -> ok
+            catch
+                error:badarg -> exit(Pid, kill), ok
+            end;
+        Pid ->
+            Pid ! upgrade,
+            notify(upgrade)
+    end.
+
+%%------------------------------------------------------------------------------
+%% @doc
+%% The dispatcher loop. Receives requests of the form
+%% `{From, Ref, CodePaths, Function, Arguments}' and executes each request in
+%% its own (monitored) process, replying `{Ref, Result}' to `From'. Crashing
+%% scripts, as well as workers killed by exit signals, are reported as
+%% `{Ref, {badrpc, {'EXIT', Reason}}}'. A request of
+%% the form `{From, Ref, kill, Target}' kills the process executing the request
+%% `Target' and replies with a dump of its process info. Scripts may report
+%% intermediate results as `{Ref, progress, Term}' (see {@link progress/1}). The number of running
+%% workers and the requested code paths are reported to the watchdog process
+%% if running (see {@link watchdog/4}).
+%% @end
+%%------------------------------------------------------------------------------
+dispatch(Workers) ->
+    receive
+        {From, Ref, CodePaths, Function, Arguments} ->
+            {Pid, _} = spawn_monitor(
+                         fun() ->
+                                 put(?PROGRESS, {From, Ref}),
+                                 Result = try exec(CodePaths, Function, Arguments)
+                                          catch
+                                              Class:Reason -> {badrpc, {'EXIT', {Class, Reason}}}
+                                          end,
+                                 From ! {Ref, Result}
+                         end),
+            notify({busy, length(Workers) + 1, CodePaths}),
+            ?MODULE:dispatch([{Ref, Pid, From} | Workers]);
+        {From, Ref, kill, Target} ->
+            Info = case lists:keyfind(Target, 1, Workers) of
+                       {Target, Pid, _} -> kill_worker(Pid);
+                       false -> "process already finished"
+                   end,
+            From ! {Ref, Info},
+            ?MODULE:dispatch(Workers);
+        {'DOWN', _, process, Pid, Reason} ->
+            case {lists:keyfind(Pid, 2, Workers), Reason} of
+                {{_, _, _}, normal} ->
+                    ok;
+                {{Ref, Pid, From}, _} ->
+                    %% exit signals cannot be caught by the worker itself
+                    From ! {Ref, {badrpc, {'EXIT', Reason}}};
+                {false, _} ->
+                    ok
+            end,
+            Remaining = lists:keydelete(Pid, 2, Workers),
+            notify({busy, length(Remaining), []}),
+            ?MODULE:dispatch(Remaining);
+        _ ->
+            ?MODULE:dispatch(Workers)
+    end.
+
+%%------------------------------------------------------------------------------
+%% @doc
+%% Executes a script function of this module. The given code paths will be
+%% prepended to the code server's path before the function gets applied to
+%% the script arguments.
+%% @end
+%%------------------------------------------------------------------------------
+exec(CodePaths, Function, Arguments) ->
+    code:add_pathsa(CodePaths),
+    apply(?MODULE, Function, Arguments).
+
+%%------------------------------------------------------------------------------
+%% @doc
+%% The watchdog loop of reused (daemon or shared) nodes. Halts the node when
+%% no script was running for `Timeout' milliseconds. The code paths requested
+%% by scripts are recorded for the currently attached project namespace. When
+%% a project attaches, the recorded code paths get removed and the modules
+%% loaded from them are purged. When the namespace changes all modules not
+%% belonging to OTP are purged.
+%% @end
+%%------------------------------------------------------------------------------
+watchdog(Timeout, Busy, Namespace, Paths) ->
+    After = case Busy of
+                0 -> Timeout;
+                _ -> infinity
+            end,
+    receive
+        {busy, N, CodePaths} ->
+            ?MODULE:watchdog(Timeout, N, Namespace, lists:usort(Paths ++ CodePaths));
+        {From, Ref, {timeout, NewTimeout}} ->
+            From ! {Ref, ok},
+            ?MODULE:watchdog(NewTimeout, Busy, Namespace, Paths);
+        {From, Ref, {attach, NewNamespace}} ->
+            remove_paths(Paths),
+            case NewNamespace of
+                Namespace -> ok;
+                _ -> purgemodules()
+            end,
+            From ! {Ref, ok},
+            ?MODULE:watchdog(Timeout, Busy, NewNamespace, []);
+        _ ->
+            ?MODULE:watchdog(Timeout, Busy, Namespace, Paths)
+    after After ->
+            error_logger:info_msg("maven-erlang-plugin daemon idle, halting~n"),
+            init:stop()
+    end.
+
+%%%=============================================================================
+%%% Scripts
+%%%=============================================================================
+
+beamcompiler(OutDir, Includes, CustomOptions, Files, FirstFiles, Processes, IndexFile, DeferLoading, FailFast) ->
+    Options = [return, {outdir, OutDir}]
+        ++ [{i, Include} || Include <- Includes]
+        ++ [parse_term(Option) || Option <- CustomOptions],
+    Compile = fun(Source, Sequential) ->
+                      compile_module(Source, Options, OutDir, true, Sequential)
+              end,
+    CompileLast = fun(Source, Sequential) ->
+                          compile_module(Source, Options, OutDir, not DeferLoading, Sequential)
+                  end,
+    Notify = fun({Source, [], W, _, _}) ->
+                     progress({compiled, Source, format_compile_report(W)}),
+                     continue;
+                ({Source, E, W, _, _}) ->
+                     progress({failed, Source, format_compile_report(E), format_compile_report(W)}),
+                     case FailFast of
+                         true -> stop;
+                         false -> continue
+                     end
+             end,
+    Max = compiler_processes(Processes),
+    {Pts, Bhvs, Others} = stage_files(Files, IndexFile),
+    Stages = [{Compile, [File]} || File <- FirstFiles]
+        ++ [{Compile, Level} || Level <- Pts ++ Bhvs]
+        ++ [{CompileLast, Others}],
+    {Results, _} = lists:foldl(
+                     fun(_, {Acc, stop}) ->
+                             {Acc, stop};
+                        ({Fun, Stage}, {Acc, continue}) ->
+                             Sequential = Max =:= 1 orelse length(Stage) =< 1,
+                             StageFun = fun(Source) -> Fun(Source, Sequential) end,
+                             {R, Status} = parallel_map(StageFun, Stage, Max, Notify),
+                             {Acc ++ R, Status}
+                     end, {[], continue}, Stages),
+    case DeferLoading of
+        true ->
+            Deferred = ordsets:from_list(Others),
+            Loaded = [S || {S, [], _, _, _} <- Results, ordsets:is_element(S, Deferred)],
+            ok = reload_modules(Loaded, OutDir);
+        false ->
+            ok
+    end,
+    lists:foldl(
+      fun({Source, [], W, Dependencies, {Micros, Reds}}, {Failed, Compiled, Errors, Warnings, Deps, Times}) ->
+              {Failed,
+               [Source | Compiled],
+               Errors,
+               Warnings ++ format_compile_report(W),
+               [Dependencies | Deps],
+               [{Source, Micros, Reds} | Times]};
+         ({Source, E, W, _, {Micros, Reds}}, {Failed, Compiled, Errors, Warnings, Deps, Times}) ->
+              {[Source | Failed],
+               Compiled,
+               Errors ++ format_compile_report(E),
+               Warnings ++ format_compile_report(W),
+               Deps,
+               [{Source, Micros, Reds} | Times]}
+      end, {[], [], [], [], [], []}, Results).
+
+checkapp(AppFile) ->
+    case file:consult(AppFile) of
+        {ok, [{application, A, Props}]} ->
+            V = proplists:get_value(vsn, Props, undefined),
+            S = proplists:get_value(mod, Props, omitted),
+            M = proplists:get_value(modules, Props, []),
+            D = proplists:get_value(applications, Props, []),
+            case S of
+                {Module, _} -> {ok, A, V, Module, M, D};
+                _ -> {ok, A, V, S, M, D}
+            end;
+        _ ->
+            {error, undefined, undefined, undefined, [], []}
+    end.
+
+checkappup(AppUpFile, Version) ->
+    lists:flatten(
+      case file:consult(AppUpFile) of
+          {ok, [{Version, Up, Down}]} when is_list(Up) andalso is_list(Down) ->
+              lists:foldl(
+                fun({V, Is}, []) when is_list(Is) ->
+                        lists:foldl(
+                          fun(E, []) when is_tuple(E) ->
+                                  [];
+                             (E, []) ->
+                                  io_lib:format("malformed instruction in ~p: ~p", [V, E]);
+                             (_, Acc) ->
+                                  Acc
+                          end, [], Is);
+                   (T, []) ->
+                        io_lib:format("malformed entry ~p", [T]);
+                   (_, Acc) ->
+                        Acc
+                end, [], Up ++ Down);
+          {ok, [{V, _, _}]} ->
+              io_lib:format(".appup has invalid version ~p", [V]);
+          {ok, _} ->
+              ".appup file is malformed";
+          {error, E = {_, _, _}} ->
+              file:format_error(E);
+          {error, Reason} ->
+              io_lib:format("file:consult/1 failed with ~p", [Reason])
+      end).
+
+checkrel(RelFile) ->
+    case file:consult(RelFile) of
+        {ok, [{release, {N, V}, {erts, E}, Apps}]} ->
+            {ok, N, V, E, lists:map(
+                            fun({App, Vsn}) -> {App, Vsn};
+                               ({App, Vsn, _}) -> {App, Vsn};
+                               ({App, Vsn, _, _}) -> {App, Vsn}
+                            end, Apps)};
+        _ ->
+            {error, undefined, undefined, undefined, []}
+    end.
+
+coveragereport(Dir, Tests, Modules, CoveragePath, CoverageName) ->
+    CoverageFile = filename:join([CoveragePath, "COVERAGE-" ++ CoverageName ++ ".txt"]),
+    Tty = {report, {ttycapture, [{report_to, self()}]}},
+    case cover2:compile_beam_directory(Dir, [debug_info, export_all, {d, 'TEST'}]) of
+        {error, Reason} ->
+            {error, [lists:flatten(io_lib:format("~p", [Reason]))]};
+        _ ->
+            try eunit:test(Tests, [Tty]) of
+                ok ->
+                    Levels = [module, function, clause, line],
+                    Results = [{L, cover2:analyse(M, coverage, L)} || M <- Modules, L <- Levels],
+                    SortedResults = sort_coverage_reports(Results),
+                    Table = tableify_coverage_report(SortedResults),
+                    FlatTable = lists:flatten(Table),
+                    ok = write_coverage_table(CoverageFile, FlatTable),
+                    {ok, FlatTable};
+                error ->
+                    receive
+                        {_Level, _Numbers, Captured} ->
+                            {error, Captured}
+                    end;
+                {error, Reason} ->
+                    {error, [lists:flatten(io_lib:format("~p", [Reason]))]}
+            catch
+                Class:Exception ->
+                    Msg = io_lib:format("~p:~p", [Class, Exception]),
+                    {error, ["*test execution failed*" ++ [lists:flatten(Msg)]]}
+            end
+    end.
+
+attach(Namespace, Cwd) ->
+    case watchdog_call({attach, Namespace}) of
+        ok ->
+            case file:set_cwd(Cwd) of
+                ok -> ok;
+                {error, Reason} -> lists:flatten(io_lib:format("cannot set cwd: ~p", [Reason]))
+            end;
+        Error ->
+            Error
+    end.
+
+createreleases(RootDirectory, RelDirectory, RelFile) ->
+    release_handler:create_RELEASES(RootDirectory, RelDirectory, RelFile, []).
+
+daemon(Command, IdleTimeout) ->
+    Release = erlang:system_info(otp_release),
+    Installed = filename:join([code:root_dir(), "releases", Release]),
+    case {init:get_argument(?DAEMON_FLAG), filelib:is_dir(Installed)} of
+        {{ok, [[Command]]}, true} ->
+            watchdog_call({timeout, IdleTimeout * 1000});
+        {{ok, [[Other]]}, true} ->
+            "node was started using " ++ Other;
+        {{ok, _}, false} ->
+            "OTP release " ++ Release ++ " is no longer installed";
+        {error, _} ->
+            "node was not started as daemon"
+    end.
+
+dialyzer(Directories, Includes, WarnOptions) ->
+    Options = [{from, src_code},
+               {get_warnings, true},
+               {files_rec, Directories},
+               {include_dirs, Includes},
+               {warnings, parse_term("[" ++ WarnOptions ++ "]")}],
+    lists:map(
+      fun(Warning) ->
+              lists:flatten(dialyzer:format_warning(Warning))
+      end,
+      dialyzer:run(Options)).
+
+edoc(In, Out, Overview, Application) ->
+    Options = [{todo, true}, {new, true}, {subpackages, true}],
+    edoc:application(Application, In, [{dir, Out}, {overview, Overview}] ++ Options).
+
+filterforattribute(Attribute, Modules) ->
+    lists:flatten(
+      lists:foldl(
+        fun(Module, Acc) ->
+                A = Module:module_info(attributes),
+                case proplists:get_value(Attribute, A) of
+                    undefined ->
+                        Acc;
+                    _ ->
+                        [Module | Acc]
+                end
+        end, [], Modules)).
+
+getappupdirective(Module, Path) ->
+    code:purge(Module),
+    code:delete(Module),
+    code:purge(Module),
+    case code:load_abs(filename:join([Path, atom_to_list(Module)])) of
+        {module, M} ->
+            Attributes = M:module_info(attributes),
+            Exports = M:module_info(exports),
+            IsSupBE = lists:member({behaviour, [supervisor]}, Attributes),
+            IsSupAE = lists:member({behavior, [supervisor]}, Attributes),
+            IsUpdateable = lists:member({code_change, 3}, Exports),
+            case IsSupAE orelse IsSupBE of
+                true ->
+                    {update, M, supervisor};
+                false when IsUpdateable ->
+                    {update, M};
+                false ->
+                    {load_module, M}
+            end;
+        {error, _Reason} ->
+            error
+    end.
+
+getattributes(Attributes, Modules) ->
+    lists:flatten(
+      lists:foldl(
+        fun(Module, Acc) ->
+                A = Module:module_info(attributes),
+                lists:foldl(
+                  fun(Attr, InnerAcc) ->
+                          case proplists:get_value(Attr, A) of
+                              undefined ->
+                                  InnerAcc;
+                              Value ->
+                                  [Value | InnerAcc]
+                          end
+                  end, Acc, Attributes)
+        end, [], Modules)).
+
+loadmodules(Modules) ->
+    lists:foldl(
+      fun(Module, Acc) ->
+              code:purge(Module),
+              code:delete(Module),
+              code:purge(Module),
+              case code:load_file(Module) of
+                  {module, _} -> Acc + 1;
+                  _ -> Acc
+              end
+      end, 0, Modules).
+
+makerelup(Relup, Rel, Releases, Paths) ->
+    case systools:make_relup(Rel, Releases, Releases, [{path, Paths}, silent, noexec]) of
+        {ok, {_, UpFrom, DownTo}, Module, Warnings} ->
+            Content = io_lib:format("{${VERSION},\n ~p,\n ~p}.\n", [UpFrom, DownTo]),
+            case file:write_file(Relup, Content) of
+                ok ->
+                    {ok, lists:flatten(Module:format_warning(Warnings))};
+                Error ->
+                    Error
+            end;
+        {error, Module, Error} ->
+            {error, lists:flatten(Module:format_error(Error))}
+    end.
+
+makescript(Release, OutDir, Options) ->
+    Opts = parse_term("[" ++ Options ++ "]"),
+    systools_result(systools:make_script(Release, [silent, {outdir, OutDir}] ++ Opts)).
+
+maketar(Release, OutDir, Options) ->
+    Opts = parse_term("[" ++ Options ++ "]"),
+    systools_result(systools:make_tar(Release, [silent, {outdir, OutDir}] ++ Opts)).
+
+mibcompiler(OutDir, Includes, Files, Processes) ->
+    Options = [{outdir, OutDir}, {i, Includes}],
+    Max = compiler_processes(Processes),
+    Sequential = Max =:= 1 orelse length(Files) =< 1,
+    Compile = fun(Source) ->
+                      {Result, Time} = measure(fun() -> snmpc:compile(Source, Options) end, Sequential),
+                      {Source, Result, Time}
+              end,
+    {Results, _} = parallel_map(Compile, Files, Max, fun(_) -> continue end),
+    lists:foldl(
+      fun({Source, Result, {Micros, Reds}}, {Failed, Compiled, Errors, Times}) ->
+              NewTimes = [{Source, Micros, Reds} | Times],
+              case Result of
+                  {ok, _MibBinary} ->
+                      {Failed, [Source | Compiled], Errors, NewTimes};
+                  {error, Reason} ->
+                      {[Source | Failed], Compiled, Errors ++ format_generic_report(Reason), NewTimes}
+              end
+      end, {[], [], [], []}, Results).
+
+profiling(ProfilingPath, ProfilingName, Tests, TimeoutSecs) ->
+    ProfilingFile = filename:join([ProfilingPath, "PROFILING-" ++ ProfilingName ++ ".txt"]),
+    Timeout = TimeoutSecs * 1000,
+    %% spawns a process that roots the eunit test invocations to its pid.
+    %% all processes and funs that are run as children from this one will
+    %% be profiled.
+    Runner = spawn(
+               fun() ->
+                       Tty = {report, {ttycapture, [{report_to, self()}]}},
+                       receive
+                           {start, Starter} ->
+                               %% note: eunit tests only profiled if spawned
+                               %% AFTER eprof is started.
+                               eunit:stop(),
+                               try eunit:test(Tests, [Tty]) of
+                                   error -> Starter ! {error, nothing, ["Test(s) failed!"]};
+                                   _ -> ok
+                               catch
+                                   Cl:Ex ->
+                                       Msg = io_lib:format("~p:~p", [Cl, Ex]),
+                                       Starter ! {error, nothing, [lists:flatten(Msg)]}
+                               end,
+                               receive
+                                   TestResults -> Starter ! TestResults
+                               after Timeout ->
+                                       Starter ! {error, nothing, ["Timeout, waiting for test results."]}
+                               end
+                       end
+               end),
+    {ok, _} = eprof:start(),
+    profiling = eprof:start_profiling([Runner]),
+    Runner ! {start, self()},
+    Result = receive
+                 {Level, _, Messages} -> {Level, Messages}
+             after Timeout ->
+                     {error, ["Timeout, waiting for profiling results."]}
+             end,
+    eprof:stop_profiling(),
+    eprof:log(ProfilingFile),
+    eprof:analyze(total),
+    eprof:stop(),
+    Result.
+
+purgemodules() ->
+    purge_modules(ordsets:new()).
+
+reloadmodules(Modules) ->
+    Keep = ordsets:from_list([M || {M, _, Md5} <- Modules, loaded_md5(M) =:= Md5]),
+    purge_modules(Keep),
+    Loaded = load_modules([{M, F} || {M, F, _} <- Modules, not ordsets:is_element(M, Keep)]),
+    {length(Keep), Loaded}.
+
+runproject(local, Applications, SysConfigFile) ->
+    runproject(node(), Applications, SysConfigFile);
+runproject(Node, Applications, SysConfigFile) ->
+    case configure(Node, SysConfigFile) of
+        ok ->
+            {S, F} = start_applications(Node, Applications, {[], []}),
+            {lists:reverse(S), lists:reverse(F)};
+        Error ->
+            {[], [Error]}
+    end.
+
+runtimeinfo() ->
+    {filename:join([code:lib_dir()]),
+     filename:join([code:root_dir()]),
+     erlang:system_info(version),
+     erlang:system_info(otp_release),
+     [filename:join([P]) || P <- code:get_path(), P =/= "."]}.
+
+setcwd(Directory) ->
+    ok = file:set_cwd(Directory).
+
+targzarchiver(Archive, Files) ->
+    erl_tar:create(Archive, Files, [compressed]).
+
+targzunarchiver(Archive, Destination) ->
+    ok = erl_tar:extract(Archive, [compressed, {cwd, Destination}]).
+
+test(SurefirePath, SuiteName, Tests) ->
+    Surefire = {report, {surefire, [{dir, SurefirePath}, {package, SuiteName ++ "."}]}},
+    Tty = {report, {ttycapture, [{report_to, self()}]}},
+    Out = try eunit:test(Tests, [Surefire, Tty]) of
+              error ->
+                  ["*test execution failed*", ""];
+              {error, Why} ->
+                  Msg = io_lib:format("~p", [Why]),
+                  [lists:flatten(Msg), "*test execution failed*", ""];
+              _ ->
+                  []
+          catch
+              Class:Exception ->
+                  Msg = io_lib:format("~p:~p", [Class, Exception]),
+                  [lists:flatten(Msg), "*test execution failed*", ""]
+          end,
+    receive
+        {Level, Numbers, Captured} ->
+            {Level, Numbers, Captured ++ Out}
+    end.
+
+uploadrelease(Node, Release) ->
+    case net_kernel:connect(Node) of
+        true ->
+            FileName = filename:basename(Release),
+            DestRoot = rpc:call(Node, code, root_dir, []),
+            Dest = rpc:call(Node, filename, join, [[DestRoot, "releases", FileName]]),
+            case file:read_file(Release) of
+                {ok, Binary} ->
+                    rpc:call(Node, file, write_file, [Dest, Binary]);
+                Other ->
+                    Other
+            end;
+        false ->
+            {error, {cannot_connect, Node}}
+    end.
+
+upload(Node, BeamFileList, AppFileList, ResourceList) ->
+    Tmp = get_tmp_dir(Node),
+    case net_kernel:connect(Node) of
+        true ->
+            A = lists:foldl(
+                  fun(Beam, {Succeeded, Failed}) ->
+                          case upload_module(Node, Beam) of
+                              Beam ->
+                                  {[Beam | Succeeded], Failed};
+                              Error ->
+                                  {Succeeded, [Error | Failed]}
+                          end
+                  end, {[], []}, BeamFileList),
+            B = lists:foldl(
+                  fun(AppFile, {Succeeded, Failed}) ->
+                          case load_app(Node, AppFile) of
+                              AppFile ->
+                                  {[AppFile | Succeeded], Failed};
+                              Error ->
+                                  {Succeeded, [Error | Failed]}
+                          end
+                  end, A, AppFileList),
+            lists:foldl(
+              fun(Resource, {Succeeded, Failed}) ->
+                      case upload_resource(Node, Resource, Tmp) of
+                          Resource ->
+                              ok = add_resource_to_code_path(Node, Resource, Tmp),
+                              {[Resource | Succeeded], Failed};
+                          Error ->
+                              {Succeeded, [Error | Failed]}
+                      end
+              end, B, ResourceList);
+        false ->
+            {error, {failed_to_connect_to, Node}}
+    end.
+
+xrlcompiler(OutDir, Files) ->
+    generate(
+      fun(File) ->
+              Base = filename:rootname(filename:basename(File)),
+              Dest = filename:join([OutDir, Base ++ ".erl"]),
+              leex:file(File, [{scannerfile, Dest}, {verbose, true}, return])
+      end, Files).
+
+yrlcompiler(OutDir, Files) ->
+    generate(
+      fun(File) ->
+              Dest = filename:join([OutDir, filename:rootname(filename:basename(File))]),
+              yecc:file(File, [{parserfile, Dest}, {verbose, true}, return])
+      end, Files).
+
+%%%=============================================================================
+%%% Internal functions
+%%%=============================================================================
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Returns the flattened output of io_lib:format.
+%%------------------------------------------------------------------------------
+format_flatten(Format, Args) ->
+    lists:flatten(io_lib:format(Format, Args)).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Kills a process executing a script, returning a dump of its process info
+%% (including the current stacktrace if supported by the emulator).
+%%------------------------------------------------------------------------------
+kill_worker(Pid) ->
+    Items = [current_function, current_stacktrace, status, message_queue_len],
+    Info = try erlang:process_info(Pid, Items)
+           catch
+               error:badarg -> erlang:process_info(Pid, [current_function, status])
+           end,
+    exit(Pid, kill),
+    format_flatten("~p", [Info]).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Parses a user supplied option string (e.g. from the plugin configuration)
+%% into an erlang term.
+%%------------------------------------------------------------------------------
+parse_term(String) ->
+    {ok, Tokens, _} = erl_scan:string(String ++ "."),
+    {ok, Term} = erl_parse:parse_term(Tokens),
+    Term.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Purges and deletes a module from the code server.
+%%------------------------------------------------------------------------------
+purge(Module) ->
+    code:purge(Module),
+    code:delete(Module),
+    code:purge(Module).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Purges all modules currently loaded except the ones given in the ordset
+%% `Keep', the ones loaded directly from the backends lib directory and the
+%% ones belonging to the `Emacs/distel' project.
+%%------------------------------------------------------------------------------
+purge_modules(Keep) ->
+    LibDir = filename:join([code:lib_dir()]),
+    lists:foreach(
+      fun({_, preloaded}) ->
+              ok;
+         ({M, _}) when M =:= ?MODULE
+                       orelse M =:= distel
+                       orelse M =:= distel_ie
+                       orelse M =:= fdoc
+                       orelse M =:= otp_doc ->
+              ok;
+         ({Module, Path}) when is_list(Path) ->
+              Normalized = filename:join([Path]),
+              case string:str(Normalized, LibDir) =:= 1
+                  orelse ordsets:is_element(Module, Keep) of
+                  true ->
+                      ok;
+                  false ->
+                      purge(Module)
+              end;
+         ({Module, cover_compiled}) ->
+              purge(Module)
+      end,
+      code:all_loaded()).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Returns the MD5 checksum of the currently loaded version of a module or
+%% `undefined' if the module is not loaded or the checksum is not available.
+%%------------------------------------------------------------------------------
+loaded_md5(Module) ->
+    case code:is_loaded(Module) of
+        false ->
+            undefined;
+        _ ->
+            case catch Module:module_info(md5) of
+                Md5 when is_binary(Md5) -> Md5;
+                _ -> undefined
+            end
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Loads the given `{Module, BeamFile}' tuples in one step using
+%% `code:atomic_load/1', if available. Otherwise, or if the atomic load fails,
+%% the modules are loaded one by one. Returns the number of loaded modules.
+%%------------------------------------------------------------------------------
+load_modules(Modules) ->
+    Load = fun() ->
+                   lists:foldl(
+                     fun({Module, File}, Acc) ->
+                             purge(Module),
+                             case code:load_abs(filename:rootname(File, ".beam")) of
+                                 {module, _} -> Acc + 1;
+                                 _ -> Acc
+                             end
+                     end, 0, Modules)
+           end,
+    case erlang:function_exported(code, atomic_load, 1) of
+        true ->
+            Beams = [{Module, File, Binary}
+                     || {Module, File} <- Modules,
+                        {ok, Binary} <- [file:read_file(File)]],
+            lists:foreach(fun({Module, _}) -> code:purge(Module) end, Modules),
+            case code:atomic_load(Beams) of
+                ok -> length(Beams);
+                {error, _} -> Load()
+            end;
+        false ->
+            Load()
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Removes code paths from the code server and purges all modules loaded from
+%% one of these paths.
+%%------------------------------------------------------------------------------
+remove_paths(Paths) ->
+    Normalized = [filename:join([P]) || P <- Paths],
+    lists:foreach(
+      fun({M, _}) when M =:= ?MODULE ->
+              ok;
+         ({Module, File}) when is_list(File) ->
+              case lists:member(filename:dirname(File), Normalized) of
+                  true -> purge(Module);
+                  false -> ok
+              end;
+         (_) ->
+              ok
+      end,
+      code:all_loaded()),
+    lists:foreach(fun code:del_path/1, Paths).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Sends a request to the watchdog process and waits for the reply. The
+%% watchdog process gets started (without idle timeout) if necessary.
+%%------------------------------------------------------------------------------
+watchdog_call(Request) ->
+    Pid = case whereis(?WATCHDOG) of
+              undefined ->
+                  W = spawn(?MODULE, watchdog, [infinity, 0, undefined, []]),
+                  try register(?WATCHDOG, W) of
+                      true -> W
+                  catch
+                      error:badarg -> exit(W, kill), whereis(?WATCHDOG)
+                  end;
+              W ->
+                  W
+          end,
+    Ref = erlang:monitor(process, Pid),
+    Pid ! {self(), Ref, Request},
+    receive
+        {Ref, ok} ->
+            erlang:demonitor(Ref, [flush]),
+            ok;
+        {'DOWN', Ref, process, _, Reason} ->
+            lists:flatten(io_lib:format("watchdog failed: ~p", [Reason]))
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Sends a message to the watchdog process, if running.
+%%------------------------------------------------------------------------------
+notify(Message) ->
+    case whereis(?WATCHDOG) of
+        undefined -> ok;
+        Pid -> Pid ! Message, ok
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Compiles a source file, returning `{Src, Errors, Warnings, Dependencies}'.
+%% The source is preprocessed only once, the dependencies of the module (see
+%% {@link form_dependencies/3}) are taken from the forms passed to the
+%% compiler. Options producing listings instead of a `.beam' file are left to
+%% `compile:file/2', the dependencies are then retrieved separately.
+%%------------------------------------------------------------------------------
+compile_beam(Src, Options) ->
+    case [O || O <- Options, lists:member(O, ?LISTING_OPTIONS)] of
+        [] ->
+            case epp:parse_file(Src, include_path(Src, Options), predefined_macros(Options)) of
+                {ok, Forms} ->
+                    compile_forms(Src, Forms, Options);
+                {error, Reason} ->
+                    {Src, [{Src, [{none, compile, {epp, Reason}}]}], [], undefined}
+            end;
+        _ ->
+            case compile:file(Src, Options) of
+                {error, E, W} ->
+                    {Src, E, W, undefined};
+                {ok, _, W} ->
+                    {Src, [], W, module_dependencies(Src, Options)}
+            end
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Compiles the preprocessed forms of a source file and writes the `.beam' file
+%% into the output directory, just like `compile:file/2' would.
+%%------------------------------------------------------------------------------
+compile_forms(Src, Forms, Options) ->
+    OutDir = proplists:get_value(outdir, Options, "."),
+    Beam = filename:join(OutDir, filename:basename(Src, ".erl") ++ ".beam"),
+    case compile:forms(Forms, [binary, {source, filename:absname(Src)} | Options]) of
+        {ok, _, Binary, W} ->
+            case file:write_file(Beam, Binary) of
+                ok -> {Src, [], W, form_dependencies(Src, Forms, Options)};
+                {error, _} -> {Src, [{Beam, [{none, compile, write_error}]}], W, undefined}
+            end;
+        {error, E, W} ->
+            {Src, E, W, undefined}
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Compiles a single module and optionally loads it on success, so that it is
+%% available to the modules of subsequent stages. The returned tuple contains
+%% the time spent compiling the module (see {@link measure/2}).
+%%------------------------------------------------------------------------------
+compile_module(Source, Options, OutDir, Load, Sequential) ->
+    case measure(fun() -> compile_beam(Source, Options) end, Sequential) of
+        {{Source, [], W, Dependencies}, Time} ->
+            case Load of
+                true -> ok = load_compiled(Source, OutDir);
+                false -> ok
+            end,
+            {Source, [], W, Dependencies, Time};
+        {{Source, E, W, _}, Time} ->
+            {Source, E, W, undefined, Time}
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Evaluates a fun and returns its result along with the elapsed wall time in
+%% microseconds and the number of reductions executed on the node meanwhile.
+%% Since the compilers spawn processes on their own, the reductions can only be
+%% taken node wide. They are only measured if `Sequential' is `true', i.e. if
+%% nothing else is evaluated concurrently, otherwise `undefined' is returned.
+%%------------------------------------------------------------------------------
+measure(Fun, true) ->
+    {Reductions, _} = erlang:statistics(reductions),
+    {Result, {Micros, undefined}} = measure(Fun, false),
+    {NewReductions, _} = erlang:statistics(reductions),
+    {Result, {Micros, NewReductions - Reductions}};
+measure(Fun, false) ->
+    Start = os:timestamp(),
+    Result = Fun(),
+    {Result, {timer:now_diff(os:timestamp(), Start), undefined}}.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Replaces the currently loaded versions of the modules compiled from the
+%% given sources in one step using `code:atomic_load/1', if available. Modules
+%% that are not loaded are left to be loaded on demand from the output
+%% directory.
+%%------------------------------------------------------------------------------
+reload_modules(Sources, OutDir) ->
+    Loaded = [{Source, Module}
+              || Source <- Sources,
+                 Module <- [list_to_atom(filename:basename(Source, ".erl"))],
+                 code:is_loaded(Module) =/= false],
+    Reload = fun() ->
+                     lists:foreach(
+                       fun({Source, _}) -> ok = load_compiled(Source, OutDir) end,
+                       Loaded)
+             end,
+    case erlang:function_exported(code, atomic_load, 1) of
+        true ->
+            Beams = [{Module, Beam, Binary}
+                     || {_, Module} <- Loaded,
+                        Beam <- [filename:join(OutDir, atom_to_list(Module) ++ ".beam")],
+                        {ok, Binary} <- [file:read_file(Beam)]],
+            lists:foreach(fun({_, Module}) -> code:purge(Module) end, Loaded),
+            case code:atomic_load(Beams) of
+                ok -> ok;
+                {error, _} -> Reload()
+            end;
+        false ->
+            Reload()
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Returns the maximum number of modules to compile in parallel, defaults to
+%% the number of online schedulers.
+%%------------------------------------------------------------------------------
+compiler_processes(Processes) when is_integer(Processes), Processes > 0 ->
+    Processes;
+compiler_processes(_) ->
+    erlang:system_info(schedulers_online).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Applies a function to all elements of a list using at most `Max' linked
+%% processes at a time. Each result is passed to `Notify' in the calling
+%% process as soon as it is available, if `Notify' returns `stop' no further
+%% elements are processed. Returns `{Results, continue | stop}' with the
+%% results of the processed elements in the order of the input list. An
+%% exception raised by the function is re-raised in the calling process along
+%% with its original stacktrace, which also takes down the remaining workers.
+%%------------------------------------------------------------------------------
+parallel_map(Fun, List, Max, Notify) ->
+    Indexed = lists:zip(lists:seq(1, length(List)), List),
+    parallel_map(Fun, Notify, make_ref(), Indexed, Max, 0, [], continue).
+
+parallel_map(_Fun, _Notify, _Ref, Pending, _Max, 0, Acc, Status)
+  when Pending =:= []; Status =:= stop ->
+    {[Result || {_, Result} <- lists:keysort(1, Acc)], Status};
+parallel_map(Fun, Notify, Ref, [{I, Element} | Rest], Max, Running, Acc, continue)
+  when Running < Max ->
+    Self = self(),
+    spawn_link(fun() ->
+                       Self ! {Ref, I, try {ok, Fun(Element)}
+                                       catch ?EXCEPTION(Class, Reason, Stacktrace) ->
+                                               {Class, Reason, ?STACKTRACE(Stacktrace)}
+                                       end}
+               end),
+    parallel_map(Fun, Notify, Ref, Rest, Max, Running + 1, Acc, continue);
+parallel_map(Fun, Notify, Ref, Pending, Max, Running, Acc, Status) ->
+    receive
+        {Ref, I, {ok, Result}} ->
+            NewStatus = case Notify(Result) of
+                            stop -> stop;
+                            continue -> Status
+                        end,
+            parallel_map(Fun, Notify, Ref, Pending, Max, Running - 1, [{I, Result} | Acc], NewStatus);
+        {Ref, _, {Class, Reason, Stacktrace}} ->
+            erlang:raise(Class, Reason, Stacktrace)
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Reports an intermediate result of the currently executing script to the
+%% frontend as `{Ref, progress, Term}'. Does nothing if the script was not
+%% started by the dispatcher.
+%%------------------------------------------------------------------------------
+progress(Term) ->
+    case get(?PROGRESS) of
+        {From, Ref} ->
+            From ! {Ref, progress, Term},
+            ok;
+        _ ->
+            ok
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Preprocesses a source file to retrieve its dependencies (see
+%% {@link form_dependencies/3}).
+%%------------------------------------------------------------------------------
+module_dependencies(Source, Options) ->
+    Forms = case epp:parse_file(Source, include_path(Source, Options), predefined_macros(Options)) of
+                {ok, F} -> F;
+                _ -> []
+            end,
+    form_dependencies(Source, Forms, Options).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Returns the files included by a source file (including `include_lib'),
+%% the parse transforms and the behaviours used by the module, in the form
+%% `{Source, Includes, ParseTransforms, Behaviours}'. The dependencies are
+%% taken from the preprocessed forms of the source.
+%%------------------------------------------------------------------------------
+form_dependencies(Source, Forms, Options) ->
+    Self = filename:absname(Source),
+    {Includes, ParseTransforms, Behaviours} =
+        lists:foldl(
+          fun({attribute, _, file, {File, _}}, {I, P, B}) ->
+                  {[filename:absname(File) | I], P, B};
+             ({attribute, _, compile, C}, {I, P, B}) ->
+                  {I, [M || {parse_transform, M} <- lists:flatten([C])] ++ P, B};
+             ({attribute, _, behaviour, M}, {I, P, B}) ->
+                  {I, P, [M | B]};
+             ({attribute, _, behavior, M}, {I, P, B}) ->
+                  {I, P, [M | B]};
+             (_, Acc) ->
+                  Acc
+          end, {[], [], []}, Forms),
+    {Source,
+     lists:usort(Includes) -- [Self],
+     lists:usort(ParseTransforms ++ [M || {parse_transform, M} <- Options]),
+     lists:usort(Behaviours)}.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Returns the include path used by the compiler for a source file.
+%%------------------------------------------------------------------------------
+include_path(Source, Options) ->
+    [".", filename:dirname(Source)] ++ [I || {i, I} <- Options].
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Returns the macros predefined by the given compiler options.
+%%------------------------------------------------------------------------------
+predefined_macros(Options) ->
+    [{M, true} || {d, M} <- Options] ++ [{M, V} || {d, M, V} <- Options].
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Formats the report returned by the compiler function.
+%%------------------------------------------------------------------------------
+format_compile_report(Msgs) ->
+    lists:foldl(
+      fun({File, Exceptions}, Acc) ->
+              lists:foldr(
+                fun({Line, M, Info}, A) ->
+                        Flat = lists:flatten(M:format_error(Info)),
+                        [format_flatten(" * ~s:~p", [File, Line]),
+                         format_flatten("   ~s", [Flat])] ++ A;
+                   (Else, A) ->
+                        [format_flatten(" * ~s", [File]),
+                         format_flatten("   ~p", [Else])] ++ A
+                end, Acc, Exceptions)
+      end, [], Msgs).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Formats the report returned by the leex, yecc and snmpc compilers. Reports
+%% of the form `[{File, [{Line, Module, Info}]}]' are formatted like the
+%% reports of the compiler (see {@link format_compile_report/1}), any other
+%% reason is printed as is.
+%%------------------------------------------------------------------------------
+format_generic_report([_ | _] = Msgs) ->
+    case lists:all(fun is_file_report/1, Msgs) of
+        true -> format_compile_report(Msgs);
+        false -> [format_flatten(" * ~p", [Msgs])]
+    end;
+format_generic_report(Msg) ->
+    [format_flatten(" * ~p", [Msg])].
+
+is_file_report({File, Exceptions}) when is_list(File), is_list(Exceptions) ->
+    true;
+is_file_report(_) ->
+    false.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Retrieve a list of attributes from the abstract forms of a specific
+%% source file. Attributes are returned in the form `{export, {Fun, Arity}}',
+%% `{behaviour, Behaviour}' and `{parse_transform, Module}', a module defining
+%% callbacks is reported as exporting `behaviour_info/1'.
+%%------------------------------------------------------------------------------
+get_module_attributes(SrcFile) ->
+    case epp_dodger:quick_parse_file(SrcFile) of
+        {ok, Forms} ->
+            lists:usort(
+              lists:foldl(
+                fun({attribute, _, export, Exports}, Acc) ->
+                        [{export, E} || E <- Exports] ++ Acc;
+                   ({attribute, _, callback, _}, Acc) ->
+                        [{export, {behaviour_info, 1}}] ++ Acc;
+                   ({attribute, _, behaviour, B}, Acc) ->
+                        [{behaviour, B} | Acc];
+                   ({attribute, _, behavior, B}, Acc) ->
+                        [{behaviour, B} | Acc];
+                   ({attribute, _, compile, C}, Acc) ->
+                        [{parse_transform, M}
+                         || {parse_transform, M} <- lists:flatten([C])] ++ Acc;
+                   (_, Acc) ->
+                        Acc
+                end, [], Forms));
+        _ ->
+            []
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Returns the attributes (see {@link get_module_attributes/1}) of the given
+%% source files in the given order. Each source is parsed at most once, the
+%% attributes are cached in an index file by the MD5 checksum of the source,
+%% so unchanged sources are not parsed again on subsequent builds. Index
+%% entries of sources that do not exist anymore are dropped.
+%%------------------------------------------------------------------------------
+attribute_index(Files, IndexFile) ->
+    Index = case file:consult(IndexFile) of
+                {ok, Terms} -> dict:from_list([{P, {M, A}} || {P, M, A} <- Terms]);
+                _ -> dict:new()
+            end,
+    Entries = [attribute_entry(File, Index) || File <- Files],
+    Updated = lists:foldl(
+                fun({Path, Md5, Attributes}, Acc) ->
+                        dict:store(Path, {Md5, Attributes}, Acc)
+                end, dict:filter(fun(Path, _) -> filelib:is_regular(Path) end, Index), Entries),
+    Content = [io_lib:format("~p.~n", [{P, M, A}])
+               || {P, {M, A}} <- lists:keysort(1, dict:to_list(Updated))],
+    file:write_file(IndexFile, Content),
+    [Attributes || {_, _, Attributes} <- Entries].
+
+attribute_entry(File, Index) ->
+    Path = filename:absname(File),
+    case file:read_file(File) of
+        {ok, Binary} ->
+            Md5 = erlang:md5(Binary),
+            case dict:find(Path, Index) of
+                {ok, {Md5, Attributes}} ->
+                    {Path, Md5, Attributes};
+                _ ->
+                    {Path, Md5, get_module_attributes(File)}
+            end;
+        _ ->
+            {Path, undefined, []}
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Splits the files to compile into stages so that dependencies between
+%% modules are resolved during compilation. Parse transforms are compiled
+%% first, followed by behaviours and all other modules. Returns
+%% `{PtLevels, BhvLevels, Others}', parse transforms and behaviours are further
+%% split into levels (see {@link stage_levels/2}). The files of a level (and of
+%% the last stage) do not depend on each other and may be compiled in
+%% parallel. The module attributes are looked up in the attribute index (see
+%% {@link attribute_index/2}).
+%%------------------------------------------------------------------------------
+stage_files(Files, IndexFile) ->
+    Attributes = lists:zip(Files, attribute_index(Files, IndexFile)),
+    {Pts, NonPts} = lists:partition(
+                      fun({_, A}) -> lists:member({export, {parse_transform, 2}}, A) end,
+                      Attributes),
+    {Bhvs, NonBhvs} = lists:partition(
+                        fun({_, A}) -> lists:member({export, {behaviour_info, 1}}, A) end,
+                        NonPts),
+    {stage_levels(Pts, []), stage_levels(Bhvs, []), [File || {File, _} <- NonBhvs]}.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Splits the `{File, Attributes}' tuples of a stage into levels, so that the
+%% files of a level only use parse transforms and behaviours of the stage that
+%% are compiled in previous levels. Files with cyclic dependencies end up in
+%% the last level.
+%%------------------------------------------------------------------------------
+stage_levels([], Levels) ->
+    lists:reverse(Levels);
+stage_levels(Stage, Levels) ->
+    Pending = [list_to_atom(filename:basename(File, ".erl")) || {File, _} <- Stage],
+    {Ready, Blocked} =
+        lists:partition(
+          fun({File, Attributes}) ->
+                  Self = list_to_atom(filename:basename(File, ".erl")),
+                  [M || {Kind, M} <- Attributes,
+                        Kind =:= parse_transform orelse Kind =:= behaviour,
+                        M =/= Self,
+                        lists:member(M, Pending)] =:= []
+          end, Stage),
+    case Ready of
+        [] -> lists:reverse(Levels, [[File || {File, _} <- Blocked]]);
+        _ -> stage_levels(Blocked, [[File || {File, _} <- Ready] | Levels])
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Loads the compiled file, for the given source, from the given target dir,
+%% ensuring that the code is properly purged and deleted before.
+%%------------------------------------------------------------------------------
+load_compiled(Source, OutDir) ->
+    Module = list_to_atom(filename:basename(Source, ".erl")),
+    Target = filename:join(OutDir, filename:basename(Source, ".erl")),
+    case code:load_abs(Target) of
+        {module, _} ->
+            ok;
+        {error, not_purged} ->
+            purge(Module),
+            {module, _} = code:load_abs(Target),
+            ok;
+        {error, Reason} ->
+            {error, Reason}
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Runs a leex or yecc generator function on a list of files.
+%%------------------------------------------------------------------------------
+generate(Generator, Files) ->
+    lists:foldl(
+      fun(Source, {Failed, Compiled, Errors, Times}) ->
+              {Generated, {Micros, Reds}} = measure(fun() -> Generator(Source) end, true),
+              NewTimes = [{Source, Micros, Reds} | Times],
+              case Generated of
+                  {ok, Result} ->
+                      {Failed, [Result | Compiled], Errors, NewTimes};
+                  {ok, Result, _Warnings} ->
+                      {Failed, [Result | Compiled], Errors, NewTimes};
+                  error ->
+                      Reason = "Could not generate.",
+                      {[Source | Failed], Compiled, Errors ++ format_generic_report(Reason), NewTimes};
+                  {error, Errs, Warnings} ->
+                      Reason = Errs ++ Warnings,
+                      {[Source | Failed], Compiled, Errors ++ format_generic_report(Reason), NewTimes}
+              end
+      end, {[], [], [], []}, Files).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Converts the return value of systools:make_script/2 and
+%% systools:make_tar/2.
+%%------------------------------------------------------------------------------
+systools_result(ok) ->
+    {ok, ""};
+systools_result(error) ->
+    {error, "unknown"};
+systools_result({ok, Module, Warnings}) ->
+    {warn, lists:flatten(Module:format_warning(Warnings))};
+systools_result({error, Module, Error}) ->
+    {error, lists:flatten(Module:format_error(Error))}.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Sorts coverage report results into a tuple of four report lists
+%% in the following order: {modules, functions, clauses, lines}.
+%%------------------------------------------------------------------------------
+sort_coverage_reports(Results) ->
+    lists:foldl(
+      fun(Mod = {module, _}, {Ms, Fs, Cs, Ls}) ->
+              {[Mod | Ms], Fs, Cs, Ls};
+         (Fun = {function, _}, {Ms, Fs, Cs, Ls}) ->
+              {Ms, [Fun | Fs], Cs, Ls};
+         (Clause = {clause, _}, {Ms, Fs, Cs, Ls}) ->
+              {Ms, Fs, [Clause | Cs], Ls};
+         (Line = {line, _}, {Ms, Fs, Cs, Ls}) ->
+              {Ms, Fs, Cs, [Line | Ls]};
+         (stop, {Ms, Fs, Cs, Ls}) ->
+              Ls ++ Cs ++ Fs ++ Ms
+      end,
+      {[], [], [], []},
+      Results ++ [stop]).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Flattens sorted results to a non-normalized table with rows that vary in
+%% width and content depending on the type (module, function, clause or line).
+%%------------------------------------------------------------------------------
+tableify_coverage_report(SortedResults) ->
+    lists:foldl(
+      fun({Label, {ok, {Mod, {Cov, NotCov}}}}, Acc) ->
+              [[{Label, Mod, Cov, NotCov}] | Acc];
+         ({Label, {ok, Coverage}}, Acc) ->
+              Rows =
+                  lists:map(
+                    fun({{Mod, Fun, Arity}, {Cov, NotCov}}) ->
+                            {Label, Mod, Fun, Arity, Cov, NotCov};
+                       ({{Mod, Fun, Arity, Index}, {Cov, NotCov}}) ->
+                            {Label, Mod, Fun, Arity, Index, Cov, NotCov};
+                       ({{Mod, Ln}, {Cov, NotCov}}) ->
+                            {Label, Mod, Ln, Cov, NotCov}
+                    end,
+                    Coverage),
+              [Rows | Acc]
+      end,
+      [],
+      SortedResults).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Writes the table tuples out to a space separated CSV file where each line
+%% is prefixed with it's type (module, function, clause, line).
+%%------------------------------------------------------------------------------
+write_coverage_table(CoverageFile, TableResults) ->
+    {ok, File} = file:open(CoverageFile, [write]),
+    lists:foreach(
+      fun({module, Mod, Cov, NotCov}) ->
+              io:format(File, "module ~p ~p ~p~n", [Mod, Cov, NotCov]);
+         ({function, Mod, Fun, Arity, Cov, NotCov}) ->
+              io:format(File, "function ~p ~p ~p ~p ~p~n", [Mod, Fun, Arity, Cov, NotCov]);
+         ({clause, Mod, Fun, Arity, Index, Cov, NotCov}) ->
+              io:format(File, "clause ~p ~p ~p ~p ~p ~p~n", [Mod, Fun, Arity, Index, Cov, NotCov]);
+         ({line, Mod, LineNumber, Cov, NotCov}) ->
+              io:format(File, "line ~p ~p ~p ~p~n", [Mod, LineNumber, Cov, NotCov])
+      end,
+      TableResults),
+    ok = file:close(File).
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Starts a list of applications on a node, starting missing dependencies
+%% on the fly.
+%%------------------------------------------------------------------------------
+start_applications(_Node, [], Acc) ->
+    Acc;
+start_applications(Node, [A | Rest], Acc = {Succeeded, Failed}) ->
+    case rpc:call(Node, application, start, [A]) of
+        ok ->
+            start_applications(Node, Rest, {[A | Succeeded], Failed});
+        {error, {already_started, _}} ->
+            start_applications(Node, Rest, Acc);
+        {error, {not_started, Dep}} ->
+            start_applications(Node, [Dep, A] ++ Rest, Acc);
+        {error, Err = {"no such file or directory", _AppFile}} ->
+            Msg = "maybe dependencies are missing, try a re-run using '-DwithDependencies'",
+            {Succeeded, [{A, {Err, Msg}} | Failed]};
+        Error ->
+            {Succeeded, [{A, Error} | Failed]}
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Applies a system configuration entry (or a referenced configuration file)
+%% to the application environment of a node.
+%%------------------------------------------------------------------------------
+apply_config(Node, {Application, ParValList}) ->
+    lists:foreach(
+      fun({Par, Val}) ->
+              rpc:call(Node, application, set_env, [Application, Par, Val])
+      end, ParValList);
+apply_config(Node, File) when is_list(File) ->
+    case file:consult(File) of
+        {ok, [Config]} ->
+            lists:foreach(fun(Entry) -> apply_config(Node, Entry) end, Config);
+        {error, _} ->
+            ignore
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Applies a system configuration file to a node, if existing.
+%%------------------------------------------------------------------------------
+configure(Node, SysConfig) ->
+    case filelib:is_regular(SysConfig) of
+        true ->
+            case file:consult(SysConfig) of
+                {ok, [Config]} ->
+                    lists:foreach(fun(Entry) -> apply_config(Node, Entry) end, Config);
+                Error ->
+                    {SysConfig, Error}
+            end;
+        _ ->
+            ok
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Returns the best possible temporary directory of a remote node, as resolved
+%% by checking the 1) environment settings, 2) commonly used paths or 3)
+%% current working directory of the remote node; or the atom 'error' if no
+%% temp directory could be found.
+%%------------------------------------------------------------------------------
+get_tmp_dir(Node) ->
+    IsDir = fun(Path) when is_list(Path) ->
+                    rpc:call(Node, filelib, is_dir, [Path]);
+               (_) ->
+                    false
+            end,
+    EnvDirs = [rpc:call(Node, os, getenv, [Var]) || Var <- ["TMPDIR", "TMP", "TEMP"]],
+    DefaultDirs = ["/tmp", "/var/tmp"],
+    RemoteCwd = case rpc:call(Node, file, get_cwd, []) of
+                    {ok, Cwd} -> [Cwd];
+                    _ -> []
+                end,
+    case lists:filter(IsDir, EnvDirs) ++ lists:filter(IsDir, DefaultDirs) ++ RemoteCwd of
+        [Tmp | _] ->
+            Tmp;
+        _ ->
+            error
+    end.
+
+%%------------------------------------------------------------------------------
+%% @private
+%% Parses a given resource (file) and temp directory into a tuple containing
+%% the target root path per dependency and the relative path with the target
+%% resource.
+%%
+%% Example:
+%%      $PROJ/target/lib/dep1/priv/resource
+%%   yields:
+%%      {$TMP/dep1/, priv/resource}
+%%------------------------------------------------------------------------------
+get_target_resource_path(Node, Resource, TmpDir) ->
+    File = filename:basename(Resource),
+    Path = filename:dirname(Resource),
+    Es = lists:reverse(filename:split(Path)),
+    {PrivPath, Dependency} =
+        lists:foldl(fun(E, {PP = ["priv" | _], []}) ->
+                            {PP, [E]};
+                       (E, {PP, []}) ->
+                            {[E | PP], []};
+                       (_, {PP, Dep}) ->
+                            {PP, Dep}
+                    end, {[], []}, Es),
+    TargetPath = rpc:call(Node, filename, join, [[TmpDir] ++ Dependency]),
+    RelativeResource = rpc:call(Node, filename, join, [PrivPath ++ [File]]),
+    {TargetPath, RelativeResource}.
+
+upload_module(Node, BeamFile) ->
+    Module = filename:basename(BeamFile, ".beam"),
+    case file:read_file(BeamFile) of
+        {ok, Binary} ->
+            ModuleName = list_to_atom(Module),
+            rpc:call(Node, code, purge, [ModuleName]),
+            rpc:call(Node, code, load_binary, [ModuleName, BeamFile, Binary]),
+            BeamFile;
+        Error ->
+            {BeamFile, Error}
+    end.
+
+load_app(Node, AppFile) ->
+    case file:consult(AppFile) of
+        {ok, [AppSpec]} ->
+            rpc:call(Node, application, load, [AppSpec]),
+            AppFile;
+        Error ->
+            {AppFile, Error}
+    end.
+
+upload_resource(Node, Resource, TmpDir) when is_list(TmpDir) ->
+    case file:read_file(Resource) of
+        {ok, Binary} ->
+            {TargetPath, RelativeFile} = get_target_resource_path(Node, Resource, TmpDir),
+            Target = rpc:call(Node, filename, join, [[TargetPath, RelativeFile]]),
+            case rpc:call(Node, filelib, ensure_dir, [Target]) of
+                ok ->
+                    case rpc:call(Node, file, write_file, [Target, Binary]) of
+                        ok ->
+                            rpc:call(Node, file, change_mode, [Target, 8#00755]),
+                            Resource;
+                        Error ->
+                            {Resource, Error}
+                    end;
+                Error ->
+                    {Resource, Error}
+            end;
+        Error ->
+            {Resource, Error}
+    end;
+upload_resource(_Node, Resource, _) ->
+    {Resource, {skipped, no_tmp_directory_available}}.
+
+add_resource_to_code_path(Node, Resource, TmpDir) ->
+    {TargetPath, _RelativeFile} = get_target_resource_path(Node, Resource, TmpDir),
+    case rpc:call(Node, code, add_patha, [TargetPath]) of
+        true ->
+            ok;
+        {error, bad_directory} ->
+            {error, bad_directory, TargetPath}
+    end.
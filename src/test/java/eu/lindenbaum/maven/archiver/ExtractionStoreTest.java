@@ -0,0 +1,96 @@
+package eu.lindenbaum.maven.archiver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import eu.lindenbaum.maven.util.FileUtils;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ExtractionStoreTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File root;
+  private File archive;
+  private ExtractionStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot();
+    this.archive = new File(this.root, "app-1.0.tar.gz");
+    this.store = new ExtractionStore(new File(this.root, "store"), null, null);
+
+    ByteArrayOutputStream tar = new ByteArrayOutputStream();
+    TarGzUnarchiverTest.entry(tar, "app-1.0/ebin/app.app", '0', 0644, "{application, app, []}.".getBytes("UTF-8"));
+    TarGzUnarchiverTest.entry(tar, "app-1.0/priv/.hidden", '0', 0644, "hidden".getBytes("UTF-8"));
+    TarGzUnarchiverTest.entry(tar, "app-1.0/bin/start", '0', 0755, "#!/bin/sh\n".getBytes("UTF-8"));
+    TarGzUnarchiverTest.entry(tar, "app-1.0/include/", '5', 0755, new byte[0]);
+    tar.write(new byte[1024]);
+    TarGzUnarchiverTest.write(this.archive, tar.toByteArray());
+  }
+
+  @Test
+  public void testExtract() throws Exception {
+    File first = new File(this.root, "first");
+    File second = new File(this.root, "second");
+    assertFalse(this.store.extract(this.archive, first));
+    assertTrue(this.store.extract(this.archive, second));
+
+    for (File lib : new File[]{ first, second }) {
+      File app = new File(lib, "app-1.0");
+      File appFile = new File(new File(app, "ebin"), "app.app");
+      assertTrue(appFile.isFile());
+      assertEquals(1234567890000L, appFile.lastModified());
+      assertTrue(new File(new File(app, "priv"), ".hidden").isFile());
+      assertTrue(new File(new File(app, "bin"), "start").canExecute());
+      assertTrue(new File(app, "include").isDirectory());
+    }
+    String[] entries = new File(this.root, "store").list();
+    assertEquals(1, entries.length);
+    assertEquals(1, new File(new File(this.root, "store"), entries[0]).list().length);
+  }
+
+  @Test
+  public void testDirectoryTimestamps() throws Exception {
+    assertFalse(this.store.extract(this.archive, new File(this.root, "first")));
+    File entry = new File(this.root, "store").listFiles()[0].listFiles()[0];
+    File content = new File(entry, "content");
+    long old = 1234567890000L;
+    content.setLastModified(old);
+    new File(content, "app-1.0").setLastModified(old);
+
+    // the artifact is newer than the stored entry, e.g. downloaded again
+    long now = System.currentTimeMillis() / 1000L * 1000L;
+    this.archive.setLastModified(now);
+    File lib = new File(this.root, "second");
+    FileUtils.ensureDirectories(lib);
+    lib.setLastModified(old);
+    assertTrue(this.store.extract(this.archive, lib));
+    assertTrue(new File(lib, "app-1.0").lastModified() >= now);
+    assertTrue(lib.lastModified() > old);
+  }
+
+  @Test
+  public void testChangedArchive() throws Exception {
+    assertFalse(this.store.extract(this.archive, new File(this.root, "first")));
+    ByteArrayOutputStream tar = new ByteArrayOutputStream();
+    TarGzUnarchiverTest.entry(tar, "app-1.0/ebin/app.app", '0', 0644, "{application, app}.".getBytes("UTF-8"));
+    tar.write(new byte[1024]);
+    TarGzUnarchiverTest.write(this.archive, tar.toByteArray());
+    assertFalse(this.store.extract(this.archive, new File(this.root, "second")));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMissingArchive() throws Exception {
+    this.store.extract(new File(this.root, "missing.tar.gz"), new File(this.root, "lib"));
+  }
+}
@@ -0,0 +1,157 @@
+package eu.lindenbaum.maven.archiver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TarGzUnarchiverTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File root;
+  private File archive;
+  private File destination;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot();
+    this.destination = new File(this.root, "lib");
+    this.archive = new File(this.root, "app-1.0.tar.gz");
+  }
+
+  @Test
+  public void testExtract() throws Exception {
+    StringBuilder longName = new StringBuilder("app-1.0/priv/");
+    while (longName.length() < 120) {
+      longName.append("very_long_directory_name/");
+    }
+    longName.append("data.txt");
+
+    ByteArrayOutputStream tar = new ByteArrayOutputStream();
+    entry(tar, "app-1.0/", '5', 0755, new byte[0]);
+    entry(tar, "app-1.0/ebin/app.app", '0', 0644, "{application, app, []}.".getBytes("UTF-8"));
+    entry(tar, "app-1.0/bin/start", '0', 0755, "#!/bin/sh\n".getBytes("UTF-8"));
+    entry(tar, "././@LongLink", 'L', 0644, (longName + "\0").getBytes("UTF-8"));
+    entry(tar, "ignored", '0', 0644, "gnu".getBytes("UTF-8"));
+    entry(tar, "PaxHeaders/pax", 'x', 0644, pax("path", "app-1.0/priv/pax.txt"));
+    entry(tar, "ignored", '0', 0644, "pax".getBytes("UTF-8"));
+    tar.write(new byte[1024]);
+    write(this.archive, tar.toByteArray());
+
+    new TarGzUnarchiver(null, null, this.destination).extract(this.archive);
+
+    File app = new File(this.destination, "app-1.0");
+    File appFile = new File(new File(app, "ebin"), "app.app");
+    assertEquals("{application, app, []}.", read(appFile));
+    assertEquals(1234567890000L, appFile.lastModified());
+    assertFalse(appFile.canExecute());
+    assertTrue(new File(new File(app, "bin"), "start").canExecute());
+    assertEquals("gnu", read(new File(this.destination, longName.toString())));
+    assertEquals("pax", read(new File(new File(app, "priv"), "pax.txt")));
+    assertFalse(new File(this.destination, "ignored").exists());
+  }
+
+  @Test(expected = IOException.class)
+  public void testIllegalEntry() throws Exception {
+    ByteArrayOutputStream tar = new ByteArrayOutputStream();
+    entry(tar, "app-1.0/../../evil", '0', 0644, "evil".getBytes("UTF-8"));
+    tar.write(new byte[1024]);
+    write(this.archive, tar.toByteArray());
+    new TarGzUnarchiver(null, null, this.destination).extract(this.archive);
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncated() throws Exception {
+    ByteArrayOutputStream tar = new ByteArrayOutputStream();
+    entry(tar, "app-1.0/ebin/app.app", '0', 0644, new byte[2048]);
+    write(this.archive, Arrays.copyOf(tar.toByteArray(), 1024));
+    new TarGzUnarchiver(null, null, this.destination).extract(this.archive);
+  }
+
+  @Test(expected = IOException.class)
+  public void testMissingArchive() throws Exception {
+    new TarGzUnarchiver(null, null, this.destination).extract(new File(this.root, "missing.tar.gz"));
+  }
+
+  static void entry(ByteArrayOutputStream tar, String name, char type, int mode, byte[] data) throws IOException {
+    byte[] header = new byte[512];
+    field(header, 0, name.getBytes("UTF-8"));
+    field(header, 100, octal(mode, 7));
+    field(header, 108, octal(0, 7));
+    field(header, 116, octal(0, 7));
+    field(header, 124, octal(data.length, 11));
+    field(header, 136, octal(1234567890L, 11));
+    for (int i = 148; i < 156; ++i) {
+      header[i] = ' ';
+    }
+    header[156] = (byte) type;
+    field(header, 257, "ustar\0".getBytes("US-ASCII"));
+    field(header, 263, "00".getBytes("US-ASCII"));
+    long checksum = 0;
+    for (byte b : header) {
+      checksum += b & 0xff;
+    }
+    field(header, 148, octal(checksum, 6));
+    tar.write(header);
+    tar.write(data);
+    tar.write(new byte[(512 - data.length % 512) % 512]);
+  }
+
+  private static byte[] pax(String key, String value) throws IOException {
+    String record = " " + key + "=" + value + "\n";
+    int length = record.length() + 2;
+    return (length + record).getBytes("UTF-8");
+  }
+
+  private static byte[] octal(long value, int digits) throws IOException {
+    String octal = Long.toOctalString(value);
+    while (octal.length() < digits) {
+      octal = "0" + octal;
+    }
+    return (octal + "\0").getBytes("US-ASCII");
+  }
+
+  private static void field(byte[] header, int offset, byte[] value) {
+    System.arraycopy(value, 0, header, offset, value.length);
+  }
+
+  static void write(File file, byte[] tar) throws IOException {
+    OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+    try {
+      out.write(tar);
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static String read(File file) throws IOException {
+    StringBuilder data = new StringBuilder();
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      int c;
+      while ((c = reader.read()) != -1) {
+        data.append((char) c);
+      }
+    }
+    finally {
+      reader.close();
+    }
+    return data.toString();
+  }
+}
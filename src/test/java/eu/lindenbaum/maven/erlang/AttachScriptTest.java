@@ -0,0 +1,32 @@
+package eu.lindenbaum.maven.erlang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangString;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+public class AttachScriptTest {
+  @Test
+  public void testGet() throws MojoExecutionException {
+    AttachScript script = new AttachScript("group:artifact", new File("target"));
+    assertEquals("attach", script.getFunction());
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(2, arguments.arity());
+  }
+
+  @Test
+  public void testHandle() throws MojoExecutionException {
+    AttachScript script = new AttachScript("group:artifact", new File("target"));
+    assertNull(script.handle(new OtpErlangAtom("ok")));
+    assertEquals("cannot set cwd: enoent", script.handle(new OtpErlangString("cannot set cwd: enoent")));
+  }
+}
@@ -1,14 +1,16 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
@@ -24,12 +26,13 @@ public class BeamCompilerScriptTest {
     File outdir = new File("outdir");
     List<File> includes = Arrays.asList(new File("include"));
     List<String> options = Arrays.asList("option");
+    File index = new File("index");
 
-    BeamCompilerScript script = new BeamCompilerScript(files, firstFiles, outdir, includes, options);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    BeamCompilerScript script = new BeamCompilerScript(files, firstFiles, outdir, includes, options, 0, index, false, false, null);
+    assertEquals("beamcompiler", script.getFunction());
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(9, arguments.arity());
   }
 
   @Test
@@ -39,6 +42,7 @@ public class BeamCompilerScriptTest {
     File outdir = new File("outdir");
     List<File> includes = Arrays.asList(new File("include"));
     List<String> options = Arrays.asList("option");
+    File index = new File("index");
 
     OtpErlangString failed = new OtpErlangString("failed");
     OtpErlangList failedList = new OtpErlangList(new OtpErlangObject[]{ failed });
@@ -53,7 +57,7 @@ public class BeamCompilerScriptTest {
     OtpErlangTuple result = new OtpErlangTuple(new OtpErlangObject[]{ failedList, compiledList, errorList,
                                                                      warningList });
 
-    BeamCompilerScript script = new BeamCompilerScript(files, firstFiles, outdir, includes, options);
+    BeamCompilerScript script = new BeamCompilerScript(files, firstFiles, outdir, includes, options, 0, index, false, false, null);
     CompilerResult compilerResult = script.handle(result);
 
     assertNotNull(compilerResult);
@@ -65,5 +69,118 @@ public class BeamCompilerScriptTest {
     assertEquals("[error]", compilerResult.getErrors().toString());
     assertEquals(1, compilerResult.getWarnings().size());
     assertEquals("[warning]", compilerResult.getWarnings().toString());
+    assertEquals(0, compilerResult.getDependencies().size());
+  }
+
+  @Test
+  public void testHandleDependencies() throws MojoExecutionException {
+    List<File> files = Arrays.asList(new File("file"));
+    List<File> firstFiles = Arrays.asList(new File("file"));
+    File outdir = new File("outdir");
+    List<File> includes = Arrays.asList(new File("include"));
+    List<String> options = Arrays.asList("option");
+    File index = new File("index");
+
+    OtpErlangList empty = new OtpErlangList();
+    OtpErlangList includeList = new OtpErlangList(new OtpErlangObject[]{ new OtpErlangString("header.hrl") });
+    OtpErlangList transformList = new OtpErlangList(new OtpErlangObject[]{ new OtpErlangAtom("transform") });
+    OtpErlangList behaviourList = new OtpErlangList(new OtpErlangObject[]{ new OtpErlangAtom("gen_server"),
+                                                                          new OtpErlangAtom("behaviour") });
+    OtpErlangTuple dependency = new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangString("compiled"),
+                                                                         includeList, transformList,
+                                                                         behaviourList });
+    OtpErlangList dependencyList = new OtpErlangList(new OtpErlangObject[]{ dependency });
+
+    OtpErlangTuple result = new OtpErlangTuple(new OtpErlangObject[]{ empty, empty, empty, empty,
+                                                                     dependencyList });
+
+    BeamCompilerScript script = new BeamCompilerScript(files, firstFiles, outdir, includes, options, 0, index, false, false, null);
+    CompilerResult compilerResult = script.handle(result);
+
+    assertEquals(1, compilerResult.getDependencies().size());
+    ModuleDependencies dependencies = compilerResult.getDependencies().get(0);
+    assertEquals(new File("compiled"), dependencies.getSource());
+    assertEquals("[header.hrl]", dependencies.getIncludes().toString());
+    assertEquals("[transform]", dependencies.getParseTransforms().toString());
+    assertEquals("[gen_server, behaviour]", dependencies.getBehaviours().toString());
+  }
+
+  @Test
+  public void testHandleTimes() throws MojoExecutionException {
+    List<File> files = Arrays.asList(new File("file"));
+    List<File> firstFiles = Arrays.asList(new File("file"));
+    File outdir = new File("outdir");
+    List<File> includes = Arrays.asList(new File("include"));
+    List<String> options = Arrays.asList("option");
+    File index = new File("index");
+
+    OtpErlangList empty = new OtpErlangList();
+    OtpErlangTuple time = new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangString("compiled"),
+                                                                   new OtpErlangLong(1234),
+                                                                   new OtpErlangLong(5678) });
+    OtpErlangTuple concurrent = new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangString("concurrent"),
+                                                                         new OtpErlangLong(4321),
+                                                                         new OtpErlangAtom("undefined") });
+    OtpErlangList timeList = new OtpErlangList(new OtpErlangObject[]{ time, concurrent });
+
+    OtpErlangTuple result = new OtpErlangTuple(new OtpErlangObject[]{ empty, empty, empty, empty, empty,
+                                                                     timeList });
+
+    BeamCompilerScript script = new BeamCompilerScript(files, firstFiles, outdir, includes, options, 0, index, false, false, null);
+    CompilerResult compilerResult = script.handle(result);
+
+    assertEquals(2, compilerResult.getTimes().size());
+    CompileTime compileTime = compilerResult.getTimes().get(0);
+    assertEquals(new File("compiled"), compileTime.getSource());
+    assertEquals(1234, compileTime.getMicros());
+    assertEquals(5678, compileTime.getReductions());
+    assertEquals(-1, compilerResult.getTimes().get(1).getReductions());
+  }
+
+  @Test
+  public void testHandleProgress() throws MojoExecutionException {
+    List<File> files = Arrays.asList(new File("file"));
+    List<File> firstFiles = Arrays.asList(new File("file"));
+    File outdir = new File("outdir");
+    List<File> includes = Arrays.asList(new File("include"));
+    List<String> options = Arrays.asList("option");
+    File index = new File("index");
+    final List<String> events = new ArrayList<String>();
+    CompilerListener listener = new CompilerListener() {
+      @Override
+      public void compiled(File source, List<String> warnings) {
+        events.add("compiled " + source + " " + warnings);
+      }
+
+      @Override
+      public void failed(File source, List<String> errors, List<String> warnings) {
+        events.add("failed " + source + " " + errors + " " + warnings);
+      }
+    };
+
+    OtpErlangList empty = new OtpErlangList();
+    OtpErlangList warningList = new OtpErlangList(new OtpErlangObject[]{ new OtpErlangString("warning") });
+    OtpErlangList errorList = new OtpErlangList(new OtpErlangObject[]{ new OtpErlangString("error") });
+    OtpErlangTuple compiled = new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("compiled"),
+                                                                       new OtpErlangString("compiled"),
+                                                                       warningList });
+    OtpErlangTuple failed = new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("failed"),
+                                                                     new OtpErlangString("failed"), errorList,
+                                                                     empty });
+
+    BeamCompilerScript script = new BeamCompilerScript(files,
+                                                       firstFiles,
+                                                       outdir,
+                                                       includes,
+                                                       options,
+                                                       0,
+                                                       index,
+                                                       false,
+                                                       true,
+                                                       listener);
+    script.handleProgress(compiled);
+    script.handleProgress(failed);
+
+    assertEquals(Arrays.asList("compiled compiled [warning]", "failed failed [error] []"), events);
   }
 }
@@ -3,9 +3,13 @@ package eu.lindenbaum.maven.erlang;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.Arrays;
+
+import eu.lindenbaum.maven.util.FileUtils;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
@@ -22,10 +26,9 @@ public class CheckAppScriptTest {
     File appFile = new File("appFile");
 
     CheckAppScript script = new CheckAppScript(appFile);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(1, arguments.arity());
   }
 
   @Test
@@ -71,4 +74,37 @@ public class CheckAppScriptTest {
     assertEquals("Module2", appResult.getModules().get(1));
     assertEquals("sasl", appResult.getApplications().get(0));
   }
+
+  @Test
+  public void testEvaluate() throws MojoExecutionException {
+    File appFile = new File(new File("target"), "check-app-test.app");
+    FileUtils.writeFile(appFile, "{application, name, [{vsn, \"1.0\"}, {modules, [module1, 'Module2']},"
+                                 + " {mod, {startModule, []}}, {applications, [kernel, stdlib]}]}.");
+    try {
+      CheckAppScript script = new CheckAppScript(appFile);
+      CheckAppResult appResult = script.handle(script.evaluate());
+      assertTrue(appResult.success());
+      assertEquals("name", appResult.getName());
+      assertEquals("1.0", appResult.getVersion());
+      assertEquals("startModule", appResult.getStartModule());
+      assertEquals(Arrays.asList("module1", "Module2"), appResult.getModules());
+      assertEquals(Arrays.asList("kernel", "stdlib"), appResult.getApplications());
+
+      FileUtils.writeFile(appFile, "{application, name, [{registered, []}]}.");
+      appResult = script.handle(script.evaluate());
+      assertTrue(appResult.success());
+      assertEquals("undefined", appResult.getVersion());
+      assertEquals("omitted", appResult.getStartModule());
+      assertTrue(appResult.getModules().isEmpty());
+
+      FileUtils.writeFile(appFile, "{library, name, []}.");
+      assertFalse(script.handle(script.evaluate()).success());
+
+      FileUtils.writeFile(appFile, "{application, ?NAME, []}.");
+      assertNull(script.evaluate());
+    }
+    finally {
+      appFile.delete();
+    }
+  }
 }
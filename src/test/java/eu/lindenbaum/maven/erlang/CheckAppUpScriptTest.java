@@ -1,12 +1,13 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.io.File;
 
+import eu.lindenbaum.maven.util.FileUtils;
+
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangString;
 
@@ -20,10 +21,9 @@ public class CheckAppUpScriptTest {
     String version = "version";
 
     CheckAppUpScript script = new CheckAppUpScript(appFile, version);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(2, arguments.arity());
   }
 
   @Test
@@ -47,4 +47,24 @@ public class CheckAppUpScriptTest {
     CheckAppUpScript script = new CheckAppUpScript(appFile, version);
     assertEquals("some error", script.handle(result));
   }
+
+  @Test
+  public void testEvaluate() throws MojoExecutionException {
+    File appUpFile = new File(new File("target"), "check-appup-test.appup");
+    FileUtils.writeFile(appUpFile, "{\"2.0\", [{\"1.0\", [{load_module, mod}]}], [{\"1.0\", []}]}.");
+    try {
+      CheckAppUpScript script = new CheckAppUpScript(appUpFile, "2.0");
+      assertNull(script.handle(script.evaluate()));
+
+      script = new CheckAppUpScript(appUpFile, "3.0");
+      assertNull(script.evaluate());
+
+      FileUtils.writeFile(appUpFile, "{\"2.0\", [{\"1.0\", [load_module]}], []}.");
+      script = new CheckAppUpScript(appUpFile, "2.0");
+      assertNull(script.evaluate());
+    }
+    finally {
+      appUpFile.delete();
+    }
+  }
 }
@@ -3,11 +3,14 @@ package eu.lindenbaum.maven.erlang;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.util.Map;
 
+import eu.lindenbaum.maven.util.FileUtils;
+
 import com.ericsson.otp.erlang.OtpErlangAtom;
 import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
@@ -23,10 +26,9 @@ public class CheckRelScriptTest {
     File relFile = new File("relFile");
 
     CheckRelScript script = new CheckRelScript(relFile);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(1, arguments.arity());
   }
 
   @Test
@@ -76,4 +78,33 @@ public class CheckRelScriptTest {
     assertEquals("3.0", apps.get("custom"));
     assertEquals(3, apps.size());
   }
+
+  @Test
+  public void testEvaluate() throws MojoExecutionException {
+    File relFile = new File(new File("target"), "check-rel-test.rel");
+    FileUtils.writeFile(relFile, "{release, {\"rel\", \"1.0\"}, {erts, \"5.8\"},"
+                                 + " [{kernel, \"2.14\"}, {mnesia, \"4.4\", load}, {custom, \"3.0\", temporary, []}]}.");
+    try {
+      CheckRelScript script = new CheckRelScript(relFile);
+      CheckRelResult relResult = script.handle(script.evaluate());
+      assertTrue(relResult.success());
+      assertEquals("rel", relResult.getName());
+      assertEquals("1.0", relResult.getReleaseVersion());
+      assertEquals("5.8", relResult.getErtsVersion());
+      Map<String, String> apps = relResult.getApplications();
+      assertEquals(3, apps.size());
+      assertEquals("2.14", apps.get("kernel"));
+      assertEquals("4.4", apps.get("mnesia"));
+      assertEquals("3.0", apps.get("custom"));
+
+      FileUtils.writeFile(relFile, "{release, \"rel\", []}.");
+      assertFalse(script.handle(script.evaluate()).success());
+
+      FileUtils.writeFile(relFile, "{release, {\"rel\", \"1.0\"}, {erts, \"5.8\"}, [kernel]}.");
+      assertNull(script.evaluate());
+    }
+    finally {
+      relFile.delete();
+    }
+  }
 }
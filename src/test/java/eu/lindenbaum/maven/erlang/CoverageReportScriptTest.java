@@ -1,7 +1,7 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.easymock.EasyMock.createStrictControl;
-import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -38,10 +38,9 @@ public class CoverageReportScriptTest {
     List<File> sources = Arrays.asList(new File("source1"), new File("source2"));
     File targetDir = new File("targetDir");
     CoverageReportScript script = new CoverageReportScript(testDir, tests, sources, targetDir, "targetName");
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(5, arguments.arity());
   }
 
   @Test
@@ -1,12 +1,12 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.File;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangTuple;
 
@@ -19,10 +19,9 @@ public class CreateRELEASESScriptTest {
     File rootDir = new File("/rootDir");
     File relFile = new File("/rootDir/release.rel");
     CreateRELEASESScript script = new CreateRELEASESScript(rootDir, relFile);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(3, arguments.arity());
   }
 
   @Test
@@ -0,0 +1,31 @@
+package eu.lindenbaum.maven.erlang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangString;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+public class DaemonScriptTest {
+  @Test
+  public void testGet() throws MojoExecutionException {
+    DaemonScript script = new DaemonScript("erl", 3600);
+    assertEquals("daemon", script.getFunction());
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(2, arguments.arity());
+  }
+
+  @Test
+  public void testHandle() throws MojoExecutionException {
+    DaemonScript script = new DaemonScript("erl", 3600);
+    assertNull(script.handle(new OtpErlangAtom("ok")));
+    assertEquals("node was not started as daemon",
+                 script.handle(new OtpErlangString("node was not started as daemon")));
+  }
+}
@@ -1,7 +1,6 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -24,10 +23,9 @@ public class DialyzerScriptTest {
     String options = "option";
 
     DialyzerScript script = new DialyzerScript(files, includes, options);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(3, arguments.arity());
   }
 
   @Test
@@ -1,5 +1,6 @@
 package eu.lindenbaum.maven.erlang;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -7,6 +8,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.junit.Test;
@@ -20,10 +22,9 @@ public class EDocScriptTest {
     File overview = new File("overview.edoc");
 
     EDocScript script = new EDocScript(appName, indir, outdir, overview);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(4, arguments.arity());
   }
 
   @Test
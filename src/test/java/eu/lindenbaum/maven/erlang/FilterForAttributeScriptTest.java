@@ -1,7 +1,6 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.File;
@@ -22,10 +21,9 @@ public class FilterForAttributeScriptTest {
     String attribute = "attribute";
 
     FilterForAttributeScript script = new FilterForAttributeScript(modules, attribute);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(2, arguments.arity());
   }
 
   @Test
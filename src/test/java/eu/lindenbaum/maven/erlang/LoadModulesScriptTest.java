@@ -1,7 +1,6 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.File;
@@ -9,6 +8,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.ericsson.otp.erlang.OtpErlangInt;
+import com.ericsson.otp.erlang.OtpErlangList;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.junit.Test;
@@ -18,10 +18,9 @@ public class LoadModulesScriptTest {
   public void testGet() throws MojoExecutionException {
     List<File> modules = Arrays.asList(new File("module"));
     LoadModulesScript script = new LoadModulesScript(modules);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(1, arguments.arity());
   }
 
   @Test
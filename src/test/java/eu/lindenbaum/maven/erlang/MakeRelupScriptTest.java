@@ -1,6 +1,7 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.easymock.EasyMock.createStrictControl;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -39,10 +40,9 @@ public class MakeRelupScriptTest {
     List<File> paths = Arrays.asList(new File("path1"), new File("path2"));
 
     MakeRelupScript script = new MakeRelupScript(relup, rel, releases, paths);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(4, arguments.arity());
   }
 
   @Test
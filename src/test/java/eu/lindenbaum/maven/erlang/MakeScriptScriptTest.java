@@ -1,6 +1,7 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.easymock.EasyMock.createStrictControl;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -8,6 +9,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.File;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
 import com.ericsson.otp.erlang.OtpErlangObject;
 import com.ericsson.otp.erlang.OtpErlangString;
 import com.ericsson.otp.erlang.OtpErlangTuple;
@@ -33,10 +35,9 @@ public class MakeScriptScriptTest {
     File outdir = new File("outdir");
     File relFile = new File("relfile.rel");
     MakeScriptScript script = new MakeScriptScript(relFile, outdir, null);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(3, arguments.arity());
   }
 
   @Test
@@ -1,10 +1,11 @@
 package eu.lindenbaum.maven.erlang;
 
-import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
 
 import org.apache.maven.plugin.MojoExecutionException;
 import org.junit.Test;
@@ -13,10 +14,9 @@ public class PurgeModulesScriptTest {
   @Test
   public void testGet() throws MojoExecutionException {
     PurgeModulesScript script = new PurgeModulesScript();
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(0, arguments.arity());
   }
 
   @Test
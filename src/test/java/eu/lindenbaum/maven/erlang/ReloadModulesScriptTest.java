@@ -0,0 +1,39 @@
+package eu.lindenbaum.maven.erlang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ericsson.otp.erlang.OtpErlangInt;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+public class ReloadModulesScriptTest {
+  @Test
+  public void testGet() throws MojoExecutionException {
+    List<File> modules = Arrays.asList(new File("module.beam"));
+    ReloadModulesScript script = new ReloadModulesScript(modules);
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(1, arguments.arity());
+    assertEquals(0, ((OtpErlangList) arguments.elementAt(0)).arity());
+  }
+
+  @Test
+  public void testHandle() throws MojoExecutionException {
+    OtpErlangTuple result = new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangInt(3), new OtpErlangInt(2) });
+
+    List<File> modules = Arrays.asList(new File("module.beam"));
+    ReloadModulesScript script = new ReloadModulesScript(modules);
+    ReloadResult reloadResult = script.handle(result);
+    assertEquals(3, reloadResult.getKept());
+    assertEquals(2, reloadResult.getReloaded());
+  }
+}
@@ -1,7 +1,6 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -20,10 +19,9 @@ public class RuntimeInfoScriptTest {
   @Test
   public void testGet() throws MojoExecutionException {
     RuntimeInfoScript script = new RuntimeInfoScript();
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(0, arguments.arity());
   }
 
   @Test
@@ -0,0 +1,94 @@
+package eu.lindenbaum.maven.erlang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+public class ScriptFutureTest {
+  @Test
+  public void testComplete() throws Exception {
+    ScriptFuture<String> future = new ScriptFuture<String>(new CheckAppUpScript(new File("appUpFile"), "1"), 0);
+    assertFalse(future.isDone());
+    future.complete(new OtpErlangString("some error"));
+    assertTrue(future.isDone());
+    assertEquals("some error", future.await());
+    assertEquals("some error", future.get());
+  }
+
+  @Test
+  public void testCompleteNoError() throws Exception {
+    ScriptFuture<String> future = new ScriptFuture<String>(new CheckAppUpScript(new File("appUpFile"), "1"), 0);
+    future.complete(new OtpErlangList());
+    assertNull(future.await());
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testCompleteBadRpc() throws Exception {
+    ScriptFuture<String> future = new ScriptFuture<String>(new CheckAppUpScript(new File("appUpFile"), "1"), 0);
+    future.complete(new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("badrpc"),
+                                                              new OtpErlangAtom("reason") }));
+    future.await();
+  }
+
+  @Test
+  public void testCompleteKilled() throws Exception {
+    ScriptFuture<String> future = new ScriptFuture<String>(new CheckAppUpScript(new File("appUpFile"), "1"), 0);
+    OtpErlangObject exit = new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("EXIT"),
+                                                                     new OtpErlangAtom("killed") });
+    future.complete(new OtpErlangTuple(new OtpErlangObject[]{ new OtpErlangAtom("badrpc"), exit }));
+    assertTrue(future.isDone());
+    try {
+      future.await();
+      fail();
+    }
+    catch (MojoExecutionException e) {
+      assertEquals("failed to execute script checkappup: {'EXIT',killed}", e.getMessage());
+    }
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testFail() throws Exception {
+    ScriptFuture<String> future = new ScriptFuture<String>(new CheckAppUpScript(new File("appUpFile"), "1"), 0);
+    future.fail(new MojoExecutionException("connection lost"));
+    assertTrue(future.isDone());
+    future.await();
+  }
+
+  @Test(expected = TimeoutException.class)
+  public void testGetTimeout() throws Exception {
+    ScriptFuture<String> future = new ScriptFuture<String>(new CheckAppUpScript(new File("appUpFile"), "1"), 0);
+    future.get(10, TimeUnit.MILLISECONDS);
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testAwaitTimeout() throws Exception {
+    ScriptFuture<String> future = new ScriptFuture<String>(new CheckAppUpScript(new File("appUpFile"), "1"), 10);
+    future.await();
+  }
+
+  @Test(expected = CancellationException.class)
+  public void testCancel() throws Exception {
+    ScriptFuture<String> future = new ScriptFuture<String>(new CheckAppUpScript(new File("appUpFile"), "1"), 0);
+    assertTrue(future.cancel(true));
+    assertTrue(future.isCancelled());
+    assertTrue(future.isDone());
+    assertFalse(future.cancel(true));
+    future.get();
+  }
+}
@@ -0,0 +1,46 @@
+package eu.lindenbaum.maven.erlang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ScriptMetricsTest {
+  @Test
+  public void testNameOf() throws Exception {
+    assertEquals("CheckAppUpScript", ScriptMetrics.nameOf(new CheckAppUpScript(new File("appUpFile"), "1")));
+  }
+
+  @Test
+  public void testEmpty() {
+    ScriptMetrics metrics = new ScriptMetrics();
+    assertTrue(metrics.isEmpty());
+    assertEquals("{}", metrics.toJson());
+    assertEquals(1, metrics.summary().size());
+  }
+
+  @Test
+  public void testRecord() {
+    ScriptMetrics metrics = new ScriptMetrics();
+    for (int i = 1; i <= 100; ++i) {
+      metrics.record("TestScript", 10, 20, i * 1000000L);
+    }
+    metrics.recordRoundTrip("TestScript", 5, 5);
+    metrics.record("DialyzerScript", 1, 2, 3000000L);
+    assertFalse(metrics.isEmpty());
+
+    List<String> summary = metrics.summary();
+    assertEquals(3, summary.size());
+    assertTrue(summary.get(1).startsWith("DialyzerScript"));
+    assertTrue(summary.get(2).startsWith("TestScript"));
+
+    String json = metrics.toJson();
+    assertTrue(json.contains("\"DialyzerScript\": {\"invocations\": 1, \"bytesSent\": 1, \"bytesReceived\": 2, \"roundTrips\": 1, "));
+    assertTrue(json.contains("\"TestScript\": {\"invocations\": 100, \"bytesSent\": 1005, \"bytesReceived\": 2005, \"roundTrips\": 101, "));
+    assertTrue(json.contains("\"latencyMs\": {\"p50\": 50.000, \"p90\": 90.000, \"p99\": 99.000, \"max\": 100.000}"));
+  }
+}
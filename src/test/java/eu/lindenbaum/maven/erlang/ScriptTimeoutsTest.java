@@ -0,0 +1,46 @@
+package eu.lindenbaum.maven.erlang;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Test;
+
+public class ScriptTimeoutsTest {
+  @Test
+  public void testNone() throws MojoExecutionException {
+    assertEquals(0, ScriptTimeouts.NONE.get(new PurgeModulesScript()));
+  }
+
+  @Test
+  public void testGlobal() throws MojoExecutionException {
+    ScriptTimeouts timeouts = ScriptTimeouts.fromConfiguration(60, null);
+    assertEquals(60000, timeouts.get(new PurgeModulesScript()));
+  }
+
+  @Test
+  public void testPerScript() throws MojoExecutionException {
+    Map<String, String> perScript = new HashMap<String, String>();
+    perScript.put("Test", " 600 ");
+    ScriptTimeouts timeouts = ScriptTimeouts.fromConfiguration(60, perScript);
+    TestScript script = new TestScript(new ArrayList<File>(), new File("surefire"), "suite");
+    assertEquals(600000, timeouts.get(script));
+    assertEquals(60000, timeouts.get(new PurgeModulesScript()));
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testInvalidPerScript() throws MojoExecutionException {
+    Map<String, String> perScript = new HashMap<String, String>();
+    perScript.put("test", "forever");
+    ScriptTimeouts.fromConfiguration(60, perScript);
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testNegativeGlobal() throws MojoExecutionException {
+    ScriptTimeouts.fromConfiguration(-1, null);
+  }
+}
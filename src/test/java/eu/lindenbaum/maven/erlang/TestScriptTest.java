@@ -2,7 +2,6 @@ package eu.lindenbaum.maven.erlang;
 
 import static org.easymock.EasyMock.createStrictControl;
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.File;
@@ -39,10 +38,9 @@ public class TestScriptTest {
     String suiteName = "suiteName";
 
     TestScript script = new TestScript(tests, surefireDir, suiteName);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(3, arguments.arity());
   }
 
   @Test
@@ -1,6 +1,7 @@
 package eu.lindenbaum.maven.erlang;
 
 import static org.easymock.EasyMock.createStrictControl;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -37,10 +38,9 @@ public class UploadScriptTest {
     List<File> appFiles = Arrays.asList(new File("appFile"));
     List<File> resources = Arrays.asList(new File("resourceFile"));
     UploadScript script = new UploadScript(remoteNode, modules, appFiles, resources);
-    String expression = script.get();
-    assertNotNull(expression);
-    assertFalse(expression.isEmpty());
-    assertFalse(expression.contains("%s"));
+    OtpErlangList arguments = script.getArguments();
+    assertNotNull(arguments);
+    assertEquals(4, arguments.arity());
   }
 
   @Test
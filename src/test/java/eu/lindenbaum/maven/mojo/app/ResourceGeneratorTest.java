@@ -0,0 +1,96 @@
+package eu.lindenbaum.maven.mojo.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import eu.lindenbaum.maven.util.FileChecksums;
+import eu.lindenbaum.maven.util.FileUtils;
+import eu.lindenbaum.maven.util.MibGraph;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourceGeneratorTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File root;
+  private File priv;
+  private File mibs;
+  private File targetPriv;
+  private File mibState;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot();
+    this.priv = new File(this.root, "priv");
+    this.mibs = new File(this.root, "mibs");
+    this.targetPriv = new File(new File(this.root, "target"), "priv");
+    this.mibState = new File(new File(this.root, "target"), ".mib-state");
+    FileUtils.ensureDirectories(this.priv, this.mibs, this.targetPriv);
+  }
+
+  @Test
+  public void testCompiledMibsArePreserved() throws Exception {
+    FileUtils.writeFile(new File(this.priv, "app.conf"), "conf");
+    File base = new File(this.mibs, "BASE-MIB.mib");
+    File app = new File(this.mibs, "APP-MIB.mib");
+    FileUtils.writeFile(base, "BASE-MIB DEFINITIONS ::= BEGIN\nEND\n");
+    FileUtils.writeFile(app, "APP-MIB DEFINITIONS ::= BEGIN\nIMPORTS\n    base FROM BASE-MIB;\nEND\n");
+    File foreign = new File(this.targetPriv, "foreign.jar");
+    FileUtils.writeFile(foreign, "foreign");
+    FileUtils.writeFile(new File(this.targetPriv, "obsolete.conf"), "obsolete");
+    Collection<File> foreigns = Arrays.asList(foreign);
+
+    ResourceGenerator.syncResources(this.priv, this.targetPriv, this.mibs, foreigns, false);
+    assertEquals(2, compileMibs());
+    ResourceGenerator.syncResources(this.priv, this.targetPriv, this.mibs, foreigns, false);
+    assertEquals(0, compileMibs());
+    ResourceGenerator.syncResources(this.priv, this.targetPriv, this.mibs, foreigns, false);
+    assertEquals(0, compileMibs());
+
+    assertTrue(new File(this.targetPriv, "app.conf").isFile());
+    assertTrue(new File(this.targetPriv, "BASE-MIB.bin").isFile());
+    assertTrue(new File(this.targetPriv, "APP-MIB.bin").isFile());
+    assertTrue(foreign.isFile());
+    assertFalse(new File(this.targetPriv, "obsolete.conf").exists());
+
+    // the .bin files of removed MIBs are not preserved
+    app.delete();
+    ResourceGenerator.syncResources(this.priv, this.targetPriv, this.mibs, foreigns, false);
+    assertFalse(new File(this.targetPriv, "APP-MIB.bin").exists());
+    assertEquals(0, compileMibs());
+  }
+
+  /**
+   * Mimics the MIB compilation of the {@link Compiler}, returns the number of
+   * compiled MIBs.
+   */
+  private int compileMibs() throws MojoExecutionException {
+    List<File> mibFiles = FileUtils.getFilesRecursive(this.mibs, ".mib");
+    List<File> includes = Collections.singletonList(this.targetPriv);
+    MibGraph graph = MibGraph.of(mibFiles);
+    FileChecksums checksums = FileChecksums.load(this.mibState);
+    checksums.retainAll(mibFiles);
+    int compiled = 0;
+    for (List<File> level : graph.getLevels()) {
+      for (File mib : graph.getStale(level, this.targetPriv, checksums, includes)) {
+        FileUtils.writeFile(MibGraph.getBin(mib, this.targetPriv), mib.getName());
+        checksums.update(mib, graph.getImportedBins(mib, includes));
+        compiled++;
+      }
+    }
+    checksums.save();
+    return compiled;
+  }
+}
@@ -0,0 +1,148 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import eu.lindenbaum.maven.erlang.ModuleDependencies;
+import eu.lindenbaum.maven.erlang.RuntimeInfo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class BeamCacheTest {
+  @Rule
+  public final ResourceFolder folder = new ResourceFolder("beam-cache");
+
+  private File root;
+  private File cacheDir;
+  private File outdir;
+  private File restoreDir;
+  private File header;
+  private File source;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot();
+    this.cacheDir = this.folder.newFolder("cache");
+    this.outdir = new File(this.root, "ebin");
+    this.restoreDir = this.folder.newFolder("restored");
+    this.header = new File(this.root, "header.hrl");
+    this.source = new File(this.root, "module.erl");
+  }
+
+  @Test
+  public void testMiss() throws Exception {
+    BeamCache cache = createCache("R14B", 0);
+    assertNull(cache.restore(this.source, this.restoreDir));
+  }
+
+  @Test
+  public void testStoreAndRestore() throws Exception {
+    createCache("R14B", 0).store(dependencies(), this.outdir);
+
+    ModuleDependencies restored = createCache("R14B", 0).restore(this.source, this.restoreDir);
+    assertNotNull(restored);
+    assertEquals(this.source, restored.getSource());
+    assertEquals(Arrays.asList(this.header.getAbsoluteFile()), restored.getIncludes());
+    assertEquals(Arrays.asList("transform"), restored.getParseTransforms());
+    assertEquals(Arrays.asList("gen_server"), restored.getBehaviours());
+    assertTrue(new File(this.restoreDir, "module" + ErlConstants.BEAM_SUFFIX).isFile());
+  }
+
+  @Test
+  public void testChangedInclude() throws Exception {
+    createCache("R14B", 0).store(dependencies(), this.outdir);
+    FileUtils.writeFile(this.header, "-define(A, changed).");
+    assertNull(createCache("R14B", 0).restore(this.source, this.restoreDir));
+  }
+
+  @Test
+  public void testChangedRelease() throws Exception {
+    createCache("R14B", 0).store(dependencies(), this.outdir);
+    assertNull(createCache("R15B", 0).restore(this.source, this.restoreDir));
+  }
+
+  @Test
+  public void testChangedParseTransform() throws Exception {
+    File transform = new File(this.outdir, "transform" + ErlConstants.BEAM_SUFFIX);
+    FileUtils.writeFile(transform, "transform");
+    createCache("R14B", 0).store(dependencies(), this.outdir);
+    FileUtils.writeFile(transform, "changed transform");
+    assertNull(createCache("R14B", 0).restore(this.source, this.outdir));
+    FileUtils.writeFile(transform, "transform");
+    assertNotNull(createCache("R14B", 0).restore(this.source, this.outdir));
+  }
+
+  @Test
+  public void testPendingParseTransform() throws Exception {
+    File transform = new File(this.root, "transform.erl");
+    FileUtils.writeFile(transform, "-module(transform).");
+    createCache("R14B", 0).store(dependencies(), this.outdir);
+    BuildState state = BuildState.load(new File(this.root, "state"),
+                                       this.outdir,
+                                       Collections.<File> emptyList(),
+                                       Collections.<String> emptyList());
+    List<File> stale = Arrays.asList(transform, this.source);
+    assertEquals(0, createCache("R14B", 0).restore(stale, this.outdir, state).size());
+    assertEquals(Arrays.asList(this.source), createCache("R14B", 0).restore(Arrays.asList(this.source),
+                                                                            this.outdir,
+                                                                            state));
+  }
+
+  @Test
+  public void testEvict() throws Exception {
+    BeamCache cache = createCache("R14B", 1);
+    cache.store(dependencies(), this.outdir);
+    assertEquals(1, cache.evict());
+    assertNull(cache.restore(this.source, this.restoreDir));
+    assertFalse(new File(this.restoreDir, "module" + ErlConstants.BEAM_SUFFIX).exists());
+  }
+
+  private List<ModuleDependencies> dependencies() {
+    return Arrays.asList(new ModuleDependencies(this.source,
+                                                Arrays.asList(this.header.getAbsoluteFile()),
+                                                Arrays.asList("transform"),
+                                                Arrays.asList("gen_server")));
+  }
+
+  private BeamCache createCache(final String otpRelease, long maxSize) {
+    RuntimeInfo runtimeInfo = new RuntimeInfo() {
+      @Override
+      public String getVersion() {
+        return "5.8";
+      }
+
+      @Override
+      public File getRootDirectory() {
+        return new File("root");
+      }
+
+      @Override
+      public List<File> getPaths() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public String getOtpRelease() {
+        return otpRelease;
+      }
+
+      @Override
+      public File getLibDirectory() {
+        return new File("lib");
+      }
+    };
+    List<File> includes = Arrays.asList(this.root);
+    List<String> options = Arrays.asList("debug_info");
+    return new BeamCache(this.cacheDir, maxSize, this.root, runtimeInfo, includes, options);
+  }
+}
@@ -0,0 +1,338 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BeamFileTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File root;
+  private File beam;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot();
+    this.beam = new File(this.root, "server.beam");
+  }
+
+  @Test
+  public void testRead() throws Exception {
+    write(this.beam, beam(attributes(), new byte[]{ 1, 2, 3 }), false);
+    BeamFile beamFile = BeamFile.read(this.beam);
+    assertEquals("server", beamFile.getModule());
+    assertEquals(Arrays.asList("init/1", "code_change/3", "module_info/0"), beamFile.getExports());
+    assertTrue(beamFile.exports("code_change", 3));
+    assertFalse(beamFile.exports("code_change", 2));
+    assertEquals(Arrays.asList("gen_server", "application"), beamFile.getBehaviours());
+
+    List<OtpErlangObject> registered = beamFile.getAttribute("registered");
+    assertEquals(Arrays.<OtpErlangObject> asList(new OtpErlangAtom("server"), new OtpErlangAtom("server_sup")),
+                 registered);
+    assertEquals(Arrays.<OtpErlangObject> asList(new OtpErlangLong(1234567890123L)), beamFile.getAttribute("vsn"));
+    assertTrue(beamFile.getAttribute("author").isEmpty());
+    assertEquals(0, beamFile.getCompileInfo().arity());
+  }
+
+  @Test
+  public void testReadCompressed() throws Exception {
+    write(this.beam, beam(compress(attributes()), new byte[]{ 1, 2, 3 }), true);
+    BeamFile beamFile = BeamFile.read(this.beam);
+    assertEquals("server", beamFile.getModule());
+    assertEquals(Arrays.asList("gen_server", "application"), beamFile.getBehaviours());
+    assertEquals(2, beamFile.getAttribute("registered").size());
+  }
+
+  @Test
+  public void testReadUndecodableAttributes() throws Exception {
+    write(this.beam, beam(undecodableAttributes(), new byte[]{ 1, 2, 3 }), false);
+    BeamFile beamFile = BeamFile.read(this.beam);
+    assertEquals(2, beamFile.getAttributes().arity());
+    assertEquals(Arrays.<OtpErlangObject> asList(new OtpErlangAtom("gen_server")), beamFile.getAttribute("behaviour"));
+    assertEquals(Arrays.<OtpErlangObject> asList(new OtpErlangAtom("server")), beamFile.getAttribute("registered"));
+    assertTrue(beamFile.getAttribute("options").isEmpty());
+    assertTrue(beamFile.getAttribute("owner").isEmpty());
+    assertTrue(beamFile.getAttribute("tail").isEmpty());
+    assertTrue(beamFile.getAttribute("callback").isEmpty());
+  }
+
+  @Test
+  public void testMd5() throws Exception {
+    write(this.beam, beam(attributes(), new byte[]{ 1, 2, 3 }), false);
+    String md5 = BeamFile.read(this.beam).getMd5();
+    assertEquals(32, md5.length());
+
+    write(this.beam, beam(new byte[]{ (byte) 131, 106 }, new byte[]{ 1, 2, 3 }), false);
+    assertEquals(md5, BeamFile.read(this.beam).getMd5());
+
+    write(this.beam, beam(attributes(), new byte[]{ 1, 2, 4 }), false);
+    assertFalse(md5.equals(BeamFile.read(this.beam).getMd5()));
+  }
+
+  @Test
+  public void testMd5LikeLoader() throws Exception {
+    byte[] atoms = { 0, 0, 0, 1, 6, 's', 'e', 'r', 'v', 'e', 'r' };
+    byte[] code = { 0, 0, 0, 16, 0, 0, 0, 0, 0, 0, 0, (byte) 168, 0, 0, 0, 3, 0, 0, 0, 1 };
+    byte[] strings = { 'a', 'b' };
+    byte[] imports = { 0, 0, 0, 1, 0, 0, 0, 2, 0, 0, 0, 3, 0, 0, 0, 1 };
+    byte[] exports = { 0, 0, 0, 0 };
+    byte[] funs = new byte[4 + 24 + 2];
+    funs[3] = 1;
+    Arrays.fill(funs, 4, funs.length, (byte) 7);
+    byte[] literals = { 0, 0, 0, 5, 'x', 'y' };
+    List<String> ids = Arrays.asList("Atom", "Code", "StrT", "ImpT", "ExpT", "FunT", "LitT", "Attr", "CInf", "Line");
+    List<byte[]> data = Arrays.asList(atoms,
+                                      code,
+                                      strings,
+                                      imports,
+                                      exports,
+                                      funs,
+                                      literals,
+                                      attributes(),
+                                      new byte[]{ (byte) 131, 106 },
+                                      new byte[]{ 0, 0, 0, 0, 1 });
+    write(this.beam, beam(ids, data), false);
+
+    // the loader hashes the chunks in this order, zeroing the old unique
+    // value (the last four bytes) of each 24 byte fun table entry
+    MessageDigest digest = MessageDigest.getInstance("MD5");
+    digest.update(atoms);
+    digest.update(code);
+    digest.update(strings);
+    digest.update(imports);
+    digest.update(exports);
+    digest.update(funs, 0, 24);
+    digest.update(new byte[4]);
+    digest.update(funs, 28, 2);
+    digest.update(literals);
+    assertEquals(FileUtils.toHex(digest.digest()), BeamFile.read(this.beam).getMd5());
+  }
+
+  @Test
+  public void testMd5Fixtures() throws Exception {
+    URL resource = getClass().getClassLoader().getResource("beam-file");
+    File root = new File(resource.getFile());
+
+    BeamFile atu8 = BeamFile.read(new File(root, "md5_atu8.beam"));
+    assertEquals("md5_atu8", atu8.getModule());
+    assertEquals("2cf3d67e065436111a4f0d5ec8bda8d1", atu8.getMd5());
+
+    BeamFile atom = BeamFile.read(new File(root, "md5_atom.beam"));
+    assertEquals("md5_atom", atom.getModule());
+    assertEquals("19d1816e9d1c7a8722e5e9e7d1d39bb3", atom.getMd5());
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testNoBeamFile() throws Exception {
+    FileUtils.writeFile(this.beam, "-module(server).");
+    BeamFile.read(this.beam);
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testTruncated() throws Exception {
+    write(this.beam, Arrays.copyOf(beam(attributes(), new byte[]{ 1, 2, 3 }), 30), false);
+    BeamFile.read(this.beam).getExports();
+  }
+
+  /**
+   * Returns the encoded attributes
+   * {@code [{vsn,[1234567890123]},{behaviour,[gen_server]},{registered,[server,server_sup]},{behavior,[application]}]}.
+   */
+  private static byte[] attributes() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(131);
+    out.writeByte(108);
+    out.writeInt(4);
+    tuple(out, "vsn");
+    out.writeByte(108);
+    out.writeInt(1);
+    out.writeByte(110);
+    out.writeByte(8);
+    out.writeByte(0);
+    long vsn = 1234567890123L;
+    for (int i = 0; i < 8; ++i) {
+      out.writeByte((int) (vsn >> (8 * i)) & 0xff);
+    }
+    out.writeByte(106);
+    tuple(out, "behaviour");
+    atomList(out, "gen_server");
+    tuple(out, "registered");
+    atomList(out, "server", "server_sup");
+    tuple(out, "behavior");
+    atomList(out, "application");
+    out.writeByte(106);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns the encoded attributes
+   * {@code [{options,#{level => 1}},{behaviour,[gen_server]},{owner,<0.1.0>},{tail,[a|b]},{callback,fun lists:map/2},{registered,[server]}]}.
+   */
+  private static byte[] undecodableAttributes() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(131);
+    out.writeByte(108);
+    out.writeInt(6);
+    tuple(out, "options");
+    out.writeByte(116);
+    out.writeInt(1);
+    atom(out, "level");
+    out.writeByte(97);
+    out.writeByte(1);
+    tuple(out, "behaviour");
+    atomList(out, "gen_server");
+    tuple(out, "owner");
+    out.writeByte(88);
+    atom(out, "nonode@nohost");
+    out.writeInt(1);
+    out.writeInt(0);
+    out.writeInt(0);
+    tuple(out, "tail");
+    out.writeByte(108);
+    out.writeInt(1);
+    atom(out, "a");
+    atom(out, "b");
+    tuple(out, "callback");
+    out.writeByte(113);
+    atom(out, "lists");
+    atom(out, "map");
+    out.writeByte(97);
+    out.writeByte(2);
+    tuple(out, "registered");
+    atomList(out, "server");
+    out.writeByte(106);
+    return bytes.toByteArray();
+  }
+
+  private static void tuple(DataOutputStream out, String key) throws IOException {
+    out.writeByte(104);
+    out.writeByte(2);
+    atom(out, key);
+  }
+
+  private static void atomList(DataOutputStream out, String... atoms) throws IOException {
+    out.writeByte(108);
+    out.writeInt(atoms.length);
+    for (String atom : atoms) {
+      atom(out, atom);
+    }
+    out.writeByte(106);
+  }
+
+  private static void atom(DataOutputStream out, String atom) throws IOException {
+    out.writeByte(119);
+    out.writeByte(atom.length());
+    out.writeBytes(atom);
+  }
+
+  private static byte[] compress(byte[] term) throws IOException {
+    Deflater deflater = new Deflater();
+    deflater.setInput(term, 1, term.length - 1);
+    deflater.finish();
+    byte[] buffer = new byte[1024];
+    int length = deflater.deflate(buffer);
+    deflater.end();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(131);
+    out.writeByte(80);
+    out.writeInt(term.length - 1);
+    out.write(buffer, 0, length);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns a minimal {@code .beam} file with the given attribute and code
+   * chunks.
+   */
+  private static byte[] beam(byte[] attr, byte[] code) throws IOException {
+    ByteArrayOutputStream atomBytes = new ByteArrayOutputStream();
+    DataOutputStream atoms = new DataOutputStream(atomBytes);
+    List<String> names = Arrays.asList("server", "init", "code_change", "module_info");
+    atoms.writeInt(names.size());
+    for (String name : names) {
+      atoms.writeByte(name.length());
+      atoms.writeBytes(name);
+    }
+
+    ByteArrayOutputStream expBytes = new ByteArrayOutputStream();
+    DataOutputStream exports = new DataOutputStream(expBytes);
+    exports.writeInt(3);
+    int[][] entries = { { 2, 1, 2 }, { 3, 3, 4 }, { 4, 0, 6 } };
+    for (int[] entry : entries) {
+      for (int value : entry) {
+        exports.writeInt(value);
+      }
+    }
+
+    return beam(Arrays.asList("AtU8", "Code", "ExpT", "Attr"),
+                Arrays.asList(atomBytes.toByteArray(), code, expBytes.toByteArray(), attr));
+  }
+
+  /**
+   * Returns a {@code .beam} file with the given chunks.
+   */
+  private static byte[] beam(List<String> ids, List<byte[]> data) throws IOException {
+    ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream();
+    DataOutputStream chunks = new DataOutputStream(chunkBytes);
+    for (int i = 0; i < ids.size(); ++i) {
+      chunk(chunks, ids.get(i), data.get(i));
+    }
+
+    ByteArrayOutputStream beamBytes = new ByteArrayOutputStream();
+    DataOutputStream beam = new DataOutputStream(beamBytes);
+    beam.writeBytes("FOR1");
+    beam.writeInt(chunkBytes.size() + 4);
+    beam.writeBytes("BEAM");
+    beam.write(chunkBytes.toByteArray());
+    return beamBytes.toByteArray();
+  }
+
+  private static void chunk(DataOutputStream out, String id, byte[] data) throws IOException {
+    out.writeBytes(id);
+    out.writeInt(data.length);
+    out.write(data);
+    for (int i = data.length; i % 4 != 0; ++i) {
+      out.writeByte(0);
+    }
+  }
+
+  private static void write(File file, byte[] data, boolean compressed) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    if (compressed) {
+      out = new GZIPOutputStream(out);
+    }
+    try {
+      out.write(data);
+    }
+    finally {
+      out.close();
+    }
+  }
+}
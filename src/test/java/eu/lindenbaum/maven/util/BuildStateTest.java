@@ -0,0 +1,153 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import eu.lindenbaum.maven.erlang.CompileTime;
+import eu.lindenbaum.maven.erlang.CompilerResult;
+import eu.lindenbaum.maven.erlang.ModuleDependencies;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class BuildStateTest {
+  @Rule
+  public final ResourceFolder folder = new ResourceFolder("build-state");
+
+  private File root;
+  private File outdir;
+  private File stateFile;
+  private File header;
+  private File transform;
+  private File module;
+  private File other;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot();
+    this.outdir = new File(this.root, "ebin");
+    this.stateFile = new File(this.root, ".build-state");
+    this.header = new File(this.root, "header.hrl");
+    this.transform = new File(this.root, "transform.erl");
+    this.module = new File(this.root, "module.erl");
+    this.other = new File(this.root, "other.erl");
+  }
+
+  @Test
+  public void testEmptyState() throws Exception {
+    BuildState state = load(Collections.<String> emptyList());
+    assertEquals(sources(), state.getStale(sources(), this.outdir));
+  }
+
+  @Test
+  public void testUpToDate() throws Exception {
+    compileAll();
+    BuildState state = load(Collections.<String> emptyList());
+    assertTrue(state.getStale(sources(), this.outdir).isEmpty());
+  }
+
+  @Test
+  public void testChangedConfiguration() throws Exception {
+    compileAll();
+    BuildState state = load(Arrays.asList("debug_info"));
+    assertEquals(sources(), state.getStale(sources(), this.outdir));
+  }
+
+  @Test
+  public void testChangedInclude() throws Exception {
+    compileAll();
+    FileUtils.writeFile(this.header, "-define(A, changed).");
+    BuildState state = load(Collections.<String> emptyList());
+    assertEquals(Arrays.asList(this.module), state.getStale(sources(), this.outdir));
+  }
+
+  @Test
+  public void testChangedParseTransform() throws Exception {
+    compileAll();
+    FileUtils.writeFile(this.transform, "-module(transform). % changed");
+    BuildState state = load(Collections.<String> emptyList());
+    assertEquals(Arrays.asList(this.transform, this.module), state.getStale(sources(), this.outdir));
+  }
+
+  @Test
+  public void testMissingBeam() throws Exception {
+    compileAll();
+    new File(this.outdir, "other" + ErlConstants.BEAM_SUFFIX).delete();
+    BuildState state = load(Collections.<String> emptyList());
+    assertEquals(Arrays.asList(this.other), state.getStale(sources(), this.outdir));
+  }
+
+  @Test
+  public void testRemoveObsolete() throws Exception {
+    compileAll();
+    BuildState state = load(Collections.<String> emptyList());
+    List<File> sources = Arrays.asList(this.transform, this.module);
+    List<File> removed = state.removeObsolete(sources, this.outdir);
+    assertEquals(1, removed.size());
+    assertFalse(new File(this.outdir, "other" + ErlConstants.BEAM_SUFFIX).exists());
+    assertTrue(state.getStale(sources, this.outdir).isEmpty());
+  }
+
+  private BuildState load(List<String> options) {
+    return BuildState.load(this.stateFile, this.outdir, Arrays.asList(this.root), options);
+  }
+
+  private List<File> sources() {
+    return Arrays.asList(this.transform, this.module, this.other);
+  }
+
+  private void compileAll() throws Exception {
+    BuildState state = load(Collections.<String> emptyList());
+    final List<ModuleDependencies> dependencies = new ArrayList<ModuleDependencies>();
+    List<File> none = Collections.emptyList();
+    List<String> noModules = Collections.emptyList();
+    dependencies.add(new ModuleDependencies(this.transform, none, noModules, noModules));
+    dependencies.add(new ModuleDependencies(this.module,
+                                            Arrays.asList(this.header),
+                                            Arrays.asList("transform"),
+                                            noModules));
+    dependencies.add(new ModuleDependencies(this.other, none, noModules, Arrays.asList("gen_server")));
+    state.update(new CompilerResult() {
+      @Override
+      public List<String> getWarnings() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public List<File> getFailed() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public List<String> getErrors() {
+        return Collections.emptyList();
+      }
+
+      @Override
+      public List<File> getCompiled() {
+        return Arrays.asList(BuildStateTest.this.transform,
+                             BuildStateTest.this.module,
+                             BuildStateTest.this.other);
+      }
+
+      @Override
+      public List<ModuleDependencies> getDependencies() {
+        return dependencies;
+      }
+
+      @Override
+      public List<CompileTime> getTimes() {
+        return Collections.emptyList();
+      }
+    });
+    state.save();
+  }
+}
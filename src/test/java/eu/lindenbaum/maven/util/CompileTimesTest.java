@@ -0,0 +1,117 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.Arrays;
+import java.util.List;
+
+import eu.lindenbaum.maven.erlang.CompileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompileTimesTest {
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  private File base;
+  private File history;
+
+  @Before
+  public void setUp() throws Exception {
+    this.base = this.folder.getRoot();
+    this.history = new File(this.base, "compile-times.json");
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    CompileTimes times = CompileTimes.load(this.history, this.base);
+    assertTrue(times.isEmpty());
+    assertTrue(times.getSlowest(10).isEmpty());
+    times.save();
+    assertFalse(this.history.exists());
+  }
+
+  @Test
+  public void testSlowest() throws Exception {
+    CompileTimes times = CompileTimes.load(this.history, this.base);
+    times.add(Arrays.asList(time("src/fast.erl", 1000, 10),
+                            time("src/slow.erl", 3000, 30),
+                            time("src/medium.erl", 2000, 20)));
+    assertFalse(times.isEmpty());
+    List<String> slowest = times.getSlowest(2);
+    assertEquals(2, slowest.size());
+    assertEquals("     3.000 ms           30 reductions  src/slow.erl", slowest.get(0));
+    assertEquals("     2.000 ms           20 reductions  src/medium.erl", slowest.get(1));
+  }
+
+  @Test
+  public void testHistory() throws Exception {
+    CompileTimes first = CompileTimes.load(this.history, this.base);
+    first.add(Arrays.asList(time("src/a.erl", 1500, 10), time("src/b.erl", 2000, 20)));
+    first.save();
+    assertTrue(this.history.isFile());
+
+    CompileTimes second = CompileTimes.load(this.history, this.base);
+    second.add(Arrays.asList(time("src/a.erl", 1000, 10)));
+    assertEquals("     1.000 ms           10 reductions  src/a.erl (-0.500 ms)", second.getSlowest(1).get(0));
+    second.save();
+
+    String json = read(this.history);
+    assertTrue(json.startsWith("[\n  {\"timestamp\": "));
+    assertTrue(json.contains("\"files\": {\"src/a.erl\": {\"ms\": 1.500, \"reductions\": 10}, \"src/b.erl\": {\"ms\": 2.000, \"reductions\": 20}}},\n"));
+    assertTrue(json.endsWith("\"files\": {\"src/a.erl\": {\"ms\": 1.000, \"reductions\": 10}}}\n]\n"));
+  }
+
+  @Test
+  public void testHistoryLimit() throws Exception {
+    for (int i = 1; i <= 25; ++i) {
+      CompileTimes times = CompileTimes.load(this.history, this.base);
+      times.add(Arrays.asList(time("src/a.erl", i * 1000, i)));
+      times.save();
+    }
+    String json = read(this.history);
+    assertEquals(20, json.split("\"timestamp\"").length - 1);
+    assertFalse(json.contains("\"ms\": 5.000,"));
+    assertTrue(json.contains("\"ms\": 6.000,"));
+  }
+
+  @Test
+  public void testUnmeasuredReductions() throws Exception {
+    CompileTimes first = CompileTimes.load(this.history, this.base);
+    first.add(Arrays.asList(time("src/a.erl", 2000, -1)));
+    assertEquals("     2.000 ms          n/a reductions  src/a.erl", first.getSlowest(1).get(0));
+    first.save();
+    assertTrue(read(this.history).contains("\"files\": {\"src/a.erl\": {\"ms\": 2.000, \"reductions\": null}}}"));
+
+    CompileTimes second = CompileTimes.load(this.history, this.base);
+    second.add(Arrays.asList(time("src/a.erl", 1000, 10)));
+    assertEquals("     1.000 ms           10 reductions  src/a.erl (-1.000 ms)", second.getSlowest(1).get(0));
+  }
+
+  private static String read(File file) throws Exception {
+    StringBuilder data = new StringBuilder();
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        data.append(line).append("\n");
+      }
+    }
+    finally {
+      reader.close();
+    }
+    return data.toString();
+  }
+
+  private CompileTime time(String path, long micros, long reductions) {
+    return new CompileTime(new File(this.base, path), micros, reductions);
+  }
+}
@@ -0,0 +1,110 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.ericsson.otp.erlang.OtpErlangAtom;
+import com.ericsson.otp.erlang.OtpErlangBinary;
+import com.ericsson.otp.erlang.OtpErlangDouble;
+import com.ericsson.otp.erlang.OtpErlangList;
+import com.ericsson.otp.erlang.OtpErlangLong;
+import com.ericsson.otp.erlang.OtpErlangObject;
+import com.ericsson.otp.erlang.OtpErlangString;
+import com.ericsson.otp.erlang.OtpErlangTuple;
+
+import org.junit.Test;
+
+public class ErlTermReaderTest {
+  @Test
+  public void testEmpty() throws Exception {
+    assertTrue(ErlTermReader.parse("").isEmpty());
+    assertTrue(ErlTermReader.parse("  % comment only\n").isEmpty());
+  }
+
+  @Test
+  public void testApplication() throws Exception {
+    String app = "%% -*- erlang -*-\n" //
+                 + "{application, 'my_app',\n" //
+                 + " [{description, \"An \" \"application\"},\n" //
+                 + "  {vsn, \"1.0.0\"},\n" //
+                 + "  {modules, [mod_a, 'Mod_B']},\n" //
+                 + "  {registered, []},\n" //
+                 + "  {mod, {mod_a, []}},\n" //
+                 + "  {env, [{port, 8080}, {ratio, -1.5e2}, {mask, 16#ff}, {char, $\\n}, {bin, <<\"a\", 98>>}]}]}.\n";
+    List<OtpErlangObject> terms = ErlTermReader.parse(app);
+    assertEquals(1, terms.size());
+    OtpErlangTuple application = (OtpErlangTuple) terms.get(0);
+    assertEquals(3, application.arity());
+    assertEquals(new OtpErlangAtom("application"), application.elementAt(0));
+    assertEquals(new OtpErlangAtom("my_app"), application.elementAt(1));
+
+    OtpErlangObject[] props = ((OtpErlangList) application.elementAt(2)).elements();
+    assertEquals(tuple(atom("description"), new OtpErlangString("An application")), props[0]);
+    assertEquals(tuple(atom("vsn"), new OtpErlangString("1.0.0")), props[1]);
+    assertEquals(tuple(atom("modules"), list(atom("mod_a"), atom("Mod_B"))), props[2]);
+    assertEquals(tuple(atom("registered"), new OtpErlangList()), props[3]);
+    assertEquals(tuple(atom("mod"), tuple(atom("mod_a"), new OtpErlangList())), props[4]);
+
+    OtpErlangObject[] env = ((OtpErlangList) ((OtpErlangTuple) props[5]).elementAt(1)).elements();
+    assertEquals(tuple(atom("port"), new OtpErlangLong(8080)), env[0]);
+    assertEquals(tuple(atom("ratio"), new OtpErlangDouble(-150.0)), env[1]);
+    assertEquals(tuple(atom("mask"), new OtpErlangLong(255)), env[2]);
+    assertEquals(tuple(atom("char"), new OtpErlangLong('\n')), env[3]);
+    assertEquals(tuple(atom("bin"), new OtpErlangBinary("ab".getBytes())), env[4]);
+  }
+
+  @Test
+  public void testMultipleTerms() throws Exception {
+    List<OtpErlangObject> terms = ErlTermReader.parse("a.\n{b, 'it\\'s'}. % comment\n[c | [d]].");
+    assertEquals(3, terms.size());
+    assertEquals(atom("a"), terms.get(0));
+    assertEquals(tuple(atom("b"), atom("it's")), terms.get(1));
+    assertEquals(list(atom("c"), atom("d")), terms.get(2));
+  }
+
+  @Test
+  public void testEscapes() throws Exception {
+    List<OtpErlangObject> terms = ErlTermReader.parse("\"tab\\tquote\\\"octal\\101hex\\x42\\x{43}\".");
+    assertEquals(new OtpErlangString("tab\tquote\"octalAhexBC"), terms.get(0));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMissingFullStop() throws Exception {
+    ErlTermReader.parse("{application, my_app, []}");
+  }
+
+  @Test(expected = IOException.class)
+  public void testMacro() throws Exception {
+    ErlTermReader.parse("{application, ?APP, []}.");
+  }
+
+  @Test(expected = IOException.class)
+  public void testMap() throws Exception {
+    ErlTermReader.parse("#{key => value}.");
+  }
+
+  @Test(expected = IOException.class)
+  public void testVariable() throws Exception {
+    ErlTermReader.parse("{vsn, Vsn}.");
+  }
+
+  @Test(expected = IOException.class)
+  public void testReservedWord() throws Exception {
+    ErlTermReader.parse("{when, 1}.");
+  }
+
+  private static OtpErlangAtom atom(String name) {
+    return new OtpErlangAtom(name);
+  }
+
+  private static OtpErlangTuple tuple(OtpErlangObject... elements) {
+    return new OtpErlangTuple(elements);
+  }
+
+  private static OtpErlangList list(OtpErlangObject... elements) {
+    return new OtpErlangList(elements);
+  }
+}
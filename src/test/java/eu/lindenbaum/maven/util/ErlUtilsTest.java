@@ -61,6 +61,30 @@ public class ErlUtilsTest {
     assertEquals("[]", result);
   }
 
+  @Test
+  public void testToFilenameTermList() {
+    List<File> list = Arrays.asList(new File("pom.xml"), new File("non_existent"), new File("lgpl.txt"));
+    OtpErlangList result = ErlUtils.toFilenameTermList(list);
+    assertEquals(2, result.arity());
+    assertTrue(ErlUtils.toString(result.elementAt(0)).endsWith("pom.xml"));
+    assertTrue(ErlUtils.toString(result.elementAt(1)).endsWith("lgpl.txt"));
+  }
+
+  @Test
+  public void testToModuleTermList() {
+    List<File> list = Arrays.asList(new File("pom.xml"), new File("non_existent"));
+    OtpErlangList result = ErlUtils.toModuleTermList(list);
+    assertEquals(1, result.arity());
+    assertEquals(new OtpErlangAtom("pom.xml"), result.elementAt(0));
+  }
+
+  @Test
+  public void testToAtomTermList() {
+    OtpErlangList result = ErlUtils.toAtomTermList(Arrays.asList("a", "b"));
+    assertEquals(new OtpErlangList(new OtpErlangObject[]{ new OtpErlangAtom("a"), new OtpErlangAtom("b") }),
+                 result);
+  }
+
   @Test(expected = NullPointerException.class)
   public void testToStringIsNotNullSafe() {
     ErlUtils.toString(null);
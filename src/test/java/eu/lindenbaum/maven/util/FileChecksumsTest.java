@@ -0,0 +1,110 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class FileChecksumsTest {
+  @Rule
+  public final ResourceFolder folder = new ResourceFolder("file-checksums");
+
+  private File root;
+  private File stateFile;
+  private File lexer;
+  private File parser;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot();
+    this.stateFile = new File(this.root, ".generator-state");
+    this.lexer = new File(this.root, "lexer.xrl");
+    this.parser = new File(this.root, "parser.yrl");
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    FileChecksums checksums = FileChecksums.load(this.stateFile);
+    assertTrue(checksums.isChanged(this.lexer));
+    assertTrue(checksums.isChanged(this.parser));
+  }
+
+  @Test
+  public void testUnchanged() throws Exception {
+    FileChecksums checksums = FileChecksums.load(this.stateFile);
+    checksums.update(this.lexer);
+    checksums.update(this.parser);
+    checksums.save();
+
+    FileUtils.touch(this.lexer);
+    checksums = FileChecksums.load(this.stateFile);
+    assertFalse(checksums.isChanged(this.lexer));
+    assertFalse(checksums.isChanged(this.parser));
+  }
+
+  @Test
+  public void testChanged() throws Exception {
+    FileChecksums checksums = FileChecksums.load(this.stateFile);
+    checksums.update(this.lexer);
+    checksums.update(this.parser);
+    checksums.save();
+
+    FileUtils.writeFile(this.parser, "Nonterminals list elements.");
+    checksums = FileChecksums.load(this.stateFile);
+    assertFalse(checksums.isChanged(this.lexer));
+    assertTrue(checksums.isChanged(this.parser));
+  }
+
+  @Test
+  public void testConfiguration() throws Exception {
+    FileChecksums checksums = FileChecksums.load(this.stateFile, "R14B04");
+    checksums.update(this.lexer);
+    checksums.save();
+
+    assertFalse(FileChecksums.load(this.stateFile, "R14B04").isChanged(this.lexer));
+    assertTrue(FileChecksums.load(this.stateFile, "R15B").isChanged(this.lexer));
+    assertTrue(FileChecksums.load(this.stateFile).isChanged(this.lexer));
+  }
+
+  @Test
+  public void testRemove() throws Exception {
+    FileChecksums checksums = FileChecksums.load(this.stateFile);
+    checksums.update(this.lexer);
+    checksums.update(this.parser);
+    checksums.remove(this.lexer);
+    checksums.save();
+
+    checksums = FileChecksums.load(this.stateFile);
+    assertTrue(checksums.isChanged(this.lexer));
+    assertFalse(checksums.isChanged(this.parser));
+
+    checksums.retainAll(Arrays.asList(this.lexer));
+    checksums.save();
+    checksums = FileChecksums.load(this.stateFile);
+    assertTrue(checksums.isChanged(this.parser));
+  }
+
+  @Test
+  public void testDependencies() throws Exception {
+    File bin = new File(this.root, "IMPORTED.bin");
+    FileUtils.writeFile(bin, "1");
+    FileChecksums checksums = FileChecksums.load(this.stateFile);
+    checksums.update(this.lexer, Arrays.asList(bin));
+    checksums.save();
+
+    checksums = FileChecksums.load(this.stateFile);
+    assertFalse(checksums.isChanged(this.lexer, Arrays.asList(bin)));
+    assertTrue(checksums.isChanged(this.lexer, Arrays.asList(bin, this.parser)));
+    assertTrue(checksums.isChanged(this.lexer, Collections.<File> emptyList()));
+
+    FileUtils.writeFile(bin, "2");
+    assertTrue(checksums.isChanged(this.lexer, Arrays.asList(bin)));
+    assertFalse(checksums.isChanged(this.lexer));
+  }
+}
@@ -0,0 +1,81 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class FileIndexTest {
+  @Rule
+  public final ResourceFolder folder = new ResourceFolder("file-index");
+
+  private File root;
+  private File app;
+  private File other;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot().getAbsoluteFile();
+    this.app = new File(this.root, "app-1.0");
+    this.other = new File(this.root, "other-1.0");
+    File svn = new File(this.app, ".svn");
+    FileUtils.ensureDirectories(svn);
+    FileUtils.writeFile(new File(svn, "ignored.beam"), "");
+    FileIndex.invalidate(this.root);
+  }
+
+  @After
+  public void tearDown() {
+    FileIndex.invalidate(this.root);
+  }
+
+  @Test
+  public void testGetFiles() {
+    FileIndex index = FileIndex.get(this.root);
+    assertEquals(new HashSet<File>(FileUtils.getFilesRecursive(this.root, ".beam")),
+                 new HashSet<File>(index.getFiles(".beam")));
+    assertEquals(FileUtils.getFilesRecursive(this.app, ".beam"), index.getFiles(this.app, ".beam"));
+    assertEquals(FileUtils.getFilesRecursive(this.app, ""), index.getFiles(this.app, ""));
+    assertEquals(Arrays.asList(new File(new File(this.other, "ebin"), "other.beam")),
+                 index.getFiles(Arrays.asList(this.other, new File(this.root, "missing")), ".beam"));
+  }
+
+  @Test
+  public void testGetDirectories() {
+    FileIndex index = FileIndex.get(this.root);
+    assertEquals(new HashSet<File>(FileUtils.getDirectoriesRecursive(this.root, ".beam")),
+                 new HashSet<File>(index.getDirectories(".beam")));
+    assertEquals(Arrays.asList(new File(this.app, "include")), index.getDirectories(".hrl"));
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    FileIndex index = FileIndex.get(this.root);
+    assertSame(index, FileIndex.get(this.root));
+
+    FileUtils.writeFile(new File(new File(this.other, "ebin"), "new.beam"), "");
+    FileIndex.invalidate(this.root);
+    assertEquals(3, FileIndex.get(this.root).getFiles(".beam").size());
+  }
+
+  @Test
+  public void testModified() throws Exception {
+    FileIndex index = FileIndex.get(this.root);
+    File ebin = new File(this.other, "ebin");
+    FileUtils.writeFile(new File(ebin, "new.beam"), "");
+    assertTrue(ebin.setLastModified(ebin.lastModified() - 10000));
+    assertEquals(3, FileIndex.get(this.root).getFiles(".beam").size());
+
+    FileUtils.removeDirectory(this.root);
+    assertTrue(index != FileIndex.get(this.root));
+    assertTrue(FileIndex.get(this.root).getFiles(".beam").isEmpty());
+  }
+}
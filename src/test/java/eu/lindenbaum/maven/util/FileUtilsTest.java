@@ -6,6 +6,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -58,6 +59,59 @@ public class FileUtilsTest {
     assertFalse(new File(to, "subdirectory3").isDirectory());
   }
 
+  @Test
+  public void testSyncDirectory() throws Exception {
+    File root = new File(new File("target"), "sync-directory-test");
+    File from = new File(root, "priv");
+    File to = new File(root, "target-priv");
+    try {
+      FileUtils.ensureDirectories(new File(from, "sub"));
+      File unchanged = new File(from, "unchanged.txt");
+      File changed = new File(new File(from, "sub"), "changed.txt");
+      File removed = new File(from, "removed.txt");
+      FileUtils.writeFile(unchanged, "unchanged");
+      FileUtils.writeFile(changed, "changed", true);
+      FileUtils.writeFile(removed, "removed");
+      File preserved = new File(to, "foreign.jar");
+      Collection<File> preserve = Arrays.asList(preserved);
+      assertEquals(3, FileUtils.syncDirectory(from, to, FileUtils.NULL_FILTER, false, preserve).size());
+      assertTrue(new File(new File(to, "sub"), "changed.txt").canExecute());
+
+      File unchangedCopy = new File(to, "unchanged.txt");
+      assertTrue(unchangedCopy.setLastModified(unchanged.lastModified() + 10000));
+      long lastModified = unchangedCopy.lastModified();
+      FileUtils.writeFile(changed, "changed!");
+      assertTrue(new File(new File(to, "sub"), "changed.txt").setLastModified(changed.lastModified() - 10000));
+      removed.delete();
+      FileUtils.writeFile(preserved, "foreign");
+      FileUtils.ensureDirectories(new File(to, "obsolete"));
+      FileUtils.writeFile(new File(new File(to, "obsolete"), "obsolete.txt"), "obsolete");
+
+      Collection<File> copied = FileUtils.syncDirectory(from, to, FileUtils.NULL_FILTER, false, preserve);
+      assertEquals(Arrays.asList(changed), copied);
+      assertEquals(lastModified, unchangedCopy.lastModified());
+      assertEquals("changed!", org.codehaus.plexus.util.FileUtils.fileRead(new File(new File(to, "sub"), "changed.txt")));
+      assertTrue(new File(new File(to, "sub"), "changed.txt").canExecute());
+      assertFalse(new File(to, "removed.txt").exists());
+      assertFalse(new File(to, "obsolete").exists());
+      assertTrue(preserved.isFile());
+
+      assertTrue(unchangedCopy.setLastModified(unchanged.lastModified() - 10000));
+      assertEquals(0, FileUtils.syncDirectory(from, to, FileUtils.NULL_FILTER, true, preserve).size());
+      assertEquals(unchanged.lastModified(), unchangedCopy.lastModified());
+      assertEquals(0, FileUtils.syncDirectory(from, to, FileUtils.NULL_FILTER, false, preserve).size());
+      assertTrue(unchangedCopy.setLastModified(unchanged.lastModified() - 10000));
+      assertEquals(1, FileUtils.syncDirectory(from, to, FileUtils.NULL_FILTER, false, preserve).size());
+
+      FileUtils.removeDirectory(from);
+      assertEquals(0, FileUtils.syncDirectory(from, to, FileUtils.NULL_FILTER, false, preserve).size());
+      assertEquals(Arrays.asList("foreign.jar"), Arrays.asList(to.list()));
+    }
+    finally {
+      FileUtils.removeDirectory(root);
+    }
+  }
+
   @Test
   public void testGetDirectoriesRecursive() {
     URL resource = getClass().getClassLoader().getResource("file-utils");
@@ -65,4 +119,10 @@ public class FileUtilsTest {
     List<File> files = FileUtils.getDirectoriesRecursive(root, ErlConstants.BEAM_SUFFIX);
     assertEquals(1, files.size());
   }
+
+  @Test
+  public void testGetChecksum() throws Exception {
+    assertEquals("d41d8cd98f00b204e9800998ecf8427e", FileUtils.getChecksum(""));
+    assertEquals("900150983cd24fb0d6963f7d28e17f72", FileUtils.getChecksum("abc"));
+  }
 }
@@ -0,0 +1,23 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+public class MavenUtilsTest {
+  @Test
+  public void testGetReactorScope() {
+    String a = MavenUtils.getReactorScope(new File(new File("a"), "app").getAbsolutePath());
+    String b = MavenUtils.getReactorScope(new File(new File("b"), "app").getAbsolutePath());
+    assertTrue(a.startsWith("app-"));
+    assertTrue(b.startsWith("app-"));
+    assertFalse(a.equals(b));
+    assertEquals(a, MavenUtils.getReactorScope(new File(new File(new File("a"), "app"), "..").getAbsolutePath()
+                                               + File.separator + "app"));
+    assertEquals("reactor", MavenUtils.getReactorScope(null));
+  }
+}
@@ -0,0 +1,72 @@
+package eu.lindenbaum.maven.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class MibGraphTest {
+  @Rule
+  public final ResourceFolder folder = new ResourceFolder("mib-graph");
+
+  private File root;
+  private File base;
+  private File types;
+  private File app;
+  private File other;
+
+  @Before
+  public void setUp() throws Exception {
+    this.root = this.folder.getRoot();
+    this.base = new File(this.root, "BASE-MIB" + ErlConstants.MIB_SUFFIX);
+    this.types = new File(this.root, "TYPES-MIB" + ErlConstants.MIB_SUFFIX);
+    this.app = new File(this.root, "APP-MIB" + ErlConstants.MIB_SUFFIX);
+    this.other = new File(this.root, "OTHER-MIB" + ErlConstants.MIB_SUFFIX);
+  }
+
+  @Test
+  public void testImports() throws Exception {
+    MibGraph graph = MibGraph.of(Arrays.asList(this.app, this.types, this.base, this.other));
+    assertEquals("[SNMPv2-SMI]", graph.getImports(this.base).toString());
+    assertEquals("[BASE-MIB, SNMPv2-TC]", graph.getImports(this.types).toString());
+    assertEquals("[TYPES-MIB, BASE-MIB]", graph.getImports(this.app).toString());
+    assertEquals("[]", graph.getImports(this.other).toString());
+  }
+
+  @Test
+  public void testLevels() throws Exception {
+    MibGraph graph = MibGraph.of(Arrays.asList(this.app, this.types, this.base, this.other));
+    List<List<File>> levels = graph.getLevels();
+    assertEquals(3, levels.size());
+    assertEquals(Arrays.asList(this.base, this.other), levels.get(0));
+    assertEquals(Arrays.asList(this.types), levels.get(1));
+    assertEquals(Arrays.asList(this.app), levels.get(2));
+  }
+
+  @Test
+  public void testImportedBins() throws Exception {
+    File bin = new File(this.root, "BASE-MIB" + ErlConstants.BIN_SUFFIX);
+    FileUtils.writeFile(bin, "");
+    MibGraph graph = MibGraph.of(Arrays.asList(this.app, this.types, this.base));
+    assertEquals(Arrays.asList(bin), graph.getImportedBins(this.app, Arrays.asList(this.root)));
+  }
+
+  @Test(expected = MojoExecutionException.class)
+  public void testCyclicImports() throws Exception {
+    File a = mib("A-MIB", "IMPORTS x FROM B-MIB;\n");
+    File b = mib("B-MIB", "IMPORTS y FROM A-MIB;\n");
+    MibGraph.of(Arrays.asList(a, b));
+  }
+
+  private File mib(String name, String imports) throws Exception {
+    File file = new File(this.root, name + ErlConstants.MIB_SUFFIX);
+    FileUtils.writeFile(file, name + " DEFINITIONS ::= BEGIN\n" + imports + "END\n");
+    return file;
+  }
+}
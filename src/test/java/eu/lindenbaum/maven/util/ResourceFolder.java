@@ -0,0 +1,36 @@
+package eu.lindenbaum.maven.util;
+
+import java.io.File;
+import java.net.URL;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * A {@link TemporaryFolder} populated with a copy of a directory tree checked
+ * in below {@code src/test/resources}. Tests may modify the copy freely, it
+ * gets removed after each test.
+ * 
+ * @author agent <agent@local>
+ */
+public final class ResourceFolder extends TemporaryFolder {
+  private final String resource;
+
+  /**
+   * Creates a folder populated with the content of a resource directory.
+   * 
+   * @param resource the name of the resource directory to copy
+   */
+  public ResourceFolder(String resource) {
+    this.resource = resource;
+  }
+
+  @Override
+  protected void before() throws Throwable {
+    super.before();
+    URL url = getClass().getClassLoader().getResource(this.resource);
+    if (url == null) {
+      throw new IllegalStateException("missing test resource " + this.resource);
+    }
+    FileUtils.copyDirectory(new File(url.getFile()), getRoot(), FileUtils.NULL_FILTER);
+  }
+}
@@ -0,0 +1 @@
+-module(module).
\ No newline at end of file
@@ -0,0 +1 @@
+-module(other).
\ No newline at end of file
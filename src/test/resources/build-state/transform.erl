@@ -0,0 +1 @@
+-module(transform).
\ No newline at end of file